@@ -0,0 +1,44 @@
+package de.nurrobin.smpstats;
+
+import java.util.Optional;
+
+/**
+ * Timings of the autosave flushes since startup. Each flush writes every online player's stats and
+ * timeline snapshot in one transaction, so its duration is what an autosave costs the database.
+ */
+public class FlushMetrics {
+    private long flushes;
+    private long totalNanos;
+    private long maxNanos;
+    private Flush last;
+
+    /**
+     * Records one finished flush.
+     *
+     * @param players records written
+     * @param changed records that differed from their stored version
+     * @param nanos   time from collecting the records to the commit
+     */
+    public synchronized void record(int players, int changed, long nanos) {
+        flushes++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        last = new Flush(System.currentTimeMillis(), players, changed, nanos / 1_000_000.0);
+    }
+
+    /**
+     * Returns the current figures, or empty before the first flush.
+     */
+    public synchronized Optional<Snapshot> snapshot() {
+        if (last == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Snapshot(flushes, totalNanos / 1_000_000.0 / flushes, maxNanos / 1_000_000.0, last));
+    }
+
+    public record Flush(long finishedAt, int players, int changed, double millis) {
+    }
+
+    public record Snapshot(long flushes, double averageMillis, double maxMillis, Flush last) {
+    }
+}
@@ -19,6 +19,7 @@ import de.nurrobin.smpstats.moments.MomentConfigParser;
 import de.nurrobin.smpstats.heatmap.HotspotDefinition;
 import de.nurrobin.smpstats.social.SocialStatsService;
 import de.nurrobin.smpstats.timeline.TimelineService;
+import de.nurrobin.smpstats.retention.RetentionService;
 import de.nurrobin.smpstats.timeline.DeathReplayService;
 import de.nurrobin.smpstats.health.ServerHealthService;
 import de.nurrobin.smpstats.health.HealthThresholds;
@@ -39,7 +40,7 @@ import java.sql.SQLException;
 import java.util.Objects;
 
 public class SMPStats extends JavaPlugin {
-    private static final int CONFIG_VERSION = 7;
+    private static final int CONFIG_VERSION = 13;
     private StatsStorage storage;
     private StatsService statsService;
     private Settings settings;
@@ -50,6 +51,7 @@ public class SMPStats extends JavaPlugin {
     private SocialStatsService socialStatsService;
     private TimelineService timelineService;
     private DeathReplayService deathReplayService;
+    private RetentionService retentionService;
     private ServerHealthService serverHealthService;
     private StoryService storyService;
     private GuiManager guiManager;
@@ -77,6 +79,7 @@ public class SMPStats extends JavaPlugin {
         this.socialStatsService = new SocialStatsService(this, storage, settings);
         this.timelineService = new TimelineService(this, storage, settings);
         this.deathReplayService = new DeathReplayService(this, storage, settings);
+        this.retentionService = new RetentionService(this, storage, settings, momentService);
         this.serverHealthService = new ServerHealthService(this, settings);
         this.storyService = new StoryService(this, statsService, storage, momentService, settings);
         this.guiManager = new GuiManager(this);
@@ -94,6 +97,9 @@ public class SMPStats extends JavaPlugin {
         if (deathReplayService != null) {
             deathReplayService.start();
         }
+        if (retentionService != null) {
+            retentionService.start();
+        }
         if (serverHealthService != null) {
             serverHealthService.start();
         }
@@ -126,6 +132,9 @@ public class SMPStats extends JavaPlugin {
         if (deathReplayService != null) {
             deathReplayService.shutdown();
         }
+        if (retentionService != null) {
+            retentionService.shutdown();
+        }
         if (serverHealthService != null) {
             serverHealthService.shutdown();
         }
@@ -222,6 +231,11 @@ public class SMPStats extends JavaPlugin {
             deathReplayService.updateSettings(settings);
             deathReplayService.start();
         }
+        if (retentionService != null) {
+            retentionService.shutdown();
+            retentionService.updateSettings(settings);
+            retentionService.start();
+        }
         if (serverHealthService != null) {
             serverHealthService.shutdown();
             serverHealthService.updateSettings(settings);
@@ -320,6 +334,39 @@ public class SMPStats extends JavaPlugin {
         
         // GUI settings
         boolean guiAnimatedBordersEnabled = config.getBoolean("gui.animated_borders", true);
+        
+        Settings.RateLimitSettings rateLimits = new Settings.RateLimitSettings(
+                config.getBoolean("http.rate_limit.enabled", true),
+                Math.max(1, config.getInt("http.rate_limit.standard.burst", 60)),
+                Math.max(1, config.getInt("http.rate_limit.standard.per_minute", 120)),
+                Math.max(1, config.getInt("http.rate_limit.heavy.burst", 30)),
+                Math.max(1, config.getInt("http.rate_limit.heavy.per_minute", 60))
+        );
+        java.util.Map<String, Integer> endpointLimits = new java.util.LinkedHashMap<>();
+        org.bukkit.configuration.ConfigurationSection endpointSection = config.getConfigurationSection("http.endpoint_limits");
+        if (endpointSection != null) {
+            for (String path : endpointSection.getKeys(false)) {
+                endpointLimits.put(path, Math.max(1, endpointSection.getInt(path)));
+            }
+        }
+        Settings.HttpSettings httpSettings = new Settings.HttpSettings(
+                Math.max(1, config.getInt("http.max_concurrent_requests", 64)),
+                Math.max(1, config.getInt("http.max_requests_per_endpoint", 16)),
+                endpointLimits,
+                Math.max(1, config.getInt("http.max_stream_subscribers", 32)),
+                rateLimits
+        );
+        
+        Settings.RetentionSettings retentionSettings = new Settings.RetentionSettings(
+                config.getBoolean("retention.enabled", true),
+                Math.max(1, config.getInt("retention.interval_minutes", 60)),
+                Math.min(5000, Math.max(1, config.getInt("retention.batch_size", 500))),
+                config.getBoolean("retention.archive", false),
+                parseRetentionPolicy(config, "retention.moments", 0),
+                // Without a row cap the death_replays table would grow forever, so it follows death_replay.limit
+                parseRetentionPolicy(config, "retention.death_replays", deathReplayLimit),
+                Math.max(0, config.getInt("retention.timeline_hourly_days", 14))
+        );
 
         return new Settings(movement, blocks, kills, biomes, crafting, damage, consumption,
                 apiEnabled, apiBindAddress, apiPort, apiKey, autosaveMinutes, skillWeights,
@@ -328,7 +375,15 @@ public class SMPStats extends JavaPlugin {
                 deathReplayEnabled, deathReplayInventoryItems, deathReplayNearbyRadius, deathReplayLimit,
                 healthEnabled, healthSampleMinutes, healthChunkWeight, healthEntityWeight, healthHopperWeight, healthRedstoneWeight, healthThresholds,
                 storyEnabled, storyIntervalDays, storySummaryHour, storyWebhookUrl, storyTopLimit, storyRecentMoments,
-                dashboardSettings, guiAnimatedBordersEnabled);
+                dashboardSettings, guiAnimatedBordersEnabled, httpSettings, retentionSettings);
+    }
+    
+    private Settings.RetentionPolicy parseRetentionPolicy(FileConfiguration config, String path, int defaultMaxRows) {
+        return new Settings.RetentionPolicy(
+                Math.max(0, config.getInt(path + ".max_age_days", 0)),
+                Math.max(0, config.getInt(path + ".max_rows", defaultMaxRows)),
+                Math.max(0, config.getInt(path + ".max_rows_per_player", 0))
+        );
     }
     
     private Settings.DashboardSettings parseDashboardSettings(FileConfiguration config) {
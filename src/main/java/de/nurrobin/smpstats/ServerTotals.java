@@ -0,0 +1,137 @@
+package de.nurrobin.smpstats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-wide sums over all player records, maintained incrementally so reading them does not
+ * depend on the number of players. {@link #apply(StatsRecord, StatsRecord)} folds in the change
+ * between two versions of one player's record.
+ */
+public class ServerTotals {
+    private long players;
+    private long playtimeMillis;
+    private long deaths;
+    private long playerKills;
+    private long mobKills;
+    private long blocksBroken;
+    private long blocksPlaced;
+    private double distance;
+    // Biome -> number of players that have visited it, so removals keep the union correct
+    private final Map<String, Integer> biomePlayers;
+
+    public ServerTotals() {
+        this(0, 0, 0, 0, 0, 0, 0, 0, Map.of());
+    }
+
+    public ServerTotals(long players, long playtimeMillis, long deaths, long playerKills, long mobKills,
+                        long blocksBroken, long blocksPlaced, double distance, Map<String, Integer> biomePlayers) {
+        this.players = players;
+        this.playtimeMillis = playtimeMillis;
+        this.deaths = deaths;
+        this.playerKills = playerKills;
+        this.mobKills = mobKills;
+        this.blocksBroken = blocksBroken;
+        this.blocksPlaced = blocksPlaced;
+        this.distance = distance;
+        this.biomePlayers = new HashMap<>(biomePlayers);
+    }
+
+    /**
+     * Replaces a player's contribution.
+     *
+     * @param before the previous version of the record, or {@code null} if the player is new
+     * @param after  the new version of the record
+     */
+    public synchronized void apply(StatsRecord before, StatsRecord after) {
+        if (before == null) {
+            players++;
+        } else {
+            playtimeMillis -= before.getPlaytimeMillis();
+            deaths -= before.getDeaths();
+            playerKills -= before.getPlayerKills();
+            mobKills -= before.getMobKills();
+            blocksBroken -= before.getBlocksBroken();
+            blocksPlaced -= before.getBlocksPlaced();
+            distance -= totalDistance(before);
+        }
+        playtimeMillis += after.getPlaytimeMillis();
+        deaths += after.getDeaths();
+        playerKills += after.getPlayerKills();
+        mobKills += after.getMobKills();
+        blocksBroken += after.getBlocksBroken();
+        blocksPlaced += after.getBlocksPlaced();
+        distance += totalDistance(after);
+
+        Set<String> oldBiomes = before != null ? biomes(before) : Set.of();
+        Set<String> newBiomes = biomes(after);
+        for (String biome : oldBiomes) {
+            if (!newBiomes.contains(biome)) {
+                biomePlayers.computeIfPresent(biome, (b, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+        for (String biome : newBiomes) {
+            if (!oldBiomes.contains(biome)) {
+                biomePlayers.merge(biome, 1, Integer::sum);
+            }
+        }
+    }
+
+    public synchronized ServerTotals copy() {
+        return new ServerTotals(players, playtimeMillis, deaths, playerKills, mobKills,
+                blocksBroken, blocksPlaced, distance, biomePlayers);
+    }
+
+    public synchronized long getPlayers() {
+        return players;
+    }
+
+    public synchronized long getPlaytimeMillis() {
+        return playtimeMillis;
+    }
+
+    public synchronized long getDeaths() {
+        return deaths;
+    }
+
+    public synchronized long getPlayerKills() {
+        return playerKills;
+    }
+
+    public synchronized long getMobKills() {
+        return mobKills;
+    }
+
+    public synchronized long getBlocksBroken() {
+        return blocksBroken;
+    }
+
+    public synchronized long getBlocksPlaced() {
+        return blocksPlaced;
+    }
+
+    public synchronized double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns every biome visited by at least one player, sorted alphabetically.
+     */
+    public synchronized List<String> getBiomes() {
+        List<String> sorted = new ArrayList<>(biomePlayers.keySet());
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static double totalDistance(StatsRecord record) {
+        return record.getDistanceOverworld() + record.getDistanceNether() + record.getDistanceEnd();
+    }
+
+    private static Set<String> biomes(StatsRecord record) {
+        return record.getBiomesVisited() != null ? record.getBiomesVisited() : Set.of();
+    }
+}
@@ -3,6 +3,8 @@ package de.nurrobin.smpstats;
 import de.nurrobin.smpstats.health.HealthThresholds;
 import de.nurrobin.smpstats.skills.SkillWeights;
 
+import java.util.Map;
+
 public class Settings {
     private final boolean trackMovement;
     private final boolean trackBlocks;
@@ -53,6 +55,96 @@ public class Settings {
     // GUI settings
     private final boolean guiAnimatedBordersEnabled;
     
+    // Limits for the HTTP API and dashboard servers
+    private final HttpSettings httpSettings;
+    
+    // Pruning of the history tables
+    private final RetentionSettings retentionSettings;
+    
+    /**
+     * Request limits applied by the HTTP API and the web dashboard, each server counting separately.
+     * {@code endpointLimits} overrides the per-endpoint cap for request paths starting with its keys;
+     * {@code maxStreamSubscribers} caps the open connections of each event stream.
+     */
+    public record HttpSettings(
+            int maxConcurrentRequests,
+            int maxRequestsPerEndpoint,
+            Map<String, Integer> endpointLimits,
+            int maxStreamSubscribers,
+            RateLimitSettings rateLimits
+    ) {
+        public static HttpSettings defaults() {
+            return new HttpSettings(64, 16, defaultEndpointLimits(), 32, RateLimitSettings.defaults());
+        }
+
+        /**
+         * Tighter caps for the endpoints the rate limiter treats as heavy.
+         */
+        public static Map<String, Integer> defaultEndpointLimits() {
+            return Map.of(
+                    "/stats/all", 4,
+                    "/heatmap", 4,
+                    "/moments/query", 8,
+                    "/timeline/leaderboard", 8,
+                    "/social/top", 8,
+                    "/death/replay", 8
+            );
+        }
+    }
+    
+    /**
+     * Token-bucket limits for the HTTP API, applied per API key and per client address.
+     * Expensive endpoints draw from the separate heavy bucket.
+     */
+    public record RateLimitSettings(
+            boolean enabled,
+            int standardBurst,
+            int standardPerMinute,
+            int heavyBurst,
+            int heavyPerMinute
+    ) {
+        public static RateLimitSettings defaults() {
+            return new RateLimitSettings(true, 60, 120, 30, 60);
+        }
+    }
+    
+    /**
+     * How long the background pruner keeps rows of one history table. A limit of 0 is off.
+     */
+    public record RetentionPolicy(
+            int maxAgeDays,
+            int maxRows,
+            int maxRowsPerPlayer
+    ) {
+        public static RetentionPolicy keepAll() {
+            return new RetentionPolicy(0, 0, 0);
+        }
+        
+        public boolean isActive() {
+            return maxAgeDays > 0 || maxRows > 0 || maxRowsPerPlayer > 0;
+        }
+    }
+    
+    /**
+     * Settings of the background pruner for moments and death replays. Each pass deletes at most
+     * {@code batchSize} rows per transaction and can archive them to gzip NDJSON files first.
+     * Hourly timeline buckets older than {@code timelineHourlyDays} are merged into daily rows.
+     * Death replays are capped at the default {@code death_replay.limit} of 50 rows.
+     */
+    public record RetentionSettings(
+            boolean enabled,
+            int intervalMinutes,
+            int batchSize,
+            boolean archive,
+            RetentionPolicy moments,
+            RetentionPolicy deathReplays,
+            int timelineHourlyDays
+    ) {
+        public static RetentionSettings defaults() {
+            return new RetentionSettings(true, 60, 500, false, RetentionPolicy.keepAll(), new RetentionPolicy(0, 50, 0), 14);
+        }
+    }
+    
     /**
      * Holds all dashboard-related configuration.
      */
@@ -150,6 +242,64 @@ public class Settings {
                     int storyRecentMoments,
                     DashboardSettings dashboardSettings,
                     boolean guiAnimatedBordersEnabled) {
+        this(trackMovement, trackBlocks, trackKills, trackBiomes, trackCrafting, trackDamage,
+                trackConsumption, apiEnabled, apiBindAddress, apiPort, apiKey, autosaveMinutes, skillWeights,
+                momentsEnabled, diamondWindowSeconds, momentsFlushSeconds, heatmapEnabled,
+                heatmapFlushMinutes, heatmapDecayHalfLifeHours, momentDefinitions, heatmapHotspots,
+                socialEnabled, socialSampleSeconds, socialNearbyRadius, timelineEnabled, deathReplayEnabled,
+                deathReplayInventoryItems, deathReplayNearbyRadius, deathReplayLimit, healthEnabled,
+                healthSampleMinutes, healthChunkWeight, healthEntityWeight, healthHopperWeight,
+                healthRedstoneWeight, healthThresholds, storyEnabled, storyIntervalDays, storySummaryHour,
+                storyWebhookUrl, storyTopLimit, storyRecentMoments, dashboardSettings,
+                guiAnimatedBordersEnabled, HttpSettings.defaults(), RetentionSettings.defaults());
+    }
+
+    public Settings(boolean trackMovement,
+                    boolean trackBlocks,
+                    boolean trackKills,
+                    boolean trackBiomes,
+                    boolean trackCrafting,
+                    boolean trackDamage,
+                    boolean trackConsumption,
+                    boolean apiEnabled,
+                    String apiBindAddress,
+                    int apiPort,
+                    String apiKey,
+                    int autosaveMinutes,
+                    SkillWeights skillWeights,
+                    boolean momentsEnabled,
+                    long diamondWindowSeconds,
+                    long momentsFlushSeconds,
+                    boolean heatmapEnabled,
+                    int heatmapFlushMinutes,
+                    double heatmapDecayHalfLifeHours,
+                    java.util.List<de.nurrobin.smpstats.moments.MomentDefinition> momentDefinitions,
+                    java.util.List<de.nurrobin.smpstats.heatmap.HotspotDefinition> heatmapHotspots,
+                    boolean socialEnabled,
+                    int socialSampleSeconds,
+                    int socialNearbyRadius,
+                    boolean timelineEnabled,
+                    boolean deathReplayEnabled,
+                    boolean deathReplayInventoryItems,
+                    int deathReplayNearbyRadius,
+                    int deathReplayLimit,
+                    boolean healthEnabled,
+                    int healthSampleMinutes,
+                    double healthChunkWeight,
+                    double healthEntityWeight,
+                    double healthHopperWeight,
+                    double healthRedstoneWeight,
+                    HealthThresholds healthThresholds,
+                    boolean storyEnabled,
+                    int storyIntervalDays,
+                    int storySummaryHour,
+                    String storyWebhookUrl,
+                    int storyTopLimit,
+                    int storyRecentMoments,
+                    DashboardSettings dashboardSettings,
+                    boolean guiAnimatedBordersEnabled,
+                    HttpSettings httpSettings,
+                    RetentionSettings retentionSettings) {
         this.trackMovement = trackMovement;
         this.trackBlocks = trackBlocks;
         this.trackKills = trackKills;
@@ -194,6 +344,8 @@ public class Settings {
         this.storyRecentMoments = storyRecentMoments;
         this.dashboardSettings = dashboardSettings;
         this.guiAnimatedBordersEnabled = guiAnimatedBordersEnabled;
+        this.httpSettings = httpSettings;
+        this.retentionSettings = retentionSettings;
     }
 
     public boolean isTrackMovement() {
@@ -368,6 +520,14 @@ public class Settings {
         return dashboardSettings;
     }
     
+    public HttpSettings getHttpSettings() {
+        return httpSettings;
+    }
+    
+    public RetentionSettings getRetentionSettings() {
+        return retentionSettings;
+    }
+    
     public boolean isGuiAnimatedBordersEnabled() {
         return guiAnimatedBordersEnabled;
     }
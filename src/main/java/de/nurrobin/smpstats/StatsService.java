@@ -1,12 +1,16 @@
 package de.nurrobin.smpstats;
 
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
 import de.nurrobin.smpstats.database.StatsStorage;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import de.nurrobin.smpstats.skills.SkillCalculator;
 import de.nurrobin.smpstats.skills.SkillProfile;
+import de.nurrobin.smpstats.timeline.TimelineService;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -14,6 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class StatsService {
     private final SMPStats plugin;
@@ -21,6 +26,8 @@ public class StatsService {
     private Settings settings;
     private SkillCalculator skillCalculator;
     private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    private final List<SessionListener> sessionListeners = new CopyOnWriteArrayList<>();
+    private final FlushMetrics flushMetrics = new FlushMetrics();
 
     public StatsService(SMPStats plugin, StatsStorage storage, Settings settings) {
         this.plugin = plugin;
@@ -41,6 +48,7 @@ public class StatsService {
     public void handleJoin(Player player) {
         UUID uuid = player.getUniqueId();
         StatsRecord record;
+        boolean loaded = true;
         try {
             record = storage.loadOrCreate(uuid, player.getName());
         } catch (SQLException e) {
@@ -49,10 +57,13 @@ public class StatsService {
             long now = System.currentTimeMillis();
             record.setFirstJoin(now);
             record.setLastJoin(now);
+            loaded = false;
         }
 
         record.setLastJoin(System.currentTimeMillis());
-        sessions.put(uuid, new PlayerSession(record));
+        sessions.put(uuid, new PlayerSession(record, loaded));
+        StatsRecord joined = record;
+        notifySessionListeners(listener -> listener.onJoin(joined));
     }
 
     public void handleQuit(Player player) {
@@ -64,17 +75,63 @@ public class StatsService {
         session.updatePlaytime(now);
         session.getRecord().setLastJoin(now);
         save(session.getRecord());
+        notifySessionListeners(listener -> listener.onQuit(session.getRecord()));
     }
 
+    /**
+     * Registers a listener that is told about joins and quits after the online list has changed.
+     * Listeners run on the main thread and must not block.
+     */
+    public void addSessionListener(SessionListener listener) {
+        sessionListeners.add(listener);
+    }
+
+    public void removeSessionListener(SessionListener listener) {
+        sessionListeners.remove(listener);
+    }
+
+    private void notifySessionListeners(java.util.function.Consumer<SessionListener> call) {
+        for (SessionListener listener : sessionListeners) {
+            try {
+                call.accept(listener);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Session listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Saves every online player's stats and, if the timeline is enabled, their snapshot for today in
+     * one transaction, and records how long that took.
+     */
     public void flushOnline() {
+        long started = System.nanoTime();
         long now = System.currentTimeMillis();
-        for (PlayerSession session : sessions.values()) {
+        List<PlayerSession> flushed = new ArrayList<>(sessions.values());
+        List<StatsRecord> records = new ArrayList<>(flushed.size());
+        List<StatsRecord> persisted = new ArrayList<>(flushed.size());
+        for (PlayerSession session : flushed) {
             session.updatePlaytime(now);
-            save(session.getRecord());
-            plugin.getTimelineService().ifPresent(t -> t.snapshot(session.getRecord()));
+            records.add(session.getRecord());
+            persisted.add(session.getPersisted());
+        }
+        LocalDate timelineDay = plugin.getTimelineService().flatMap(TimelineService::snapshotDay).orElse(null);
+        try {
+            int changed = storage.saveAll(records, persisted, timelineDay);
+            flushed.forEach(PlayerSession::markPersisted);
+            flushMetrics.record(records.size(), changed, System.nanoTime() - started);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not save stats for " + records.size() + " online players: " + e.getMessage());
         }
     }
 
+    /**
+     * Returns the autosave timings, or empty before the first flush.
+     */
+    public Optional<FlushMetrics.Snapshot> getFlushMetrics() {
+        return flushMetrics.snapshot();
+    }
+
     public void shutdown() {
         flushOnline();
     }
@@ -122,6 +179,42 @@ public class StatsService {
         return all;
     }
 
+    /**
+     * Returns one page of stored players, with online players' rows replaced by their live session.
+     * Which players are on a page is decided by the stored rows, so live changes that are not saved yet
+     * count towards {@code updatedSince} only after the next autosave.
+     */
+    public PlayerPage getStatsPage(PlayerSort sort, long updatedSince, PlayerPage.Cursor after, int limit) {
+        PlayerPage page;
+        try {
+            page = storage.loadPlayerPage(sort, null, updatedSince, after, limit);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load stats page: " + e.getMessage());
+            return new PlayerPage(List.of(), null);
+        }
+        List<StatsRecord> records = new ArrayList<>(page.records().size());
+        for (StatsRecord record : page.records()) {
+            PlayerSession session = sessions.get(record.getUuid());
+            records.add(session != null ? session.snapshot() : record);
+        }
+        return new PlayerPage(records, page.next());
+    }
+
+    /**
+     * Returns the server-wide totals including changes of online players that are not saved yet.
+     * Costs one step per online player rather than per known player.
+     */
+    public ServerTotals getServerTotals() {
+        ServerTotals totals = storage.getServerTotals();
+        for (PlayerSession session : sessions.values()) {
+            // Without a known stored state the player counts as stored until the next save
+            if (session.getPersisted() != null) {
+                totals.apply(session.getPersisted(), session.snapshot());
+            }
+        }
+        return totals;
+    }
+
     public Optional<SkillProfile> getSkillProfile(UUID uuid) {
         Optional<StatsRecord> stats = getStats(uuid);
         return stats.map(skillCalculator::calculate);
@@ -143,6 +236,15 @@ public class StatsService {
         return Optional.of(new SessionDelta(start, current, duration));
     }
 
+    /**
+     * Told when an online player's session starts or ends.
+     */
+    public interface SessionListener {
+        void onJoin(StatsRecord record);
+
+        void onQuit(StatsRecord record);
+    }
+
     /**
      * Represents the delta between session start and current stats.
      */
@@ -315,6 +417,10 @@ public class StatsService {
     private void save(StatsRecord record) {
         try {
             storage.save(record);
+            PlayerSession session = sessions.get(record.getUuid());
+            if (session != null && session.getRecord() == record) {
+                session.markPersisted();
+            }
         } catch (SQLException e) {
             plugin.getLogger().warning("Could not save stats for " + record.getName() + ": " + e.getMessage());
         }
@@ -326,12 +432,14 @@ public class StatsService {
     private static class PlayerSession {
         private final StatsRecord record;
         private final StatsRecord sessionStartSnapshot;
+        private volatile StatsRecord persisted;
         private long lastPlaytimeMark;
         private final long sessionStartTime;
 
-        PlayerSession(StatsRecord record) {
+        PlayerSession(StatsRecord record, boolean stored) {
             this.record = record;
             this.sessionStartSnapshot = record.copy();
+            this.persisted = stored ? sessionStartSnapshot : null;
             this.lastPlaytimeMark = System.currentTimeMillis();
             this.sessionStartTime = System.currentTimeMillis();
         }
@@ -354,6 +462,18 @@ public class StatsService {
             return sessionStartTime;
         }
 
+        /**
+         * Returns the record as it was last written to storage, or {@code null} while that is unknown
+         * because loading it on join failed.
+         */
+        StatsRecord getPersisted() {
+            return persisted;
+        }
+
+        void markPersisted() {
+            persisted = record.copy();
+        }
+
         void updatePlaytime(long now) {
             long delta = now - lastPlaytimeMark;
             if (delta > 0) {
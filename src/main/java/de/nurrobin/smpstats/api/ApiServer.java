@@ -1,10 +1,21 @@
 package de.nurrobin.smpstats.api;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import de.nurrobin.smpstats.SMPStats;
 import de.nurrobin.smpstats.Settings;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.StatsService;
+import de.nurrobin.smpstats.database.ChangeEntry;
+import de.nurrobin.smpstats.database.Dataset;
+import de.nurrobin.smpstats.database.MomentPage;
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
+import de.nurrobin.smpstats.database.StatsStorage;
+import de.nurrobin.smpstats.database.TimelineMetric;
+import de.nurrobin.smpstats.database.TimelinePeriod;
+import de.nurrobin.smpstats.moments.MomentEntry;
 import de.nurrobin.smpstats.moments.MomentService;
 import de.nurrobin.smpstats.heatmap.HeatmapService;
 import de.nurrobin.smpstats.health.ServerHealthService;
@@ -15,21 +26,45 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.bukkit.plugin.PluginDescriptionFile;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ApiServer {
+    private static final int MOMENT_REPLAY_SIZE = 512;
+    private static final int MOMENT_CLIENT_QUEUE_SIZE = 256;
+    private static final long STREAM_HEARTBEAT_MILLIS = 15_000L;
+    private static final int RESPONSE_CACHE_SIZE = 256;
+    private static final long HEATMAP_CACHE_TTL_MILLIS = 30_000L;
+    private static final long TIMELINE_CACHE_TTL_MILLIS = 60_000L;
+    // Upper bound for ?hours= when hourly buckets are never merged into days
+    private static final int MAX_TIMELINE_HOURS = 366 * 24;
+    private static final long SOCIAL_CACHE_TTL_MILLIS = 60_000L;
+    // Token costs for the rate limiter, roughly proportional to the storage work behind the endpoint
+    private static final int FULL_SCAN_COST = 5;
+    private static final int QUERY_COST = 2;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final SMPStats plugin;
     private final StatsService statsService;
     private final Settings settings;
@@ -40,8 +75,14 @@ public class ApiServer {
     private final OpenApiDocument openApiDocument;
     private final Gson gson = new Gson();
     private final TimeRangeParser timeRangeParser = new TimeRangeParser();
+    private final SseBroadcaster momentStream;
+    private final Consumer<MomentEntry> momentPublisher = this::publishMoment;
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_SIZE);
+    private final Consumer<Dataset> cacheInvalidator = responseCache::invalidate;
+    private final RateLimiter rateLimiter = new RateLimiter();
 
     private HttpServer server;
+    private ExecutorService executor;
 
     public ApiServer(SMPStats plugin, StatsService statsService, Settings settings, MomentService momentService, HeatmapService heatmapService, de.nurrobin.smpstats.timeline.TimelineService timelineService, ServerHealthService serverHealthService) {
         this.plugin = plugin;
@@ -51,6 +92,8 @@ public class ApiServer {
         this.heatmapService = heatmapService;
         this.timelineService = timelineService;
         this.serverHealthService = serverHealthService;
+        this.momentStream = new SseBroadcaster(MOMENT_REPLAY_SIZE, MOMENT_CLIENT_QUEUE_SIZE,
+                settings.getHttpSettings().maxStreamSubscribers());
         this.openApiDocument = new OpenApiDocument(settings, resolvePluginVersion(plugin));
     }
 
@@ -67,28 +110,162 @@ public class ApiServer {
             return;
         }
 
-        server.createContext("/openapi.json", new OpenApiHandler());
-        server.createContext("/stats", new StatsHandler());
-        server.createContext("/online", new OnlineHandler());
-        server.createContext("/moments/recent", new RecentMomentsHandler());
-        server.createContext("/moments/query", new QueryMomentsHandler());
-        server.createContext("/moments/stream", new MomentsStreamHandler());
-        server.createContext("/heatmap", new HeatmapHandler());
-        server.createContext("/heatmap/hotspots", new HeatmapHotspotHandler());
-        server.createContext("/timeline", new TimelineHandler());
-        server.createContext("/social/top", new SocialTopHandler());
-        server.createContext("/death/replay", new DeathReplayHandler());
-        server.createContext("/health", new HealthHandler());
-        server.setExecutor(Executors.newCachedThreadPool());
+        Settings.HttpSettings limits = settings.getHttpSettings();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(limits.maxConcurrentRequests(), limits.maxRequestsPerEndpoint(),
+                limits.endpointLimits());
+        route(limiter, "/openapi.json", new OpenApiHandler());
+        route(limiter, "/stats", new StatsHandler());
+        route(limiter, "/online", new OnlineHandler());
+        route(limiter, "/moments/recent", new RecentMomentsHandler());
+        route(limiter, "/moments/query", new QueryMomentsHandler());
+        // Long-lived stream, capped by http.max_stream_subscribers instead of the request limits
+        server.createContext("/moments/stream", rateLimited(new MomentsStreamHandler()));
+        route(limiter, "/heatmap", new HeatmapHandler());
+        route(limiter, "/heatmap/hotspots", new HeatmapHotspotHandler());
+        route(limiter, "/timeline", new TimelineHandler());
+        route(limiter, "/social/top", new SocialTopHandler());
+        route(limiter, "/death/replay", new DeathReplayHandler());
+        route(limiter, "/health", new HealthHandler());
+        route(limiter, "/changes", new ChangesHandler());
+
+        // One cheap virtual thread per request; the limiter bounds how many run at once
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        attachMomentStream();
+        statsService.getStorage().addChangeListener(cacheInvalidator);
         server.start();
 
         plugin.getLogger().info("HTTP API läuft auf Port " + settings.getApiPort());
     }
 
     public void stop() {
+        momentService.removeListener(momentPublisher);
+        if (statsService.getStorage() != null) {
+            statsService.getStorage().removeChangeListener(cacheInvalidator);
+        }
+        // Ends open streams so their handler threads return before the server shuts down
+        momentStream.close();
         if (server != null) {
             server.stop(0);
         }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void route(ConcurrencyLimiter limiter, String path, HttpHandler handler) {
+        // Rate limits come first so rejected callers never take a concurrency slot
+        server.createContext(path, rateLimited(limiter.limit(path, handler)));
+    }
+
+    /**
+     * Charges each request against the caller's token buckets before handing it on. Every limited response
+     * carries the remaining quota; callers out of tokens get {@code 429 Too Many Requests} with {@code Retry-After}.
+     */
+    HttpHandler rateLimited(HttpHandler handler) {
+        return exchange -> {
+            if (checkRateLimit(exchange)) {
+                handler.handle(exchange);
+            }
+        };
+    }
+
+    private boolean checkRateLimit(HttpExchange exchange) throws IOException {
+        Settings.RateLimitSettings limits = settings.getHttpSettings().rateLimits();
+        RequestCost cost = RequestCost.of(exchange.getRequestURI().getPath());
+        if (!limits.enabled() || cost == null) {
+            return true;
+        }
+        String group = cost.heavy() ? "heavy" : "standard";
+        int burst = cost.heavy() ? limits.heavyBurst() : limits.standardBurst();
+        int perMinute = cost.heavy() ? limits.heavyPerMinute() : limits.standardPerMinute();
+
+        String addressBucket = "ip:" + clientAddress(exchange) + ":" + group;
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(addressBucket, burst, perMinute, cost.tokens());
+        String apiKey = exchange.getRequestHeaders().getFirst("X-API-Key");
+        // Only the configured key gets a bucket, so made-up keys cannot grow the table
+        if (decision.allowed() && apiKey != null && apiKey.equals(settings.getApiKey())) {
+            RateLimiter.Decision byKey = rateLimiter.tryAcquire("key:" + apiKey + ":" + group, burst, perMinute, cost.tokens());
+            if (!byKey.allowed()) {
+                rateLimiter.refund(addressBucket, cost.tokens());
+                decision = byKey;
+            } else if (byKey.remaining() < decision.remaining()) {
+                decision = byKey;
+            }
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        headers.set("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        if (!decision.allowed()) {
+            headers.set("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+            sendText(exchange, 429, "Too Many Requests");
+            return false;
+        }
+        return true;
+    }
+
+    private static String clientAddress(HttpExchange exchange) {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    /**
+     * Which bucket a request draws from and how many tokens it takes. {@code null} means not limited.
+     */
+    private record RequestCost(boolean heavy, int tokens) {
+        private static final RequestCost STANDARD = new RequestCost(false, 1);
+
+        static RequestCost of(String path) {
+            if (path.equals("/openapi.json")) {
+                return null;
+            }
+            if (path.equalsIgnoreCase("/stats/all")) {
+                return new RequestCost(true, FULL_SCAN_COST);
+            }
+            if (path.startsWith("/heatmap/hotspots")) {
+                return STANDARD;
+            }
+            if (path.startsWith("/heatmap")) {
+                return new RequestCost(true, FULL_SCAN_COST);
+            }
+            if (path.startsWith("/moments/query") || path.startsWith("/timeline/leaderboard")
+                    || path.startsWith("/social/top") || path.startsWith("/death/replay")) {
+                return new RequestCost(true, QUERY_COST);
+            }
+            return STANDARD;
+        }
+    }
+
+    /**
+     * Subscribes the stream to new moments, then seeds its replay ring with the latest stored ones.
+     * After this, stream clients are served from memory only. Event ids are the moments' database
+     * ids, so a {@code Last-Event-ID} from before a restart still resumes at the right place.
+     */
+    void attachMomentStream() {
+        // Listening first means a moment stored during the seed read is not lost; the broadcaster
+        // ignores seeded ids that are not above one published meanwhile
+        momentService.addListener(momentPublisher);
+        List<MomentEntry> recent = new ArrayList<>();
+        for (MomentEntry entry : momentService.getRecentMoments(MOMENT_REPLAY_SIZE)) {
+            // Queued moments have no id yet; the listener publishes them once they are stored
+            if (entry.getId() != null) {
+                recent.add(entry);
+            }
+        }
+        recent.sort(java.util.Comparator.comparing(MomentEntry::getId));
+        for (MomentEntry entry : recent) {
+            publishMoment(entry);
+        }
+    }
+
+    private void publishMoment(MomentEntry entry) {
+        if (entry.getId() != null) {
+            momentStream.publish(entry.getId(), null, gson.toJson(entry), entry.getStartedAt());
+        }
     }
 
     private boolean authorize(HttpExchange exchange) throws IOException {
@@ -118,19 +295,53 @@ public class ApiServer {
     private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
         byte[] data = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(status, data.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(data);
-        }
+        ResponseCompression.send(exchange, status, data);
     }
 
-    private void sendJsonString(HttpExchange exchange, int status, String json) throws IOException {
-        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Serializes {@code body} straight into a chunked response instead of building the whole document
+     * in memory first. Meant for responses whose size grows with the number of players or events.
+     */
+    private void sendJsonStream(HttpExchange exchange, int status, Object body) throws IOException {
         exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(status, data.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(data);
+        OutputStream out = ResponseCompression.openStream(exchange, status);
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
+            gson.toJson(body, body.getClass(), writer);
+        }
+    }
+
+    /**
+     * Sends a JSON body through the response cache, so repeated requests skip the work and clients can
+     * revalidate with {@code If-None-Match}. Failures of {@code body} propagate and are not cached.
+     */
+    private void sendCachedJson(HttpExchange exchange, long ttlMillis, Set<Dataset> dependsOn, JsonBody body) throws IOException {
+        ResponseCache.Entry entry = responseCache.get(ResponseCache.key(exchange.getRequestURI()), ttlMillis, dependsOn,
+                "application/json", () -> {
+                    try {
+                        return toJsonBytes(body.build());
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                });
+        ResponseCache.send(exchange, entry);
+    }
+
+    /**
+     * Serializes straight to UTF-8 bytes, skipping the intermediate String.
+     */
+    private byte[] toJsonBytes(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8))) {
+            gson.toJson(value, value != null ? value.getClass() : Object.class, writer);
         }
+        return buffer.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        Object build() throws Exception;
     }
 
     private void sendText(HttpExchange exchange, int status, String text) throws IOException {
@@ -145,7 +356,9 @@ public class ApiServer {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             // Documentation should stay reachable without authentication for tool discovery
-            sendJsonString(exchange, 200, openApiDocument.toJson());
+            ResponseCache.Entry entry = responseCache.get("/openapi.json", Long.MAX_VALUE, Set.of(), "application/json",
+                    () -> openApiDocument.toJson().getBytes(StandardCharsets.UTF_8));
+            ResponseCache.send(exchange, entry);
         }
     }
 
@@ -163,8 +376,12 @@ public class ApiServer {
             }
 
             if (path.equalsIgnoreCase("/all")) {
+                if (isPagedStatsRequest(uri)) {
+                    sendStatsPage(exchange, uri);
+                    return;
+                }
                 List<StatsRecord> all = statsService.getAllStats();
-                sendJson(exchange, 200, all);
+                sendJsonStream(exchange, 200, all);
                 return;
             }
 
@@ -183,6 +400,52 @@ public class ApiServer {
         }
     }
 
+    /**
+     * Without any paging parameter {@code /stats/all} keeps returning every player in one response.
+     */
+    private boolean isPagedStatsRequest(URI uri) {
+        return queryParam(uri, "cursor").isPresent() || queryParam(uri, "limit").isPresent()
+                || queryParam(uri, "updated_since").isPresent() || queryParam(uri, "sort").isPresent();
+    }
+
+    private void sendStatsPage(HttpExchange exchange, URI uri) throws IOException {
+        PlayerPage.Cursor after;
+        PlayerSort sort;
+        long updatedSince;
+        int limit;
+        try {
+            after = queryParam(uri, "cursor").map(PageCursors::decodePlayer).orElse(null);
+            // A cursor belongs to one ordering, so it decides the sort of the pages that follow it
+            sort = after != null ? after.sort() : parseStatsSort(queryParam(uri, "sort").orElse("uuid"));
+            if (sort != PlayerSort.UUID && sort != PlayerSort.NAME) {
+                throw new IllegalArgumentException("Unsupported sort " + sort);
+            }
+            updatedSince = queryParam(uri, "updated_since").map(Long::parseLong).orElse(0L);
+            limit = pageSize(uri);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, "Invalid paging parameters");
+            return;
+        }
+        PlayerPage page = statsService.getStatsPage(sort, updatedSince, after, limit);
+        if (page.hasNext()) {
+            exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, PageCursors.encode(page.next()));
+        }
+        sendJsonStream(exchange, 200, page.records());
+    }
+
+    private static PlayerSort parseStatsSort(String raw) {
+        return switch (raw.toLowerCase(java.util.Locale.ROOT)) {
+            case "uuid" -> PlayerSort.UUID;
+            case "name" -> PlayerSort.NAME;
+            default -> throw new IllegalArgumentException("Unsupported sort " + raw);
+        };
+    }
+
+    private int pageSize(URI uri) {
+        int limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+    }
+
     private class OnlineHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -245,11 +508,12 @@ public class ApiServer {
             
             double decay = queryParam(uri, "decay").map(Double::parseDouble).orElse(settings.getHeatmapDecayHalfLifeHours());
             String world = queryParam(uri, "world").orElse("world");
-            int gridSize = queryParam(uri, "grid").map(Integer::parseInt).orElse(16);
-            if (gridSize <= 0) gridSize = 16;
+            int grid = queryParam(uri, "grid").map(Integer::parseInt).orElse(16);
+            int gridSize = grid > 0 ? grid : 16;
 
             try {
-                sendJson(exchange, 200, heatmapService.generateHeatmap(typeRaw.toUpperCase(), world, since, until, decay, gridSize));
+                sendCachedJson(exchange, HEATMAP_CACHE_TTL_MILLIS, Set.of(Dataset.HEATMAP),
+                        () -> heatmapService.generateHeatmap(typeRaw.toUpperCase(), world, since, until, decay, gridSize));
             } catch (IllegalArgumentException e) {
                 sendText(exchange, 400, "Invalid heatmap type");
             }
@@ -269,7 +533,8 @@ public class ApiServer {
                 return;
             }
             String typeRaw = path.startsWith("/") ? path.substring(1) : path;
-            sendJson(exchange, 200, heatmapService.loadHotspots(typeRaw.toUpperCase()));
+            sendCachedJson(exchange, HEATMAP_CACHE_TTL_MILLIS, Set.of(Dataset.HEATMAP),
+                    () -> heatmapService.loadHotspots(typeRaw.toUpperCase()));
         }
     }
 
@@ -280,7 +545,15 @@ public class ApiServer {
                 return;
             }
             URI uri = exchange.getRequestURI();
-            int limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(100);
+            int limit;
+            MomentPage.Cursor after;
+            try {
+                limit = pageSize(uri);
+                after = queryParam(uri, "cursor").map(PageCursors::decodeMoment).orElse(null);
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, "Invalid paging parameters");
+                return;
+            }
             
             // Parse 'from' parameter (human-readable) with fallback to 'since' (epoch)
             long since = queryParam(uri, "from")
@@ -297,8 +570,11 @@ public class ApiServer {
                 } catch (IllegalArgumentException ignored) {
                 }
             }
-            List<?> moments = momentService.queryMoments(playerId, type != null ? type.toUpperCase() : null, since, limit);
-            sendJson(exchange, 200, moments);
+            MomentPage page = momentService.queryMomentPage(playerId, type != null ? type.toUpperCase() : null, since, after, limit);
+            if (page.hasNext()) {
+                exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, PageCursors.encode(page.next()));
+            }
+            sendJsonStream(exchange, 200, page.entries());
         }
     }
 
@@ -316,18 +592,46 @@ public class ApiServer {
                     .flatMap(timeRangeParser::parse)
                     .map(TimeRangeParser.TimeRange::since)
                     .orElseGet(() -> queryParam(uri, "since").map(Long::parseLong).orElse(-1L));
-            
-            List<?> moments = since > 0 ? momentService.getMomentsSince(since, limit) : momentService.getRecentMoments(limit);
-            StringBuilder sb = new StringBuilder();
-            for (Object m : moments) {
-                sb.append("data: ").append(gson.toJson(m)).append("\n\n");
+            long lastEventId = parseLastEventId(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+
+            SseBroadcaster.Subscription opened = momentStream.subscribe(lastEventId);
+            if (opened == null) {
+                ConcurrencyLimiter.reject(exchange);
+                return;
+            }
+            try (SseBroadcaster.Subscription subscription = opened) {
+                List<SseBroadcaster.Frame> backlog = subscription.backlog();
+                if (lastEventId < 0) {
+                    // Fresh connection: replay the requested recent window, a resume gets everything it missed
+                    List<SseBroadcaster.Frame> window = new ArrayList<>();
+                    for (SseBroadcaster.Frame frame : backlog) {
+                        if (since <= 0 || frame.timestamp() >= since) {
+                            window.add(frame);
+                        }
+                    }
+                    backlog = window.subList(Math.max(0, window.size() - Math.max(0, limit)), window.size());
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    subscription.writeTo(os, backlog, STREAM_HEARTBEAT_MILLIS);
+                } catch (IOException e) {
+                    // Client went away; nothing left to clean up besides the subscription
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
             }
-            byte[] data = sb.toString().getBytes();
-            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
-            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
-            exchange.sendResponseHeaders(200, data.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(data);
+        }
+
+        private long parseLastEventId(String header) {
+            if (header == null || header.isBlank()) {
+                return -1L;
+            }
+            try {
+                return Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                return -1L;
             }
         }
     }
@@ -348,7 +652,18 @@ public class ApiServer {
                         .orElseGet(() -> queryParam(uri, "days").map(Integer::parseInt).orElse(7));
                 
                 int limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(20);
-                sendJson(exchange, 200, timelineLeaderboard(days, limit));
+                Optional<TimelineMetric> sort = TimelineMetric.parse(queryParam(uri, "sort").orElse("playtime"));
+                if (sort.isEmpty()) {
+                    sendText(exchange, 400, "Invalid sort");
+                    return;
+                }
+                try {
+                    sendCachedJson(exchange, TIMELINE_CACHE_TTL_MILLIS, Set.of(Dataset.TIMELINE, Dataset.STATS),
+                            () -> timelineLeaderboard(days, sort.get(), limit));
+                } catch (RuntimeException e) {
+                    plugin.getLogger().warning("Timeline leaderboard failed: " + e.getMessage());
+                    sendJson(exchange, 200, List.of());
+                }
                 return;
             }
             if (path.startsWith("/range")) {
@@ -366,49 +681,123 @@ public class ApiServer {
                             .map(range -> (int) Math.ceil((System.currentTimeMillis() - range.since()) / (24.0 * 3600 * 1000)))
                             .orElseGet(() -> queryParam(uri, "days").map(Integer::parseInt).orElse(7));
                     
-                    sendJson(exchange, 200, statsService.getStorage().loadTimelineRange(uuid, days));
+                    sendCachedJson(exchange, TIMELINE_CACHE_TTL_MILLIS, Set.of(Dataset.TIMELINE),
+                            () -> statsService.getStorage().loadTimelineRange(uuid, days));
                 } catch (Exception e) {
                     sendText(exchange, 400, "Invalid UUID");
                 }
                 return;
             }
+            if (path.startsWith("/rollups")) {
+                String[] parts = path.split("/");
+                if (parts.length < 3) {
+                    sendText(exchange, 400, "Missing player id");
+                    return;
+                }
+                UUID uuid;
+                int limit;
+                try {
+                    uuid = UUID.fromString(parts[2]);
+                    limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(12);
+                } catch (IllegalArgumentException e) {
+                    sendText(exchange, 400, "Invalid UUID");
+                    return;
+                }
+                Optional<TimelinePeriod> period = TimelinePeriod.parse(queryParam(uri, "period").orElse("week"));
+                if (period.isEmpty()) {
+                    sendText(exchange, 400, "Invalid period, expected week or month");
+                    return;
+                }
+                try {
+                    sendCachedJson(exchange, TIMELINE_CACHE_TTL_MILLIS, Set.of(Dataset.TIMELINE),
+                            () -> statsService.getStorage().loadTimelineRollups(uuid, period.get(), limit));
+                } catch (RuntimeException e) {
+                    plugin.getLogger().warning("Timeline rollups failed: " + e.getMessage());
+                    sendJson(exchange, 200, List.of());
+                }
+                return;
+            }
+            if (path.startsWith("/hourly")) {
+                // Without a player id the buckets of the whole server are returned
+                String[] parts = path.split("/");
+                UUID uuid = null;
+                try {
+                    if (parts.length >= 3) {
+                        uuid = UUID.fromString(parts[2]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    sendText(exchange, 400, "Invalid UUID");
+                    return;
+                }
+                int hours;
+                try {
+                    hours = queryParam(uri, "hours").map(Integer::parseInt).orElse(24);
+                } catch (NumberFormatException e) {
+                    sendText(exchange, 400, "Invalid hours");
+                    return;
+                }
+                // Older buckets were merged into days, so the window never reaches past the hourly ones
+                int hourlyDays = settings.getRetentionSettings().timelineHourlyDays();
+                hours = Math.min(Math.max(1, hours), hourlyDays > 0 ? hourlyDays * 24 : MAX_TIMELINE_HOURS);
+                long hour = TimeUnit.HOURS.toMillis(1);
+                long fromHour;
+                long toHour;
+                Optional<TimeRangeParser.TimeRange> range = queryParam(uri, "from").flatMap(timeRangeParser::parse);
+                if (range.isPresent()) {
+                    fromHour = range.get().since() / hour;
+                    toHour = range.get().until() / hour;
+                } else {
+                    toHour = System.currentTimeMillis() / hour;
+                    fromHour = toHour - hours + 1;
+                }
+                UUID player = uuid;
+                try {
+                    sendCachedJson(exchange, TIMELINE_CACHE_TTL_MILLIS, Set.of(Dataset.TIMELINE),
+                            () -> statsService.getStorage().loadTimelineHourly(player, fromHour, toHour));
+                } catch (RuntimeException e) {
+                    plugin.getLogger().warning("Hourly timeline failed: " + e.getMessage());
+                    sendJson(exchange, 200, List.of());
+                }
+                return;
+            }
             if (path.isEmpty() || "/".equals(path)) {
                 sendText(exchange, 400, "Missing player id");
                 return;
             }
             String id = path.startsWith("/") ? path.substring(1) : path;
+            UUID uuid;
+            int limit;
             try {
-                UUID uuid = UUID.fromString(id);
-                int limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(30);
-                sendJson(exchange, 200, timelineService != null ? timelineServiceQuery(uuid, limit) : List.of());
+                uuid = UUID.fromString(id);
+                limit = queryParam(uri, "limit").map(Integer::parseInt).orElse(30);
             } catch (IllegalArgumentException e) {
                 sendText(exchange, 400, "Invalid UUID");
+                return;
+            }
+            if (timelineService == null) {
+                sendJson(exchange, 200, List.of());
+                return;
             }
-        }
-
-        private List<?> timelineServiceQuery(UUID uuid, int limit) {
             try {
-                return statsService.getStorage().loadTimeline(uuid, limit);
-            } catch (Exception e) {
+                sendCachedJson(exchange, TIMELINE_CACHE_TTL_MILLIS, Set.of(Dataset.TIMELINE),
+                        () -> statsService.getStorage().loadTimeline(uuid, limit));
+            } catch (RuntimeException e) {
+                // Failures are answered with an empty list but not cached
                 plugin.getLogger().warning("Timeline query failed: " + e.getMessage());
-                return List.of();
+                sendJson(exchange, 200, List.of());
             }
         }
 
-        private List<Map<String, Object>> timelineLeaderboard(int days, int limit) {
+        private List<Map<String, Object>> timelineLeaderboard(int days, TimelineMetric sort, int limit) throws SQLException {
             List<Map<String, Object>> out = new ArrayList<>();
-            try {
-                for (Map<String, Object> row : statsService.getStorage().loadTimelineLeaderboard(days, limit)) {
-                    Map<String, Object> copy = new LinkedHashMap<>(row);
-                    try {
-                        UUID uuid = UUID.fromString(row.get("uuid").toString());
-                        copy.put("name", resolveName(uuid));
-                    } catch (IllegalArgumentException ignored) {
-                    }
-                    out.add(copy);
+            for (Map<String, Object> row : statsService.getStorage().loadTimelineLeaderboard(days, sort, limit)) {
+                Map<String, Object> copy = new LinkedHashMap<>(row);
+                try {
+                    UUID uuid = UUID.fromString(row.get("uuid").toString());
+                    copy.put("name", resolveName(uuid));
+                } catch (IllegalArgumentException ignored) {
                 }
-            } catch (Exception e) {
-                plugin.getLogger().warning("Timeline leaderboard failed: " + e.getMessage());
+                out.add(copy);
             }
             return out;
         }
@@ -421,24 +810,29 @@ public class ApiServer {
                 return;
             }
             int limit = queryParam(exchange.getRequestURI(), "limit").map(Integer::parseInt).orElse(50);
-            List<Map<String, Object>> out = new ArrayList<>();
             try {
-                for (SocialPairRow row : statsService.getStorage().loadTopSocial(limit)) {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("a", row.uuidA().toString());
-                    map.put("b", row.uuidB().toString());
-                    map.put("name_a", resolveName(row.uuidA()));
-                    map.put("name_b", resolveName(row.uuidB()));
-                    map.put("seconds", row.seconds());
-                    map.put("shared_kills", row.sharedKills());
-                    map.put("shared_player_kills", row.sharedPlayerKills());
-                    map.put("shared_mob_kills", row.sharedMobKills());
-                    out.add(map);
-                }
-            } catch (Exception e) {
+                sendCachedJson(exchange, SOCIAL_CACHE_TTL_MILLIS, Set.of(Dataset.SOCIAL, Dataset.STATS), () -> topSocial(limit));
+            } catch (RuntimeException e) {
                 plugin.getLogger().warning("Could not load social top: " + e.getMessage());
+                sendJson(exchange, 200, List.of());
             }
-            sendJson(exchange, 200, out);
+        }
+
+        private List<Map<String, Object>> topSocial(int limit) throws SQLException {
+            List<Map<String, Object>> out = new ArrayList<>();
+            for (SocialPairRow row : statsService.getStorage().loadTopSocial(limit)) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("a", row.uuidA().toString());
+                map.put("b", row.uuidB().toString());
+                map.put("name_a", resolveName(row.uuidA()));
+                map.put("name_b", resolveName(row.uuidB()));
+                map.put("seconds", row.seconds());
+                map.put("shared_kills", row.sharedKills());
+                map.put("shared_player_kills", row.sharedPlayerKills());
+                map.put("shared_mob_kills", row.sharedMobKills());
+                out.add(map);
+            }
+            return out;
         }
     }
 
@@ -458,6 +852,58 @@ public class ApiServer {
         }
     }
 
+    private class ChangesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!authorize(exchange)) {
+                return;
+            }
+            URI uri = exchange.getRequestURI();
+            long after;
+            int limit;
+            try {
+                after = queryParam(uri, "after").map(Long::parseLong).orElse(0L);
+                limit = pageSize(uri);
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, "Invalid paging parameters");
+                return;
+            }
+            try {
+                StatsStorage storage = statsService.getStorage();
+                // Read the horizon first: compaction in between can only make the answer more cautious
+                long horizon = storage.getChangeLogHorizon();
+                List<ChangeEntry> entries = storage.loadChanges(after, limit + 1);
+                boolean hasMore = entries.size() > limit;
+                if (hasMore) {
+                    entries = entries.subList(0, limit);
+                }
+                List<Map<String, Object>> changes = new ArrayList<>(entries.size());
+                for (ChangeEntry entry : entries) {
+                    Map<String, Object> change = new LinkedHashMap<>();
+                    change.put("seq", entry.seq());
+                    change.put("ts", entry.timestamp());
+                    change.put("dataset", entry.dataset().name().toLowerCase(java.util.Locale.ROOT));
+                    change.put("key", entry.key());
+                    if (entry.payload() == null) {
+                        change.put("deleted", true);
+                    } else {
+                        change.put("data", JsonParser.parseString(entry.payload()));
+                    }
+                    changes.add(change);
+                }
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("changes", changes);
+                body.put("next", entries.isEmpty() ? after : entries.get(entries.size() - 1).seq());
+                body.put("has_more", hasMore);
+                body.put("reset", after < horizon);
+                sendJsonStream(exchange, 200, body);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Could not load changes: " + e.getMessage());
+                sendText(exchange, 500, "Error");
+            }
+        }
+    }
+
     private class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -482,6 +928,7 @@ public class ApiServer {
     HttpHandler onlineHandler() { return new OnlineHandler(); }
     HttpHandler recentMomentsHandler() { return new RecentMomentsHandler(); }
     HttpHandler queryMomentsHandler() { return new QueryMomentsHandler(); }
+    HttpHandler changesHandler() { return new ChangesHandler(); }
     HttpHandler momentsStreamHandler() { return new MomentsStreamHandler(); }
     HttpHandler heatmapHandler() { return new HeatmapHandler(); }
     HttpHandler heatmapHotspotHandler() { return new HeatmapHotspotHandler(); }
@@ -0,0 +1,110 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many requests an HTTP server works on at once, both overall and per endpoint.
+ * Requests over either cap are answered immediately with {@code 503 Service Unavailable}
+ * instead of queueing behind slow ones. Expensive paths can get a tighter cap of their own.
+ */
+public class ConcurrencyLimiter {
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final int maxConcurrent;
+    private final int maxPerEndpoint;
+    private final Semaphore total;
+    private final Map<String, Semaphore> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> overrides = new HashMap<>();
+
+    public ConcurrencyLimiter(int maxConcurrent, int maxPerEndpoint) {
+        this(maxConcurrent, maxPerEndpoint, Map.of());
+    }
+
+    /**
+     * @param endpointLimits caps for request paths starting with the key, replacing {@code maxPerEndpoint}
+     *                       for them; each key has one budget shared by all paths under it
+     */
+    public ConcurrencyLimiter(int maxConcurrent, int maxPerEndpoint, Map<String, Integer> endpointLimits) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.total = new Semaphore(this.maxConcurrent);
+        this.maxPerEndpoint = Math.max(1, maxPerEndpoint);
+        for (Map.Entry<String, Integer> limit : endpointLimits.entrySet()) {
+            String prefix = limit.getKey().endsWith("/") ? limit.getKey().substring(0, limit.getKey().length() - 1) : limit.getKey();
+            overrides.put(prefix, new Semaphore(Math.max(1, limit.getValue())));
+        }
+    }
+
+    /**
+     * Wraps {@code handler} so it only runs while both the server-wide and the {@code endpoint} budget have room.
+     */
+    public HttpHandler limit(String endpoint, HttpHandler handler) {
+        Semaphore endpointBudget = endpoints.computeIfAbsent(endpoint, e -> new Semaphore(maxPerEndpoint));
+        return exchange -> {
+            Semaphore perEndpoint = budgetFor(endpoint, exchange, endpointBudget);
+            if (!perEndpoint.tryAcquire()) {
+                reject(exchange);
+                return;
+            }
+            try {
+                if (!total.tryAcquire()) {
+                    reject(exchange);
+                    return;
+                }
+                try {
+                    handler.handle(exchange);
+                } finally {
+                    total.release();
+                }
+            } finally {
+                perEndpoint.release();
+            }
+        };
+    }
+
+    /**
+     * The override with the longest key matching the request path, unless the handler's own endpoint is
+     * more specific: a cap on {@code /heatmap} does not apply to a separate {@code /heatmap/hotspots} endpoint.
+     */
+    private Semaphore budgetFor(String endpoint, HttpExchange exchange, Semaphore endpointBudget) {
+        if (overrides.isEmpty() || exchange.getRequestURI() == null) {
+            return endpointBudget;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String best = null;
+        for (String prefix : overrides.keySet()) {
+            if ((path.equals(prefix) || path.startsWith(prefix + "/")) && (best == null || prefix.length() > best.length())) {
+                best = prefix;
+            }
+        }
+        return best != null && best.length() >= endpoint.length() ? overrides.get(best) : endpointBudget;
+    }
+
+    /**
+     * Returns the number of requests currently being handled.
+     */
+    public int inFlight() {
+        return maxConcurrent - total.availablePermits();
+    }
+
+    /**
+     * Answers {@code 503 Service Unavailable} with {@code Retry-After}, as for requests over a cap.
+     */
+    public static void reject(HttpExchange exchange) throws IOException {
+        byte[] data = "Server busy, try again shortly".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(503, data.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(data);
+        }
+    }
+}
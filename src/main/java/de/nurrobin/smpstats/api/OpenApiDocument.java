@@ -85,8 +85,17 @@ class OpenApiDocument {
         paths.put("/stats/all", Map.of(
                 "get", Map.of(
                         "summary", "List stats for all players",
+                        "description", "Returns every player unless a paging parameter is given; "
+                                + "the next page's cursor is sent in the X-Next-Cursor header",
+                        "parameters", List.of(
+                                queryParam("limit", "Players per page (max 1000)", "integer"),
+                                queryParam("cursor", "Opaque cursor from X-Next-Cursor", "string"),
+                                queryParam("sort", "Page order: uuid or name", "string"),
+                                queryParam("updated_since", "Only players changed at or after this time (epoch millis)", "integer")
+                        ),
                         "responses", Map.of(
-                                "200", jsonResponse("Stats for all players", arraySchema(ref("StatsRecord")))
+                                "200", jsonResponse("Stats for all players", arraySchema(ref("StatsRecord"))),
+                                "400", textResponse("Invalid paging parameters")
                         ),
                         "security", secured()
                 )
@@ -125,10 +134,12 @@ class OpenApiDocument {
                                 queryParam("from", "Human-readable start (6h, today, this_week)", "string"),
                                 queryParam("since", "Start timestamp (epoch millis)", "integer"),
                                 queryParam("type", "Moment type id", "string"),
-                                queryParam("player", "Player UUID to filter", "string")
+                                queryParam("player", "Player UUID to filter", "string"),
+                                queryParam("cursor", "Opaque cursor from X-Next-Cursor", "string")
                         ),
                         "responses", Map.of(
-                                "200", jsonResponse("Filtered moments", arraySchema(ref("MomentEntry")))
+                                "200", jsonResponse("Filtered moments", arraySchema(ref("MomentEntry"))),
+                                "400", textResponse("Invalid paging parameters")
                         ),
                         "security", secured()
                 )
@@ -136,7 +147,7 @@ class OpenApiDocument {
 
         paths.put("/moments/stream", Map.of(
                 "get", Map.of(
-                        "summary", "Server-sent events stream of recent moments",
+                        "summary", "Live server-sent events stream of moments (resumable via Last-Event-ID)",
                         "parameters", List.of(
                                 queryParam("limit", "Maximum events to seed the stream with", "integer"),
                                 queryParam("from", "Human-readable start (6h, today, this_week)", "string"),
@@ -150,7 +161,7 @@ class OpenApiDocument {
                                                         "schema", Map.of("type", "string"),
                                                         "examples", Map.of("event", Map.of(
                                                                 "summary", "Example SSE payload",
-                                                                "value", "data: {\"type\":\"DIAMOND_RUN\",...}\\n\\n"
+                                                                "value", "id: 42\\ndata: {\"type\":\"DIAMOND_RUN\",...}\\n\\n"
                                                         ))
                                                 )
                                         )
@@ -225,16 +236,64 @@ class OpenApiDocument {
                 )
         ));
 
+        paths.put("/timeline/rollups/{playerId}", Map.of(
+                "get", Map.of(
+                        "summary", "Weekly or monthly timeline gains",
+                        "parameters", List.of(
+                                pathParam("playerId", "Player UUID", "string", "uuid"),
+                                queryParam("period", "week or month (default week)", "string"),
+                                queryParam("limit", "Number of periods, newest first (default 12)", "integer")
+                        ),
+                        "responses", Map.of(
+                                "200", jsonResponse("Gains per period", arraySchema(ref("TimelineDelta"))),
+                                "400", textResponse("Invalid UUID or period")
+                        ),
+                        "security", secured()
+                )
+        ));
+
+        paths.put("/timeline/hourly", Map.of(
+                "get", Map.of(
+                        "summary", "Server-wide hourly timeline gains",
+                        "parameters", List.of(
+                                queryParam("from", "Human-readable start (6h, today, this_week)", "string"),
+                                queryParam("hours", "Number of hours up to now (default 24)", "integer")
+                        ),
+                        "responses", Map.of(
+                                "200", jsonResponse("Gains per hour, oldest first", arraySchema(ref("TimelineHour")))
+                        ),
+                        "security", secured()
+                )
+        ));
+
+        paths.put("/timeline/hourly/{playerId}", Map.of(
+                "get", Map.of(
+                        "summary", "Hourly timeline gains of a player",
+                        "parameters", List.of(
+                                pathParam("playerId", "Player UUID", "string", "uuid"),
+                                queryParam("from", "Human-readable start (6h, today, this_week)", "string"),
+                                queryParam("hours", "Number of hours up to now (default 24)", "integer")
+                        ),
+                        "responses", Map.of(
+                                "200", jsonResponse("Gains per hour, oldest first", arraySchema(ref("TimelineHour"))),
+                                "400", textResponse("Invalid UUID")
+                        ),
+                        "security", secured()
+                )
+        ));
+
         paths.put("/timeline/leaderboard", Map.of(
                 "get", Map.of(
                         "summary", "Timeline leaderboard",
                         "parameters", List.of(
                                 queryParam("from", "Human-readable start (6h, today, this_week)", "string"),
                                 queryParam("days", "Number of days to include (default 7)", "integer"),
-                                queryParam("limit", "Number of players (default 20)", "integer")
+                                queryParam("limit", "Number of players (default 20)", "integer"),
+                                queryParam("sort", "Metric to rank by, e.g. playtime or mob_kills (default playtime)", "string")
                         ),
                         "responses", Map.of(
-                                "200", jsonResponse("Leaderboard rows", arraySchema(ref("TimelineDelta")))
+                                "200", jsonResponse("Leaderboard rows", arraySchema(ref("TimelineDelta"))),
+                                "400", textResponse("Invalid sort")
                         ),
                         "security", secured()
                 )
@@ -277,6 +336,22 @@ class OpenApiDocument {
                 )
         ));
 
+        paths.put("/changes", Map.of(
+                "get", Map.of(
+                        "summary", "Change log for incremental sync",
+                        "description", "Changes after a sequence number, oldest first; reset=true asks for a full resync",
+                        "parameters", List.of(
+                                queryParam("after", "Last applied sequence number", "integer"),
+                                queryParam("limit", "Maximum entries to return (max 1000)", "integer")
+                        ),
+                        "responses", Map.of(
+                                "200", jsonResponse("Changes with next, has_more and reset", Map.of("type", "object")),
+                                "400", textResponse("Invalid paging parameters")
+                        ),
+                        "security", secured()
+                )
+        ));
+
         return paths;
     }
 
@@ -366,6 +441,8 @@ class OpenApiDocument {
         schemas.put("TimelineDelta", Map.of(
                 "type", "object",
                 "properties", Map.ofEntries(
+                        Map.entry("period", Map.of("type", "string", "enum", List.of("week", "month"),
+                                "description", "Only on rollup rows")),
                         Map.entry("from", Map.of("type", "string")),
                         Map.entry("to", Map.of("type", "string")),
                         Map.entry("uuid", Map.of("type", "string", "format", "uuid")),
@@ -386,6 +463,29 @@ class OpenApiDocument {
                 )
         ));
 
+        schemas.put("TimelineHour", Map.of(
+                "type", "object",
+                "properties", Map.ofEntries(
+                        Map.entry("start", Map.of("type", "string", "format", "date-time")),
+                        Map.entry("hours", Map.of("type", "integer",
+                                "description", "1, or 24 for a UTC day merged after the retention window")),
+                        Map.entry("players", Map.of("type", "integer", "description", "Active players; server-wide rows only")),
+                        Map.entry("playtime_ms", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("blocks_broken", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("blocks_placed", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("player_kills", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("mob_kills", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("deaths", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("distance_overworld", Map.of("type", "number")),
+                        Map.entry("distance_nether", Map.of("type", "number")),
+                        Map.entry("distance_end", Map.of("type", "number")),
+                        Map.entry("damage_dealt", Map.of("type", "number")),
+                        Map.entry("damage_taken", Map.of("type", "number")),
+                        Map.entry("items_crafted", Map.of("type", "integer", "format", "int64")),
+                        Map.entry("items_consumed", Map.of("type", "integer", "format", "int64"))
+                )
+        ));
+
         schemas.put("SocialPair", Map.of(
                 "type", "object",
                 "properties", Map.of(
@@ -0,0 +1,57 @@
+package de.nurrobin.smpstats.api;
+
+import de.nurrobin.smpstats.database.MomentPage;
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes page cursors as opaque, URL-safe tokens. Clients pass them back unchanged, so the layout
+ * may change between versions; tokens that do not decode are rejected with an {@link IllegalArgumentException}.
+ */
+final class PageCursors {
+    private static final String PLAYER_PREFIX = "p1";
+    private static final String MOMENT_PREFIX = "m1";
+    private static final char SEPARATOR = '|';
+
+    private PageCursors() {
+    }
+
+    static String encode(PlayerPage.Cursor cursor) {
+        return token(PLAYER_PREFIX + SEPARATOR + cursor.sort().name() + SEPARATOR + cursor.numericKey()
+                + SEPARATOR + cursor.uuid() + SEPARATOR + (cursor.textKey() != null ? cursor.textKey() : ""));
+    }
+
+    static String encode(MomentPage.Cursor cursor) {
+        return token(MOMENT_PREFIX + SEPARATOR + cursor.startedAt() + SEPARATOR + cursor.id());
+    }
+
+    static PlayerPage.Cursor decodePlayer(String token) {
+        // The text key comes last and may contain anything, so it takes the rest of the token
+        String[] parts = untoken(token).split("\\|", 5);
+        if (parts.length != 5 || !parts[0].equals(PLAYER_PREFIX)) {
+            throw new IllegalArgumentException("Not a player cursor");
+        }
+        return new PlayerPage.Cursor(PlayerSort.valueOf(parts[1]), parts[4].isEmpty() ? null : parts[4],
+                Long.parseLong(parts[2]), UUID.fromString(parts[3]));
+    }
+
+    static MomentPage.Cursor decodeMoment(String token) {
+        String[] parts = untoken(token).split("\\|");
+        if (parts.length != 3 || !parts[0].equals(MOMENT_PREFIX)) {
+            throw new IllegalArgumentException("Not a moment cursor");
+        }
+        return new MomentPage.Cursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String untoken(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+}
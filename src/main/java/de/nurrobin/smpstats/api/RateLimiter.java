@@ -0,0 +1,120 @@
+package de.nurrobin.smpstats.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by caller, for example an API key or a client address.
+ * A bucket holds up to {@code burst} tokens and refills at {@code perMinute} tokens per minute;
+ * a request is allowed if the bucket can pay its cost.
+ */
+public class RateLimiter {
+    // Buckets that refilled completely carry no state worth keeping, so they are dropped past this size
+    private static final int MAX_BUCKETS = 10_000;
+    // Scanning all buckets is linear, so a map that stays over the limit is swept at most this often
+    private static final long EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+    private static final double NANOS_PER_MINUTE = 60_000_000_000.0;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextEviction;
+
+    public RateLimiter() {
+        this(System::nanoTime);
+    }
+
+    RateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.nextEviction = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes {@code cost} tokens from the bucket for {@code key} if it has enough.
+     * A cost above the burst size is charged as the full burst, so such requests are still possible.
+     */
+    public Decision tryAcquire(String key, int burst, int perMinute, int cost) {
+        if (buckets.size() > MAX_BUCKETS) {
+            maybeEvictFull();
+        }
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, perMinute, nanoClock.getAsLong()));
+        return bucket.tryAcquire(Math.min(Math.max(1, cost), bucket.burst), nanoClock.getAsLong());
+    }
+
+    /**
+     * Returns tokens taken by {@link #tryAcquire} for a request that was rejected further along.
+     */
+    public void refund(String key, int cost) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.refund(Math.min(Math.max(1, cost), bucket.burst));
+        }
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private void maybeEvictFull() {
+        long now = nanoClock.getAsLong();
+        long due = nextEviction.get();
+        if (now - due < 0 || !nextEviction.compareAndSet(due, now + EVICTION_INTERVAL_NANOS)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Outcome of a bucket check.
+     *
+     * @param allowed           whether the request may proceed
+     * @param limit             the bucket's burst size
+     * @param remaining         whole tokens left after this request
+     * @param retryAfterSeconds seconds until the cost could be paid, {@code 0} if allowed
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long retryAfterSeconds) {
+    }
+
+    private static final class Bucket {
+        private final int burst;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(int burst, int perMinute, long now) {
+            this.burst = Math.max(1, burst);
+            this.tokensPerNano = Math.max(1, perMinute) / NANOS_PER_MINUTE;
+            this.tokens = this.burst;
+            this.lastRefill = now;
+        }
+
+        synchronized Decision tryAcquire(int cost, long now) {
+            refill(now);
+            if (tokens >= cost) {
+                tokens -= cost;
+                return new Decision(true, burst, (int) tokens, 0);
+            }
+            double missing = cost - tokens;
+            long retryAfter = (long) Math.ceil(missing / tokensPerNano / 1_000_000_000.0);
+            return new Decision(false, burst, (int) tokens, Math.max(1, retryAfter));
+        }
+
+        synchronized void refund(int cost) {
+            tokens = Math.min(burst, tokens + cost);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(burst, tokens + elapsed * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.nurrobin.smpstats.database.Dataset;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches rendered HTTP response bodies for a limited time.
+ * <p>
+ * Entries are keyed by path plus normalized query parameters, carry a strong ETag derived from the
+ * body, and are dropped early when one of the {@link Dataset}s they were built from changes.
+ * Concurrent requests for the same missing key share one computation.
+ */
+public class ResponseCache {
+    private final int maxEntries;
+    private final Map<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a render that overlapped a change is not kept
+    private final Map<Dataset, AtomicLong> generations = new EnumMap<>(Dataset.class);
+
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        for (Dataset dataset : Dataset.values()) {
+            generations.put(dataset, new AtomicLong());
+        }
+    }
+
+    /**
+     * Returns the cached response for {@code key}, rendering and caching it if it is missing or expired.
+     * Exceptions thrown by {@code render} reach the caller and nothing is cached.
+     *
+     * @param key        cache key, usually from {@link #key(URI)}
+     * @param ttlMillis  how long the response may be reused
+     * @param dependsOn  datasets whose changes invalidate the response
+     * @param contentType the response content type
+     * @param render     produces the response body
+     */
+    public Entry get(String key, long ttlMillis, Set<Dataset> dependsOn, String contentType, Supplier<byte[]> render) {
+        while (true) {
+            CompletableFuture<Entry> existing = entries.get(key);
+            if (existing != null) {
+                if (!existing.isDone()) {
+                    try {
+                        return existing.join();
+                    } catch (CompletionException e) {
+                        // The computing request failed and already reported it; try ourselves
+                        entries.remove(key, existing);
+                        continue;
+                    }
+                }
+                Entry entry = existing.getNow(null);
+                if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                    return entry;
+                }
+                entries.remove(key, existing);
+            }
+            if (entries.size() >= maxEntries) {
+                evictExpired();
+                if (entries.size() >= maxEntries) {
+                    return render(ttlMillis, dependsOn, contentType, render);
+                }
+            }
+            CompletableFuture<Entry> mine = new CompletableFuture<>();
+            if (entries.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            long generation = generation(dependsOn);
+            try {
+                Entry entry = render(ttlMillis, dependsOn, contentType, render);
+                mine.complete(entry);
+                if (generation(dependsOn) != generation) {
+                    entries.remove(key, mine);
+                }
+                return entry;
+            } catch (RuntimeException | Error e) {
+                entries.remove(key, mine);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops every entry built from {@code dataset}.
+     */
+    public void invalidate(Dataset dataset) {
+        generations.get(dataset).incrementAndGet();
+        entries.entrySet().removeIf(e -> {
+            Entry entry = e.getValue().getNow(null);
+            return entry != null && entry.dependsOn().contains(dataset);
+        });
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private long generation(Set<Dataset> datasets) {
+        long sum = 0;
+        for (Dataset dataset : datasets) {
+            sum += generations.get(dataset).get();
+        }
+        return sum;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            Entry entry = e.getValue().getNow(null);
+            return entry != null && entry.expiresAt() <= now;
+        });
+    }
+
+    private static Entry render(long ttlMillis, Set<Dataset> dependsOn, String contentType, Supplier<byte[]> render) {
+        byte[] body = render.get();
+        long expiresAt = ttlMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis;
+        // Compressed once here so cache hits never pay for gzip
+        return new Entry(body, ResponseCompression.gzipIfWorthwhile(body), etag(body), contentType, expiresAt, dependsOn);
+    }
+
+    /**
+     * Builds a cache key from the request path and its query parameters sorted by name, so
+     * {@code ?a=1&b=2} and {@code ?B=2&a=1} share an entry.
+     */
+    public static String key(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return uri.getPath();
+        }
+        List<String[]> params = new ArrayList<>();
+        for (String part : query.split("&")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            String[] kv = part.split("=", 2);
+            params.add(new String[]{kv[0].toLowerCase(java.util.Locale.ROOT), kv.length == 2 ? kv[1] : ""});
+        }
+        // Stable sort keeps the first occurrence of a repeated name first, matching queryParam lookups
+        params.sort(Comparator.comparing(p -> p[0]));
+        StringBuilder sb = new StringBuilder(uri.getPath()).append('?');
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                sb.append('&');
+            }
+            sb.append(params.get(i)[0]).append('=').append(params.get(i)[1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a strong ETag for {@code body}: a quoted, truncated SHA-256 of the bytes.
+     */
+    public static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available in Java
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header against an ETag, using the weak comparison the header calls for.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ETag of the gzip-encoded form of a body tagged {@code etag}. Strong validators
+     * must differ between content codings.
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /**
+     * Sends {@code entry}, or an empty {@code 304 Not Modified} if the client already has this version.
+     */
+    public static void send(HttpExchange exchange, Entry entry) throws IOException {
+        boolean gzip = entry.gzipped() != null && ResponseCompression.acceptsGzip(exchange);
+        String etag = gzip ? gzipEtag(entry.etag()) : entry.etag();
+        exchange.getResponseHeaders().set("ETag", etag);
+        // Clients may store the response but must revalidate, which is cheap thanks to the ETag
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (entry.gzipped() != null) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        }
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.getResponseBody().close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", entry.contentType());
+        ResponseCompression.send(exchange, 200, entry.body(), entry.gzipped());
+    }
+
+    /**
+     * A rendered response. {@code gzipped} is {@code null} when the body is too small to compress.
+     */
+    public record Entry(byte[] body, byte[] gzipped, String etag, String contentType, long expiresAt, Set<Dataset> dependsOn) {
+    }
+}
@@ -0,0 +1,131 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip content negotiation for HTTP responses. Bodies below {@link #MIN_SIZE} are always sent as-is,
+ * since the gzip framing would cost more than it saves.
+ */
+public final class ResponseCompression {
+    public static final int MIN_SIZE = 1024;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private ResponseCompression() {
+    }
+
+    /**
+     * Checks whether the request's {@code Accept-Encoding} allows gzip, honouring {@code q=0} refusals.
+     */
+    public static boolean acceptsGzip(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String part : header.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = false;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return !refused;
+            }
+            if (coding.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Compresses {@code body}, or returns {@code null} if it is too small to be worth it.
+     */
+    public static byte[] gzipIfWorthwhile(byte[] body) {
+        return body.length >= MIN_SIZE ? gzip(body) : null;
+    }
+
+    public static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // In-memory streams do not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Sends {@code body}, compressing it on the fly when the client accepts gzip and the body is large enough.
+     * Headers other than the content encoding must already be set.
+     */
+    public static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body.length < MIN_SIZE) {
+            write(exchange, status, body);
+            return;
+        }
+        // Caches in between must keep the two variants apart
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (acceptsGzip(exchange)) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            write(exchange, status, gzip(body));
+        } else {
+            write(exchange, status, body);
+        }
+    }
+
+    /**
+     * Sends {@code body}, or its pre-compressed form {@code gzipped} when present and accepted by the client.
+     */
+    public static void send(HttpExchange exchange, int status, byte[] body, byte[] gzipped) throws IOException {
+        if (gzipped == null) {
+            write(exchange, status, body);
+            return;
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (acceptsGzip(exchange)) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            write(exchange, status, gzipped);
+        } else {
+            write(exchange, status, body);
+        }
+    }
+
+    /**
+     * Starts a chunked response of unknown length and returns the stream to write the body to, gzip-wrapped
+     * when the client accepts it. Closing the returned stream finishes the response.
+     */
+    public static OutputStream openStream(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        boolean gzip = acceptsGzip(exchange);
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        // A length of 0 selects chunked transfer encoding
+        exchange.sendResponseHeaders(status, 0);
+        OutputStream body = exchange.getResponseBody();
+        return gzip ? new GZIPOutputStream(body, STREAM_BUFFER_SIZE) : body;
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] data) throws IOException {
+        exchange.sendResponseHeaders(status, data.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(data);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package de.nurrobin.smpstats.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process fan-out for Server-Sent Events.
+ * <p>
+ * Each published event is encoded once and kept in a bounded replay ring so reconnecting clients
+ * can resume from their {@code Last-Event-ID}. Every subscriber gets its own bounded queue; a
+ * subscriber that falls behind far enough to fill it is evicted instead of slowing down publishers
+ * or buffering without limit. Such a client simply reconnects and resumes from the ring. The number of
+ * subscribers is capped as well, since each one holds a queue and a request thread while it is open.
+ */
+public class SseBroadcaster {
+    private static final Frame CLOSED = new Frame(-1, null, null, 0);
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final int replayCapacity;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final ArrayDeque<Frame> replay;
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private long lastId;
+    private boolean closed;
+
+    public SseBroadcaster(int replayCapacity, int queueCapacity) {
+        this(replayCapacity, queueCapacity, Integer.MAX_VALUE);
+    }
+
+    public SseBroadcaster(int replayCapacity, int queueCapacity, int maxSubscribers) {
+        this.replayCapacity = Math.max(1, replayCapacity);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.replay = new ArrayDeque<>(this.replayCapacity);
+    }
+
+    /**
+     * Publishes an event to the replay ring and all current subscribers.
+     *
+     * @param event     the SSE event name, or {@code null} for the default "message" event
+     * @param data      the payload, usually a JSON document
+     * @param timestamp the time the event refers to, used to filter the initial backlog
+     * @return the id assigned to the event
+     */
+    public synchronized long publish(String event, String data, long timestamp) {
+        return publish(lastId + 1, event, data, timestamp);
+    }
+
+    /**
+     * Publishes an event under an id the caller assigned, such as its database key, so the ids stay
+     * valid across restarts. Ids must increase; an event whose id is not above the last one is ignored.
+     *
+     * @return the id of the event, or the last published id if the event was ignored
+     */
+    public synchronized long publish(long id, String event, String data, long timestamp) {
+        if (closed || id <= lastId) {
+            return lastId;
+        }
+        lastId = id;
+        Frame frame = new Frame(id, event, data, timestamp);
+        if (replay.size() == replayCapacity) {
+            replay.removeFirst();
+        }
+        replay.addLast(frame);
+        for (Subscription subscription : subscribers) {
+            if (!subscription.queue.offer(frame)) {
+                subscription.evict();
+            }
+        }
+        return frame.id();
+    }
+
+    /**
+     * Registers a subscriber and atomically captures its backlog.
+     *
+     * @param lastEventId the last id the client has seen, or a negative value for a fresh connection
+     * @return a subscription whose backlog holds the replayed events after {@code lastEventId},
+     *         or the whole replay ring for a fresh connection; {@code null} if the subscriber cap is reached
+     */
+    public synchronized Subscription subscribe(long lastEventId) {
+        if (!closed && subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        List<Frame> backlog = new ArrayList<>();
+        for (Frame frame : replay) {
+            if (lastEventId < 0 || frame.id() > lastEventId) {
+                backlog.add(frame);
+            }
+        }
+        Subscription subscription = new Subscription(backlog);
+        if (closed) {
+            subscription.queue.offer(CLOSED);
+        } else {
+            subscribers.add(subscription);
+        }
+        return subscription;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ends all open subscriptions. Later publishes are ignored.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Subscription subscription : subscribers) {
+            subscription.evict();
+        }
+    }
+
+    /**
+     * One encoded event. {@link #encode()} renders the wire format including the {@code id:} line.
+     */
+    public record Frame(long id, String event, String data, long timestamp) {
+        public byte[] encode() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("id: ").append(id).append('\n');
+            if (event != null) {
+                sb.append("event: ").append(event).append('\n');
+            }
+            for (String line : data.split("\n", -1)) {
+                sb.append("data: ").append(line).append('\n');
+            }
+            sb.append('\n');
+            return sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final List<Frame> backlog;
+        private final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private volatile boolean open = true;
+
+        private Subscription(List<Frame> backlog) {
+            this.backlog = backlog;
+        }
+
+        public List<Frame> backlog() {
+            return backlog;
+        }
+
+        /**
+         * Waits for the next event.
+         *
+         * @return the next frame, or {@code null} if none arrived within the timeout or the subscription ended
+         */
+        public Frame next(long timeoutMillis) throws InterruptedException {
+            if (!open) {
+                return null;
+            }
+            Frame frame = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (frame == CLOSED) {
+                open = false;
+                return null;
+            }
+            return frame;
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Writes {@code initial}, then every live event until the subscription ends. A comment line is
+         * sent whenever no event arrived for {@code heartbeatMillis} so proxies keep the connection open.
+         *
+         * @throws IOException if the client went away
+         */
+        public void writeTo(OutputStream os, List<Frame> initial, long heartbeatMillis) throws IOException, InterruptedException {
+            for (Frame frame : initial) {
+                os.write(frame.encode());
+            }
+            os.flush();
+            while (open) {
+                Frame frame = next(heartbeatMillis);
+                if (frame != null) {
+                    os.write(frame.encode());
+                } else if (open) {
+                    os.write(HEARTBEAT);
+                }
+                os.flush();
+            }
+        }
+
+        private void evict() {
+            subscribers.remove(this);
+            // Drop whatever is queued so the closing marker always fits and is seen next
+            queue.clear();
+            queue.offer(CLOSED);
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            subscribers.remove(this);
+        }
+    }
+}
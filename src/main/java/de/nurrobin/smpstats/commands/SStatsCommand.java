@@ -16,6 +16,7 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -147,7 +148,7 @@ public class SStatsCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(infoLine("API", plugin.getSettings().isApiEnabled()
                 ? "Enabled @ :" + plugin.getSettings().getApiPort()
                 : "Disabled"));
-        sender.sendMessage(infoLine("Autosave", plugin.getSettings().getAutosaveMinutes() + " min"));
+        sender.sendMessage(infoLine("Autosave", plugin.getSettings().getAutosaveMinutes() + " min" + lastFlushSummary()));
         sender.sendMessage(infoLine("Moments", plugin.getSettings().isMomentsEnabled() ? "On" : "Off"));
         sender.sendMessage(infoLine("Heatmap", plugin.getSettings().isHeatmapEnabled() ? "On" : "Off"));
         sender.sendMessage(infoLine("Social", plugin.getSettings().isSocialEnabled()
@@ -159,6 +160,13 @@ public class SStatsCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.DARK_AQUA + "╚═══════════════════════════════");
     }
 
+    private String lastFlushSummary() {
+        return statsService.getFlushMetrics()
+                .map(m -> String.format(Locale.ROOT, " (last %.1f ms for %d players, max %.1f ms)",
+                        m.last().millis(), m.last().players(), m.maxMillis()))
+                .orElse("");
+    }
+
     private String infoLine(String key, String value) {
         return ChatColor.GRAY + "  • " + ChatColor.AQUA + key + ChatColor.DARK_GRAY + " » " + ChatColor.WHITE + value;
     }
@@ -2,31 +2,45 @@ package de.nurrobin.smpstats.dashboard;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import de.nurrobin.smpstats.SMPStats;
+import de.nurrobin.smpstats.ServerTotals;
 import de.nurrobin.smpstats.Settings;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.StatsService;
+import de.nurrobin.smpstats.api.ConcurrencyLimiter;
+import de.nurrobin.smpstats.api.ResponseCache;
+import de.nurrobin.smpstats.api.ResponseCompression;
+import de.nurrobin.smpstats.api.SseBroadcaster;
+import de.nurrobin.smpstats.database.Dataset;
+import de.nurrobin.smpstats.database.TimelineMetric;
 import de.nurrobin.smpstats.health.ServerHealthService;
 import de.nurrobin.smpstats.heatmap.HeatmapService;
+import de.nurrobin.smpstats.moments.MomentEntry;
 import de.nurrobin.smpstats.moments.MomentService;
 import de.nurrobin.smpstats.social.SocialPairRow;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Web dashboard server providing a user-friendly interface for SMPStats data.
@@ -40,9 +54,34 @@ public class WebDashboardServer {
     private final HeatmapService heatmapService;
     private final ServerHealthService serverHealthService;
     private final Gson gson;
+    private final Gson eventGson = new Gson();
     
     private HttpServer server;
-    private ScheduledExecutorService sessionCleanupExecutor;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    
+    // Live updates pushed to all open dashboards
+    private final SseBroadcaster liveEvents;
+    private final Consumer<MomentEntry> momentPublisher = this::publishMoment;
+    private final StatsService.SessionListener onlinePublisher = new StatsService.SessionListener() {
+        @Override
+        public void onJoin(StatsRecord record) {
+            publishOnline("joined", record.getName());
+        }
+        
+        @Override
+        public void onQuit(StatsRecord record) {
+            publishOnline("left", record.getName());
+        }
+    };
+    private String lastPublishedStats;
+    
+    // Bundled dashboard files, kept in memory together with their compressed form
+    private final Map<String, StaticAsset> staticAssets = new ConcurrentHashMap<>();
+    
+    // Rendered public responses, dropped when the underlying data changes
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_SIZE);
+    private final Consumer<Dataset> cacheInvalidator = responseCache::invalidate;
     
     // Session management for admin panel
     private final Map<String, AdminSession> sessions = new ConcurrentHashMap<>();
@@ -54,6 +93,23 @@ public class WebDashboardServer {
     private static final String SESSION_COOKIE_NAME = "smpstats_session";
     private static final long SESSION_CLEANUP_INTERVAL_MINUTES = 10;
     
+    // Live update configuration
+    private static final int LIVE_REPLAY_SIZE = 128;
+    private static final int LIVE_CLIENT_QUEUE_SIZE = 64;
+    private static final long LIVE_STATS_INTERVAL_SECONDS = 30;
+    private static final long LIVE_HEARTBEAT_MILLIS = 15_000L;
+    
+    // Assets every dashboard visit loads, read and compressed at startup
+    private static final Map<String, String> PRELOADED_ASSETS = Map.of(
+        "/index.html", "text/html; charset=utf-8",
+        "/css/style.css", "text/css; charset=utf-8",
+        "/js/app.js", "application/javascript; charset=utf-8"
+    );
+    
+    // Response cache configuration
+    private static final int RESPONSE_CACHE_SIZE = 128;
+    private static final long LEADERBOARD_CACHE_TTL_MILLIS = 60_000L;
+    
     // Rate limiting configuration
     private static final int MAX_FAILED_ATTEMPTS = 5;
     private static final long LOCKOUT_DURATION_MS = 60_000; // 1 minute lockout after max failed attempts
@@ -69,6 +125,8 @@ public class WebDashboardServer {
         this.heatmapService = heatmapService;
         this.serverHealthService = serverHealthService;
         this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.liveEvents = new SseBroadcaster(LIVE_REPLAY_SIZE, LIVE_CLIENT_QUEUE_SIZE,
+                settings.getHttpSettings().maxStreamSubscribers());
     }
     
     public void start() {
@@ -85,53 +143,84 @@ public class WebDashboardServer {
             return;
         }
         
+        Settings.HttpSettings limits = settings.getHttpSettings();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(limits.maxConcurrentRequests(), limits.maxRequestsPerEndpoint(),
+                limits.endpointLimits());
+        
         // Static assets
-        server.createContext("/", new StaticHandler());
-        server.createContext("/css/", new StaticHandler());
-        server.createContext("/js/", new StaticHandler());
+        preloadStaticAssets();
+        route(limiter, "/", new StaticHandler());
+        route(limiter, "/css/", new StaticHandler());
+        route(limiter, "/js/", new StaticHandler());
         
         // Public API endpoints
-        server.createContext("/api/public/online", new PublicOnlineHandler());
-        server.createContext("/api/public/leaderboard", new PublicLeaderboardHandler());
-        server.createContext("/api/public/moments", new PublicMomentsHandler());
-        server.createContext("/api/public/stats", new PublicStatsHandler());
-        server.createContext("/api/public/config", new PublicConfigHandler());
+        route(limiter, "/api/public/online", new PublicOnlineHandler());
+        route(limiter, "/api/public/leaderboard", new PublicLeaderboardHandler());
+        route(limiter, "/api/public/moments", new PublicMomentsHandler());
+        route(limiter, "/api/public/stats", new PublicStatsHandler());
+        route(limiter, "/api/public/config", new PublicConfigHandler());
+        // Long-lived stream, capped by http.max_stream_subscribers instead of the request limits
+        server.createContext("/api/public/live", new PublicLiveHandler());
         
         // Admin authentication
-        server.createContext("/api/admin/login", new AdminLoginHandler());
-        server.createContext("/api/admin/logout", new AdminLogoutHandler());
-        server.createContext("/api/admin/check", new AdminCheckHandler());
+        route(limiter, "/api/admin/login", new AdminLoginHandler());
+        route(limiter, "/api/admin/logout", new AdminLogoutHandler());
+        route(limiter, "/api/admin/check", new AdminCheckHandler());
         
         // Admin API endpoints (require authentication)
-        server.createContext("/api/admin/health", new AdminHealthHandler());
-        server.createContext("/api/admin/heatmap", new AdminHeatmapHandler());
-        server.createContext("/api/admin/social", new AdminSocialHandler());
-        server.createContext("/api/admin/deaths", new AdminDeathsHandler());
-        server.createContext("/api/admin/player", new AdminPlayerHandler());
+        route(limiter, "/api/admin/health", new AdminHealthHandler());
+        route(limiter, "/api/admin/heatmap", new AdminHeatmapHandler());
+        route(limiter, "/api/admin/social", new AdminSocialHandler());
+        route(limiter, "/api/admin/deaths", new AdminDeathsHandler());
+        route(limiter, "/api/admin/player", new AdminPlayerHandler());
         
-        server.setExecutor(Executors.newCachedThreadPool());
+        // One cheap virtual thread per request; the limiter bounds how many run at once
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        attachLiveEvents();
+        statsService.getStorage().addChangeListener(cacheInvalidator);
         server.start();
         
-        // Start session cleanup task
-        sessionCleanupExecutor = Executors.newSingleThreadScheduledExecutor();
-        sessionCleanupExecutor.scheduleAtFixedRate(
+        // Start session cleanup and live stats tasks
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleAtFixedRate(
             this::cleanupExpiredSessions,
             SESSION_CLEANUP_INTERVAL_MINUTES,
             SESSION_CLEANUP_INTERVAL_MINUTES,
             TimeUnit.MINUTES
         );
+        scheduler.scheduleAtFixedRate(
+            this::publishStats,
+            LIVE_STATS_INTERVAL_SECONDS,
+            LIVE_STATS_INTERVAL_SECONDS,
+            TimeUnit.SECONDS
+        );
         
         plugin.getLogger().info("Web Dashboard running on " + dashSettings.bindAddress() + ":" + dashSettings.port());
     }
     
     public void stop() {
-        if (sessionCleanupExecutor != null) {
-            sessionCleanupExecutor.shutdownNow();
+        statsService.removeSessionListener(onlinePublisher);
+        momentService.removeListener(momentPublisher);
+        if (statsService.getStorage() != null) {
+            statsService.getStorage().removeChangeListener(cacheInvalidator);
+        }
+        // Ends open live streams so their handler threads return before the server shuts down
+        liveEvents.close();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
         }
         if (server != null) {
             server.stop(0);
             sessions.clear();
         }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void route(ConcurrencyLimiter limiter, String path, HttpHandler handler) {
+        server.createContext(path, limiter.limit(path, handler));
     }
     
     private void cleanupExpiredSessions() {
@@ -139,25 +228,81 @@ public class WebDashboardServer {
         cleanupLoginAttempts();
     }
     
+    // ============== Live Updates ==============
+    
+    /**
+     * Subscribes the live event stream to joins, quits and new moments.
+     */
+    void attachLiveEvents() {
+        statsService.addSessionListener(onlinePublisher);
+        momentService.addListener(momentPublisher);
+    }
+    
+    private void publishOnline(String change, String name) {
+        if (!settings.getDashboardSettings().publicSettings().showOnlinePlayers()) {
+            return;
+        }
+        List<String> onlineNames = statsService.getOnlineNames();
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("count", onlineNames.size());
+        event.put("players", onlineNames);
+        event.put(change, name);
+        liveEvents.publish("online", eventGson.toJson(event), System.currentTimeMillis());
+    }
+    
+    private void publishMoment(MomentEntry entry) {
+        if (!settings.getDashboardSettings().publicSettings().showRecentMoments()) {
+            return;
+        }
+        liveEvents.publish("moment", eventGson.toJson(entry), entry.getEndedAt());
+    }
+    
+    /**
+     * Recomputes the server-wide stats once for all connected dashboards and pushes them if they changed.
+     * Skipped entirely while nobody is watching.
+     */
+    void publishStats() {
+        if (liveEvents.subscriberCount() == 0
+                || !settings.getDashboardSettings().publicSettings().showServerStats()) {
+            return;
+        }
+        try {
+            String json = eventGson.toJson(buildServerStats());
+            if (!json.equals(lastPublishedStats)) {
+                lastPublishedStats = json;
+                liveEvents.publish("stats", json, System.currentTimeMillis());
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Could not publish live stats: " + e.getMessage());
+        }
+    }
+    
     // ============== Helper Methods ==============
     
     private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
         byte[] data = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.sendResponseHeaders(status, data.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(data);
+        ResponseCompression.send(exchange, status, data);
+    }
+    
+    /**
+     * Serializes {@code body} straight into a chunked response instead of building the whole document
+     * in memory first. Meant for responses whose size grows with the number of players or events.
+     */
+    private void sendJsonStream(HttpExchange exchange, int status, Object body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        OutputStream out = ResponseCompression.openStream(exchange, status);
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
+            gson.toJson(body, body.getClass(), writer);
         }
     }
     
     private void sendHtml(HttpExchange exchange, int status, String html) throws IOException {
         byte[] data = html.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
-        exchange.sendResponseHeaders(status, data.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(data);
-        }
+        ResponseCompression.send(exchange, status, data);
     }
     
     private void sendText(HttpExchange exchange, int status, String text) throws IOException {
@@ -170,21 +315,51 @@ public class WebDashboardServer {
     }
     
     private void sendStatic(HttpExchange exchange, String resourcePath, String contentType) throws IOException {
+        StaticAsset asset = staticAsset(resourcePath, contentType);
+        if (asset == null) {
+            sendText(exchange, 404, "Not Found");
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("Cache-Control", "public, max-age=3600");
+        ResponseCompression.send(exchange, 200, asset.body(), asset.gzipped());
+    }
+    
+    /**
+     * Returns a bundled asset from memory, reading and compressing it on first use.
+     * Missing paths are not remembered, so probing random URLs cannot grow the map.
+     */
+    private StaticAsset staticAsset(String resourcePath, String contentType) throws IOException {
+        StaticAsset cached = staticAssets.get(resourcePath);
+        if (cached != null) {
+            return cached;
+        }
         try (InputStream is = getClass().getResourceAsStream("/dashboard" + resourcePath)) {
             if (is == null) {
-                sendText(exchange, 404, "Not Found");
-                return;
+                return null;
             }
             byte[] data = is.readAllBytes();
-            exchange.getResponseHeaders().add("Content-Type", contentType);
-            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=3600");
-            exchange.sendResponseHeaders(200, data.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(data);
+            // Raster images are already compressed
+            boolean compressible = !contentType.startsWith("image/") || contentType.startsWith("image/svg");
+            StaticAsset asset = new StaticAsset(data, compressible ? ResponseCompression.gzipIfWorthwhile(data) : null);
+            staticAssets.putIfAbsent(resourcePath, asset);
+            return asset;
+        }
+    }
+    
+    private void preloadStaticAssets() {
+        for (Map.Entry<String, String> asset : PRELOADED_ASSETS.entrySet()) {
+            try {
+                staticAsset(asset.getKey(), asset.getValue());
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not preload dashboard asset " + asset.getKey() + ": " + e.getMessage());
             }
         }
     }
     
+    private record StaticAsset(byte[] body, byte[] gzipped) {
+    }
+    
     private Optional<String> queryParam(HttpExchange exchange, String name) {
         String query = exchange.getRequestURI().getQuery();
         if (query == null || query.isEmpty()) return Optional.empty();
@@ -457,34 +632,56 @@ public class WebDashboardServer {
                 sendJson(exchange, 400, Map.of("error", "Invalid parameter format"));
                 return;
             }
-            String sort = queryParam(exchange, "sort").orElse("playtime");
+            Optional<TimelineMetric> sort = TimelineMetric.parse(queryParam(exchange, "sort").orElse("playtime"));
+            if (sort.isEmpty()) {
+                sendJson(exchange, 400, Map.of("error", "Invalid sort"));
+                return;
+            }
             
             limit = Math.min(50, Math.max(1, limit));
             days = Math.min(365, Math.max(1, days));
             
+            // Keyed by the clamped values so equivalent requests share one entry
+            TimelineMetric metric = sort.get();
+            String cacheKey = "/api/public/leaderboard?days=" + days + "&limit=" + limit + "&sort=" + metric.column();
+            int queryDays = days;
+            int queryLimit = limit;
             try {
-                List<Map<String, Object>> leaderboard = statsService.getStorage().loadTimelineLeaderboard(days, limit);
-                
-                // Enrich with player names
-                for (Map<String, Object> row : leaderboard) {
-                    try {
-                        UUID uuid = UUID.fromString(row.get("uuid").toString());
-                        Optional<StatsRecord> record = statsService.getStats(uuid);
-                        row.put("name", record.map(StatsRecord::getName).orElse("Unknown"));
-                    } catch (Exception ignored) {
-                        row.put("name", "Unknown");
-                    }
-                }
-                
-                sendJson(exchange, 200, Map.of(
-                    "days", days,
-                    "leaderboard", leaderboard
-                ));
-            } catch (Exception e) {
+                ResponseCache.Entry entry = responseCache.get(cacheKey, LEADERBOARD_CACHE_TTL_MILLIS,
+                        Set.of(Dataset.TIMELINE, Dataset.STATS), "application/json; charset=utf-8",
+                        () -> gson.toJson(Map.of(
+                            "days", queryDays,
+                            "sort", metric.column(),
+                            "leaderboard", loadLeaderboard(queryDays, metric, queryLimit)
+                        )).getBytes(StandardCharsets.UTF_8));
+                exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                ResponseCache.send(exchange, entry);
+            } catch (RuntimeException e) {
                 plugin.getLogger().warning("Leaderboard query failed: " + e.getMessage());
                 sendJson(exchange, 500, Map.of("error", "Failed to load leaderboard"));
             }
         }
+        
+        private List<Map<String, Object>> loadLeaderboard(int days, TimelineMetric sort, int limit) {
+            List<Map<String, Object>> leaderboard;
+            try {
+                leaderboard = statsService.getStorage().loadTimelineLeaderboard(days, sort, limit);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            
+            // Enrich with player names
+            for (Map<String, Object> row : leaderboard) {
+                try {
+                    UUID uuid = UUID.fromString(row.get("uuid").toString());
+                    Optional<StatsRecord> record = statsService.getStats(uuid);
+                    row.put("name", record.map(StatsRecord::getName).orElse("Unknown"));
+                } catch (Exception ignored) {
+                    row.put("name", "Unknown");
+                }
+            }
+            return leaderboard;
+        }
     }
     
     private class PublicMomentsHandler implements HttpHandler {
@@ -517,48 +714,69 @@ public class WebDashboardServer {
                 return;
             }
             
-            List<StatsRecord> allStats = statsService.getAllStats();
-            
-            // Aggregate server-wide stats
-            long totalPlaytime = 0;
-            long totalDeaths = 0;
-            long totalPlayerKills = 0;
-            long totalMobKills = 0;
-            long totalBlocksBroken = 0;
-            long totalBlocksPlaced = 0;
-            double totalDistance = 0;
-            Set<String> allBiomes = new HashSet<>();
-            
-            for (StatsRecord record : allStats) {
-                totalPlaytime += record.getPlaytimeMillis();
-                totalDeaths += record.getDeaths();
-                totalPlayerKills += record.getPlayerKills();
-                totalMobKills += record.getMobKills();
-                totalBlocksBroken += record.getBlocksBroken();
-                totalBlocksPlaced += record.getBlocksPlaced();
-                totalDistance += record.getDistanceOverworld() + record.getDistanceNether() + record.getDistanceEnd();
-                if (record.getBiomesVisited() != null) {
-                    allBiomes.addAll(record.getBiomesVisited());
+            sendJson(exchange, 200, buildServerStats());
+        }
+    }
+    
+    private Map<String, Object> buildServerStats() {
+        ServerTotals totals = statsService.getServerTotals();
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalPlayers", totals.getPlayers());
+        stats.put("totalPlaytimeHours", totals.getPlaytimeMillis() / 3600000.0);
+        stats.put("totalDeaths", totals.getDeaths());
+        stats.put("totalPlayerKills", totals.getPlayerKills());
+        stats.put("totalMobKills", totals.getMobKills());
+        stats.put("totalBlocksBroken", totals.getBlocksBroken());
+        stats.put("totalBlocksPlaced", totals.getBlocksPlaced());
+        stats.put("totalDistanceKm", totals.getDistance() / 1000.0);
+        
+        // Sorted alphabetically for display
+        List<String> biomes = totals.getBiomes();
+        stats.put("uniqueBiomesDiscovered", biomes.size());
+        stats.put("biomesList", biomes);
+        return stats;
+    }
+    
+    /**
+     * Server-Sent Events stream of dashboard updates: {@code online} on joins and quits, {@code moment}
+     * for every new moment and {@code stats} whenever the periodically recomputed totals change.
+     * Clients load the initial state over the regular endpoints; a reconnect with {@code Last-Event-ID}
+     * replays what it missed.
+     */
+    private class PublicLiveHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long lastEventId = parseLastEventId(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+            // A fresh connection starts at the live tail instead of replaying the ring
+            SseBroadcaster.Subscription opened = liveEvents.subscribe(lastEventId < 0 ? Long.MAX_VALUE : lastEventId);
+            if (opened == null) {
+                ConcurrencyLimiter.reject(exchange);
+                return;
+            }
+            try (SseBroadcaster.Subscription subscription = opened) {
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    subscription.writeTo(os, subscription.backlog(), LIVE_HEARTBEAT_MILLIS);
+                } catch (IOException e) {
+                    // Client went away; nothing left to clean up besides the subscription
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
             }
-            
-            Map<String, Object> stats = new LinkedHashMap<>();
-            stats.put("totalPlayers", allStats.size());
-            stats.put("totalPlaytimeHours", totalPlaytime / 3600000.0);
-            stats.put("totalDeaths", totalDeaths);
-            stats.put("totalPlayerKills", totalPlayerKills);
-            stats.put("totalMobKills", totalMobKills);
-            stats.put("totalBlocksBroken", totalBlocksBroken);
-            stats.put("totalBlocksPlaced", totalBlocksPlaced);
-            stats.put("totalDistanceKm", totalDistance / 1000.0);
-            stats.put("uniqueBiomesDiscovered", allBiomes.size());
-            
-            // Sort biomes alphabetically for display
-            List<String> sortedBiomes = new ArrayList<>(allBiomes);
-            Collections.sort(sortedBiomes);
-            stats.put("biomesList", sortedBiomes);
-            
-            sendJson(exchange, 200, stats);
+        }
+        
+        private long parseLastEventId(String header) {
+            if (header == null || header.isBlank()) {
+                return -1L;
+            }
+            try {
+                return Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
         }
     }
     
@@ -704,7 +922,7 @@ public class WebDashboardServer {
             
             try {
                 var heatmap = heatmapService.generateHeatmap(type.toUpperCase(), world, since, until, decay, gridSize);
-                sendJson(exchange, 200, Map.of(
+                sendJsonStream(exchange, 200, Map.of(
                     "type", type.toUpperCase(),
                     "world", world,
                     "gridSize", gridSize,
@@ -810,7 +1028,7 @@ public class WebDashboardServer {
             if (uuidStr.isEmpty() || uuidStr.equals("all")) {
                 // Return all players
                 List<StatsRecord> allStats = statsService.getAllStats();
-                sendJson(exchange, 200, Map.of("players", allStats));
+                sendJsonStream(exchange, 200, Map.of("players", allStats));
                 return;
             }
             
@@ -835,6 +1053,7 @@ public class WebDashboardServer {
     HttpHandler publicLeaderboardHandler() { return new PublicLeaderboardHandler(); }
     HttpHandler publicMomentsHandler() { return new PublicMomentsHandler(); }
     HttpHandler publicStatsHandler() { return new PublicStatsHandler(); }
+    HttpHandler publicLiveHandler() { return new PublicLiveHandler(); }
     HttpHandler adminLoginHandler() { return new AdminLoginHandler(); }
     HttpHandler adminLogoutHandler() { return new AdminLogoutHandler(); }
     HttpHandler adminCheckHandler() { return new AdminCheckHandler(); }
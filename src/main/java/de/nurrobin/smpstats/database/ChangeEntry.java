@@ -0,0 +1,13 @@
+package de.nurrobin.smpstats.database;
+
+/**
+ * One row of the change log kept by {@link StatsStorage}.
+ *
+ * @param seq       position in the log; strictly increasing and never reused
+ * @param timestamp when the change was written (ms since epoch)
+ * @param dataset   which kind of data changed
+ * @param key       identifies the changed row within its dataset, e.g. a player uuid or a moment id
+ * @param payload   the row as JSON, as it was after the change, or {@code null} if the row was deleted
+ */
+public record ChangeEntry(long seq, long timestamp, Dataset dataset, String key, String payload) {
+}
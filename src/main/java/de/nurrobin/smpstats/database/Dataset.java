@@ -0,0 +1,14 @@
+package de.nurrobin.smpstats.database;
+
+/**
+ * Groups of stored data that change together. {@link StatsStorage} reports writes per group
+ * so derived views, such as cached HTTP responses, know when to refresh.
+ */
+public enum Dataset {
+    STATS,
+    MOMENTS,
+    HEATMAP,
+    SOCIAL,
+    TIMELINE,
+    DEATHS
+}
@@ -0,0 +1,4 @@
+package de.nurrobin.smpstats.database;
+
+public record HeatmapChunkTotal(int chunkX, int chunkZ, double value) {
+}
@@ -0,0 +1,12 @@
+package de.nurrobin.smpstats.database;
+
+import java.util.UUID;
+
+/**
+ * Heatmap activity of one player, summed per chunk and per hour ({@code hour} is epoch millis / 3 600 000).
+ */
+public record HeatmapPlayerBin(UUID player, String type, String world, int chunkX, int chunkZ, long hour, double value) {
+    public static long hourOf(long timestamp) {
+        return Math.floorDiv(timestamp, 3_600_000L);
+    }
+}
@@ -0,0 +1,31 @@
+package de.nurrobin.smpstats.database;
+
+/**
+ * Append-only tables that grow with play time and can be trimmed by retention limits.
+ */
+public enum HistoryTable {
+    MOMENTS("moments", "started_at", Dataset.MOMENTS),
+    DEATH_REPLAYS("death_replays", "ts", Dataset.DEATHS);
+
+    private final String table;
+    private final String timeColumn;
+    private final Dataset dataset;
+
+    HistoryTable(String table, String timeColumn, Dataset dataset) {
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.dataset = dataset;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    String timeColumn() {
+        return timeColumn;
+    }
+
+    Dataset dataset() {
+        return dataset;
+    }
+}
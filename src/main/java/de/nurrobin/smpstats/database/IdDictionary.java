@@ -0,0 +1,95 @@
+package de.nurrobin.smpstats.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps repeated strings (player UUIDs, event types, world names) to small integer ids kept in a
+ * two-column lookup table. The whole table is cached in memory, so encoding and decoding only touch
+ * the database the first time a new value is written.
+ */
+final class IdDictionary {
+    private final String table;
+    private final String column;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+    IdDictionary(String table, String column) {
+        this.table = table;
+        this.column = column;
+    }
+
+    /**
+     * Replaces the cache with the current contents of the lookup table.
+     */
+    synchronized void load(Connection connection) throws SQLException {
+        ids.clear();
+        values.clear();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, " + column + " FROM " + table)) {
+            while (rs.next()) {
+                remember(rs.getInt(1), rs.getString(2));
+            }
+        }
+    }
+
+    /**
+     * Returns the id of {@code value}, adding it to the lookup table on first use.
+     * Must not be called inside a transaction that may roll back, or the cached id could be reused.
+     *
+     * @return the id, or {@code null} for a {@code null} value
+     */
+    synchronized Integer idOf(Connection connection, String value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        Integer cached = ids.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT OR IGNORE INTO " + table + " (" + column + ") VALUES (?)")) {
+            ps.setString(1, value);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("SELECT id FROM " + table + " WHERE " + column + " = ?")) {
+            ps.setString(1, value);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Could not assign " + table + " id for " + value);
+                }
+                int id = rs.getInt(1);
+                remember(id, value);
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Looks up the id of {@code value} without assigning one.
+     *
+     * @return the id, or {@code null} if the value has never been written
+     */
+    Integer find(String value) {
+        return value == null ? null : ids.get(value);
+    }
+
+    /**
+     * Decodes an id read from an encoded column.
+     *
+     * @return the value, or {@code null} for a SQL {@code NULL} id or an unknown id
+     */
+    String valueOf(ResultSet rs, String idColumn) throws SQLException {
+        int id = rs.getInt(idColumn);
+        return rs.wasNull() ? null : values.get(id);
+    }
+
+    private void remember(int id, String value) {
+        ids.put(value, id);
+        values.put(id, value);
+    }
+}
@@ -0,0 +1,24 @@
+package de.nurrobin.smpstats.database;
+
+import de.nurrobin.smpstats.moments.MomentEntry;
+
+import java.util.List;
+
+/**
+ * One page of moments read with keyset pagination, newest first.
+ *
+ * @param entries the moments on this page
+ * @param next    cursor for the following page, or {@code null} if this is the last page
+ */
+public record MomentPage(List<MomentEntry> entries, Cursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Position just after the last moment of a page; the id breaks ties between equal start times.
+     */
+    public record Cursor(long startedAt, long id) {
+    }
+}
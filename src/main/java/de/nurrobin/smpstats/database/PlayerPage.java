@@ -0,0 +1,26 @@
+package de.nurrobin.smpstats.database;
+
+import de.nurrobin.smpstats.StatsRecord;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of players read with keyset pagination.
+ *
+ * @param records the players on this page, in sort order
+ * @param next    cursor for the following page, or {@code null} if this is the last page
+ */
+public record PlayerPage(List<StatsRecord> records, Cursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Position just after the last row of a page. {@code textKey} is set for name and uuid sorting,
+     * {@code numericKey} for all other sorts; the uuid breaks ties.
+     */
+    public record Cursor(PlayerSort sort, String textKey, long numericKey, UUID uuid) {
+    }
+}
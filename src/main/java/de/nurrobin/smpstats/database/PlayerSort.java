@@ -0,0 +1,63 @@
+package de.nurrobin.smpstats.database;
+
+import de.nurrobin.smpstats.StatsRecord;
+
+/**
+ * Sort orders supported by {@link StatsStorage#loadPlayerPage}. Each order is backed by an index
+ * on {@code player_stats} so a page can be read without scanning the whole table.
+ */
+public enum PlayerSort {
+    PLAYTIME("playtime_ms", true),
+    NAME("name COLLATE NOCASE", false),
+    LAST_SEEN("last_join", true),
+    KILLS("(mob_kills + player_kills)", true),
+    DEATHS("deaths", true),
+    UUID("uuid", false);
+
+    private final String expression;
+    private final boolean descending;
+
+    PlayerSort(String expression, boolean descending) {
+        this.expression = expression;
+        this.descending = descending;
+    }
+
+    String expression() {
+        return expression;
+    }
+
+    boolean descending() {
+        return descending;
+    }
+
+    /**
+     * Whether the order is on a text column, in which case cursors carry {@link #textKey} instead of {@link #numericKey}.
+     */
+    boolean textual() {
+        return this == NAME || this == UUID;
+    }
+
+    /**
+     * Text sort key of a record, or {@code null} for the numeric orders.
+     */
+    String textKey(StatsRecord record) {
+        return switch (this) {
+            case NAME -> record.getName();
+            case UUID -> record.getUuid().toString();
+            default -> null;
+        };
+    }
+
+    /**
+     * Numeric sort key of a record. Unused for {@link #NAME} and {@link #UUID}, which sort on text.
+     */
+    long numericKey(StatsRecord record) {
+        return switch (this) {
+            case PLAYTIME -> record.getPlaytimeMillis();
+            case LAST_SEEN -> record.getLastJoin();
+            case KILLS -> record.getMobKills() + record.getPlayerKills();
+            case DEATHS -> record.getDeaths();
+            case NAME, UUID -> 0L;
+        };
+    }
+}
@@ -2,6 +2,7 @@ package de.nurrobin.smpstats.database;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import de.nurrobin.smpstats.ServerTotals;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.moments.MomentEntry;
 import de.nurrobin.smpstats.social.SocialPairRow;
@@ -19,6 +20,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -26,16 +31,37 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class StatsStorage implements Closeable {
-    private static final int SCHEMA_VERSION = 7;
+    private static final int SCHEMA_VERSION = 17;
     private static final Type STRING_SET = new TypeToken<Set<String>>() {
     }.getType();
+    private static final long CHANGE_LOG_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long CHANGE_LOG_COMPACTION_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // Rows of these datasets are updated in place, so only their latest log entry is worth keeping
+    private static final Set<Dataset> KEYED_CHANGES = EnumSet.of(Dataset.STATS, Dataset.SOCIAL);
+    // Payload column value of a tombstone; the column is NOT NULL and no stored row serializes to this
+    private static final String TOMBSTONE = "null";
+    // Rolling leaderboard windows in days, today included, kept up to date in timeline_windows
+    private static final List<Integer> ROLLING_WINDOWS = List.of(1, 7, 30);
+    // Hourly timeline buckets are keyed by epoch hour, so days of hourly rows are UTC days
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
 
     private final Plugin plugin;
     private final Path databaseFile;
     private final Gson gson = new Gson();
+    private final IdDictionary players = new IdDictionary("player_ids", "uuid");
+    private final IdDictionary types = new IdDictionary("type_ids", "name");
+    private final IdDictionary worlds = new IdDictionary("world_ids", "name");
+    private volatile ServerTotals totals = new ServerTotals();
+    private final List<Consumer<Dataset>> changeListeners = new CopyOnWriteArrayList<>();
     private Connection connection;
+    private java.time.LocalDate timelineWindowsDay;
+    private long changeLogHorizon;
+    private long nextChangeLogCompaction;
 
     public StatsStorage(Plugin plugin) {
         this.plugin = plugin;
@@ -52,6 +78,11 @@ public class StatsStorage implements Closeable {
             pragma.execute("PRAGMA synchronous=NORMAL;");
         }
         applyMigrations();
+        players.load(connection);
+        types.load(connection);
+        worlds.load(connection);
+        totals = loadServerTotals();
+        changeLogHorizon = loadChangeLogHorizon();
     }
 
     private void applyMigrations() throws SQLException {
@@ -92,6 +123,46 @@ public class StatsStorage implements Closeable {
                 addHeatmapEventsTable();
                 currentVersion = 7;
             }
+            if (currentVersion == 7) {
+                addPlayerSortIndexes();
+                currentVersion = 8;
+            }
+            if (currentVersion == 8) {
+                addHeatmapChunkColumns();
+                currentVersion = 9;
+            }
+            if (currentVersion == 9) {
+                addPlayerHeatmapTables();
+                currentVersion = 10;
+            }
+            if (currentVersion == 10) {
+                encodeDictionaryColumns();
+                currentVersion = 11;
+            }
+            if (currentVersion == 11) {
+                addLastModifiedColumn();
+                currentVersion = 12;
+            }
+            if (currentVersion == 12) {
+                addChangeLogTables();
+                currentVersion = 13;
+            }
+            if (currentVersion == 13) {
+                addHistoryIndexes();
+                currentVersion = 14;
+            }
+            if (currentVersion == 14) {
+                addTimelineDeltaTables();
+                currentVersion = 15;
+            }
+            if (currentVersion == 15) {
+                addTimelineWindowTable();
+                currentVersion = 16;
+            }
+            if (currentVersion == 16) {
+                addTimelineHourlyTables();
+                currentVersion = 17;
+            }
             setUserVersion(currentVersion);
             connection.commit();
         } catch (SQLException ex) {
@@ -305,7 +376,8 @@ public class StatsStorage implements Closeable {
     }
 
     public synchronized Optional<StatsRecord> loadByName(String name) throws SQLException {
-        String sql = "SELECT * FROM player_stats WHERE lower(name) = lower(?)";
+        // Same ASCII case folding as lower(), but able to seek idx_player_name_nocase
+        String sql = "SELECT * FROM player_stats WHERE name = ? COLLATE NOCASE";
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, name);
             try (ResultSet rs = statement.executeQuery()) {
@@ -329,13 +401,323 @@ public class StatsStorage implements Closeable {
         return records;
     }
 
+    /**
+     * Reads one page of players using keyset pagination, so the cost of a page does not grow
+     * with how deep into the list it is.
+     *
+     * @param sort       the sort order
+     * @param namePrefix optional case-insensitive name prefix, or {@code null}/blank for all players
+     * @param after      cursor returned with the previous page, or {@code null} for the first page
+     * @param limit      maximum number of players to return
+     */
+    public synchronized PlayerPage loadPlayerPage(PlayerSort sort, String namePrefix, PlayerPage.Cursor after, int limit) throws SQLException {
+        return loadPlayerPage(sort, namePrefix, 0, after, limit);
+    }
+
+    /**
+     * Reads one page of players whose stats were saved with changes at or after {@code updatedSince}
+     * (ms since epoch, {@code 0} for all players). Otherwise the same as
+     * {@link #loadPlayerPage(PlayerSort, String, PlayerPage.Cursor, int)}.
+     */
+    public synchronized PlayerPage loadPlayerPage(PlayerSort sort, String namePrefix, long updatedSince,
+                                                  PlayerPage.Cursor after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM player_stats WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (namePrefix != null && !namePrefix.isBlank()) {
+            sql.append(" AND name LIKE ? ESCAPE '\\'");
+            params.add(escapeLike(namePrefix.trim()) + "%");
+        }
+        if (updatedSince > 0) {
+            sql.append(" AND last_modified >= ?");
+            params.add(updatedSince);
+        }
+        String expr = sort.expression();
+        String cmp = sort.descending() ? "<" : ">";
+        if (after != null) {
+            Object key = sort.textual() ? after.textKey() : (Object) after.numericKey();
+            sql.append(" AND (").append(expr).append(' ').append(cmp).append(" ? OR (")
+                    .append(expr).append(" = ? AND uuid > ?))");
+            params.add(key);
+            params.add(key);
+            params.add(after.uuid().toString());
+        }
+        sql.append(" ORDER BY ").append(expr).append(sort.descending() ? " DESC" : " ASC").append(", uuid ASC LIMIT ?");
+        params.add(limit + 1);
+
+        List<StatsRecord> records = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapRecord(rs));
+                }
+            }
+        }
+
+        PlayerPage.Cursor next = null;
+        if (records.size() > limit) {
+            records.remove(records.size() - 1);
+            StatsRecord last = records.get(records.size() - 1);
+            next = new PlayerPage.Cursor(sort,
+                    sort.textKey(last),
+                    sort.numericKey(last),
+                    last.getUuid());
+        }
+        return new PlayerPage(records, next);
+    }
+
+    /**
+     * Counts players, optionally restricted to a case-insensitive name prefix.
+     */
+    public synchronized int countPlayers(String namePrefix) throws SQLException {
+        boolean filtered = namePrefix != null && !namePrefix.isBlank();
+        String sql = filtered
+                ? "SELECT COUNT(*) FROM player_stats WHERE name LIKE ? ESCAPE '\\'"
+                : "SELECT COUNT(*) FROM player_stats";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (filtered) {
+                statement.setString(1, escapeLike(namePrefix.trim()) + "%");
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static String escapeLike(String raw) {
+        return raw.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Registers a callback that is told which dataset changed after every successful write.
+     * Listeners may run on any thread, with the storage lock held, and must return quickly.
+     */
+    public void addChangeListener(Consumer<Dataset> listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Consumer<Dataset> listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void changed(Dataset dataset) {
+        for (Consumer<Dataset> listener : changeListeners) {
+            listener.accept(dataset);
+        }
+    }
+
+    /**
+     * Reads change log entries with a sequence number above {@code afterSeq}, oldest first.
+     * Only the latest entry is kept per player and per social pair, so replaying the result
+     * yields the current state of every row it mentions. Deleted rows come back as tombstones
+     * with a {@code null} payload.
+     */
+    public synchronized List<ChangeEntry> loadChanges(long afterSeq, int limit) throws SQLException {
+        String sql = "SELECT seq, ts, dataset, entity_key, payload FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<ChangeEntry> entries = new ArrayList<>();
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setLong(1, afterSeq);
+            st.setInt(2, limit);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    String payload = rs.getString("payload");
+                    entries.add(new ChangeEntry(rs.getLong("seq"), rs.getLong("ts"), Dataset.valueOf(rs.getString("dataset")),
+                            rs.getString("entity_key"), TOMBSTONE.equals(payload) ? null : payload));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the highest sequence number dropped by age-based compaction. A reader whose last seen
+     * sequence number is below it may have missed changes and has to resynchronize fully.
+     */
+    public synchronized long getChangeLogHorizon() {
+        return changeLogHorizon;
+    }
+
+    /**
+     * Drops change log entries written before {@code olderThan} (ms since epoch) and moves the horizon past them.
+     * Runs on its own about once an hour while changes are written.
+     *
+     * @return the number of dropped entries
+     */
+    public synchronized int compactChangeLog(long olderThan) throws SQLException {
+        return inTransaction(() -> {
+            long horizon;
+            try (PreparedStatement st = connection.prepareStatement("SELECT MAX(seq) FROM change_log WHERE ts < ?")) {
+                st.setLong(1, olderThan);
+                try (ResultSet rs = st.executeQuery()) {
+                    horizon = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+            if (horizon <= changeLogHorizon) {
+                return 0;
+            }
+            int removed;
+            // Cut by sequence number so everything up to the horizon is gone even if the clock went backwards
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM change_log WHERE seq <= ?")) {
+                st.setLong(1, horizon);
+                removed = st.executeUpdate();
+            }
+            try (PreparedStatement st = connection.prepareStatement(
+                    "INSERT INTO change_log_state (name, value) VALUES ('horizon', ?) ON CONFLICT(name) DO UPDATE SET value = excluded.value")) {
+                st.setLong(1, horizon);
+                st.executeUpdate();
+            }
+            changeLogHorizon = horizon;
+            return removed;
+        });
+    }
+
+    /**
+     * Records a change in the log. Must run in the same transaction as the write it describes.
+     *
+     * @param row the row after the change, or {@code null} for a tombstone of a deleted row,
+     *            which also replaces the earlier entries for that row
+     */
+    private void appendChange(Dataset dataset, String key, Object row) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (row == null || KEYED_CHANGES.contains(dataset)) {
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM change_log WHERE dataset = ? AND entity_key = ?")) {
+                st.setString(1, dataset.name());
+                st.setString(2, key);
+                st.executeUpdate();
+            }
+        }
+        try (PreparedStatement st = connection.prepareStatement(
+                "INSERT INTO change_log (ts, dataset, entity_key, payload) VALUES (?, ?, ?, ?)")) {
+            st.setLong(1, now);
+            st.setString(2, dataset.name());
+            st.setString(3, key);
+            st.setString(4, row == null ? TOMBSTONE : gson.toJson(row));
+            st.executeUpdate();
+        }
+        if (now >= nextChangeLogCompaction) {
+            nextChangeLogCompaction = now + CHANGE_LOG_COMPACTION_INTERVAL_MILLIS;
+            compactChangeLog(now - CHANGE_LOG_RETENTION_MILLIS);
+        }
+    }
+
+    private long loadChangeLogHorizon() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT value FROM change_log_state WHERE name = 'horizon'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private long lastInsertId() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT last_insert_rowid()")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a transaction, or as part of the caller's transaction if one is already open.
+     */
+    private <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            return work.run();
+        }
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Returns a copy of the server-wide totals over all saved records. They are summed once at startup
+     * and then kept current by {@link #save(StatsRecord)}, so this does not read the database.
+     */
+    public ServerTotals getServerTotals() {
+        return totals.copy();
+    }
+
+    private ServerTotals loadServerTotals() throws SQLException {
+        Map<String, Integer> biomePlayers = new LinkedHashMap<>();
+        String biomeSql = """
+                SELECT b.value, COUNT(*) FROM player_stats, json_each(player_stats.biomes) b
+                WHERE json_valid(player_stats.biomes) AND json_type(player_stats.biomes) = 'array'
+                GROUP BY b.value
+                """;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(biomeSql)) {
+            while (rs.next()) {
+                biomePlayers.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        String sql = """
+                SELECT COUNT(*), SUM(playtime_ms), SUM(deaths), SUM(player_kills), SUM(mob_kills),
+                       SUM(blocks_broken), SUM(blocks_placed), SUM(dist_overworld + dist_nether + dist_end)
+                FROM player_stats
+                """;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return new ServerTotals(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                    rs.getLong(6), rs.getLong(7), rs.getDouble(8), biomePlayers);
+        }
+    }
+
     public synchronized void save(StatsRecord record) throws SQLException {
+        saveAll(List.of(record), null);
+    }
+
+    /**
+     * Saves the records and, unless {@code timelineDay} is {@code null}, their timeline snapshots for
+     * that day in a single transaction, so an autosave costs one commit however many players are online.
+     *
+     * @return how many records had changed since they were last saved
+     */
+    public synchronized int saveAll(List<StatsRecord> records, java.time.LocalDate timelineDay) throws SQLException {
+        return saveAll(records, null, timelineDay);
+    }
+
+    /**
+     * Like {@link #saveAll(List, java.time.LocalDate)}, with each record's last stored state supplied by
+     * the caller so the server totals are updated without reading the rows first. A {@code null} list
+     * or entry reads the stored row instead.
+     */
+    public synchronized int saveAll(List<StatsRecord> records, List<StatsRecord> persisted,
+                                    java.time.LocalDate timelineDay) throws SQLException {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        List<StatsRecord> before = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            StatsRecord known = persisted != null ? persisted.get(i) : null;
+            before.add(known != null ? known : load(records.get(i).getUuid()).orElse(null));
+        }
+        List<Integer> playerKeys = new ArrayList<>(records.size());
+        if (timelineDay != null) {
+            for (StatsRecord record : records) {
+                playerKeys.add(players.idOf(connection, record.getUuid().toString()));
+            }
+            refreshTimelineWindows();
+        }
         String sql = """
                 INSERT INTO player_stats (uuid, name, first_join, last_join, playtime_ms, deaths, last_death,
                                           player_kills, mob_kills, blocks_placed, blocks_broken,
                                           dist_overworld, dist_nether, dist_end, biomes,
-                                          damage_dealt, damage_taken, items_crafted, items_consumed)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                                          damage_dealt, damage_taken, items_crafted, items_consumed, last_modified)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 ON CONFLICT(uuid) DO UPDATE SET
                     name = excluded.name,
                     first_join = excluded.first_join,
@@ -354,31 +736,75 @@ public class StatsStorage implements Closeable {
                     damage_dealt = excluded.damage_dealt,
                     damage_taken = excluded.damage_taken,
                     items_crafted = excluded.items_crafted,
-                    items_consumed = excluded.items_consumed;
+                    items_consumed = excluded.items_consumed,
+                    last_modified = excluded.last_modified
+                WHERE (player_stats.name, player_stats.first_join, player_stats.last_join, player_stats.playtime_ms,
+                       player_stats.deaths, player_stats.last_death, player_stats.player_kills, player_stats.mob_kills,
+                       player_stats.blocks_placed, player_stats.blocks_broken, player_stats.dist_overworld,
+                       player_stats.dist_nether, player_stats.dist_end, player_stats.biomes, player_stats.damage_dealt,
+                       player_stats.damage_taken, player_stats.items_crafted, player_stats.items_consumed)
+                   IS NOT (excluded.name, excluded.first_join, excluded.last_join, excluded.playtime_ms,
+                       excluded.deaths, excluded.last_death, excluded.player_kills, excluded.mob_kills,
+                       excluded.blocks_placed, excluded.blocks_broken, excluded.dist_overworld,
+                       excluded.dist_nether, excluded.dist_end, excluded.biomes, excluded.damage_dealt,
+                       excluded.damage_taken, excluded.items_crafted, excluded.items_consumed);
                 """;
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, record.getUuid().toString());
-            statement.setString(2, record.getName());
-            statement.setLong(3, record.getFirstJoin());
-            statement.setLong(4, record.getLastJoin());
-            statement.setLong(5, record.getPlaytimeMillis());
-            statement.setLong(6, record.getDeaths());
-            statement.setString(7, record.getLastDeathCause());
-            statement.setLong(8, record.getPlayerKills());
-            statement.setLong(9, record.getMobKills());
-            statement.setLong(10, record.getBlocksPlaced());
-            statement.setLong(11, record.getBlocksBroken());
-            statement.setDouble(12, record.getDistanceOverworld());
-            statement.setDouble(13, record.getDistanceNether());
-            statement.setDouble(14, record.getDistanceEnd());
-            statement.setString(15, gson.toJson(record.getBiomesVisited()));
-            statement.setDouble(16, record.getDamageDealt());
-            statement.setDouble(17, record.getDamageTaken());
-            statement.setLong(18, record.getItemsCrafted());
-            statement.setLong(19, record.getItemsConsumed());
-            statement.executeUpdate();
+        boolean[] updated = new boolean[records.size()];
+        inTransaction(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < records.size(); i++) {
+                    StatsRecord record = records.get(i);
+                    bindRecord(statement, record);
+                    // Unchanged records are skipped by the WHERE clause, so last_modified only moves on real changes
+                    if (statement.executeUpdate() > 0) {
+                        appendChange(Dataset.STATS, record.getUuid().toString(), record);
+                        updated[i] = true;
+                    }
+                }
+            }
+            if (timelineDay != null) {
+                writeTimeline(records, playerKeys, timelineDay);
+            }
+            return null;
+        });
+        int changedRecords = 0;
+        for (int i = 0; i < records.size(); i++) {
+            if (updated[i]) {
+                totals.apply(before.get(i), records.get(i));
+                changedRecords++;
+            }
+        }
+        if (changedRecords > 0) {
+            changed(Dataset.STATS);
+        }
+        if (timelineDay != null) {
+            changed(Dataset.TIMELINE);
         }
+        return changedRecords;
+    }
+
+    private void bindRecord(PreparedStatement statement, StatsRecord record) throws SQLException {
+        statement.setString(1, record.getUuid().toString());
+        statement.setString(2, record.getName());
+        statement.setLong(3, record.getFirstJoin());
+        statement.setLong(4, record.getLastJoin());
+        statement.setLong(5, record.getPlaytimeMillis());
+        statement.setLong(6, record.getDeaths());
+        statement.setString(7, record.getLastDeathCause());
+        statement.setLong(8, record.getPlayerKills());
+        statement.setLong(9, record.getMobKills());
+        statement.setLong(10, record.getBlocksPlaced());
+        statement.setLong(11, record.getBlocksBroken());
+        statement.setDouble(12, record.getDistanceOverworld());
+        statement.setDouble(13, record.getDistanceNether());
+        statement.setDouble(14, record.getDistanceEnd());
+        statement.setString(15, gson.toJson(record.getBiomesVisited()));
+        statement.setDouble(16, record.getDamageDealt());
+        statement.setDouble(17, record.getDamageTaken());
+        statement.setLong(18, record.getItemsCrafted());
+        statement.setLong(19, record.getItemsConsumed());
+        statement.setLong(20, System.currentTimeMillis());
     }
 
     private StatsRecord mapRecord(ResultSet rs) throws SQLException {
@@ -413,24 +839,51 @@ public class StatsStorage implements Closeable {
     }
 
     public synchronized void saveMoment(MomentEntry entry) throws SQLException {
+        saveMoments(List.of(entry));
+    }
+
+    /**
+     * Inserts moments in one transaction and returns them, in the same order, with their assigned ids.
+     */
+    public synchronized List<MomentEntry> saveMoments(List<MomentEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
         String sql = """
-                INSERT INTO moments (uuid, type, title, detail, payload, world, x, y, z, started_at, ended_at)
+                INSERT INTO moments (player_id, type_id, title, detail, payload, world_id, x, y, z, started_at, ended_at)
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);
                 """;
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, entry.getPlayerId().toString());
-            statement.setString(2, entry.getType());
-            statement.setString(3, entry.getTitle());
-            statement.setString(4, entry.getDetail());
-            statement.setString(5, entry.getPayload());
-            statement.setString(6, entry.getWorld());
-            statement.setInt(7, entry.getX());
-            statement.setInt(8, entry.getY());
-            statement.setInt(9, entry.getZ());
-            statement.setLong(10, entry.getStartedAt());
-            statement.setLong(11, entry.getEndedAt());
-            statement.executeUpdate();
+        // Assign dictionary ids before the transaction so a rollback cannot leave stale ids in the cache
+        for (MomentEntry entry : entries) {
+            players.idOf(connection, entry.getPlayerId().toString());
+            types.idOf(connection, entry.getType());
+            worlds.idOf(connection, entry.getWorld());
         }
+        List<MomentEntry> saved = inTransaction(() -> {
+            List<MomentEntry> result = new ArrayList<>(entries.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (MomentEntry entry : entries) {
+                    setNullableInt(statement, 1, players.find(entry.getPlayerId().toString()));
+                    setNullableInt(statement, 2, types.find(entry.getType()));
+                    statement.setString(3, entry.getTitle());
+                    statement.setString(4, entry.getDetail());
+                    statement.setString(5, entry.getPayload());
+                    setNullableInt(statement, 6, worlds.find(entry.getWorld()));
+                    statement.setInt(7, entry.getX());
+                    statement.setInt(8, entry.getY());
+                    statement.setInt(9, entry.getZ());
+                    statement.setLong(10, entry.getStartedAt());
+                    statement.setLong(11, entry.getEndedAt());
+                    statement.executeUpdate();
+                    MomentEntry stored = entry.withId(lastInsertId());
+                    appendChange(Dataset.MOMENTS, Long.toString(stored.getId()), stored);
+                    result.add(stored);
+                }
+            }
+            return result;
+        });
+        changed(Dataset.MOMENTS);
+        return saved;
     }
 
     public synchronized List<MomentEntry> loadRecentMoments(int limit) throws SQLException {
@@ -450,12 +903,12 @@ public class StatsStorage implements Closeable {
     private MomentEntry mapMoment(ResultSet rs) throws SQLException {
         return new MomentEntry(
                 rs.getLong("id"),
-                UUID.fromString(rs.getString("uuid")),
-                rs.getString("type"),
+                UUID.fromString(players.valueOf(rs, "player_id")),
+                types.valueOf(rs, "type_id"),
                 rs.getString("title"),
                 rs.getString("detail"),
                 rs.getString("payload"),
-                rs.getString("world"),
+                worlds.valueOf(rs, "world_id"),
                 rs.getInt("x"),
                 rs.getInt("y"),
                 rs.getInt("z"),
@@ -495,6 +948,7 @@ public class StatsStorage implements Closeable {
             }
             statement.executeUpdate();
         }
+        changed(Dataset.HEATMAP);
     }
 
     public synchronized Map<String, Double> loadHotspotCounts(String type) throws SQLException {
@@ -512,16 +966,46 @@ public class StatsStorage implements Closeable {
     }
 
     public synchronized boolean hasMoment(UUID playerId, String type) throws SQLException {
-        String sql = "SELECT 1 FROM moments WHERE uuid = ? AND type = ? LIMIT 1";
+        Integer playerKey = players.find(playerId.toString());
+        Integer typeKey = types.find(type);
+        if (playerKey == null || typeKey == null) {
+            return false;
+        }
+        String sql = "SELECT 1 FROM moments WHERE player_id = ? AND type_id = ? LIMIT 1";
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerId.toString());
-            statement.setString(2, type);
+            statement.setInt(1, playerKey);
+            statement.setInt(2, typeKey);
             try (ResultSet rs = statement.executeQuery()) {
                 return rs.next();
             }
         }
     }
 
+    /**
+     * Every moment type the player has at least one moment of; used to seed the first-only checks
+     * in one query instead of one {@link #hasMoment} call per definition.
+     */
+    public synchronized Set<String> loadMomentTypes(UUID playerId) throws SQLException {
+        Integer playerKey = players.find(playerId.toString());
+        if (playerKey == null) {
+            return Set.of();
+        }
+        Set<String> result = new HashSet<>();
+        String sql = "SELECT DISTINCT type_id FROM moments WHERE player_id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, playerKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String type = types.valueOf(rs, "type_id");
+                    if (type != null) {
+                        result.add(type);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (connection != null) {
@@ -551,26 +1035,83 @@ public class StatsStorage implements Closeable {
     public synchronized List<MomentEntry> queryMoments(UUID playerId, String type, long sinceMillis, int limit) throws SQLException {
         StringBuilder sql = new StringBuilder("SELECT * FROM moments WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        if (!appendMomentFilters(sql, params, playerId, type, sinceMillis)) {
+            return new ArrayList<>();
+        }
+        sql.append(" ORDER BY started_at DESC");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+        return readMoments(sql.toString(), params);
+    }
+
+    /**
+     * Reads one page of moments, newest first, using keyset pagination on {@code (started_at, id)}.
+     * Filters are the same as for {@link #queryMoments}.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     * @param limit maximum number of moments to return
+     */
+    public synchronized MomentPage queryMomentPage(UUID playerId, String type, long sinceMillis,
+                                                   MomentPage.Cursor after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM moments WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (!appendMomentFilters(sql, params, playerId, type, sinceMillis)) {
+            return new MomentPage(new ArrayList<>(), null);
+        }
+        if (after != null) {
+            // Written so the started_at bound can seek the index; the rowid breaks ties in index order
+            sql.append(" AND started_at <= ? AND (started_at < ? OR id < ?)");
+            params.add(after.startedAt());
+            params.add(after.startedAt());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY started_at DESC, id DESC LIMIT ?");
+        params.add(limit + 1);
+
+        List<MomentEntry> entries = readMoments(sql.toString(), params);
+        MomentPage.Cursor next = null;
+        if (entries.size() > limit) {
+            entries.remove(entries.size() - 1);
+            MomentEntry last = entries.get(entries.size() - 1);
+            next = new MomentPage.Cursor(last.getStartedAt(), last.getId());
+        }
+        return new MomentPage(entries, next);
+    }
+
+    /**
+     * Appends the optional player, type and start-time filters. Returns {@code false} if the player or type
+     * was never stored, in which case nothing can match.
+     */
+    private boolean appendMomentFilters(StringBuilder sql, List<Object> params, UUID playerId, String type,
+                                        long sinceMillis) {
         if (playerId != null) {
-            sql.append(" AND uuid = ?");
-            params.add(playerId.toString());
+            Integer playerKey = players.find(playerId.toString());
+            if (playerKey == null) {
+                return false;
+            }
+            sql.append(" AND player_id = ?");
+            params.add(playerKey);
         }
         if (type != null && !type.isBlank()) {
-            sql.append(" AND type = ?");
-            params.add(type);
+            Integer typeKey = types.find(type);
+            if (typeKey == null) {
+                return false;
+            }
+            sql.append(" AND type_id = ?");
+            params.add(typeKey);
         }
         if (sinceMillis > 0) {
             sql.append(" AND started_at >= ?");
             params.add(sinceMillis);
         }
-        sql.append(" ORDER BY started_at DESC");
-        if (limit > 0) {
-            sql.append(" LIMIT ?");
-            params.add(limit);
-        }
+        return true;
+    }
 
+    private List<MomentEntry> readMoments(String sql, List<Object> params) throws SQLException {
         List<MomentEntry> result = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.size(); i++) {
                 statement.setObject(i + 1, params.get(i));
             }
@@ -593,14 +1134,34 @@ public class StatsStorage implements Closeable {
                     shared_player_kills = shared_player_kills + excluded.shared_player_kills,
                     shared_mob_kills = shared_mob_kills + excluded.shared_mob_kills;
                 """;
+        inTransaction(() -> {
+            try (PreparedStatement st = connection.prepareStatement(sql)) {
+                st.setString(1, a.toString());
+                st.setString(2, b.toString());
+                st.setLong(3, seconds);
+                st.setLong(4, sharedKills);
+                st.setLong(5, sharedPlayerKills);
+                st.setLong(6, sharedMobKills);
+                st.executeUpdate();
+            }
+            appendChange(Dataset.SOCIAL, a + ":" + b, loadSocialPair(a, b));
+            return null;
+        });
+        changed(Dataset.SOCIAL);
+    }
+
+    private SocialPairRow loadSocialPair(UUID a, UUID b) throws SQLException {
+        String sql = """
+                SELECT seconds, shared_kills, shared_player_kills, shared_mob_kills
+                FROM social_pairs WHERE uuid_a = ? AND uuid_b = ?
+                """;
         try (PreparedStatement st = connection.prepareStatement(sql)) {
             st.setString(1, a.toString());
             st.setString(2, b.toString());
-            st.setLong(3, seconds);
-            st.setLong(4, sharedKills);
-            st.setLong(5, sharedPlayerKills);
-            st.setLong(6, sharedMobKills);
-            st.executeUpdate();
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return new SocialPairRow(a, b, rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4));
+            }
         }
     }
 
@@ -666,12 +1227,27 @@ public class StatsStorage implements Closeable {
     }
 
     public synchronized void upsertTimeline(StatsRecord record, java.time.LocalDate day) throws SQLException {
+        Integer playerKey = players.idOf(connection, record.getUuid().toString());
+        refreshTimelineWindows();
+        inTransaction(() -> {
+            writeTimeline(List.of(record), Collections.singletonList(playerKey), day);
+            return null;
+        });
+        changed(Dataset.TIMELINE);
+    }
+
+    /**
+     * Upserts each record's snapshot for {@code day} and refreshes the derived timeline tables.
+     * Snapshots of today also add what changed since the player's previous snapshot to the
+     * current hour. Runs inside the caller's transaction; {@code playerKeys} are looked up before it starts.
+     */
+    private void writeTimeline(List<StatsRecord> records, List<Integer> playerKeys, java.time.LocalDate day) throws SQLException {
         String sql = """
-                INSERT INTO timeline_daily (uuid, day, playtime_ms, blocks_broken, blocks_placed, player_kills, mob_kills, deaths,
+                INSERT INTO timeline_daily (player_id, day, playtime_ms, blocks_broken, blocks_placed, player_kills, mob_kills, deaths,
                                             distance_overworld, distance_nether, distance_end,
                                             damage_dealt, damage_taken, items_crafted, items_consumed)
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                ON CONFLICT(uuid, day) DO UPDATE SET
+                ON CONFLICT(player_id, day) DO UPDATE SET
                     playtime_ms = excluded.playtime_ms,
                     blocks_broken = excluded.blocks_broken,
                     blocks_placed = excluded.blocks_placed,
@@ -686,144 +1262,564 @@ public class StatsStorage implements Closeable {
                     items_crafted = excluded.items_crafted,
                     items_consumed = excluded.items_consumed;
                 """;
+        boolean today = day.equals(java.time.LocalDate.now(java.time.ZoneId.systemDefault()));
+        long hour = System.currentTimeMillis() / HOUR_MILLIS;
         try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, record.getUuid().toString());
-            st.setString(2, day.toString());
-            st.setLong(3, record.getPlaytimeMillis());
-            st.setLong(4, record.getBlocksBroken());
-            st.setLong(5, record.getBlocksPlaced());
-            st.setLong(6, record.getPlayerKills());
-            st.setLong(7, record.getMobKills());
-            st.setLong(8, record.getDeaths());
-            st.setDouble(9, record.getDistanceOverworld());
-            st.setDouble(10, record.getDistanceNether());
-            st.setDouble(11, record.getDistanceEnd());
-            st.setDouble(12, record.getDamageDealt());
-            st.setDouble(13, record.getDamageTaken());
-            st.setLong(14, record.getItemsCrafted());
-            st.setLong(15, record.getItemsConsumed());
-            st.executeUpdate();
+            for (int i = 0; i < records.size(); i++) {
+                StatsRecord record = records.get(i);
+                Integer playerKey = playerKeys.get(i);
+                Map<TimelineMetric, Number> previous = today && playerKey != null ? loadLatestSnapshot(playerKey, day) : null;
+                setNullableInt(st, 1, playerKey);
+                st.setString(2, day.toString());
+                st.setLong(3, record.getPlaytimeMillis());
+                st.setLong(4, record.getBlocksBroken());
+                st.setLong(5, record.getBlocksPlaced());
+                st.setLong(6, record.getPlayerKills());
+                st.setLong(7, record.getMobKills());
+                st.setLong(8, record.getDeaths());
+                st.setDouble(9, record.getDistanceOverworld());
+                st.setDouble(10, record.getDistanceNether());
+                st.setDouble(11, record.getDistanceEnd());
+                st.setDouble(12, record.getDamageDealt());
+                st.setDouble(13, record.getDamageTaken());
+                st.setLong(14, record.getItemsCrafted());
+                st.setLong(15, record.getItemsConsumed());
+                st.executeUpdate();
+                if (playerKey != null) {
+                    refreshTimelineDeltas(playerKey, day);
+                    refreshTimelineWindows(playerKey);
+                }
+                if (previous != null) {
+                    addHourlyGains(playerKey, hour, record, previous);
+                }
+            }
         }
     }
 
-    public synchronized List<Map<String, Object>> loadTimeline(UUID uuid, int limit) throws SQLException {
-        String sql = "SELECT * FROM timeline_daily WHERE uuid = ? ORDER BY day DESC LIMIT ?";
-        List<Map<String, Object>> result = new ArrayList<>();
+    /**
+     * The player's newest snapshot up to {@code day}, or null before their first one.
+     */
+    private Map<TimelineMetric, Number> loadLatestSnapshot(int playerKey, java.time.LocalDate day) throws SQLException {
+        String sql = "SELECT * FROM timeline_daily WHERE player_id = ? AND day <= ? ORDER BY day DESC LIMIT 1";
         try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, uuid.toString());
-            st.setInt(2, limit);
+            st.setInt(1, playerKey);
+            st.setString(2, day.toString());
             try (ResultSet rs = st.executeQuery()) {
-                while (rs.next()) {
-                    result.add(mapTimelineRow(rs));
+                if (!rs.next()) {
+                    return null;
                 }
+                Map<TimelineMetric, Number> snapshot = new EnumMap<>(TimelineMetric.class);
+                for (TimelineMetric metric : TimelineMetric.values()) {
+                    if (metric.real()) {
+                        snapshot.put(metric, rs.getDouble(metric.column()));
+                    } else {
+                        snapshot.put(metric, rs.getLong(metric.column()));
+                    }
+                }
+                return snapshot;
             }
         }
-        return result;
     }
 
-    public synchronized Map<String, Object> loadTimelineRange(UUID uuid, int days) throws SQLException {
-        days = Math.max(1, days);
-        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.systemDefault());
-        java.time.LocalDate from = today.minusDays(days - 1L);
-
-        Map<String, Object> baseline = loadTimelineRowBefore(uuid, from);
-        Map<String, Object> latest = loadTimelineLatest(uuid, from);
-        if (latest == null) {
-            return Map.of();
+    /**
+     * Adds the record's gains over {@code previous} to the player's bucket and the server bucket of
+     * {@code hour}. The server bucket counts each player once per hour.
+     */
+    private void addHourlyGains(int playerKey, long hour, StatsRecord record, Map<TimelineMetric, Number> previous) throws SQLException {
+        Map<TimelineMetric, Number> gains = new EnumMap<>(TimelineMetric.class);
+        boolean active = false;
+        for (TimelineMetric metric : TimelineMetric.values()) {
+            // Counters only drop when an admin resets them, which is no activity
+            if (metric.real()) {
+                double gain = Math.max(0, metric.of(record).doubleValue() - previous.get(metric).doubleValue());
+                gains.put(metric, gain);
+                active |= gain > 0;
+            } else {
+                long gain = Math.max(0, metric.of(record).longValue() - previous.get(metric).longValue());
+                gains.put(metric, gain);
+                active |= gain > 0;
+            }
         }
-        Map<String, Object> result = new LinkedHashMap<>();
-        result.put("from", from.toString());
-        result.put("to", latest.get("day"));
-        result.put("playtime_ms", deltaLong(latest, baseline, "playtime_ms"));
-        result.put("blocks_broken", deltaLong(latest, baseline, "blocks_broken"));
-        result.put("blocks_placed", deltaLong(latest, baseline, "blocks_placed"));
-        result.put("player_kills", deltaLong(latest, baseline, "player_kills"));
-        result.put("mob_kills", deltaLong(latest, baseline, "mob_kills"));
-        result.put("deaths", deltaLong(latest, baseline, "deaths"));
-        result.put("distance_overworld", deltaDouble(latest, baseline, "distance_overworld"));
-        result.put("distance_nether", deltaDouble(latest, baseline, "distance_nether"));
-        result.put("distance_end", deltaDouble(latest, baseline, "distance_end"));
-        result.put("damage_dealt", deltaDouble(latest, baseline, "damage_dealt"));
-        result.put("damage_taken", deltaDouble(latest, baseline, "damage_taken"));
-        result.put("items_crafted", deltaLong(latest, baseline, "items_crafted"));
-        result.put("items_consumed", deltaLong(latest, baseline, "items_consumed"));
-        return result;
-    }
-
-    public synchronized List<Map<String, Object>> loadTimelineLeaderboard(int days, int limit) throws SQLException {
-        days = Math.max(1, days);
-        String from = java.time.LocalDate.now(java.time.ZoneId.systemDefault()).minusDays(days - 1L).toString();
-        String sql = """
-                SELECT uuid,
-                       MAX(playtime_ms) - MIN(playtime_ms) AS playtime_ms,
-                       MAX(blocks_broken) - MIN(blocks_broken) AS blocks_broken,
-                       MAX(blocks_placed) - MIN(blocks_placed) AS blocks_placed,
-                       MAX(player_kills) - MIN(player_kills) AS player_kills,
-                       MAX(mob_kills) - MIN(mob_kills) AS mob_kills,
-                       MAX(deaths) - MIN(deaths) AS deaths,
-                       MAX(distance_overworld) - MIN(distance_overworld) AS distance_overworld,
-                       MAX(distance_nether) - MIN(distance_nether) AS distance_nether,
-                       MAX(distance_end) - MIN(distance_end) AS distance_end,
-                       MAX(damage_dealt) - MIN(damage_dealt) AS damage_dealt,
-                       MAX(damage_taken) - MIN(damage_taken) AS damage_taken,
-                       MAX(items_crafted) - MIN(items_crafted) AS items_crafted,
-                       MAX(items_consumed) - MIN(items_consumed) AS items_consumed
-                FROM timeline_daily
-                WHERE day >= ?
-                GROUP BY uuid
-                ORDER BY playtime_ms DESC
-                LIMIT ?
-                """;
-        List<Map<String, Object>> list = new ArrayList<>();
-        try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, from);
-            st.setInt(2, limit);
+        if (!active) {
+            return;
+        }
+        boolean firstInHour;
+        try (PreparedStatement st = connection.prepareStatement("SELECT 1 FROM timeline_hourly WHERE player_id = ? AND hour = ?")) {
+            st.setInt(1, playerKey);
+            st.setLong(2, hour);
             try (ResultSet rs = st.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    row.put("uuid", rs.getString("uuid"));
-                    row.put("playtime_ms", rs.getLong("playtime_ms"));
-                    row.put("blocks_broken", rs.getLong("blocks_broken"));
-                    row.put("blocks_placed", rs.getLong("blocks_placed"));
-                    row.put("player_kills", rs.getLong("player_kills"));
-                    row.put("mob_kills", rs.getLong("mob_kills"));
-                    row.put("deaths", rs.getLong("deaths"));
-                    row.put("distance_overworld", rs.getDouble("distance_overworld"));
-                    row.put("distance_nether", rs.getDouble("distance_nether"));
-                    row.put("distance_end", rs.getDouble("distance_end"));
-                    row.put("damage_dealt", rs.getDouble("damage_dealt"));
-                    row.put("damage_taken", rs.getDouble("damage_taken"));
-                    row.put("items_crafted", rs.getLong("items_crafted"));
-                    row.put("items_consumed", rs.getLong("items_consumed"));
-                    list.add(row);
-                }
+                firstInHour = !rs.next();
             }
         }
-        return list;
-    }
+        String playerSql = "INSERT INTO timeline_hourly (player_id, hour, " + timelineColumns("%s") + ") "
+                + "VALUES (?, ?, " + timelineColumns("?") + ") "
+                + "ON CONFLICT(player_id, hour) DO UPDATE SET " + timelineColumns("%1$s = %1$s + excluded.%1$s");
+        try (PreparedStatement st = connection.prepareStatement(playerSql)) {
+            st.setInt(1, playerKey);
+            st.setLong(2, hour);
+            bindTimelineMetrics(st, 3, gains);
+            st.executeUpdate();
+        }
+        String serverSql = "INSERT INTO timeline_hourly_server (hour, players, " + timelineColumns("%s") + ") "
+                + "VALUES (?, ?, " + timelineColumns("?") + ") "
+                + "ON CONFLICT(hour) DO UPDATE SET players = players + excluded.players, "
+                + timelineColumns("%1$s = %1$s + excluded.%1$s");
+        try (PreparedStatement st = connection.prepareStatement(serverSql)) {
+            st.setLong(1, hour);
+            st.setInt(2, firstInHour ? 1 : 0);
+            bindTimelineMetrics(st, 3, gains);
+            st.executeUpdate();
+        }
+    }
+
+    private static void bindTimelineMetrics(PreparedStatement st, int first, Map<TimelineMetric, Number> values) throws SQLException {
+        int index = first;
+        for (TimelineMetric metric : TimelineMetric.values()) {
+            if (metric.real()) {
+                st.setDouble(index++, values.get(metric).doubleValue());
+            } else {
+                st.setLong(index++, values.get(metric).longValue());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds every rolling window from timeline_deltas when the day has changed since the last
+     * build, so yesterday's gains fall out of the windows even for players who have not played today.
+     */
+    private void refreshTimelineWindows() throws SQLException {
+        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.systemDefault());
+        if (today.equals(timelineWindowsDay)) {
+            return;
+        }
+        inTransaction(() -> {
+            try (Statement st = connection.createStatement()) {
+                st.executeUpdate("DELETE FROM timeline_windows");
+            }
+            try (PreparedStatement st = connection.prepareStatement(timelineWindowSql(""))) {
+                for (int days : ROLLING_WINDOWS) {
+                    st.setInt(1, days);
+                    st.setString(2, today.minusDays(days - 1L).toString());
+                    st.setString(3, today.toString());
+                    st.executeUpdate();
+                }
+            }
+            return null;
+        });
+        timelineWindowsDay = today;
+    }
+
+    /**
+     * Recomputes one player's rolling windows after a snapshot. Each window sums at most as many
+     * delta rows as it has days.
+     */
+    private void refreshTimelineWindows(int playerKey) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(timelineWindowSql("player_id = ? AND "))) {
+            for (int days : ROLLING_WINDOWS) {
+                st.setInt(1, days);
+                st.setInt(2, playerKey);
+                st.setString(3, timelineWindowsDay.minusDays(days - 1L).toString());
+                st.setString(4, timelineWindowsDay.toString());
+                st.executeUpdate();
+            }
+        }
+    }
+
+    private static String timelineWindowSql(String filter) {
+        return "INSERT INTO timeline_windows (window_days, player_id, " + timelineColumns("%s") + ") "
+                + "SELECT ?, player_id, " + timelineColumns("SUM(%1$s)") + " FROM timeline_deltas "
+                + "WHERE " + filter + "day BETWEEN ? AND ? GROUP BY player_id "
+                + "ON CONFLICT(window_days, player_id) DO UPDATE SET " + timelineColumns("%1$s = excluded.%1$s");
+    }
+
+    /**
+     * Recomputes the player's delta row for {@code day} and for the next snapshot after it, whose
+     * baseline {@code day} is, then the week and month rollups those rows fall into.
+     */
+    private void refreshTimelineDeltas(int playerKey, java.time.LocalDate day) throws SQLException {
+        java.time.LocalDate next = null;
+        try (PreparedStatement st = connection.prepareStatement(
+                "SELECT MIN(day) FROM timeline_daily WHERE player_id = ? AND day > ?")) {
+            st.setInt(1, playerKey);
+            st.setString(2, day.toString());
+            try (ResultSet rs = st.executeQuery()) {
+                if (rs.next() && rs.getString(1) != null) {
+                    next = java.time.LocalDate.parse(rs.getString(1));
+                }
+            }
+        }
+        try (PreparedStatement st = connection.prepareStatement(timelineDeltaSql("c.player_id = ? AND c.day = ?"))) {
+            for (java.time.LocalDate changed : next == null ? List.of(day) : List.of(day, next)) {
+                st.setInt(1, playerKey);
+                st.setString(2, changed.toString());
+                st.executeUpdate();
+            }
+        }
+        String rollupSql = "INSERT INTO timeline_rollups (period, period_start, player_id, " + timelineColumns("%s") + ") "
+                + "SELECT ?, ?, player_id, " + timelineColumns("SUM(%1$s)") + " FROM timeline_deltas "
+                + "WHERE player_id = ? AND day BETWEEN ? AND ? GROUP BY player_id "
+                + "ON CONFLICT(player_id, period, period_start) DO UPDATE SET " + timelineColumns("%1$s = excluded.%1$s");
+        try (PreparedStatement st = connection.prepareStatement(rollupSql)) {
+            for (TimelinePeriod period : TimelinePeriod.values()) {
+                Set<java.time.LocalDate> starts = new LinkedHashSet<>();
+                starts.add(period.startOf(day));
+                if (next != null) {
+                    starts.add(period.startOf(next));
+                }
+                for (java.time.LocalDate start : starts) {
+                    st.setString(1, period.name());
+                    st.setString(2, start.toString());
+                    st.setInt(3, playerKey);
+                    st.setString(4, start.toString());
+                    st.setString(5, period.endOf(start).toString());
+                    st.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * An upsert of timeline_deltas rows computed from timeline_daily: each snapshot minus the
+     * player's previous snapshot, or the snapshot itself for the player's first day.
+     */
+    private static String timelineDeltaSql(String where) {
+        return "INSERT INTO timeline_deltas (day, player_id, " + timelineColumns("%s") + ") "
+                + "SELECT c.day, c.player_id, " + timelineColumns("c.%1$s - COALESCE(p.%1$s, 0)") + " "
+                + "FROM timeline_daily c LEFT JOIN timeline_daily p ON p.player_id = c.player_id "
+                + "AND p.day = (SELECT MAX(day) FROM timeline_daily WHERE player_id = c.player_id AND day < c.day) "
+                + "WHERE " + where + " "
+                + "ON CONFLICT(day, player_id) DO UPDATE SET " + timelineColumns("%1$s = excluded.%1$s");
+    }
+
+    /**
+     * Joins {@code template} formatted with every timeline counter column, separated by commas.
+     */
+    private static String timelineColumns(String template) {
+        List<String> parts = new ArrayList<>();
+        for (TimelineMetric metric : TimelineMetric.values()) {
+            parts.add(String.format(template, metric.column()));
+        }
+        return String.join(", ", parts);
+    }
+
+    /**
+     * Column definitions of the timeline counters for the derived timeline tables.
+     */
+    private static String timelineColumnDefinitions() {
+        List<String> parts = new ArrayList<>();
+        for (TimelineMetric metric : TimelineMetric.values()) {
+            parts.add(metric.column() + (metric.real() ? " REAL" : " INTEGER") + " NOT NULL DEFAULT 0");
+        }
+        return String.join(", ", parts);
+    }
+
+    private static void putTimelineMetrics(Map<String, Object> row, ResultSet rs) throws SQLException {
+        for (TimelineMetric metric : TimelineMetric.values()) {
+            // Not a conditional expression: that would widen the counters to double
+            if (metric.real()) {
+                row.put(metric.column(), rs.getDouble(metric.column()));
+            } else {
+                row.put(metric.column(), rs.getLong(metric.column()));
+            }
+        }
+    }
+
+    public synchronized List<Map<String, Object>> loadTimeline(UUID uuid, int limit) throws SQLException {
+        String sql = "SELECT * FROM timeline_daily WHERE player_id = ? ORDER BY day DESC LIMIT ?";
+        List<Map<String, Object>> result = new ArrayList<>();
+        Integer playerKey = players.find(uuid.toString());
+        if (playerKey == null) {
+            return result;
+        }
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setInt(1, playerKey);
+            st.setInt(2, limit);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    result.add(mapTimelineRow(rs));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums the player's per-day gains over the last {@code days} days, today included. {@code to} is the
+     * last day with a snapshot; an empty map means the player has none in the range.
+     */
+    public synchronized Map<String, Object> loadTimelineRange(UUID uuid, int days) throws SQLException {
+        days = Math.max(1, days);
+        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.systemDefault());
+        java.time.LocalDate from = today.minusDays(days - 1L);
+        Integer playerKey = players.find(uuid.toString());
+        if (playerKey == null) {
+            return Map.of();
+        }
+        String sql = "SELECT MAX(day) AS last_day, " + timelineColumns("SUM(%1$s) AS %1$s")
+                + " FROM timeline_deltas WHERE player_id = ? AND day >= ?";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setInt(1, playerKey);
+            st.setString(2, from.toString());
+            try (ResultSet rs = st.executeQuery()) {
+                if (!rs.next() || rs.getString("last_day") == null) {
+                    return Map.of();
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("from", from.toString());
+                result.put("to", rs.getString("last_day"));
+                putTimelineMetrics(result, rs);
+                return result;
+            }
+        }
+    }
+
+    public synchronized List<Map<String, Object>> loadTimelineLeaderboard(int days, int limit) throws SQLException {
+        return loadTimelineLeaderboard(days, TimelineMetric.PLAYTIME, limit);
+    }
+
+    /**
+     * Ranks players by the {@code sort} metric gained over the last {@code days} days, today included.
+     * The 1, 7 and 30 day windows are read precomputed from timeline_windows. Other windows read whole
+     * weeks from the weekly rollups and only the days around them from timeline_deltas, so a
+     * month-long window touches about a dozen rows per player.
+     */
+    public synchronized List<Map<String, Object>> loadTimelineLeaderboard(int days, TimelineMetric sort, int limit) throws SQLException {
+        days = Math.max(1, days);
+        if (ROLLING_WINDOWS.contains(days)) {
+            refreshTimelineWindows();
+            String sql = "SELECT * FROM timeline_windows WHERE window_days = ? ORDER BY " + sort.column() + " DESC, player_id LIMIT ?";
+            try (PreparedStatement st = connection.prepareStatement(sql)) {
+                st.setInt(1, days);
+                st.setInt(2, limit);
+                return readTimelineLeaderboard(st);
+            }
+        }
+        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.systemDefault());
+        java.time.LocalDate from = today.minusDays(days - 1L);
+        java.time.LocalDate firstWeek = TimelinePeriod.WEEK.startOf(from.plusDays(6));
+        java.time.LocalDate lastWeek = TimelinePeriod.WEEK.startOf(today.plusDays(1)).minusWeeks(1);
+        java.time.LocalDate headEnd = today;
+        java.time.LocalDate tailStart = today.plusDays(1);
+        if (!firstWeek.isAfter(lastWeek)) {
+            headEnd = firstWeek.minusDays(1);
+            tailStart = lastWeek.plusWeeks(1);
+        }
+        String columns = timelineColumns("%s");
+        String sql = "SELECT player_id, " + timelineColumns("SUM(%1$s) AS %1$s") + " FROM ("
+                + "SELECT player_id, " + columns + " FROM timeline_deltas WHERE day BETWEEN ? AND ? "
+                + "UNION ALL SELECT player_id, " + columns + " FROM timeline_rollups WHERE period = ? AND period_start BETWEEN ? AND ? "
+                + "UNION ALL SELECT player_id, " + columns + " FROM timeline_deltas WHERE day BETWEEN ? AND ?"
+                + ") GROUP BY player_id ORDER BY " + sort.column() + " DESC, player_id LIMIT ?";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setString(1, from.toString());
+            st.setString(2, headEnd.toString());
+            st.setString(3, TimelinePeriod.WEEK.name());
+            st.setString(4, firstWeek.toString());
+            st.setString(5, lastWeek.toString());
+            st.setString(6, tailStart.toString());
+            st.setString(7, today.toString());
+            st.setInt(8, limit);
+            return readTimelineLeaderboard(st);
+        }
+    }
+
+    private List<Map<String, Object>> readTimelineLeaderboard(PreparedStatement st) throws SQLException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("uuid", players.valueOf(rs, "player_id"));
+                putTimelineMetrics(row, rs);
+                list.add(row);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Loads the player's weekly or monthly gains, newest period first. The current period holds the
+     * gains so far.
+     */
+    public synchronized List<Map<String, Object>> loadTimelineRollups(UUID uuid, TimelinePeriod period, int limit) throws SQLException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Integer playerKey = players.find(uuid.toString());
+        if (playerKey == null) {
+            return result;
+        }
+        String sql = "SELECT * FROM timeline_rollups WHERE player_id = ? AND period = ? ORDER BY period_start DESC LIMIT ?";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setInt(1, playerKey);
+            st.setString(2, period.name());
+            st.setInt(3, limit);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    java.time.LocalDate start = java.time.LocalDate.parse(rs.getString("period_start"));
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("period", period.name().toLowerCase(java.util.Locale.ROOT));
+                    row.put("from", start.toString());
+                    row.put("to", period.endOf(start).toString());
+                    putTimelineMetrics(row, rs);
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the hourly gains of one player, or of the whole server when {@code uuid} is null, for the
+     * epoch hours {@code fromHour} to {@code toHour}, oldest first. Hours that were already merged into
+     * a daily row come back as that row, with {@code hours} set to 24; server rows also carry the
+     * number of players active in them.
+     */
+    public synchronized List<Map<String, Object>> loadTimelineHourly(UUID uuid, long fromHour, long toHour) throws SQLException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Integer playerKey = null;
+        if (uuid != null) {
+            playerKey = players.find(uuid.toString());
+            if (playerKey == null) {
+                return result;
+            }
+        }
+        // A daily row starts up to 23 hours before the range and still overlaps it
+        String sql = playerKey != null
+                ? "SELECT * FROM timeline_hourly WHERE player_id = ? AND hour BETWEEN ? AND ? AND hour + hours > ? ORDER BY hour"
+                : "SELECT * FROM timeline_hourly_server WHERE hour BETWEEN ? AND ? AND hour + hours > ? ORDER BY hour";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (playerKey != null) {
+                st.setInt(index++, playerKey);
+            }
+            st.setLong(index++, fromHour - 23);
+            st.setLong(index++, toHour);
+            st.setLong(index, fromHour);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("start", java.time.Instant.ofEpochMilli(rs.getLong("hour") * HOUR_MILLIS).toString());
+                    row.put("hours", rs.getInt("hours"));
+                    if (playerKey == null) {
+                        row.put("players", rs.getInt("players"));
+                    }
+                    putTimelineMetrics(row, rs);
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges the hourly rows of the oldest UTC day that ended by {@code beforeHour} into one row per
+     * player and one server row for the whole day, in a single transaction. Callers repeat it until
+     * it returns false.
+     *
+     * @return whether a day was merged
+     */
+    public synchronized boolean downsampleTimelineHourly(long beforeHour) throws SQLException {
+        Long oldest = null;
+        try (PreparedStatement st = connection.prepareStatement("SELECT MIN(hour) FROM timeline_hourly WHERE hours = 1 AND hour < ?")) {
+            st.setLong(1, beforeHour);
+            try (ResultSet rs = st.executeQuery()) {
+                if (rs.next()) {
+                    long value = rs.getLong(1);
+                    oldest = rs.wasNull() ? null : value;
+                }
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        long dayStart = Math.floorDiv(oldest, 24L) * 24L;
+        long dayEnd = dayStart + 24;
+        if (dayEnd > beforeHour) {
+            return false;
+        }
+        inTransaction(() -> {
+            // The server row first: its player count comes from the hourly player rows
+            String serverSql = "INSERT INTO timeline_hourly_server (hour, hours, players, " + timelineColumns("%s") + ") "
+                    + "SELECT ?, 24, COUNT(DISTINCT player_id), " + timelineColumns("SUM(%1$s)") + " FROM timeline_hourly "
+                    + "WHERE hours = 1 AND hour >= ? AND hour < ? "
+                    + "ON CONFLICT(hour) DO UPDATE SET hours = 24, players = excluded.players, " + timelineColumns("%1$s = excluded.%1$s");
+            try (PreparedStatement st = connection.prepareStatement(serverSql)) {
+                st.setLong(1, dayStart);
+                st.setLong(2, dayStart);
+                st.setLong(3, dayEnd);
+                st.executeUpdate();
+            }
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM timeline_hourly_server WHERE hour > ? AND hour < ?")) {
+                st.setLong(1, dayStart);
+                st.setLong(2, dayEnd);
+                st.executeUpdate();
+            }
+            String playerSql = "INSERT INTO timeline_hourly (player_id, hour, hours, " + timelineColumns("%s") + ") "
+                    + "SELECT player_id, ?, 24, " + timelineColumns("SUM(%1$s)") + " FROM timeline_hourly "
+                    + "WHERE hours = 1 AND hour >= ? AND hour < ? GROUP BY player_id "
+                    + "ON CONFLICT(player_id, hour) DO UPDATE SET hours = 24, " + timelineColumns("%1$s = excluded.%1$s");
+            try (PreparedStatement st = connection.prepareStatement(playerSql)) {
+                st.setLong(1, dayStart);
+                st.setLong(2, dayStart);
+                st.setLong(3, dayEnd);
+                st.executeUpdate();
+            }
+            // The rows of the day's first hour became the daily rows above
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM timeline_hourly WHERE hours = 1 AND hour >= ? AND hour < ?")) {
+                st.setLong(1, dayStart);
+                st.setLong(2, dayEnd);
+                st.executeUpdate();
+            }
+            return null;
+        });
+        changed(Dataset.TIMELINE);
+        return true;
+    }
 
     public synchronized void saveDeathReplay(de.nurrobin.smpstats.timeline.DeathReplayEntry entry) throws SQLException {
+        saveDeathReplays(List.of(entry));
+    }
+
+    /**
+     * Inserts death replays in one transaction.
+     */
+    public synchronized void saveDeathReplays(List<de.nurrobin.smpstats.timeline.DeathReplayEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
         String sql = """
-                INSERT INTO death_replays (ts, uuid, name, cause, health, world, x, y, z, fall_distance, value, nearby_players, nearby_mobs, inventory)
+                INSERT INTO death_replays (ts, player_id, name, cause, health, world_id, x, y, z, fall_distance, value, nearby_players, nearby_mobs, inventory)
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);
                 """;
-        try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setLong(1, entry.timestamp());
-            st.setString(2, entry.uuid());
-            st.setString(3, entry.name());
-            st.setString(4, entry.cause());
-            st.setDouble(5, entry.health());
-            st.setString(6, entry.world());
-            st.setInt(7, entry.x());
-            st.setInt(8, entry.y());
-            st.setInt(9, entry.z());
-            st.setDouble(10, entry.fallDistance());
-            st.setDouble(11, 0); // value not used
-            st.setString(12, gson.toJson(entry.nearbyPlayers()));
-            st.setString(13, gson.toJson(entry.nearbyMobs()));
-            st.setString(14, gson.toJson(entry.inventory()));
-            st.executeUpdate();
+        List<Integer> playerKeys = new ArrayList<>();
+        List<Integer> worldKeys = new ArrayList<>();
+        for (de.nurrobin.smpstats.timeline.DeathReplayEntry entry : entries) {
+            playerKeys.add(players.idOf(connection, entry.uuid()));
+            worldKeys.add(worlds.idOf(connection, entry.world()));
         }
+        inTransaction(() -> {
+            try (PreparedStatement st = connection.prepareStatement(sql)) {
+                for (int i = 0; i < entries.size(); i++) {
+                    de.nurrobin.smpstats.timeline.DeathReplayEntry entry = entries.get(i);
+                    st.setLong(1, entry.timestamp());
+                    setNullableInt(st, 2, playerKeys.get(i));
+                    st.setString(3, entry.name());
+                    st.setString(4, entry.cause());
+                    st.setDouble(5, entry.health());
+                    setNullableInt(st, 6, worldKeys.get(i));
+                    st.setInt(7, entry.x());
+                    st.setInt(8, entry.y());
+                    st.setInt(9, entry.z());
+                    st.setDouble(10, entry.fallDistance());
+                    st.setDouble(11, 0); // value not used
+                    st.setString(12, gson.toJson(entry.nearbyPlayers()));
+                    st.setString(13, gson.toJson(entry.nearbyMobs()));
+                    st.setString(14, gson.toJson(entry.inventory()));
+                    st.executeUpdate();
+                    appendChange(Dataset.DEATHS, Long.toString(lastInsertId()), entry);
+                }
+            }
+            return null;
+        });
+        changed(Dataset.DEATHS);
     }
 
     public synchronized List<de.nurrobin.smpstats.timeline.DeathReplayEntry> loadDeathReplays(int limit) throws SQLException {
@@ -847,10 +1843,14 @@ public class StatsStorage implements Closeable {
      * @return List of death replay entries for the player
      */
     public synchronized List<de.nurrobin.smpstats.timeline.DeathReplayEntry> loadDeathReplaysForPlayer(UUID uuid, int limit) throws SQLException {
-        String sql = "SELECT * FROM death_replays WHERE uuid = ? ORDER BY ts DESC LIMIT ?";
+        String sql = "SELECT * FROM death_replays WHERE player_id = ? ORDER BY ts DESC LIMIT ?";
         List<de.nurrobin.smpstats.timeline.DeathReplayEntry> list = new ArrayList<>();
+        Integer playerKey = players.find(uuid.toString());
+        if (playerKey == null) {
+            return list;
+        }
         try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, uuid.toString());
+            st.setInt(1, playerKey);
             st.setInt(2, limit);
             try (ResultSet rs = st.executeQuery()) {
                 while (rs.next()) {
@@ -861,14 +1861,132 @@ public class StatsStorage implements Closeable {
         return list;
     }
 
+    /**
+     * Picks up to {@code limit} rows of a history table that break a retention limit, oldest first
+     * within each limit. A limit of 0 or less is off.
+     *
+     * @param olderThan rows with a time before this (ms since epoch) are expired, 0 for no age limit
+     * @param maxRows how many of the newest rows to keep overall
+     * @param maxRowsPerPlayer how many of the newest rows to keep per player
+     */
+    public synchronized List<Long> findPrunableIds(HistoryTable table, long olderThan, int maxRows, int maxRowsPerPlayer, int limit) throws SQLException {
+        String t = table.table();
+        String time = table.timeColumn();
+        Set<Long> ids = new LinkedHashSet<>();
+        if (olderThan > 0) {
+            try (PreparedStatement st = connection.prepareStatement(
+                    "SELECT id FROM " + t + " WHERE " + time + " < ? ORDER BY " + time + " LIMIT ?")) {
+                st.setLong(1, olderThan);
+                st.setInt(2, limit);
+                collectIds(st, ids, limit);
+            }
+        }
+        if (maxRows > 0 && ids.size() < limit) {
+            try (PreparedStatement st = connection.prepareStatement(
+                    "SELECT id FROM " + t + " ORDER BY " + time + " DESC, id DESC LIMIT ? OFFSET ?")) {
+                st.setInt(1, limit);
+                st.setInt(2, maxRows);
+                collectIds(st, ids, limit);
+            }
+        }
+        if (maxRowsPerPlayer > 0 && ids.size() < limit) {
+            List<Integer> crowded = new ArrayList<>();
+            try (PreparedStatement st = connection.prepareStatement(
+                    "SELECT player_id FROM " + t + " WHERE player_id IS NOT NULL GROUP BY player_id HAVING COUNT(*) > ?")) {
+                st.setInt(1, maxRowsPerPlayer);
+                try (ResultSet rs = st.executeQuery()) {
+                    while (rs.next()) {
+                        crowded.add(rs.getInt(1));
+                    }
+                }
+            }
+            try (PreparedStatement st = connection.prepareStatement(
+                    "SELECT id FROM " + t + " WHERE player_id = ? ORDER BY " + time + " DESC, id DESC LIMIT ? OFFSET ?")) {
+                for (int playerKey : crowded) {
+                    if (ids.size() >= limit) {
+                        break;
+                    }
+                    st.setInt(1, playerKey);
+                    st.setInt(2, limit);
+                    st.setInt(3, maxRowsPerPlayer);
+                    collectIds(st, ids, limit);
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static void collectIds(PreparedStatement st, Set<Long> ids, int limit) throws SQLException {
+        try (ResultSet rs = st.executeQuery()) {
+            while (rs.next() && ids.size() < limit) {
+                ids.add(rs.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Loads rows of a history table by id, in the shape the API returns them: {@link MomentEntry}
+     * for moments and {@link de.nurrobin.smpstats.timeline.DeathReplayEntry} for death replays.
+     */
+    public synchronized Map<Long, Object> loadHistoryRows(HistoryTable table, List<Long> ids) throws SQLException {
+        Map<Long, Object> rows = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return rows;
+        }
+        String sql = "SELECT * FROM " + table.table() + " WHERE id IN (" + placeholders(ids.size()) + ") ORDER BY id";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                st.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    Object row = table == HistoryTable.MOMENTS ? mapMoment(rs) : mapDeathReplayRow(rs);
+                    rows.put(rs.getLong("id"), row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Deletes rows of a history table by id in one transaction, leaving a tombstone in the change log for each.
+     *
+     * @return the number of deleted rows
+     */
+    public synchronized int deleteHistoryRows(HistoryTable table, List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "DELETE FROM " + table.table() + " WHERE id = ?";
+        int deleted = inTransaction(() -> {
+            int count = 0;
+            try (PreparedStatement st = connection.prepareStatement(sql)) {
+                for (long id : ids) {
+                    st.setLong(1, id);
+                    if (st.executeUpdate() > 0) {
+                        appendChange(table.dataset(), Long.toString(id), null);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+        changed(table.dataset());
+        return deleted;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     private de.nurrobin.smpstats.timeline.DeathReplayEntry mapDeathReplayRow(ResultSet rs) throws SQLException {
         return new de.nurrobin.smpstats.timeline.DeathReplayEntry(
                 rs.getLong("ts"),
-                rs.getString("uuid"),
+                players.valueOf(rs, "player_id"),
                 rs.getString("name"),
                 rs.getString("cause"),
                 rs.getDouble("health"),
-                rs.getString("world"),
+                worlds.valueOf(rs, "world_id"),
                 rs.getInt("x"),
                 rs.getInt("y"),
                 rs.getInt("z"),
@@ -882,62 +2000,10 @@ public class StatsStorage implements Closeable {
     private Map<String, Object> mapTimelineRow(ResultSet rs) throws SQLException {
         Map<String, Object> row = new LinkedHashMap<>();
         row.put("day", rs.getString("day"));
-        row.put("playtime_ms", rs.getLong("playtime_ms"));
-        row.put("blocks_broken", rs.getLong("blocks_broken"));
-        row.put("blocks_placed", rs.getLong("blocks_placed"));
-        row.put("player_kills", rs.getLong("player_kills"));
-        row.put("mob_kills", rs.getLong("mob_kills"));
-        row.put("deaths", rs.getLong("deaths"));
-        row.put("distance_overworld", rs.getDouble("distance_overworld"));
-        row.put("distance_nether", rs.getDouble("distance_nether"));
-        row.put("distance_end", rs.getDouble("distance_end"));
-        row.put("damage_dealt", rs.getDouble("damage_dealt"));
-        row.put("damage_taken", rs.getDouble("damage_taken"));
-        row.put("items_crafted", rs.getLong("items_crafted"));
-        row.put("items_consumed", rs.getLong("items_consumed"));
+        putTimelineMetrics(row, rs);
         return row;
     }
 
-    private Map<String, Object> loadTimelineLatest(UUID uuid, java.time.LocalDate from) throws SQLException {
-        String sql = "SELECT * FROM timeline_daily WHERE uuid = ? AND day >= ? ORDER BY day DESC LIMIT 1";
-        try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, uuid.toString());
-            st.setString(2, from.toString());
-            try (ResultSet rs = st.executeQuery()) {
-                if (rs.next()) {
-                    return mapTimelineRow(rs);
-                }
-            }
-        }
-        return null;
-    }
-
-    private Map<String, Object> loadTimelineRowBefore(UUID uuid, java.time.LocalDate from) throws SQLException {
-        String sql = "SELECT * FROM timeline_daily WHERE uuid = ? AND day < ? ORDER BY day DESC LIMIT 1";
-        try (PreparedStatement st = connection.prepareStatement(sql)) {
-            st.setString(1, uuid.toString());
-            st.setString(2, from.toString());
-            try (ResultSet rs = st.executeQuery()) {
-                if (rs.next()) {
-                    return mapTimelineRow(rs);
-                }
-            }
-        }
-        return null;
-    }
-
-    private long deltaLong(Map<String, Object> latest, Map<String, Object> baseline, String key) {
-        long latestVal = ((Number) latest.getOrDefault(key, 0)).longValue();
-        long baseVal = baseline != null ? ((Number) baseline.getOrDefault(key, 0)).longValue() : 0;
-        return latestVal - baseVal;
-    }
-
-    private double deltaDouble(Map<String, Object> latest, Map<String, Object> baseline, String key) {
-        double latestVal = ((Number) latest.getOrDefault(key, 0)).doubleValue();
-        double baseVal = baseline != null ? ((Number) baseline.getOrDefault(key, 0)).doubleValue() : 0.0;
-        return latestVal - baseVal;
-    }
-
     private void migrateToDoubleHeatmapCounts() throws SQLException {
         long now = System.currentTimeMillis();
         try (Statement st = connection.createStatement()) {
@@ -998,50 +2064,355 @@ public class StatsStorage implements Closeable {
         }
     }
 
-    public void insertHeatmapEvent(String type, String world, double x, double y, double z, double value, long timestamp) throws SQLException {
-        String sql = "INSERT INTO heatmap_events (type, world, x, y, z, value, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private void addPlayerSortIndexes() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_name_nocase ON player_stats(name COLLATE NOCASE, uuid);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_playtime ON player_stats(playtime_ms DESC, uuid);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_last_join ON player_stats(last_join DESC, uuid);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_kills ON player_stats((mob_kills + player_kills) DESC, uuid);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_deaths ON player_stats(deaths DESC, uuid);");
+        }
+    }
+
+    private void addLastModifiedColumn() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("ALTER TABLE player_stats ADD COLUMN last_modified INTEGER NOT NULL DEFAULT 0;");
+            // Best guess for rows written before the column existed: stats change while a player is online
+            st.execute("UPDATE player_stats SET last_modified = MAX(first_join, last_join);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_player_last_modified ON player_stats(last_modified, uuid);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_moments_time ON moments(started_at);");
+        }
+    }
+
+    private void addChangeLogTables() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            // AUTOINCREMENT keeps sequence numbers from being reused after the newest entries are compacted away
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS change_log (
+                        seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                        ts INTEGER NOT NULL,
+                        dataset TEXT NOT NULL,
+                        entity_key TEXT NOT NULL,
+                        payload TEXT NOT NULL
+                    );
+                    """);
+            st.execute("CREATE INDEX IF NOT EXISTS idx_change_log_entity ON change_log(dataset, entity_key);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_change_log_ts ON change_log(ts);");
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS change_log_state (
+                        name TEXT PRIMARY KEY,
+                        value INTEGER NOT NULL
+                    );
+                    """);
+        }
+    }
+
+    private void addHistoryIndexes() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            // Per-player history, newest first, with and without a type filter
+            st.execute("CREATE INDEX IF NOT EXISTS idx_moments_player_time ON moments(player_id, started_at);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_moments_player_type_time ON moments(player_id, type_id, started_at);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_death_replays_player_ts ON death_replays(player_id, ts);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_death_replays_ts ON death_replays(ts);");
+            // Leaderboards over the last few days; the primary key starts with the player
+            st.execute("CREATE INDEX IF NOT EXISTS idx_timeline_day ON timeline_daily(day, player_id);");
+            // The primary key only covers uuid_a; partner lookups match either side
+            st.execute("CREATE INDEX IF NOT EXISTS idx_social_pairs_b ON social_pairs(uuid_b);");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_social_pairs_seconds ON social_pairs(seconds);");
+        }
+    }
+
+    private void addTimelineDeltaTables() throws SQLException {
+        String metrics = timelineColumnDefinitions();
+        try (Statement st = connection.createStatement()) {
+            // Clustered by day so a leaderboard window is one contiguous range
+            st.execute("CREATE TABLE IF NOT EXISTS timeline_deltas (day TEXT NOT NULL, player_id INTEGER NOT NULL, "
+                    + metrics + ", PRIMARY KEY (day, player_id)) WITHOUT ROWID;");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_timeline_deltas_player ON timeline_deltas(player_id, day);");
+            st.execute("CREATE TABLE IF NOT EXISTS timeline_rollups (period TEXT NOT NULL, period_start TEXT NOT NULL, "
+                    + "player_id INTEGER NOT NULL, " + metrics + ", PRIMARY KEY (player_id, period, period_start)) WITHOUT ROWID;");
+            // Clustered by player for the history screens; leaderboards read whole weeks through this index
+            st.execute("CREATE INDEX IF NOT EXISTS idx_timeline_rollups_period ON timeline_rollups(period, period_start);");
+            st.execute(timelineDeltaSql("true"));
+            // Weeks start on Monday: the next Sunday (or the day itself) minus six days
+            st.execute("INSERT INTO timeline_rollups (period, period_start, player_id, " + timelineColumns("%s") + ") "
+                    + "SELECT 'WEEK', date(day, 'weekday 0', '-6 days'), player_id, " + timelineColumns("SUM(%1$s)")
+                    + " FROM timeline_deltas GROUP BY 2, 3;");
+            st.execute("INSERT INTO timeline_rollups (period, period_start, player_id, " + timelineColumns("%s") + ") "
+                    + "SELECT 'MONTH', date(day, 'start of month'), player_id, " + timelineColumns("SUM(%1$s)")
+                    + " FROM timeline_deltas GROUP BY 2, 3;");
+            // Leaderboards read timeline_deltas now
+            st.execute("DROP INDEX IF EXISTS idx_timeline_day;");
+        }
+    }
+
+    private void addTimelineWindowTable() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            // Rebuilt from timeline_deltas on the first timeline read or write of each day
+            st.execute("CREATE TABLE IF NOT EXISTS timeline_windows (window_days INTEGER NOT NULL, player_id INTEGER NOT NULL, "
+                    + timelineColumnDefinitions() + ", PRIMARY KEY (window_days, player_id)) WITHOUT ROWID;");
+        }
+    }
+
+    private void addTimelineHourlyTables() throws SQLException {
+        String metrics = timelineColumnDefinitions();
+        try (Statement st = connection.createStatement()) {
+            // hour is an epoch hour; a row with hours = 24 is a whole UTC day merged by the retention pass
+            st.execute("CREATE TABLE IF NOT EXISTS timeline_hourly (player_id INTEGER NOT NULL, hour INTEGER NOT NULL, "
+                    + "hours INTEGER NOT NULL DEFAULT 1, " + metrics + ", PRIMARY KEY (player_id, hour)) WITHOUT ROWID;");
+            // The retention pass looks for the oldest rows that are still hourly
+            st.execute("CREATE INDEX IF NOT EXISTS idx_timeline_hourly_hours ON timeline_hourly(hours, hour);");
+            st.execute("CREATE TABLE IF NOT EXISTS timeline_hourly_server (hour INTEGER NOT NULL PRIMARY KEY, "
+                    + "hours INTEGER NOT NULL DEFAULT 1, players INTEGER NOT NULL DEFAULT 0, " + metrics + ") WITHOUT ROWID;");
+        }
+    }
+
+    private void addHeatmapChunkColumns() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            try {
+                st.execute("ALTER TABLE heatmap_events ADD COLUMN chunk_x INTEGER NOT NULL DEFAULT 0;");
+                st.execute("ALTER TABLE heatmap_events ADD COLUMN chunk_z INTEGER NOT NULL DEFAULT 0;");
+            } catch (SQLException e) {
+                if (!e.getMessage().toLowerCase().contains("duplicate column")) {
+                    throw e;
+                }
+            }
+            // floor(coord) >> 4, written without math functions: CAST truncates towards zero
+            st.execute("UPDATE heatmap_events SET " +
+                    "chunk_x = (CAST(x AS INTEGER) - (x < CAST(x AS INTEGER))) >> 4, " +
+                    "chunk_z = (CAST(z AS INTEGER) - (z < CAST(z AS INTEGER))) >> 4;");
+            // Covering index for bounded window queries: no table lookups needed
+            st.execute("CREATE INDEX IF NOT EXISTS idx_heatmap_events_chunk ON heatmap_events(type, world, chunk_x, chunk_z, timestamp, value);");
+        }
+    }
+
+    private void addPlayerHeatmapTables() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            // Dictionary of player UUIDs so per-player rows store a small integer instead of a 36 char string
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS player_ids (
+                        id INTEGER PRIMARY KEY,
+                        uuid TEXT NOT NULL UNIQUE
+                    );
+                    """);
+            // Player-first clustered key: a player's layer is one contiguous range, other players are never read
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS heatmap_player_bins (
+                        player_id INTEGER NOT NULL,
+                        type TEXT NOT NULL,
+                        world TEXT NOT NULL,
+                        chunk_x INTEGER NOT NULL,
+                        chunk_z INTEGER NOT NULL,
+                        hour INTEGER NOT NULL,
+                        value REAL NOT NULL,
+                        PRIMARY KEY (player_id, type, world, chunk_x, chunk_z, hour)
+                    ) WITHOUT ROWID;
+                    """);
+        }
+    }
+
+    /**
+     * Replaces the repeated TEXT columns of the event tables (player UUIDs, types, worlds) with ids
+     * into small lookup tables. Each table is rebuilt in place, keeping row ids.
+     */
+    private void encodeDictionaryColumns() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS type_ids (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE);");
+            st.execute("CREATE TABLE IF NOT EXISTS world_ids (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE);");
+            st.execute("INSERT OR IGNORE INTO player_ids (uuid) " +
+                    "SELECT uuid FROM moments UNION SELECT uuid FROM death_replays UNION SELECT uuid FROM timeline_daily;");
+            st.execute("INSERT OR IGNORE INTO type_ids (name) " +
+                    "SELECT type FROM heatmap_events UNION SELECT type FROM heatmap_player_bins UNION SELECT type FROM moments;");
+            st.execute("INSERT OR IGNORE INTO world_ids (name) " +
+                    "SELECT world FROM heatmap_events UNION SELECT world FROM heatmap_player_bins " +
+                    "UNION SELECT world FROM moments WHERE world IS NOT NULL " +
+                    "UNION SELECT world FROM death_replays WHERE world IS NOT NULL;");
+
+            // Indexes move with a renamed table, so they are recreated only after the old copy is dropped
+            st.execute("ALTER TABLE heatmap_events RENAME TO heatmap_events_old;");
+            st.execute("""
+                    CREATE TABLE heatmap_events (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        type_id INTEGER NOT NULL,
+                        world_id INTEGER NOT NULL,
+                        x REAL NOT NULL,
+                        y REAL NOT NULL,
+                        z REAL NOT NULL,
+                        value REAL NOT NULL,
+                        timestamp INTEGER NOT NULL,
+                        chunk_x INTEGER NOT NULL,
+                        chunk_z INTEGER NOT NULL
+                    );
+                    """);
+            st.execute("INSERT INTO heatmap_events (id, type_id, world_id, x, y, z, value, timestamp, chunk_x, chunk_z) " +
+                    "SELECT o.id, t.id, w.id, o.x, o.y, o.z, o.value, o.timestamp, o.chunk_x, o.chunk_z FROM heatmap_events_old o " +
+                    "JOIN type_ids t ON t.name = o.type JOIN world_ids w ON w.name = o.world;");
+            st.execute("DROP TABLE heatmap_events_old;");
+            st.execute("CREATE INDEX idx_heatmap_events_type_time ON heatmap_events(type_id, timestamp);");
+            st.execute("CREATE INDEX idx_heatmap_events_chunk ON heatmap_events(type_id, world_id, chunk_x, chunk_z, timestamp, value);");
+
+            st.execute("ALTER TABLE heatmap_player_bins RENAME TO heatmap_player_bins_old;");
+            st.execute("""
+                    CREATE TABLE heatmap_player_bins (
+                        player_id INTEGER NOT NULL,
+                        type_id INTEGER NOT NULL,
+                        world_id INTEGER NOT NULL,
+                        chunk_x INTEGER NOT NULL,
+                        chunk_z INTEGER NOT NULL,
+                        hour INTEGER NOT NULL,
+                        value REAL NOT NULL,
+                        PRIMARY KEY (player_id, type_id, world_id, chunk_x, chunk_z, hour)
+                    ) WITHOUT ROWID;
+                    """);
+            st.execute("INSERT INTO heatmap_player_bins (player_id, type_id, world_id, chunk_x, chunk_z, hour, value) " +
+                    "SELECT o.player_id, t.id, w.id, o.chunk_x, o.chunk_z, o.hour, o.value FROM heatmap_player_bins_old o " +
+                    "JOIN type_ids t ON t.name = o.type JOIN world_ids w ON w.name = o.world;");
+            st.execute("DROP TABLE heatmap_player_bins_old;");
+
+            st.execute("ALTER TABLE moments RENAME TO moments_old;");
+            st.execute("""
+                    CREATE TABLE moments (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        player_id INTEGER NOT NULL,
+                        type_id INTEGER NOT NULL,
+                        title TEXT,
+                        detail TEXT,
+                        payload TEXT,
+                        world_id INTEGER,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        started_at INTEGER NOT NULL,
+                        ended_at INTEGER NOT NULL
+                    );
+                    """);
+            st.execute("INSERT INTO moments (id, player_id, type_id, title, detail, payload, world_id, x, y, z, started_at, ended_at) " +
+                    "SELECT o.id, p.id, t.id, o.title, o.detail, o.payload, w.id, o.x, o.y, o.z, o.started_at, o.ended_at FROM moments_old o " +
+                    "JOIN player_ids p ON p.uuid = o.uuid JOIN type_ids t ON t.name = o.type LEFT JOIN world_ids w ON w.name = o.world;");
+            st.execute("DROP TABLE moments_old;");
+            st.execute("CREATE INDEX idx_moments_type_time ON moments(type_id, started_at DESC);");
+
+            st.execute("ALTER TABLE death_replays RENAME TO death_replays_old;");
+            st.execute("""
+                    CREATE TABLE death_replays (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        ts INTEGER NOT NULL,
+                        player_id INTEGER NOT NULL,
+                        name TEXT NOT NULL,
+                        cause TEXT,
+                        health REAL,
+                        world_id INTEGER,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        fall_distance REAL,
+                        value REAL,
+                        nearby_players TEXT,
+                        nearby_mobs TEXT,
+                        inventory TEXT
+                    );
+                    """);
+            st.execute("INSERT INTO death_replays (id, ts, player_id, name, cause, health, world_id, x, y, z, fall_distance, value, nearby_players, nearby_mobs, inventory) " +
+                    "SELECT o.id, o.ts, p.id, o.name, o.cause, o.health, w.id, o.x, o.y, o.z, o.fall_distance, o.value, o.nearby_players, o.nearby_mobs, o.inventory " +
+                    "FROM death_replays_old o JOIN player_ids p ON p.uuid = o.uuid LEFT JOIN world_ids w ON w.name = o.world;");
+            st.execute("DROP TABLE death_replays_old;");
+
+            st.execute("ALTER TABLE timeline_daily RENAME TO timeline_daily_old;");
+            st.execute("""
+                    CREATE TABLE timeline_daily (
+                        player_id INTEGER NOT NULL,
+                        day TEXT NOT NULL,
+                        playtime_ms INTEGER NOT NULL,
+                        blocks_broken INTEGER NOT NULL,
+                        blocks_placed INTEGER NOT NULL,
+                        player_kills INTEGER NOT NULL,
+                        mob_kills INTEGER NOT NULL,
+                        deaths INTEGER NOT NULL,
+                        distance_overworld REAL NOT NULL,
+                        distance_nether REAL NOT NULL,
+                        distance_end REAL NOT NULL,
+                        damage_dealt REAL NOT NULL,
+                        damage_taken REAL NOT NULL,
+                        items_crafted INTEGER NOT NULL,
+                        items_consumed INTEGER NOT NULL,
+                        PRIMARY KEY (player_id, day)
+                    ) WITHOUT ROWID;
+                    """);
+            st.execute("INSERT INTO timeline_daily SELECT p.id, o.day, o.playtime_ms, o.blocks_broken, o.blocks_placed, o.player_kills, " +
+                    "o.mob_kills, o.deaths, o.distance_overworld, o.distance_nether, o.distance_end, o.damage_dealt, o.damage_taken, " +
+                    "o.items_crafted, o.items_consumed FROM timeline_daily_old o JOIN player_ids p ON p.uuid = o.uuid;");
+            st.execute("DROP TABLE timeline_daily_old;");
+        }
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, java.sql.Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static int toChunk(double coord) {
+        return ((int) Math.floor(coord)) >> 4;
+    }
+
+    public synchronized void insertHeatmapEvent(String type, String world, double x, double y, double z, double value, long timestamp) throws SQLException {
+        String sql = "INSERT INTO heatmap_events (type_id, world_id, x, y, z, value, timestamp, chunk_x, chunk_z) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, type);
-            ps.setString(2, world);
+            setNullableInt(ps, 1, types.idOf(connection, type));
+            setNullableInt(ps, 2, worlds.idOf(connection, world));
             ps.setDouble(3, x);
             ps.setDouble(4, y);
             ps.setDouble(5, z);
             ps.setDouble(6, value);
             ps.setLong(7, timestamp);
+            ps.setInt(8, toChunk(x));
+            ps.setInt(9, toChunk(z));
             ps.executeUpdate();
         }
+        changed(Dataset.HEATMAP);
     }
 
-    public void insertHeatmapEntries(List<HeatmapEntry> entries) throws SQLException {
-        String sql = "INSERT INTO heatmap_events (type, world, x, y, z, value, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        connection.setAutoCommit(false);
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            for (HeatmapEntry entry : entries) {
-                ps.setString(1, entry.type());
-                ps.setString(2, entry.world());
-                ps.setDouble(3, entry.x());
-                ps.setDouble(4, entry.y());
-                ps.setDouble(5, entry.z());
-                ps.setDouble(6, entry.value());
-                ps.setLong(7, entry.timestamp());
-                ps.addBatch();
-            }
-            ps.executeBatch();
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        } finally {
-            connection.setAutoCommit(true);
+    public synchronized void insertHeatmapEntries(List<HeatmapEntry> entries) throws SQLException {
+        String sql = "INSERT INTO heatmap_events (type_id, world_id, x, y, z, value, timestamp, chunk_x, chunk_z) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        // Assign dictionary ids before the transaction so a rollback cannot leave stale ids in the cache
+        for (HeatmapEntry entry : entries) {
+            types.idOf(connection, entry.type());
+            worlds.idOf(connection, entry.world());
         }
+        inTransaction(() -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (HeatmapEntry entry : entries) {
+                    setNullableInt(ps, 1, types.find(entry.type()));
+                    setNullableInt(ps, 2, worlds.find(entry.world()));
+                    ps.setDouble(3, entry.x());
+                    ps.setDouble(4, entry.y());
+                    ps.setDouble(5, entry.z());
+                    ps.setDouble(6, entry.value());
+                    ps.setLong(7, entry.timestamp());
+                    ps.setInt(8, toChunk(entry.x()));
+                    ps.setInt(9, toChunk(entry.z()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+        changed(Dataset.HEATMAP);
     }
 
-    public List<HeatmapEvent> getHeatmapEvents(String type, String world, long since, long until) throws SQLException {
+    public synchronized List<HeatmapEvent> getHeatmapEvents(String type, String world, long since, long until) throws SQLException {
         List<HeatmapEvent> events = new ArrayList<>();
-        String sql = "SELECT x, y, z, value, timestamp FROM heatmap_events WHERE type = ? AND world = ? AND timestamp >= ? AND timestamp <= ?";
+        Integer typeKey = types.find(type);
+        Integer worldKey = worlds.find(world);
+        if (typeKey == null || worldKey == null) {
+            return events;
+        }
+        String sql = "SELECT x, y, z, value, timestamp FROM heatmap_events WHERE type_id = ? AND world_id = ? AND timestamp >= ? AND timestamp <= ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, type);
-            ps.setString(2, world);
+            ps.setInt(1, typeKey);
+            ps.setInt(2, worldKey);
             ps.setLong(3, since);
             ps.setLong(4, until);
             try (ResultSet rs = ps.executeQuery()) {
@@ -1058,4 +2429,117 @@ public class StatsStorage implements Closeable {
         }
         return events;
     }
+
+    /**
+     * Sums heatmap values per chunk inside a rectangular chunk window. Only rows inside the
+     * window are read, via the covering {@code idx_heatmap_events_chunk} index.
+     */
+    public synchronized List<HeatmapChunkTotal> getHeatmapChunkTotals(String type, String world, int minChunkX, int minChunkZ,
+                                                         int maxChunkX, int maxChunkZ, long since, long until) throws SQLException {
+        List<HeatmapChunkTotal> totals = new ArrayList<>();
+        Integer typeKey = types.find(type);
+        Integer worldKey = worlds.find(world);
+        if (typeKey == null || worldKey == null) {
+            return totals;
+        }
+        String sql = """
+                SELECT chunk_x, chunk_z, SUM(value) AS total FROM heatmap_events
+                WHERE type_id = ? AND world_id = ? AND chunk_x BETWEEN ? AND ? AND chunk_z BETWEEN ? AND ?
+                  AND timestamp >= ? AND timestamp <= ?
+                GROUP BY chunk_x, chunk_z
+                """;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, typeKey);
+            ps.setInt(2, worldKey);
+            ps.setInt(3, minChunkX);
+            ps.setInt(4, maxChunkX);
+            ps.setInt(5, minChunkZ);
+            ps.setInt(6, maxChunkZ);
+            ps.setLong(7, since);
+            ps.setLong(8, until);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    totals.add(new HeatmapChunkTotal(rs.getInt("chunk_x"), rs.getInt("chunk_z"), rs.getDouble("total")));
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Adds per-player hourly chunk bins, summing values into existing bins.
+     */
+    public synchronized void addHeatmapPlayerBins(List<HeatmapPlayerBin> bins) throws SQLException {
+        String sql = """
+                INSERT INTO heatmap_player_bins (player_id, type_id, world_id, chunk_x, chunk_z, hour, value)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(player_id, type_id, world_id, chunk_x, chunk_z, hour) DO UPDATE SET value = value + excluded.value
+                """;
+        for (HeatmapPlayerBin bin : bins) {
+            players.idOf(connection, bin.player().toString());
+            types.idOf(connection, bin.type());
+            worlds.idOf(connection, bin.world());
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (HeatmapPlayerBin bin : bins) {
+                setNullableInt(ps, 1, players.find(bin.player().toString()));
+                setNullableInt(ps, 2, types.find(bin.type()));
+                setNullableInt(ps, 3, worlds.find(bin.world()));
+                ps.setInt(4, bin.chunkX());
+                ps.setInt(5, bin.chunkZ());
+                ps.setLong(6, bin.hour());
+                ps.setDouble(7, bin.value());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        changed(Dataset.HEATMAP);
+    }
+
+    /**
+     * Sums one player's heatmap values per chunk inside a rectangular chunk window.
+     * Reads only that player's range of the {@code heatmap_player_bins} primary key.
+     * Time bounds are applied at hour granularity.
+     */
+    public synchronized List<HeatmapChunkTotal> getPlayerHeatmapChunkTotals(UUID player, String type, String world,
+                                                                            int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                                                            long since, long until) throws SQLException {
+        List<HeatmapChunkTotal> totals = new ArrayList<>();
+        Integer playerKey = players.find(player.toString());
+        Integer typeKey = types.find(type);
+        Integer worldKey = worlds.find(world);
+        if (playerKey == null || typeKey == null || worldKey == null) {
+            return totals;
+        }
+        String sql = """
+                SELECT chunk_x, chunk_z, SUM(value) AS total FROM heatmap_player_bins
+                WHERE player_id = ? AND type_id = ? AND world_id = ? AND chunk_x BETWEEN ? AND ? AND chunk_z BETWEEN ? AND ?
+                  AND hour BETWEEN ? AND ?
+                GROUP BY chunk_x, chunk_z
+                """;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, playerKey);
+            ps.setInt(2, typeKey);
+            ps.setInt(3, worldKey);
+            ps.setInt(4, minChunkX);
+            ps.setInt(5, maxChunkX);
+            ps.setInt(6, minChunkZ);
+            ps.setInt(7, maxChunkZ);
+            ps.setLong(8, HeatmapPlayerBin.hourOf(since));
+            ps.setLong(9, HeatmapPlayerBin.hourOf(until));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    totals.add(new HeatmapChunkTotal(rs.getInt("chunk_x"), rs.getInt("chunk_z"), rs.getDouble("total")));
+                }
+            }
+        }
+        return totals;
+    }
 }
@@ -0,0 +1,84 @@
+package de.nurrobin.smpstats.database;
+
+import de.nurrobin.smpstats.StatsRecord;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Counter columns of the timeline tables, in table order. Timeline leaderboards can be sorted by
+ * any of them.
+ */
+public enum TimelineMetric {
+    PLAYTIME("playtime_ms", false),
+    BLOCKS_BROKEN("blocks_broken", false),
+    BLOCKS_PLACED("blocks_placed", false),
+    PLAYER_KILLS("player_kills", false),
+    MOB_KILLS("mob_kills", false),
+    DEATHS("deaths", false),
+    DISTANCE_OVERWORLD("distance_overworld", true),
+    DISTANCE_NETHER("distance_nether", true),
+    DISTANCE_END("distance_end", true),
+    DAMAGE_DEALT("damage_dealt", true),
+    DAMAGE_TAKEN("damage_taken", true),
+    ITEMS_CRAFTED("items_crafted", false),
+    ITEMS_CONSUMED("items_consumed", false);
+
+    private final String column;
+    private final boolean real;
+
+    TimelineMetric(String column, boolean real) {
+        this.column = column;
+        this.real = real;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Whether the column holds a {@code REAL}; the others are whole counts.
+     */
+    boolean real() {
+        return real;
+    }
+
+    /**
+     * The record's current value of this counter, a {@code Double} for real columns and a
+     * {@code Long} otherwise.
+     */
+    Number of(StatsRecord record) {
+        return switch (this) {
+            case PLAYTIME -> record.getPlaytimeMillis();
+            case BLOCKS_BROKEN -> record.getBlocksBroken();
+            case BLOCKS_PLACED -> record.getBlocksPlaced();
+            case PLAYER_KILLS -> record.getPlayerKills();
+            case MOB_KILLS -> record.getMobKills();
+            case DEATHS -> record.getDeaths();
+            case DISTANCE_OVERWORLD -> record.getDistanceOverworld();
+            case DISTANCE_NETHER -> record.getDistanceNether();
+            case DISTANCE_END -> record.getDistanceEnd();
+            case DAMAGE_DEALT -> record.getDamageDealt();
+            case DAMAGE_TAKEN -> record.getDamageTaken();
+            case ITEMS_CRAFTED -> record.getItemsCrafted();
+            case ITEMS_CONSUMED -> record.getItemsConsumed();
+        };
+    }
+
+    /**
+     * Parses a metric by name ({@code mob_kills}, {@code playtime}) or by column ({@code playtime_ms}),
+     * ignoring case.
+     */
+    public static Optional<TimelineMetric> parse(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String key = value.trim().toLowerCase(Locale.ROOT);
+        for (TimelineMetric metric : values()) {
+            if (metric.column.equals(key) || metric.name().toLowerCase(Locale.ROOT).equals(key)) {
+                return Optional.of(metric);
+            }
+        }
+        return Optional.empty();
+    }
+}
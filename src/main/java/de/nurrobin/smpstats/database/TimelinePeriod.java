@@ -0,0 +1,41 @@
+package de.nurrobin.smpstats.database;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Calendar periods the per-day timeline deltas are rolled up into. Weeks start on Monday.
+ */
+public enum TimelinePeriod {
+    WEEK,
+    MONTH;
+
+    public LocalDate startOf(LocalDate day) {
+        return this == WEEK
+                ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : day.withDayOfMonth(1);
+    }
+
+    public LocalDate endOf(LocalDate day) {
+        return this == WEEK
+                ? day.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY))
+                : day.with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    /**
+     * Parses {@code week} or {@code month}, ignoring case.
+     */
+    public static Optional<TimelinePeriod> parse(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package de.nurrobin.smpstats.gui;
 import de.nurrobin.smpstats.SMPStats;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.StatsService;
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
 import de.nurrobin.smpstats.database.StatsStorage;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -17,10 +19,8 @@ import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 
-import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import static de.nurrobin.smpstats.gui.GuiUtils.*;
 
@@ -35,11 +35,18 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
     private final StatsStorage storage;
     private final Player viewer;
     private final Inventory inventory;
+    private final AsyncGuiLoader loader;
     
     private int currentPage = 0;
     private String searchFilter = "";
     private SortMode sortMode = SortMode.PLAYTIME;
-    private List<StatsRecord> allPlayers = new ArrayList<>();
+    /** Keyset cursor each visited page starts after; index 0 (first page) is {@code null} */
+    private final List<PlayerPage.Cursor> pageStarts = new ArrayList<>();
+    private List<StatsRecord> pagePlayers = new ArrayList<>();
+    private boolean hasNextPage;
+    private int totalPlayers;
+    private int totalFiltered;
+    private boolean loading;
     
     private static final int PLAYERS_PER_PAGE = 28; // 4 rows of 7
     private static final int[] PLAYER_SLOTS = {
@@ -50,22 +57,25 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
     };
     
     public enum SortMode {
-        PLAYTIME("⏱ Playtime", NamedTextColor.GOLD),
-        NAME("📛 Name", NamedTextColor.GREEN),
-        LAST_SEEN("📅 Last Seen", NamedTextColor.AQUA),
-        KILLS("⚔ Kills", NamedTextColor.RED),
-        DEATHS("💀 Deaths", NamedTextColor.DARK_RED);
+        PLAYTIME("⏱ Playtime", NamedTextColor.GOLD, PlayerSort.PLAYTIME),
+        NAME("📛 Name", NamedTextColor.GREEN, PlayerSort.NAME),
+        LAST_SEEN("📅 Last Seen", NamedTextColor.AQUA, PlayerSort.LAST_SEEN),
+        KILLS("⚔ Kills", NamedTextColor.RED, PlayerSort.KILLS),
+        DEATHS("💀 Deaths", NamedTextColor.DARK_RED, PlayerSort.DEATHS);
         
         private final String displayName;
         private final NamedTextColor color;
+        private final PlayerSort storageSort;
         
-        SortMode(String displayName, NamedTextColor color) {
+        SortMode(String displayName, NamedTextColor color, PlayerSort storageSort) {
             this.displayName = displayName;
             this.color = color;
+            this.storageSort = storageSort;
         }
         
         public String getDisplayName() { return displayName; }
         public NamedTextColor getColor() { return color; }
+        public PlayerSort getStorageSort() { return storageSort; }
     }
 
     public AdminPlayerLookupGui(SMPStats plugin, GuiManager guiManager, StatsService statsService,
@@ -79,24 +89,55 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
         this.inventory = Bukkit.createInventory(this, 54,
                 Component.text("🔍 ", NamedTextColor.GOLD)
                         .append(Component.text("Admin: Player Lookup", NamedTextColor.WHITE)));
-        loadAllPlayers();
-        initializeItems();
+        this.loader = new AsyncGuiLoader(plugin);
+        resetPaging();
+        loadPage();
     }
     
-    private void loadAllPlayers() {
-        try {
-            allPlayers = storage.loadAll();
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Failed to load player stats for admin lookup: " + e.getMessage());
-            allPlayers = new ArrayList<>();
-        }
+    private void resetPaging() {
+        currentPage = 0;
+        pageStarts.clear();
+        pageStarts.add(null);
+    }
+    
+    /**
+     * Fetches only the players shown on the current page, using the cursor recorded when
+     * the previous page was loaded.
+     */
+    private void loadPage() {
+        loading = true;
+        initializeItems();
+        PlayerSort sort = sortMode.getStorageSort();
+        String filter = searchFilter;
+        PlayerPage.Cursor after = pageStarts.get(currentPage);
+        loader.load(() -> new PageResult(
+                        storage.loadPlayerPage(sort, filter, after, PLAYERS_PER_PAGE),
+                        storage.countPlayers(null),
+                        filter.isEmpty() ? -1 : storage.countPlayers(filter)),
+                result -> {
+                    pagePlayers = result.page().records();
+                    hasNextPage = result.page().hasNext();
+                    if (hasNextPage && pageStarts.size() == currentPage + 1) {
+                        pageStarts.add(result.page().next());
+                    }
+                    totalPlayers = result.totalPlayers();
+                    totalFiltered = result.totalFiltered() >= 0 ? result.totalFiltered() : result.totalPlayers();
+                    loading = false;
+                    initializeItems();
+                },
+                e -> {
+                    plugin.getLogger().warning("Failed to load player stats for admin lookup: " + e.getMessage());
+                    pagePlayers = new ArrayList<>();
+                    hasNextPage = false;
+                    loading = false;
+                    initializeItems();
+                });
     }
 
     private void initializeItems() {
         inventory.clear();
         
         // Header with info
-        int totalPlayers = allPlayers.size();
         inventory.setItem(4, createGuiItem(Material.COMMAND_BLOCK,
                 Component.text("🔍 Player Lookup", NamedTextColor.GOLD).decorate(TextDecoration.BOLD),
                 Component.text("Search and view any player's stats", NamedTextColor.GRAY),
@@ -118,26 +159,21 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
                 Component.empty(),
                 Component.text("Click to clear filter", NamedTextColor.RED)));
         
-        // Filter and sort players
-        List<StatsRecord> filteredPlayers = filterAndSortPlayers();
+        if (loading) {
+            inventory.setItem(22, createLoadingItem());
+        }
         
         // Calculate pagination
-        int totalPages = Math.max(1, (int) Math.ceil((double) filteredPlayers.size() / PLAYERS_PER_PAGE));
-        currentPage = Math.min(currentPage, totalPages - 1);
+        int totalPages = Math.max(currentPage + 1, (int) Math.ceil((double) totalFiltered / PLAYERS_PER_PAGE));
         
-        int startIndex = currentPage * PLAYERS_PER_PAGE;
-        int endIndex = Math.min(startIndex + PLAYERS_PER_PAGE, filteredPlayers.size());
-        
-        // Display players
-        for (int i = startIndex; i < endIndex; i++) {
-            int slotIndex = i - startIndex;
-            if (slotIndex < PLAYER_SLOTS.length) {
-                StatsRecord record = filteredPlayers.get(i);
-                inventory.setItem(PLAYER_SLOTS[slotIndex], createPlayerItem(record));
+        // Display the players of the current page
+        if (!loading) {
+            for (int i = 0; i < pagePlayers.size() && i < PLAYER_SLOTS.length; i++) {
+                inventory.setItem(PLAYER_SLOTS[i], createPlayerItem(pagePlayers.get(i)));
             }
         }
         
-        addNavigationButtons(filteredPlayers.size(), totalPages);
+        addNavigationButtons(totalFiltered, totalPages);
     }
     
     private void addSortModeButton() {
@@ -156,28 +192,6 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
                 lore.toArray(new Component[0])));
     }
     
-    private List<StatsRecord> filterAndSortPlayers() {
-        List<StatsRecord> filtered = allPlayers.stream()
-                .filter(r -> {
-                    if (searchFilter.isEmpty()) return true;
-                    String name = r.getName();
-                    return name != null && name.toLowerCase().contains(searchFilter.toLowerCase());
-                })
-                .collect(Collectors.toList());
-        
-        // Sort based on current mode
-        Comparator<StatsRecord> comparator = switch (sortMode) {
-            case PLAYTIME -> Comparator.comparingLong(StatsRecord::getPlaytimeMillis).reversed();
-            case NAME -> Comparator.comparing((StatsRecord r) -> r.getName() != null ? r.getName().toLowerCase() : "");
-            case LAST_SEEN -> Comparator.comparingLong(StatsRecord::getLastJoin).reversed();
-            case KILLS -> Comparator.comparingLong((StatsRecord r) -> r.getMobKills() + r.getPlayerKills()).reversed();
-            case DEATHS -> Comparator.comparingLong(StatsRecord::getDeaths).reversed();
-        };
-        
-        filtered.sort(comparator);
-        return filtered;
-    }
-    
     private ItemStack createPlayerItem(StatsRecord record) {
         String playerName = record.getName() != null ? record.getName() : "Unknown";
         OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(record.getUuid());
@@ -252,9 +266,7 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
                 Component.text("Return to main menu", NamedTextColor.GRAY)));
         
         // Online filter (slot 46)
-        long onlineCount = allPlayers.stream()
-                .filter(r -> Bukkit.getOfflinePlayer(r.getUuid()).isOnline())
-                .count();
+        int onlineCount = Bukkit.getOnlinePlayers().size();
         inventory.setItem(46, createGuiItem(Material.ENDER_EYE,
                 Component.text("🟢 Online Only", NamedTextColor.GREEN),
                 Component.text("Show only online players", NamedTextColor.GRAY),
@@ -273,7 +285,7 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
                 Component.text(totalFiltered + " players found", NamedTextColor.GRAY)));
         
         // Next page (slot 50)
-        if (currentPage < totalPages - 1) {
+        if (hasNextPage) {
             inventory.setItem(50, createGuiItem(Material.SPECTRAL_ARROW,
                     Component.text("Next ▶", NamedTextColor.YELLOW),
                     Component.text("Go to page " + (currentPage + 2), NamedTextColor.GRAY)));
@@ -323,9 +335,9 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
             SortMode[] modes = SortMode.values();
             int nextIndex = (sortMode.ordinal() + 1) % modes.length;
             sortMode = modes[nextIndex];
-            currentPage = 0;
+            resetPaging();
             playSuccessSound(player);
-            initializeItems();
+            loadPage();
             return;
         }
         
@@ -333,9 +345,9 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
         if (slot == 8) {
             if (!searchFilter.isEmpty()) {
                 searchFilter = "";
-                currentPage = 0;
+                resetPaging();
                 playSuccessSound(player);
-                initializeItems();
+                loadPage();
             }
             return;
         }
@@ -348,42 +360,43 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
         }
         
         // Previous page
-        if (slot == 48 && currentPage > 0) {
+        if (slot == 48 && currentPage > 0 && !loading) {
             currentPage--;
-            initializeItems();
+            loadPage();
             return;
         }
         
         // Next page
-        if (slot == 50) {
+        if (slot == 50 && hasNextPage && !loading) {
             currentPage++;
-            initializeItems();
+            loadPage();
             return;
         }
         
         // Refresh
         if (slot == 53) {
-            loadAllPlayers();
             playSuccessSound(player);
-            initializeItems();
+            resetPaging();
+            loadPage();
             return;
         }
         
         // Player click - check if it's a player slot
         for (int i = 0; i < PLAYER_SLOTS.length; i++) {
             if (slot == PLAYER_SLOTS[i]) {
-                List<StatsRecord> filteredPlayers = filterAndSortPlayers();
-                int playerIndex = currentPage * PLAYERS_PER_PAGE + i;
-                
-                if (playerIndex < filteredPlayers.size()) {
-                    StatsRecord clickedRecord = filteredPlayers.get(playerIndex);
-                    openPlayerStats(player, clickedRecord);
+                if (!loading && i < pagePlayers.size()) {
+                    openPlayerStats(player, pagePlayers.get(i));
                 }
                 return;
             }
         }
     }
     
+    @Override
+    public void onClose() {
+        loader.cancel();
+    }
+    
     private void openPlayerStats(Player viewer, StatsRecord record) {
         // Try to get the player - if online, use the player directly
         Player onlinePlayer = Bukkit.getPlayer(record.getUuid());
@@ -404,11 +417,15 @@ public class AdminPlayerLookupGui implements InventoryGui, InventoryHolder {
     
     /**
      * Sets the search filter. Called externally when player types in chat.
+     * Matches players whose name starts with the filter (case-insensitive).
      * @param filter The search filter to apply
      */
     public void setSearchFilter(String filter) {
-        this.searchFilter = filter != null ? filter : "";
-        this.currentPage = 0;
-        initializeItems();
+        this.searchFilter = filter != null ? filter.trim() : "";
+        resetPaging();
+        loadPage();
+    }
+    
+    private record PageResult(PlayerPage page, int totalPlayers, int totalFiltered) {
     }
 }
@@ -0,0 +1,80 @@
+package de.nurrobin.smpstats.gui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs GUI data queries off the main thread and hands the results back on the main thread.
+ * <p>
+ * Each GUI owns one loader. Starting a new load supersedes any load still in flight, and
+ * {@link #cancel()} (called when the viewer closes the inventory) drops pending results so
+ * a slow query never touches an inventory nobody is looking at.
+ */
+public class AsyncGuiLoader {
+    private final Plugin plugin;
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    public AsyncGuiLoader(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Runs {@code query} asynchronously, then calls {@code onLoaded} with its result on the main thread.
+     * If the query throws, {@code onError} is called on the main thread instead.
+     *
+     * @param query    the blocking data query
+     * @param onLoaded main-thread callback receiving the result
+     * @param onError  main-thread callback receiving the failure
+     */
+    public <T> void load(Callable<T> query, Consumer<T> onLoaded, Consumer<Exception> onError) {
+        if (cancelled) {
+            return;
+        }
+        int token = generation.incrementAndGet();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            if (!isCurrent(token)) {
+                return;
+            }
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                deliver(token, () -> onError.accept(e));
+                return;
+            }
+            deliver(token, () -> onLoaded.accept(result));
+        });
+    }
+
+    private void deliver(int token, Runnable callback) {
+        if (!isCurrent(token) || !plugin.isEnabled()) {
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (isCurrent(token)) {
+                callback.run();
+            }
+        });
+    }
+
+    private boolean isCurrent(int token) {
+        return !cancelled && generation.get() == token;
+    }
+
+    /**
+     * Drops any in-flight load and ignores all future ones.
+     */
+    public void cancel() {
+        cancelled = true;
+        generation.incrementAndGet();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -15,7 +15,6 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 
-import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +34,9 @@ public class DeathReplayGui implements InventoryGui, InventoryHolder {
     private final UUID targetPlayerUuid;
     private final Inventory inventory;
     private final int page;
+    private final AsyncGuiLoader loader;
+    /** Deaths from the last completed load, or {@code null} while loading */
+    private List<DeathReplayEntry> deaths;
     
     /** Maximum deaths shown per page */
     private static final int DEATHS_PER_PAGE = 21;
@@ -79,26 +81,32 @@ public class DeathReplayGui implements InventoryGui, InventoryHolder {
         this.inventory = Bukkit.createInventory(this, 54,
                 Component.text("💀 ", NamedTextColor.DARK_RED)
                         .append(Component.text(targetName + "'s Deaths", NamedTextColor.WHITE)));
-        initializeItems();
+        this.loader = new AsyncGuiLoader(plugin);
+        loadDeaths();
     }
 
-    private void initializeItems() {
+    private void loadDeaths() {
+        deaths = null;
         inventory.clear();
         fillBackground();
-        
-        // Load death replays
-        List<DeathReplayEntry> deaths;
-        try {
-            deaths = storage.loadDeathReplaysForPlayer(targetPlayerUuid, MAX_DEATHS);
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Could not load death replays: " + e.getMessage());
-            inventory.setItem(22, createGuiItem(Material.BARRIER,
-                    Component.text("Could not load death data", NamedTextColor.RED),
-                    Component.text("Please try again later", NamedTextColor.GRAY)));
-            addNavigationButtons(0, 0);
-            return;
-        }
-        
+        inventory.setItem(22, createLoadingItem());
+        addNavigationButtons(0, 0);
+
+        loader.load(() -> storage.loadDeathReplaysForPlayer(targetPlayerUuid, MAX_DEATHS),
+                this::renderDeaths,
+                e -> {
+                    plugin.getLogger().warning("Could not load death replays: " + e.getMessage());
+                    inventory.setItem(22, createGuiItem(Material.BARRIER,
+                            Component.text("Could not load death data", NamedTextColor.RED),
+                            Component.text("Please try again later", NamedTextColor.GRAY)));
+                });
+    }
+
+    private void renderDeaths(List<DeathReplayEntry> loaded) {
+        this.deaths = loaded;
+        inventory.clear();
+        fillBackground();
+
         // Header
         String targetName = statsService.getStats(targetPlayerUuid)
                 .map(r -> r.getName())
@@ -353,25 +361,28 @@ public class DeathReplayGui implements InventoryGui, InventoryHolder {
             guiManager.openGui(player, new DeathReplayGui(plugin, guiManager, statsService, 
                     storage, viewer, targetPlayerUuid, page - 1));
         } else if (slot == NEXT_PAGE_SLOT) {
-            // Check if there are more pages
-            try {
-                List<DeathReplayEntry> deaths = storage.loadDeathReplaysForPlayer(targetPlayerUuid, MAX_DEATHS);
-                int totalPages = (int) Math.ceil(deaths.size() / (double) DEATHS_PER_PAGE);
-                if (page < totalPages - 1) {
-                    playPageTurnSound(player);
-                    guiManager.openGui(player, new DeathReplayGui(plugin, guiManager, statsService, 
-                            storage, viewer, targetPlayerUuid, page + 1));
-                }
-            } catch (SQLException e) {
-                player.sendMessage(Component.text("Could not load more deaths", NamedTextColor.RED));
+            // Only page forward once the current load has told us there is more
+            if (deaths == null) {
+                return;
+            }
+            int totalPages = (int) Math.ceil(deaths.size() / (double) DEATHS_PER_PAGE);
+            if (page < totalPages - 1) {
+                playPageTurnSound(player);
+                guiManager.openGui(player, new DeathReplayGui(plugin, guiManager, statsService, 
+                        storage, viewer, targetPlayerUuid, page + 1));
             }
         } else if (slot == REFRESH_SLOT) {
             playSuccessSound(player);
-            initializeItems();
+            loadDeaths();
             player.sendMessage(Component.text("Death history refreshed!", NamedTextColor.GREEN));
         }
     }
 
+    @Override
+    public void onClose() {
+        loader.cancel();
+    }
+
     @Override
     public Inventory getInventory() {
         return inventory;
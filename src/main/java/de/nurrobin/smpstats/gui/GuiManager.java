@@ -20,7 +20,10 @@ public class GuiManager implements Listener {
     }
 
     public void openGui(Player player, InventoryGui gui) {
-        openGuis.put(player.getUniqueId(), gui);
+        InventoryGui previous = openGuis.put(player.getUniqueId(), gui);
+        if (previous != null && previous != gui) {
+            previous.onClose();
+        }
         gui.open(player);
     }
 
@@ -55,6 +58,7 @@ public class GuiManager implements Listener {
         InventoryGui gui = openGuis.get(player.getUniqueId());
         if (gui != null && event.getInventory().equals(gui.getInventory())) {
             openGuis.remove(player.getUniqueId());
+            gui.onClose();
             
             // Unregister any animations for this player
             plugin.getAnimatedBorderService().ifPresent(service -> service.unregisterAnimation(player));
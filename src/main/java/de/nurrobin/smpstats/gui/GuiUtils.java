@@ -168,6 +168,17 @@ public final class GuiUtils {
                 lore);
     }
 
+    /**
+     * Creates the placeholder shown while a GUI is loading its data in the background.
+     *
+     * @return the configured ItemStack
+     */
+    public static ItemStack createLoadingItem() {
+        return createGuiItem(Material.CLOCK,
+                Component.text("Loading...", NamedTextColor.YELLOW),
+                Component.text("Fetching data, please wait", NamedTextColor.GRAY));
+    }
+
     /**
      * Plays a click sound for GUI feedback.
      *
@@ -8,4 +8,11 @@ public interface InventoryGui {
     Inventory getInventory();
     void open(Player player);
     void handleClick(InventoryClickEvent event);
+
+    /**
+     * Called once the viewer has closed or navigated away from this GUI.
+     * GUIs that load data in the background cancel their pending loads here.
+     */
+    default void onClose() {
+    }
 }
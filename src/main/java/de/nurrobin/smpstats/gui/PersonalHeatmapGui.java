@@ -56,6 +56,7 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
     private final Player viewer;
     private final UUID targetUuid;
     private final String targetName;
+    private final AsyncGuiLoader loader;
     private Inventory inventory;
     private int currentActivityIndex = 0;
     private String currentWorld;
@@ -69,6 +70,7 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
         this.targetUuid = targetUuid;
         this.targetName = targetName;
         this.currentWorld = viewer.getWorld().getName();
+        this.loader = new AsyncGuiLoader(plugin);
     }
     
     @Override
@@ -101,44 +103,57 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
         int centerChunkZ = loc.getBlockZ() >> 4;
         
         // Calculate grid bounds (7x5 chunks centered on player)
-        int startChunkX = centerChunkX - (GRID_WIDTH / 2);
-        int startChunkZ = centerChunkZ - (GRID_HEIGHT / 2);
+        GridWindow window = new GridWindow(centerChunkX, centerChunkZ,
+                centerChunkX - (GRID_WIDTH / 2), centerChunkZ - (GRID_HEIGHT / 2), currentActivityIndex);
+        inventory.setItem(GRID_START_SLOT + (GRID_HEIGHT / 2) * 9 + (GRID_WIDTH / 2), GuiUtils.createLoadingItem());
         
-        // Get heatmap data for the activity type
+        // Query heatmap bins off the main thread if service is available
+        HeatmapService heatmapService = plugin.getHeatmapService().orElse(null);
         String activityType = ACTIVITY_TYPES[currentActivityIndex];
-        
-        // Build a map of chunk -> intensity from the bins
+        String world = currentWorld;
+        loader.load(() -> loadIntensities(heatmapService, activityType, world, window),
+                intensities -> renderCells(window, intensities),
+                e -> {
+                    plugin.getLogger().warning("Could not load personal heatmap: " + e.getMessage());
+                    renderCells(window, Map.of());
+                });
+    }
+    
+    /**
+     * Builds a map of chunk -> intensity for the grid window. Runs on a worker thread.
+     */
+    private Map<Long, Double> loadIntensities(HeatmapService heatmapService, String activityType,
+                                              String world, GridWindow window) {
         Map<Long, Double> chunkIntensities = new HashMap<>();
-        double maxIntensity = 1.0;
+        if (heatmapService == null) {
+            return chunkIntensities;
+        }
+        long now = System.currentTimeMillis();
+        long weekAgo = now - (7L * 24 * 3600 * 1000);
+        // Only the target's activity in the chunks drawn in the grid is queried
+        List<HeatmapBin> bins = heatmapService.loadPlayerChunkWindow(targetUuid, activityType, world, weekAgo, now,
+                window.startChunkX(), window.startChunkZ(),
+                window.startChunkX() + GRID_WIDTH - 1, window.startChunkZ() + GRID_HEIGHT - 1);
         
-        // Query heatmap bins if service is available
-        HeatmapService heatmapService = plugin.getHeatmapService().orElse(null);
-        if (heatmapService != null) {
-            long now = System.currentTimeMillis();
-            long weekAgo = now - (7L * 24 * 3600 * 1000);
-            List<HeatmapBin> bins = heatmapService.generateHeatmap(activityType, currentWorld, weekAgo, now, 0);
-            
-            for (HeatmapBin bin : bins) {
-                // Check if this bin is within our grid
-                int binX = bin.getChunkX();
-                int binZ = bin.getChunkZ();
-                if (binX >= startChunkX && binX < startChunkX + GRID_WIDTH &&
-                    binZ >= startChunkZ && binZ < startChunkZ + GRID_HEIGHT) {
-                    long key = ((long) binX << 32) | (binZ & 0xFFFFFFFFL);
-                    chunkIntensities.put(key, bin.getCount());
-                    if (bin.getCount() > maxIntensity) {
-                        maxIntensity = bin.getCount();
-                    }
-                }
-            }
+        for (HeatmapBin bin : bins) {
+            long key = ((long) bin.getChunkX() << 32) | (bin.getChunkZ() & 0xFFFFFFFFL);
+            chunkIntensities.put(key, bin.getCount());
+        }
+        return chunkIntensities;
+    }
+    
+    private void renderCells(GridWindow window, Map<Long, Double> chunkIntensities) {
+        double maxIntensity = 1.0;
+        for (double value : chunkIntensities.values()) {
+            maxIntensity = Math.max(maxIntensity, value);
         }
         
         // Render grid with normalized intensities
         for (int row = 0; row < GRID_HEIGHT; row++) {
             for (int col = 0; col < GRID_WIDTH; col++) {
                 int slot = GRID_START_SLOT + (row * 9) + col;
-                int chunkX = startChunkX + col;
-                int chunkZ = startChunkZ + row;
+                int chunkX = window.startChunkX() + col;
+                int chunkZ = window.startChunkZ() + row;
                 long chunkKey = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
                 
                 double intensity = chunkIntensities.getOrDefault(chunkKey, 0.0);
@@ -148,7 +163,7 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
                 Material material = intensity > 0 ? INTENSITY_MATERIALS[normalizedLevel] : Material.GRAY_STAINED_GLASS_PANE;
                 
                 // Mark player's current chunk specially
-                boolean isPlayerChunk = (chunkX == centerChunkX && chunkZ == centerChunkZ);
+                boolean isPlayerChunk = (chunkX == window.centerChunkX() && chunkZ == window.centerChunkZ());
                 if (isPlayerChunk) {
                     material = Material.PLAYER_HEAD;
                 }
@@ -169,7 +184,7 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
                     Component.text(intensityLabel, NamedTextColor.GRAY)
                         .decoration(TextDecoration.ITALIC, false),
                     Component.empty(),
-                    Component.text("Type: " + ACTIVITY_LABELS[currentActivityIndex], NamedTextColor.AQUA)
+                    Component.text("Type: " + ACTIVITY_LABELS[window.activityIndex()], NamedTextColor.AQUA)
                         .decoration(TextDecoration.ITALIC, false)
                 ));
                 
@@ -267,6 +282,11 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
         }
     }
     
+    @Override
+    public void onClose() {
+        loader.cancel();
+    }
+    
     private void cycleWorld() {
         List<World> worlds = Bukkit.getWorlds();
         int currentIndex = -1;
@@ -284,5 +304,8 @@ public class PersonalHeatmapGui implements InventoryGui, InventoryHolder {
             currentWorld = worlds.get(0).getName();
         }
     }
+    
+    /** Chunk window captured on the main thread when a grid load starts. */
+    private record GridWindow(int centerChunkX, int centerChunkZ, int startChunkX, int startChunkZ, int activityIndex) {
+    }
 }
-
@@ -17,7 +17,6 @@ import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 
-import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -36,6 +35,9 @@ public class SocialPartnersGui implements InventoryGui, InventoryHolder {
     private final Player viewer;
     private final UUID targetPlayerUuid;
     private final Inventory inventory;
+    private final AsyncGuiLoader loader;
+    /** Pairs from the last completed load, or {@code null} while loading */
+    private List<SocialPairRow> loadedPairs;
     
     private static final int MAX_PARTNERS = 21; // 3 rows of 7
     private static final int BACK_SLOT = 45;
@@ -72,20 +74,29 @@ public class SocialPartnersGui implements InventoryGui, InventoryHolder {
         this.inventory = Bukkit.createInventory(this, 54,
                 Component.text("👥 ", NamedTextColor.GOLD)
                         .append(Component.text(targetName + "'s Friends", NamedTextColor.WHITE)));
+        this.loader = new AsyncGuiLoader(plugin);
+        loadPairs();
+    }
+
+    private void loadPairs() {
+        loadedPairs = null;
         initializeItems();
+        loader.load(() -> storage.loadSocialPairsForPlayer(targetPlayerUuid, 50),
+                pairs -> {
+                    loadedPairs = pairs;
+                    initializeItems();
+                },
+                e -> {
+                    plugin.getLogger().warning("Could not load social pairs: " + e.getMessage());
+                    loadedPairs = new ArrayList<>();
+                    initializeItems();
+                });
     }
 
     private void initializeItems() {
         inventory.clear();
         
-        // Load social pairs
-        List<SocialPairRow> allPairs;
-        try {
-            allPairs = storage.loadSocialPairsForPlayer(targetPlayerUuid, 50);
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Could not load social pairs: " + e.getMessage());
-            allPairs = new ArrayList<>();
-        }
+        List<SocialPairRow> allPairs = loadedPairs != null ? loadedPairs : List.of();
         
         // Apply filter
         List<SocialPairRow> filteredPairs = applyFilter(allPairs);
@@ -112,7 +123,9 @@ public class SocialPartnersGui implements InventoryGui, InventoryHolder {
                 Component.text("Best Friends: ", NamedTextColor.DARK_GRAY)
                         .append(Component.text(bestFriendCount + "", NamedTextColor.LIGHT_PURPLE))));
         
-        if (filteredPairs.isEmpty()) {
+        if (loadedPairs == null) {
+            inventory.setItem(22, createLoadingItem());
+        } else if (filteredPairs.isEmpty()) {
             Material emptyMaterial = currentFilter == FilterMode.ALL ? Material.BARRIER : Material.GRAY_DYE;
             String emptyMessage = switch (currentFilter) {
                 case ALL -> "No friends found";
@@ -344,7 +357,7 @@ public class SocialPartnersGui implements InventoryGui, InventoryHolder {
         } else if (slot == 53) {
             // Refresh
             playSuccessSound(player);
-            initializeItems();
+            loadPairs();
         } else {
             // Check if clicked on a partner slot
             for (int partnerSlot : PARTNER_SLOTS) {
@@ -369,6 +382,11 @@ public class SocialPartnersGui implements InventoryGui, InventoryHolder {
         }
     }
 
+    @Override
+    public void onClose() {
+        loader.cancel();
+    }
+
     @Override
     public Inventory getInventory() {
         return inventory;
@@ -35,6 +35,7 @@ public class TimelineDeltaGui implements InventoryGui, InventoryHolder {
     private final Player viewer;
     private final UUID targetPlayerUuid;
     private final Inventory inventory;
+    private final AsyncGuiLoader loader;
     
     /** Days for "this week" period */
     private static final int THIS_WEEK_DAYS = 7;
@@ -64,27 +65,32 @@ public class TimelineDeltaGui implements InventoryGui, InventoryHolder {
         this.inventory = Bukkit.createInventory(this, 54,
                 Component.text("📈 ", NamedTextColor.GOLD)
                         .append(Component.text(targetName + "'s Progress", NamedTextColor.WHITE)));
+        this.loader = new AsyncGuiLoader(plugin);
         initializeItems();
     }
 
     private void initializeItems() {
         inventory.clear();
         fillBackground();
+        inventory.setItem(22, createLoadingItem());
+        addNavigationButtons();
         
-        // Load timeline data
-        Map<String, Object> thisWeek;
-        Map<String, Object> lastWeek;
-        try {
-            thisWeek = storage.loadTimelineRange(targetPlayerUuid, THIS_WEEK_DAYS);
-            lastWeek = loadLastWeekData();
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Could not load timeline data: " + e.getMessage());
-            inventory.setItem(22, createGuiItem(Material.BARRIER,
-                    Component.text("Could not load timeline data", NamedTextColor.RED),
-                    Component.text("Please try again later", NamedTextColor.GRAY)));
-            addNavigationButtons();
-            return;
-        }
+        loader.load(() -> {
+                    Map<String, Object> thisWeek = storage.loadTimelineRange(targetPlayerUuid, THIS_WEEK_DAYS);
+                    return new WeekPair(thisWeek, loadLastWeekData(thisWeek));
+                },
+                weeks -> renderComparison(weeks.thisWeek(), weeks.lastWeek()),
+                e -> {
+                    plugin.getLogger().warning("Could not load timeline data: " + e.getMessage());
+                    inventory.setItem(22, createGuiItem(Material.BARRIER,
+                            Component.text("Could not load timeline data", NamedTextColor.RED),
+                            Component.text("Please try again later", NamedTextColor.GRAY)));
+                });
+    }
+
+    private void renderComparison(Map<String, Object> thisWeek, Map<String, Object> lastWeek) {
+        inventory.clear();
+        fillBackground();
         
         // Headers
         inventory.setItem(THIS_WEEK_HEADER_SLOT, createGuiItem(Material.LIME_BANNER,
@@ -158,9 +164,8 @@ public class TimelineDeltaGui implements InventoryGui, InventoryHolder {
      * Loads the data for "last week" (7-14 days ago).
      * This is calculated by getting the 14-day range and subtracting the 7-day range.
      */
-    private Map<String, Object> loadLastWeekData() throws SQLException {
+    private Map<String, Object> loadLastWeekData(Map<String, Object> thisWeek) throws SQLException {
         Map<String, Object> twoWeeks = storage.loadTimelineRange(targetPlayerUuid, LAST_WEEK_DAYS);
-        Map<String, Object> thisWeek = storage.loadTimelineRange(targetPlayerUuid, THIS_WEEK_DAYS);
         
         if (twoWeeks.isEmpty()) {
             return Map.of();
@@ -421,8 +426,16 @@ public class TimelineDeltaGui implements InventoryGui, InventoryHolder {
         }
     }
 
+    @Override
+    public void onClose() {
+        loader.cancel();
+    }
+
     @Override
     public Inventory getInventory() {
         return inventory;
     }
+
+    private record WeekPair(Map<String, Object> thisWeek, Map<String, Object> lastWeek) {
+    }
 }
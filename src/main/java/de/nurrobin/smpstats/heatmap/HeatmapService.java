@@ -1,8 +1,10 @@
 package de.nurrobin.smpstats.heatmap;
 
 import de.nurrobin.smpstats.Settings;
+import de.nurrobin.smpstats.database.HeatmapChunkTotal;
 import de.nurrobin.smpstats.database.HeatmapEntry;
 import de.nurrobin.smpstats.database.HeatmapEvent;
+import de.nurrobin.smpstats.database.HeatmapPlayerBin;
 import de.nurrobin.smpstats.database.StatsStorage;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -13,6 +15,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class HeatmapService {
@@ -22,6 +25,7 @@ public class HeatmapService {
     private List<HotspotDefinition> hotspots;
     private final List<HeatmapEntry> pendingEvents = new ArrayList<>();
     private final Map<HotspotKey, Double> hotspotCounts = new ConcurrentHashMap<>();
+    private final Map<PlayerBinKey, Double> playerBinCounts = new ConcurrentHashMap<>();
     private int flushTaskId = -1;
     private int positionTaskId = -1;
 
@@ -47,7 +51,7 @@ public class HeatmapService {
         // Track player positions every 5 seconds (100 ticks)
         positionTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
             for (org.bukkit.entity.Player player : Bukkit.getOnlinePlayers()) {
-                track("POSITION", player.getLocation());
+                track("POSITION", player.getLocation(), player.getUniqueId());
             }
         }, 100L, 100L).getTaskId();
     }
@@ -65,14 +69,29 @@ public class HeatmapService {
     }
 
     public void track(String type, Location location) {
+        track(type, location, null);
+    }
+
+    /**
+     * Records one heatmap event. When {@code player} is given, the event is also added to that
+     * player's personal layer, which is kept as hourly per-chunk sums rather than raw events.
+     */
+    public void track(String type, Location location, UUID player) {
         if (!settings.isHeatmapEnabled()) {
             return;
         }
         if (location == null || location.getWorld() == null) {
             return;
         }
+        long now = System.currentTimeMillis();
+        String world = location.getWorld().getName();
         synchronized (pendingEvents) {
-            pendingEvents.add(new HeatmapEntry(type, location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), 1.0, System.currentTimeMillis()));
+            pendingEvents.add(new HeatmapEntry(type, world, location.getX(), location.getY(), location.getZ(), 1.0, now));
+        }
+        if (player != null) {
+            PlayerBinKey key = new PlayerBinKey(player, type, world,
+                    location.getBlockX() >> 4, location.getBlockZ() >> 4, HeatmapPlayerBin.hourOf(now));
+            playerBinCounts.merge(key, 1.0, Double::sum);
         }
         for (HotspotDefinition hotspot : hotspots) {
             if (hotspot.contains(location)) {
@@ -128,6 +147,42 @@ public class HeatmapService {
         }
     }
 
+    /**
+     * Loads undecayed per-chunk totals for a rectangular chunk window (inclusive bounds).
+     * Only events inside the window are read, so the cost depends on the window size
+     * rather than on how much of the world has been explored.
+     */
+    public List<HeatmapBin> loadChunkWindow(String type, String world, long since, long until,
+                                            int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        try {
+            List<HeatmapBin> bins = new ArrayList<>();
+            for (HeatmapChunkTotal total : storage.getHeatmapChunkTotals(type, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, since, until)) {
+                bins.add(new HeatmapBin(type, world, total.chunkX(), total.chunkZ(), total.value()));
+            }
+            return bins;
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load heatmap window: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Same as {@link #loadChunkWindow} but restricted to the activity of a single player.
+     */
+    public List<HeatmapBin> loadPlayerChunkWindow(UUID player, String type, String world, long since, long until,
+                                                  int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        try {
+            List<HeatmapBin> bins = new ArrayList<>();
+            for (HeatmapChunkTotal total : storage.getPlayerHeatmapChunkTotals(player, type, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, since, until)) {
+                bins.add(new HeatmapBin(type, world, total.chunkX(), total.chunkZ(), total.value()));
+            }
+            return bins;
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load player heatmap window: " + e.getMessage());
+            return List.of();
+        }
+    }
+
     public Map<String, Double> loadHotspots(String type) {
         try {
             return storage.loadHotspotCounts(type);
@@ -140,7 +195,7 @@ public class HeatmapService {
     private void flush() {
         List<HeatmapEntry> batch;
         synchronized (pendingEvents) {
-            if (pendingEvents.isEmpty() && hotspotCounts.isEmpty()) {
+            if (pendingEvents.isEmpty() && hotspotCounts.isEmpty() && playerBinCounts.isEmpty()) {
                 return;
             }
             batch = new ArrayList<>(pendingEvents);
@@ -155,6 +210,21 @@ public class HeatmapService {
             }
         }
 
+        List<HeatmapPlayerBin> playerBins = new ArrayList<>();
+        for (PlayerBinKey key : playerBinCounts.keySet()) {
+            Double value = playerBinCounts.remove(key);
+            if (value != null) {
+                playerBins.add(new HeatmapPlayerBin(key.player, key.type, key.world, key.chunkX, key.chunkZ, key.hour, value));
+            }
+        }
+        if (!playerBins.isEmpty()) {
+            try {
+                storage.addHeatmapPlayerBins(playerBins);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Could not persist player heatmap bins: " + e.getMessage());
+            }
+        }
+
         long halfLife = (long) (settings.getHeatmapDecayHalfLifeHours() * 3600 * 1000);
         List<Map.Entry<HotspotKey, Double>> hotspotBatch = new ArrayList<>(hotspotCounts.entrySet());
         hotspotCounts.clear();
@@ -169,4 +239,7 @@ public class HeatmapService {
 
     private record HotspotKey(String type, String hotspot, String world) {
     }
+
+    private record PlayerBinKey(UUID player, String type, String world, int chunkX, int chunkZ, long hour) {
+    }
 }
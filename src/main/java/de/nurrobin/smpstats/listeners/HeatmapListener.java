@@ -9,6 +9,8 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 
+import java.util.UUID;
+
 public class HeatmapListener implements Listener {
     private final HeatmapService heatmapService;
 
@@ -18,23 +20,24 @@ public class HeatmapListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
-        heatmapService.track("MINING", event.getBlock().getLocation());
+        UUID player = event.getPlayer().getUniqueId();
+        heatmapService.track("MINING", event.getBlock().getLocation(), player);
 
         String blockType = event.getBlock().getType().name();
         if (blockType.contains("ORE") || blockType.equals("ANCIENT_DEBRIS")) {
-            heatmapService.track("MINING_" + blockType, event.getBlock().getLocation());
+            heatmapService.track("MINING_" + blockType, event.getBlock().getLocation(), player);
         }
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onDeath(PlayerDeathEvent event) {
-        heatmapService.track("DEATH", event.getEntity().getLocation());
+        heatmapService.track("DEATH", event.getEntity().getLocation(), event.getEntity().getUniqueId());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onDamage(EntityDamageEvent event) {
-        if (event.getEntity() instanceof Player) {
-            heatmapService.track("DAMAGE", event.getEntity().getLocation());
+        if (event.getEntity() instanceof Player player) {
+            heatmapService.track("DAMAGE", player.getLocation(), player.getUniqueId());
         }
     }
 }
@@ -0,0 +1,114 @@
+package de.nurrobin.smpstats.moments;
+
+import de.nurrobin.smpstats.moments.MomentDefinition.TriggerType;
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moment definitions indexed by trigger and, for block and item triggers, by material. Built once per
+ * settings load so an event only visits the definitions that can match it; a block break of a material
+ * no definition mentions finds an empty list without scanning anything.
+ */
+final class MomentDispatchTable {
+    private static final Set<TriggerType> DEATH_TRIGGERS =
+            EnumSet.of(TriggerType.FIRST_DEATH, TriggerType.DEATH_FALL, TriggerType.DEATH_EXPLOSION, TriggerType.DEATH);
+    private static final Set<TriggerType> MATERIAL_TRIGGERS = EnumSet.of(TriggerType.BLOCK_BREAK, TriggerType.ITEM_GAIN);
+
+    private final Map<TriggerType, List<MomentDefinition>> byTrigger = new EnumMap<>(TriggerType.class);
+    private final Map<TriggerType, Map<Material, List<MomentDefinition>>> byMaterial = new EnumMap<>(TriggerType.class);
+    // Definitions without a material filter, used for materials that have no list of their own
+    private final Map<TriggerType, List<MomentDefinition>> anyMaterial = new EnumMap<>(TriggerType.class);
+    private final List<MomentDefinition> death;
+    // Bit position of every first-only definition in the per-player "already emitted" sets
+    private final Map<String, Integer> firstOnlyBits = new HashMap<>();
+
+    private MomentDispatchTable(List<MomentDefinition> definitions) {
+        Map<TriggerType, List<MomentDefinition>> grouped = new EnumMap<>(TriggerType.class);
+        List<MomentDefinition> deathDefinitions = new ArrayList<>();
+        for (MomentDefinition def : definitions) {
+            grouped.computeIfAbsent(def.getTrigger(), t -> new ArrayList<>()).add(def);
+            if (DEATH_TRIGGERS.contains(def.getTrigger())) {
+                deathDefinitions.add(def);
+            }
+            if (def.isFirstOnly()) {
+                firstOnlyBits.putIfAbsent(def.getId(), firstOnlyBits.size());
+            }
+        }
+        grouped.forEach((trigger, defs) -> byTrigger.put(trigger, List.copyOf(defs)));
+        death = List.copyOf(deathDefinitions);
+
+        for (TriggerType trigger : MATERIAL_TRIGGERS) {
+            List<MomentDefinition> defs = byTrigger.getOrDefault(trigger, List.of());
+            List<MomentDefinition> wildcard = defs.stream().filter(def -> def.getMaterials().isEmpty()).toList();
+            Map<Material, List<MomentDefinition>> lists = new EnumMap<>(Material.class);
+            for (MomentDefinition def : defs) {
+                for (Material material : def.getMaterials()) {
+                    // Keeps configuration order among the definitions a material matches
+                    lists.computeIfAbsent(material, m -> defs.stream().filter(d -> d.matchesMaterial(m)).toList());
+                }
+            }
+            byMaterial.put(trigger, lists);
+            anyMaterial.put(trigger, wildcard);
+        }
+    }
+
+    static MomentDispatchTable compile(List<MomentDefinition> definitions) {
+        return new MomentDispatchTable(definitions);
+    }
+
+    /**
+     * Definitions with the given trigger, in configuration order.
+     */
+    List<MomentDefinition> forTrigger(TriggerType trigger) {
+        return byTrigger.getOrDefault(trigger, List.of());
+    }
+
+    /**
+     * Definitions of a block or item trigger that match {@code material}, in configuration order.
+     */
+    List<MomentDefinition> forMaterial(TriggerType trigger, Material material) {
+        Map<Material, List<MomentDefinition>> lists = byMaterial.get(trigger);
+        if (lists == null) {
+            return List.of();
+        }
+        List<MomentDefinition> matching = lists.get(material);
+        return matching != null ? matching : anyMaterial.get(trigger);
+    }
+
+    /**
+     * Definitions reacting to a player death, in configuration order.
+     */
+    List<MomentDefinition> forDeath() {
+        return death;
+    }
+
+    /**
+     * Bit of the first-only definition with the given id, or -1 if no first-only definition uses it.
+     */
+    int firstOnlyBit(String definitionId) {
+        Integer bit = firstOnlyBits.get(definitionId);
+        return bit != null ? bit : -1;
+    }
+
+    /**
+     * The bits of every first-only definition among {@code momentTypes}.
+     */
+    BitSet firstOnlyBits(Set<String> momentTypes) {
+        BitSet bits = new BitSet(firstOnlyBits.size());
+        for (String type : momentTypes) {
+            int bit = firstOnlyBit(type);
+            if (bit >= 0) {
+                bits.set(bit);
+            }
+        }
+        return bits;
+    }
+}
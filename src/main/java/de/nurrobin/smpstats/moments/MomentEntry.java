@@ -51,6 +51,13 @@ public class MomentEntry {
                 startedAt, endedAt);
     }
 
+    /**
+     * The same moment carrying the id storage assigned to it.
+     */
+    public MomentEntry withId(long id) {
+        return new MomentEntry(id, playerId, type, title, detail, payload, world, x, y, z, startedAt, endedAt);
+    }
+
     public Long getId() {
         return id;
     }
@@ -2,6 +2,7 @@ package de.nurrobin.smpstats.moments;
 
 import com.google.gson.Gson;
 import de.nurrobin.smpstats.Settings;
+import de.nurrobin.smpstats.database.MomentPage;
 import de.nurrobin.smpstats.database.StatsStorage;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -10,30 +11,78 @@ import org.bukkit.plugin.Plugin;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class MomentService {
+    // Queued moments are written in one transaction about once a second
+    private static final long WRITE_PERIOD_TICKS = 20L;
+    // Write attempts for queued moments before they are given up, about a minute at the write period
+    static final int MAX_WRITE_ATTEMPTS = 60;
+    // Sized for the live stream replay and a full moments history GUI
+    private static final int RECENT_GLOBAL = 512;
+    private static final int RECENT_PER_PLAYER = 100;
+    private static final int RECENT_PLAYERS = 256;
+
     private final Plugin plugin;
     private final StatsStorage storage;
     private Settings settings;
-    private List<MomentDefinition> definitions = new ArrayList<>();
+    private volatile MomentDispatchTable dispatch;
     private final Map<Key, ActiveWindow> windows = new ConcurrentHashMap<>();
+    // First-only definitions each online player already has a moment of, as bits of the dispatch table.
+    // A missing entry means "not loaded yet"; sets are replaced, never changed in place.
+    private final Map<UUID, BitSet> firstOnlyEmitted = new ConcurrentHashMap<>();
+    // Players whose first-only state may be cached; changed on the main thread only, by joins, events and quits
+    private final Set<UUID> firstOnlyPlayers = ConcurrentHashMap.newKeySet();
     private final Gson gson = new Gson();
+    private final List<Consumer<MomentEntry>> listeners = new CopyOnWriteArrayList<>();
+    // Moments not yet known to be stored; entries leave only after their batch was written
+    private final List<MomentEntry> pendingMoments = new ArrayList<>();
+    private final RecentMoments recent = new RecentMoments(RECENT_GLOBAL, RECENT_PER_PLAYER, RECENT_PLAYERS);
+    private final Object writeLock = new Object();
+    // Consecutive failed writes of the queue; guarded by writeLock
+    private int failedWrites;
     private int flushTaskId = -1;
+    private int writeTaskId = -1;
 
     public MomentService(Plugin plugin, StatsStorage storage, Settings settings) {
         this.plugin = plugin;
         this.storage = storage;
         this.settings = settings;
-        this.definitions = settings.getMomentDefinitions();
+        this.dispatch = MomentDispatchTable.compile(settings.getMomentDefinitions());
     }
 
     public void updateSettings(Settings settings) {
         this.settings = settings;
-        this.definitions = settings.getMomentDefinitions();
+        this.dispatch = MomentDispatchTable.compile(settings.getMomentDefinitions());
+        // Bit positions belong to the old table; players are reloaded lazily on their next first-only check
+        firstOnlyEmitted.clear();
+    }
+
+    /**
+     * Loads the first-only moments the player already has in the background, so their first-only
+     * checks are answered from memory. Called when the player joins.
+     */
+    public void preloadPlayer(UUID playerId) {
+        firstOnlyPlayers.add(playerId);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> loadFirstOnly(playerId));
+    }
+
+    /**
+     * Drops the cached first-only state and the recent moment ring of a player who left.
+     */
+    public void forgetPlayer(UUID playerId) {
+        firstOnlyPlayers.remove(playerId);
+        firstOnlyEmitted.remove(playerId);
+        recent.forgetPlayer(playerId);
     }
 
     public void start() {
@@ -42,6 +91,7 @@ public class MomentService {
         }
         long periodTicks = Math.max(1, settings.getMomentsFlushSeconds()) * 20L;
         flushTaskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flushStale, periodTicks, periodTicks).getTaskId();
+        writeTaskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::writePending, WRITE_PERIOD_TICKS, WRITE_PERIOD_TICKS).getTaskId();
     }
 
     public void shutdown() {
@@ -49,21 +99,24 @@ public class MomentService {
             Bukkit.getScheduler().cancelTask(flushTaskId);
             flushTaskId = -1;
         }
+        if (writeTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(writeTaskId);
+            writeTaskId = -1;
+        }
         flushAll();
+        writePending();
     }
 
     public void onBlockBreak(Player player, Location location, org.bukkit.Material material) {
         if (!settings.isMomentsEnabled()) return;
-        for (MomentDefinition def : definitions) {
-            if (def.getTrigger() != MomentDefinition.TriggerType.BLOCK_BREAK) continue;
-            if (!def.matchesMaterial(material)) continue;
+        for (MomentDefinition def : dispatch.forMaterial(MomentDefinition.TriggerType.BLOCK_BREAK, material)) {
             handleWindow(player.getUniqueId(), def, location);
         }
     }
 
     public void onDeath(Player player, Location location, double fallDistance, String cause, boolean selfExplosion) {
         if (!settings.isMomentsEnabled()) return;
-        for (MomentDefinition def : definitions) {
+        for (MomentDefinition def : dispatch.forDeath()) {
             switch (def.getTrigger()) {
                 case FIRST_DEATH -> handleFirstOnly(player, def, location);
                 case DEATH_FALL -> {
@@ -81,7 +134,6 @@ public class MomentService {
                         emitInstant(player, def, location, Map.of("cause", cause));
                     }
                 }
-                case BOSS_KILL -> { /* handled in listener on death event */ }
                 default -> { }
             }
         }
@@ -89,9 +141,10 @@ public class MomentService {
 
     public void onDamage(Player player, double finalDamage, String cause) {
         if (!settings.isMomentsEnabled()) return;
+        List<MomentDefinition> candidates = dispatch.forTrigger(MomentDefinition.TriggerType.DAMAGE_LOW_HP);
+        if (candidates.isEmpty()) return;
         double resultingHealth = Math.max(0, player.getHealth() - finalDamage);
-        for (MomentDefinition def : definitions) {
-            if (def.getTrigger() != MomentDefinition.TriggerType.DAMAGE_LOW_HP) continue;
+        for (MomentDefinition def : candidates) {
             if (!def.matchesCause(cause)) continue;
             if (resultingHealth > 0 && resultingHealth <= def.getMaxHealthAfterDamage()) {
                 emitInstant(player, def, player.getLocation(), Map.of("health", String.format("%.1f", resultingHealth)));
@@ -101,24 +154,55 @@ public class MomentService {
 
     public void onItemGain(Player player, org.bukkit.Material material, Location location) {
         if (!settings.isMomentsEnabled()) return;
-        for (MomentDefinition def : definitions) {
-            if (def.getTrigger() != MomentDefinition.TriggerType.ITEM_GAIN) continue;
-            if (!def.matchesMaterial(material)) continue;
+        for (MomentDefinition def : dispatch.forMaterial(MomentDefinition.TriggerType.ITEM_GAIN, material)) {
             handleWindow(player.getUniqueId(), def, location);
         }
     }
 
     public void onBossKill(Player player, String entityType, Location location) {
         if (!settings.isMomentsEnabled()) return;
-        for (MomentDefinition def : definitions) {
-            if (def.getTrigger() != MomentDefinition.TriggerType.BOSS_KILL) continue;
+        for (MomentDefinition def : dispatch.forTrigger(MomentDefinition.TriggerType.BOSS_KILL)) {
             if (!def.matchesEntityType(entityType)) continue;
             emitInstant(player, def, location, Map.of("entity", entityType));
         }
     }
 
+    /**
+     * Registers a callback that receives every moment right after it has been saved.
+     * Listeners run on the saving thread and must not block.
+     */
+    public void addListener(Consumer<MomentEntry> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<MomentEntry> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Drops moments deleted from storage, such as by retention, from the recent rings.
+     */
+    public void forgetStoredMoments(Collection<Long> ids) {
+        recent.removeStored(new HashSet<>(ids));
+    }
+
+    /**
+     * The newest moments, served from memory when the recent ring holds them and from storage otherwise.
+     */
     public List<MomentEntry> getRecentMoments(int limit) {
+        List<MomentEntry> cached = recent.latest(limit);
+        if (cached != null) {
+            return cached;
+        }
         try {
+            if (!recent.globalSeeded() && limit <= recent.globalCapacity()) {
+                long removals = recent.removals();
+                recent.seedGlobal(storage.loadRecentMoments(recent.globalCapacity()), removals);
+                cached = recent.latest(limit);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             return storage.loadRecentMoments(limit);
         } catch (SQLException e) {
             plugin.getLogger().warning("Could not load recent moments: " + e.getMessage());
@@ -127,6 +211,10 @@ public class MomentService {
     }
 
     public List<MomentEntry> getMomentsSince(long sinceMillis, int limit) {
+        List<MomentEntry> cached = recent.since(sinceMillis, limit);
+        if (cached != null) {
+            return cached;
+        }
         try {
             return storage.loadMomentsSince(sinceMillis, limit);
         } catch (SQLException e) {
@@ -135,8 +223,26 @@ public class MomentService {
         }
     }
 
+    /**
+     * Moments matching the filters, newest first. Unfiltered per-player queries are answered from
+     * that player's recent ring, which is seeded from storage on first use.
+     */
     public List<MomentEntry> queryMoments(java.util.UUID playerId, String type, long sinceMillis, int limit) {
+        boolean ringable = playerId != null && (type == null || type.isBlank());
         try {
+            if (ringable) {
+                List<MomentEntry> cached = recent.latestFor(playerId, sinceMillis, limit);
+                if (cached != null) {
+                    return cached;
+                }
+                if (!recent.playerSeeded(playerId)) {
+                    seedPlayer(playerId);
+                    cached = recent.latestFor(playerId, sinceMillis, limit);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+            }
             return storage.queryMoments(playerId, type, sinceMillis, limit);
         } catch (SQLException e) {
             plugin.getLogger().warning("Could not query moments: " + e.getMessage());
@@ -144,6 +250,15 @@ public class MomentService {
         }
     }
 
+    public MomentPage queryMomentPage(java.util.UUID playerId, String type, long sinceMillis, MomentPage.Cursor after, int limit) {
+        try {
+            return storage.queryMomentPage(playerId, type, sinceMillis, after, limit);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not query moments: " + e.getMessage());
+            return new MomentPage(List.of(), null);
+        }
+    }
+
     private void flushStale() {
         long now = System.currentTimeMillis();
         for (Map.Entry<Key, ActiveWindow> entry : windows.entrySet()) {
@@ -175,13 +290,79 @@ public class MomentService {
     }
 
     private void saveMoment(MomentEntry entry) {
-        try {
-            storage.saveMoment(entry);
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Could not save moment: " + e.getMessage());
+        markFirstOnly(entry.getPlayerId(), dispatch.firstOnlyBit(entry.getType()));
+        synchronized (pendingMoments) {
+            pendingMoments.add(entry);
+            recent.add(entry);
+        }
+    }
+
+    /**
+     * Writes every queued moment in one transaction, then hands the stored copies to the listeners.
+     * Runs on the write timer and once more on shutdown. A failed write leaves the moments queued
+     * for the next run; after {@link #MAX_WRITE_ATTEMPTS} failures in a row they are dropped.
+     */
+    void writePending() {
+        synchronized (writeLock) {
+            List<MomentEntry> batch;
+            synchronized (pendingMoments) {
+                if (pendingMoments.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pendingMoments);
+            }
+            List<MomentEntry> saved;
+            try {
+                saved = storage.saveMoments(batch);
+                failedWrites = 0;
+            } catch (SQLException e) {
+                if (++failedWrites < MAX_WRITE_ATTEMPTS) {
+                    plugin.getLogger().warning("Could not save moments, retrying: " + e.getMessage());
+                    return;
+                }
+                plugin.getLogger().warning("Could not save moments, dropping " + batch.size() + ": " + e.getMessage());
+                failedWrites = 0;
+                saved = null;
+            }
+            synchronized (pendingMoments) {
+                // Only this method removes entries and new ones are appended, so the batch is the head
+                pendingMoments.subList(0, batch.size()).clear();
+                if (saved != null) {
+                    recent.stored(batch, saved);
+                } else {
+                    recent.discard(batch);
+                }
+            }
+            if (saved == null) {
+                // The dropped moments were never stored, so their first-only definitions may fire again
+                for (MomentEntry entry : batch) {
+                    unmarkFirstOnly(entry.getPlayerId(), dispatch.firstOnlyBit(entry.getType()));
+                }
+                return;
+            }
+            for (MomentEntry entry : saved) {
+                for (Consumer<MomentEntry> listener : listeners) {
+                    try {
+                        listener.accept(entry);
+                    } catch (RuntimeException e) {
+                        plugin.getLogger().warning("Moment listener failed: " + e.getMessage());
+                    }
+                }
+            }
         }
     }
 
+    private void seedPlayer(UUID playerId) throws SQLException {
+        synchronized (pendingMoments) {
+            List<MomentEntry> queued = pendingMoments.stream()
+                    .filter(entry -> entry.getPlayerId().equals(playerId))
+                    .toList();
+            recent.trackPlayer(playerId, queued);
+        }
+        long removals = recent.removals();
+        recent.seedPlayer(playerId, storage.queryMoments(playerId, null, 0, recent.playerCapacity()), removals);
+    }
+
     private void handleWindow(UUID playerId, MomentDefinition def, Location location) {
         long now = System.currentTimeMillis();
         Key key = new Key(playerId, def.getId());
@@ -198,14 +379,109 @@ public class MomentService {
     }
 
     private void handleFirstOnly(Player player, MomentDefinition def, Location location) {
-        try {
-            if (def.isFirstOnly() && storage.hasMoment(player.getUniqueId(), def.getId())) {
-                return;
+        if (!def.isFirstOnly()) {
+            emitInstant(player, def, location, Map.of());
+            return;
+        }
+        UUID playerId = player.getUniqueId();
+        if (firstOnlyEmitted.containsKey(playerId)) {
+            if (markFirstOnly(playerId, dispatch.firstOnlyBit(def.getId()))) {
+                emitInstant(player, def, location, Map.of());
             }
+            return;
+        }
+        // Not preloaded (e.g. right after a reload): decide off the main thread instead of querying here
+        firstOnlyPlayers.add(playerId);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            loadFirstOnly(playerId);
+            if (firstOnlyEmitted.containsKey(playerId)) {
+                if (markFirstOnly(playerId, dispatch.firstOnlyBit(def.getId()))) {
+                    emitInstant(player, def, location, Map.of());
+                }
+            } else if (!hasStoredMoment(playerId, def.getId())) {
+                // Nothing cached because the load failed or the player left: storage decides alone
+                emitInstant(player, def, location, Map.of());
+            }
+        });
+    }
+
+    /**
+     * Asks storage whether the player already has a moment of this type. A failed check counts as
+     * "no", so a broken database cannot silently swallow moments.
+     */
+    private boolean hasStoredMoment(UUID playerId, String type) {
+        try {
+            return storage.hasMoment(playerId, type);
         } catch (SQLException e) {
             plugin.getLogger().warning("Moment duplicate check failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the player's first-only moments from storage and merges them into the cache. Skipped
+     * if the settings were reloaded meanwhile, since the bits would then refer to the old table,
+     * and if the player left meanwhile, since nothing would remove the entry again.
+     */
+    void loadFirstOnly(UUID playerId) {
+        MomentDispatchTable table = dispatch;
+        BitSet stored;
+        try {
+            stored = table.firstOnlyBits(storage.loadMomentTypes(playerId));
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load first-only moments: " + e.getMessage());
+            return;
+        }
+        firstOnlyEmitted.compute(playerId, (id, cached) -> {
+            // forgetPlayer updates the set before the map, so a quit is never missed here
+            if (table != dispatch || !firstOnlyPlayers.contains(id)) {
+                return cached;
+            }
+            if (cached == null) {
+                return stored;
+            }
+            BitSet merged = (BitSet) cached.clone();
+            merged.or(stored);
+            return merged;
+        });
+    }
+
+    /**
+     * Sets a first-only bit for a loaded player. Returns true only for the call that actually set it,
+     * which is the one allowed to emit the moment.
+     */
+    private boolean markFirstOnly(UUID playerId, int bit) {
+        if (bit < 0) {
+            return false;
         }
-        emitInstant(player, def, location, Map.of());
+        boolean[] marked = {false};
+        firstOnlyEmitted.computeIfPresent(playerId, (id, bits) -> {
+            if (bits.get(bit)) {
+                return bits;
+            }
+            BitSet updated = (BitSet) bits.clone();
+            updated.set(bit);
+            marked[0] = true;
+            return updated;
+        });
+        return marked[0];
+    }
+
+    /**
+     * Clears a first-only bit set by {@link #markFirstOnly} whose moment was never stored.
+     */
+    private void unmarkFirstOnly(UUID playerId, int bit) {
+        if (bit < 0) {
+            return;
+        }
+        firstOnlyEmitted.computeIfPresent(playerId, (id, bits) -> {
+            if (!bits.get(bit)) {
+                return bits;
+            }
+            BitSet updated = (BitSet) bits.clone();
+            updated.clear(bit);
+            return updated;
+        });
     }
 
     private void emitInstant(Player player, MomentDefinition def, Location location, Map<String, Object> payload) {
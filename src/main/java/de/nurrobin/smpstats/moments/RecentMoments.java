@@ -0,0 +1,308 @@
+package de.nurrobin.smpstats.moments;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The newest moments kept in memory, overall and per player, newest first like the storage queries.
+ * A ring answers a query only once it has been seeded from storage and only if it provably holds every
+ * row the query would return; otherwise the lookup returns {@code null} and the caller reads SQLite.
+ * Moments are added when they are queued, so readers see them before they reach the database.
+ */
+final class RecentMoments {
+    private final Ring global;
+    private final int playerCapacity;
+    private final Map<UUID, Ring> players;
+    // Counts removeStored calls so a seed read before a deletion is not merged after it
+    private long removals;
+
+    RecentMoments(int globalCapacity, int playerCapacity, int maxPlayers) {
+        this.global = new Ring(globalCapacity);
+        this.playerCapacity = playerCapacity;
+        // Least recently used players are dropped first; their history is still in the database
+        this.players = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Ring> eldest) {
+                return size() > maxPlayers;
+            }
+        };
+    }
+
+    synchronized void add(MomentEntry entry) {
+        global.add(entry);
+        Ring ring = players.get(entry.getPlayerId());
+        if (ring != null) {
+            ring.add(entry);
+        }
+    }
+
+    /**
+     * Swaps queued moments for their stored copies, which carry the database id.
+     */
+    synchronized void stored(List<MomentEntry> queued, List<MomentEntry> saved) {
+        for (int i = 0; i < queued.size() && i < saved.size(); i++) {
+            MomentEntry entry = queued.get(i);
+            global.replace(entry, saved.get(i));
+            Ring ring = players.get(entry.getPlayerId());
+            if (ring != null) {
+                ring.replace(entry, saved.get(i));
+            }
+        }
+    }
+
+    /**
+     * Drops queued moments that could not be written.
+     */
+    synchronized void discard(List<MomentEntry> queued) {
+        for (MomentEntry entry : queued) {
+            global.remove(entry);
+            Ring ring = players.get(entry.getPlayerId());
+            if (ring != null) {
+                ring.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Drops stored moments that were deleted from the database. The rings stay seeded: what is left
+     * are still the newest stored rows.
+     */
+    synchronized void removeStored(Set<Long> ids) {
+        removals++;
+        global.removeIds(ids);
+        for (Ring ring : players.values()) {
+            ring.removeIds(ids);
+        }
+    }
+
+    /**
+     * Read before a storage query whose result is passed to {@link #seedGlobal} or {@link #seedPlayer}.
+     */
+    synchronized long removals() {
+        return removals;
+    }
+
+    int globalCapacity() {
+        return global.capacity;
+    }
+
+    int playerCapacity() {
+        return playerCapacity;
+    }
+
+    synchronized boolean globalSeeded() {
+        return global.seeded;
+    }
+
+    /**
+     * Merges the newest stored moments into the global ring, unless rows were deleted since they were read.
+     *
+     * @param stored       at most {@link #globalCapacity()} rows, newest first
+     * @param removalsSeen {@link #removals()} from before the rows were read
+     */
+    synchronized void seedGlobal(List<MomentEntry> stored, long removalsSeen) {
+        if (removalsSeen == removals) {
+            global.seed(stored);
+        }
+    }
+
+    synchronized boolean playerSeeded(UUID playerId) {
+        Ring ring = players.get(playerId);
+        return ring != null && ring.seeded;
+    }
+
+    /**
+     * Starts tracking a player so moments queued from now on reach their ring. {@code queued} are the
+     * player's moments that are queued but may not be stored yet; the database read that follows
+     * cannot see them.
+     */
+    synchronized void trackPlayer(UUID playerId, List<MomentEntry> queued) {
+        Ring ring = players.computeIfAbsent(playerId, id -> new Ring(playerCapacity));
+        queued.forEach(ring::add);
+    }
+
+    /**
+     * Merges the player's newest stored moments into the ring started by {@link #trackPlayer},
+     * unless rows were deleted since they were read.
+     *
+     * @param stored       at most {@link #playerCapacity()} rows, newest first
+     * @param removalsSeen {@link #removals()} from before the rows were read
+     */
+    synchronized void seedPlayer(UUID playerId, List<MomentEntry> stored, long removalsSeen) {
+        Ring ring = players.get(playerId);
+        if (ring != null && removalsSeen == removals) {
+            ring.seed(stored);
+        }
+    }
+
+    /**
+     * Drops the player's ring; their next query seeds a new one.
+     */
+    synchronized void forgetPlayer(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    /**
+     * The newest {@code limit} moments, or {@code null} if the global ring cannot tell.
+     */
+    synchronized List<MomentEntry> latest(int limit) {
+        if (limit <= 0 || !global.seeded || (!global.complete() && limit > global.entries.size())) {
+            return null;
+        }
+        return List.copyOf(global.entries.subList(0, Math.min(limit, global.entries.size())));
+    }
+
+    /**
+     * Up to {@code limit} moments started at or after {@code sinceMillis}, oldest first, or {@code null}
+     * if the global ring may be missing some of them.
+     */
+    synchronized List<MomentEntry> since(long sinceMillis, int limit) {
+        if (limit <= 0 || !global.covers(sinceMillis)) {
+            return null;
+        }
+        List<MomentEntry> result = new ArrayList<>();
+        for (int i = global.entries.size() - 1; i >= 0 && result.size() < limit; i--) {
+            MomentEntry entry = global.entries.get(i);
+            if (entry.getStartedAt() >= sinceMillis) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The player's newest moments started at or after {@code sinceMillis} (0 for no bound), or
+     * {@code null} if their ring cannot tell. A {@code limit} of 0 or less asks for all of them.
+     */
+    synchronized List<MomentEntry> latestFor(UUID playerId, long sinceMillis, int limit) {
+        Ring ring = players.get(playerId);
+        if (ring == null || !ring.seeded) {
+            return null;
+        }
+        List<MomentEntry> result = new ArrayList<>();
+        for (MomentEntry entry : ring.entries) {
+            if (entry.getStartedAt() >= sinceMillis) {
+                result.add(entry);
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+        // Ran out of entries before the limit: only an answer if nothing older can match
+        return ring.covers(sinceMillis) ? result : null;
+    }
+
+    /**
+     * Newest-first moments capped at a fixed size. Once anything has been evicted or dropped the ring
+     * no longer holds everything, only the newest {@code capacity} moments.
+     */
+    private static final class Ring {
+        private final int capacity;
+        private final List<MomentEntry> entries = new ArrayList<>();
+        private boolean seeded;
+        private boolean storedAll;
+        private boolean evicted;
+
+        Ring(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean complete() {
+            return storedAll && !evicted;
+        }
+
+        /**
+         * Whether every moment started at or after {@code sinceMillis} is in the ring.
+         */
+        boolean covers(long sinceMillis) {
+            if (!seeded) {
+                return false;
+            }
+            return complete() || (!entries.isEmpty() && entries.get(entries.size() - 1).getStartedAt() < sinceMillis);
+        }
+
+        void seed(List<MomentEntry> stored) {
+            Set<Long> known = new HashSet<>();
+            for (MomentEntry entry : entries) {
+                if (entry.getId() != null) {
+                    known.add(entry.getId());
+                }
+            }
+            for (MomentEntry entry : stored) {
+                if (entry.getId() == null || !known.contains(entry.getId())) {
+                    add(entry);
+                }
+            }
+            storedAll = stored.size() < capacity;
+            seeded = true;
+        }
+
+        void add(MomentEntry entry) {
+            int index = insertionPoint(entry.getStartedAt());
+            if (index >= capacity) {
+                evicted = true;
+                return;
+            }
+            entries.add(index, entry);
+            if (entries.size() > capacity) {
+                entries.remove(entries.size() - 1);
+                evicted = true;
+            }
+        }
+
+        void replace(MomentEntry queued, MomentEntry saved) {
+            int index = indexOf(queued);
+            if (index < 0) {
+                return;
+            }
+            // A seed that read the stored row may already have added it
+            boolean present = saved.getId() != null
+                    && entries.stream().anyMatch(e -> saved.getId().equals(e.getId()));
+            if (present) {
+                entries.remove(index);
+            } else {
+                entries.set(index, saved);
+            }
+        }
+
+        void remove(MomentEntry queued) {
+            int index = indexOf(queued);
+            if (index >= 0) {
+                entries.remove(index);
+            }
+        }
+
+        void removeIds(Set<Long> ids) {
+            entries.removeIf(entry -> entry.getId() != null && ids.contains(entry.getId()));
+        }
+
+        private int indexOf(MomentEntry entry) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i) == entry) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // First position whose moment started before startedAt; equal start times keep arrival order
+        private int insertionPoint(long startedAt) {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entries.get(mid).getStartedAt() >= startedAt) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
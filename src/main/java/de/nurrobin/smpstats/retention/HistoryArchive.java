@@ -0,0 +1,54 @@
+package de.nurrobin.smpstats.retention;
+
+import com.google.gson.Gson;
+import de.nurrobin.smpstats.database.HistoryTable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends pruned history rows to one gzip-compressed NDJSON file per table and day. Every append
+ * writes a complete gzip member, so the files stay readable by {@code zcat} and
+ * {@link java.util.zip.GZIPInputStream} even if the server stops between two batches.
+ */
+class HistoryArchive {
+    private final Path directory;
+    private final Gson gson = new Gson();
+
+    HistoryArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    Path fileFor(HistoryTable table, LocalDate day) {
+        return directory.resolve(table.table() + "-" + day + ".ndjson.gz");
+    }
+
+    /**
+     * Writes one line per row, {@code {"id": <id>, "row": {...}}}, and returns the file written to.
+     */
+    Path append(HistoryTable table, Map<Long, Object> rows, LocalDate day) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileFor(table, day);
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8))) {
+            for (Map.Entry<Long, Object> row : rows.entrySet()) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("id", row.getKey());
+                line.put("row", row.getValue());
+                writer.write(gson.toJson(line));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+}
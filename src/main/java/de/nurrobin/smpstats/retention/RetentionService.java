@@ -0,0 +1,145 @@
+package de.nurrobin.smpstats.retention;
+
+import de.nurrobin.smpstats.Settings;
+import de.nurrobin.smpstats.database.HistoryTable;
+import de.nurrobin.smpstats.database.StatsStorage;
+import de.nurrobin.smpstats.moments.MomentService;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trims the moments and death_replays tables to their configured retention limits in the background.
+ * Rows are deleted in small batches, each in its own transaction, so writers are never blocked for
+ * long; with archiving on, every batch is appended to a gzip NDJSON file before it is deleted.
+ * Old hourly timeline buckets are merged into daily rows the same way, one day per transaction.
+ */
+public class RetentionService {
+    // The first pass waits for startup to settle
+    private static final long INITIAL_DELAY_TICKS = 60 * 20L;
+
+    private final Plugin plugin;
+    private final StatsStorage storage;
+    private final HistoryArchive archive;
+    // Told about pruned moments so its recent rings stop serving them; null when moments are not tracked
+    private final MomentService momentService;
+    private Settings settings;
+    private int taskId = -1;
+
+    public RetentionService(Plugin plugin, StatsStorage storage, Settings settings) {
+        this(plugin, storage, settings, null);
+    }
+
+    public RetentionService(Plugin plugin, StatsStorage storage, Settings settings, MomentService momentService) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.settings = settings;
+        this.momentService = momentService;
+        this.archive = new HistoryArchive(plugin.getDataFolder().toPath().resolve("archive"));
+    }
+
+    public void updateSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void start() {
+        Settings.RetentionSettings retention = settings.getRetentionSettings();
+        if (!retention.enabled() || (!retention.moments().isActive() && !retention.deathReplays().isActive()
+                && retention.timelineHourlyDays() <= 0)) {
+            return;
+        }
+        long periodTicks = retention.intervalMinutes() * 60 * 20L;
+        taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::prune, INITIAL_DELAY_TICKS, periodTicks).getTaskId();
+    }
+
+    public void shutdown() {
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    /**
+     * Runs one pruning pass over both tables and the hourly timeline.
+     */
+    synchronized void prune() {
+        Settings.RetentionSettings retention = settings.getRetentionSettings();
+        pruneTable(HistoryTable.MOMENTS, retention.moments(), retention);
+        pruneTable(HistoryTable.DEATH_REPLAYS, retention.deathReplays(), retention);
+        downsampleTimelineHourly(retention);
+    }
+
+    /**
+     * Merges hourly timeline buckets older than the configured number of days into daily rows.
+     *
+     * @return the number of merged days
+     */
+    int downsampleTimelineHourly(Settings.RetentionSettings retention) {
+        if (retention.timelineHourlyDays() <= 0) {
+            return 0;
+        }
+        long beforeHour = System.currentTimeMillis() / TimeUnit.HOURS.toMillis(1)
+                - TimeUnit.DAYS.toHours(retention.timelineHourlyDays());
+        int days = 0;
+        try {
+            while (storage.downsampleTimelineHourly(beforeHour)) {
+                days++;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not downsample timeline_hourly: " + e.getMessage());
+        }
+        if (days > 0) {
+            plugin.getLogger().info("Merged " + days + " days of hourly timeline buckets into daily rows.");
+        }
+        return days;
+    }
+
+    /**
+     * Deletes batches of rows that break the policy until none are left.
+     *
+     * @return the number of deleted rows
+     */
+    int pruneTable(HistoryTable table, Settings.RetentionPolicy policy, Settings.RetentionSettings retention) {
+        if (!policy.isActive()) {
+            return 0;
+        }
+        long olderThan = policy.maxAgeDays() > 0
+                ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(policy.maxAgeDays())
+                : 0;
+        int batchSize = retention.batchSize();
+        int total = 0;
+        try {
+            while (true) {
+                List<Long> ids = storage.findPrunableIds(table, olderThan, policy.maxRows(), policy.maxRowsPerPlayer(), batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                if (retention.archive()) {
+                    archive.append(table, storage.loadHistoryRows(table, ids), LocalDate.now());
+                }
+                int deleted = storage.deleteHistoryRows(table, ids);
+                if (table == HistoryTable.MOMENTS && momentService != null) {
+                    momentService.forgetStoredMoments(ids);
+                }
+                total += deleted;
+                if (deleted == 0 || ids.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not prune " + table.table() + ": " + e.getMessage());
+        } catch (IOException e) {
+            // Nothing of the failed batch was deleted, so no row is lost; the next pass retries
+            plugin.getLogger().warning("Could not archive " + table.table() + ", pruning skipped: " + e.getMessage());
+        }
+        if (total > 0) {
+            plugin.getLogger().info("Pruned " + total + " rows from " + table.table() + ".");
+        }
+        return total;
+    }
+}
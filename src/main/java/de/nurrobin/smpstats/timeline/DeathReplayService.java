@@ -2,9 +2,12 @@ package de.nurrobin.smpstats.timeline;
 
 import de.nurrobin.smpstats.Settings;
 import de.nurrobin.smpstats.database.StatsStorage;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -15,12 +18,24 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.UUID;
 
 public class DeathReplayService {
+    // Captured deaths are turned into replays and written in one transaction about once a second
+    private static final long WRITE_PERIOD_TICKS = 20L;
+    // Bounds the entity lookup on the main thread; a wide radius touches many chunks
+    private static final int MAX_NEARBY_RADIUS = 32;
+    private static final int MAX_NEARBY_ENTITIES = 32;
+    // Deaths waiting for the writer; the oldest are dropped if storage cannot keep up
+    private static final int MAX_PENDING = 256;
+
     private final Plugin plugin;
     private final StatsStorage storage;
     private Settings settings;
     private final Deque<DeathReplayEntry> buffer = new ArrayDeque<>();
+    private final Deque<DeathSnapshot> pending = new ArrayDeque<>();
+    private final Object writeLock = new Object();
+    private int writeTaskId = -1;
 
     public DeathReplayService(Plugin plugin, StatsStorage storage, Settings settings) {
         this.plugin = plugin;
@@ -33,44 +48,65 @@ public class DeathReplayService {
     }
 
     public void start() {
-        // no scheduler needed
+        if (!settings.isDeathReplayEnabled()) {
+            return;
+        }
+        writeTaskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::writePending, WRITE_PERIOD_TICKS, WRITE_PERIOD_TICKS).getTaskId();
     }
 
     public void shutdown() {
-        // nothing to stop
+        if (writeTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(writeTaskId);
+            writeTaskId = -1;
+        }
+        writePending();
     }
 
+    /**
+     * Copies what the replay needs out of the dying player and its surroundings. Runs on the main
+     * thread, so only primitives, names and enum constants are taken; formatting and the database
+     * write happen in {@link #writePending()}.
+     */
     public void capture(Player player, String cause, double fallDistance) {
         if (!settings.isDeathReplayEnabled()) {
             return;
         }
         Location loc = player.getLocation();
+        UUID playerId = player.getUniqueId();
         List<String> nearbyPlayers = new ArrayList<>();
-        List<String> nearbyMobs = new ArrayList<>();
-        int radius = settings.getDeathReplayNearbyRadius();
+        List<EntityType> nearbyMobs = new ArrayList<>();
+        int radius = Math.min(settings.getDeathReplayNearbyRadius(), MAX_NEARBY_RADIUS);
         World world = player.getWorld();
         for (Entity e : world.getNearbyEntities(loc, radius, radius, radius)) {
+            if (nearbyPlayers.size() + nearbyMobs.size() >= MAX_NEARBY_ENTITIES) {
+                break;
+            }
             if (e instanceof Player p) {
-                if (!p.getUniqueId().equals(player.getUniqueId())) {
+                if (!p.getUniqueId().equals(playerId)) {
                     nearbyPlayers.add(p.getName());
                 }
             } else if (e instanceof LivingEntity living) {
-                nearbyMobs.add(living.getType().name());
+                nearbyMobs.add(living.getType());
             }
         }
 
-        List<String> inventory = new ArrayList<>();
+        Material[] itemTypes = null;
+        int[] itemAmounts = null;
         if (settings.isDeathReplayInventoryItems()) {
-            for (ItemStack stack : player.getInventory().getContents()) {
-                if (stack != null) {
-                    inventory.add(stack.getType().name() + "x" + stack.getAmount());
+            ItemStack[] contents = player.getInventory().getContents();
+            itemTypes = new Material[contents.length];
+            itemAmounts = new int[contents.length];
+            for (int i = 0; i < contents.length; i++) {
+                if (contents[i] != null) {
+                    itemTypes[i] = contents[i].getType();
+                    itemAmounts[i] = contents[i].getAmount();
                 }
             }
         }
 
-        DeathReplayEntry entry = new DeathReplayEntry(
+        DeathSnapshot snapshot = new DeathSnapshot(
                 System.currentTimeMillis(),
-                player.getUniqueId().toString(),
+                playerId,
                 player.getName(),
                 cause,
                 player.getHealth(),
@@ -81,20 +117,92 @@ public class DeathReplayService {
                 fallDistance,
                 nearbyPlayers,
                 nearbyMobs,
-                inventory
+                itemTypes,
+                itemAmounts
         );
-        buffer.addFirst(entry);
-        while (buffer.size() > settings.getDeathReplayLimit()) {
-            buffer.removeLast();
+        synchronized (pending) {
+            pending.addLast(snapshot);
+            while (pending.size() > MAX_PENDING) {
+                pending.removeFirst();
+            }
         }
-        try {
-            storage.saveDeathReplay(entry);
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Could not save death replay: " + e.getMessage());
+    }
+
+    /**
+     * Builds replays from the captured deaths and writes them in one transaction.
+     * Runs on the write timer and once more on shutdown.
+     */
+    void writePending() {
+        synchronized (writeLock) {
+            List<DeathSnapshot> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            List<DeathReplayEntry> entries = new ArrayList<>(batch.size());
+            for (DeathSnapshot snapshot : batch) {
+                entries.add(snapshot.toEntry());
+            }
+            int limit = settings.getDeathReplayLimit();
+            synchronized (buffer) {
+                for (DeathReplayEntry entry : entries) {
+                    buffer.addFirst(entry);
+                }
+                while (buffer.size() > limit) {
+                    buffer.removeLast();
+                }
+            }
+            try {
+                storage.saveDeathReplays(entries);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Could not save death replays: " + e.getMessage());
+            }
         }
     }
 
     public List<DeathReplayEntry> recent(int limit) {
-        return buffer.stream().limit(limit).toList();
+        synchronized (buffer) {
+            return buffer.stream().limit(limit).toList();
+        }
+    }
+
+    /**
+     * A death as seen on the main thread, before any strings are built.
+     */
+    private record DeathSnapshot(
+            long timestamp,
+            UUID uuid,
+            String name,
+            String cause,
+            double health,
+            String world,
+            int x,
+            int y,
+            int z,
+            double fallDistance,
+            List<String> nearbyPlayers,
+            List<EntityType> nearbyMobs,
+            Material[] itemTypes,
+            int[] itemAmounts
+    ) {
+        DeathReplayEntry toEntry() {
+            List<String> mobs = new ArrayList<>(nearbyMobs.size());
+            for (EntityType type : nearbyMobs) {
+                mobs.add(type.name());
+            }
+            List<String> inventory = new ArrayList<>();
+            if (itemTypes != null) {
+                for (int i = 0; i < itemTypes.length; i++) {
+                    if (itemTypes[i] != null) {
+                        inventory.add(itemTypes[i].name() + "x" + itemAmounts[i]);
+                    }
+                }
+            }
+            return new DeathReplayEntry(timestamp, uuid.toString(), name, cause, health, world, x, y, z, fallDistance,
+                    nearbyPlayers, mobs, inventory);
+        }
     }
 }
@@ -8,6 +8,7 @@ import org.bukkit.plugin.Plugin;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Optional;
 
 public class TimelineService {
     private final Plugin plugin;
@@ -24,13 +25,24 @@ public class TimelineService {
         this.settings = settings;
     }
 
-    public void snapshot(StatsRecord record) {
+    /**
+     * The day a snapshot taken now is stored under, or empty while the timeline is disabled.
+     * Autosave passes it to {@link StatsStorage#saveAll} to write the snapshots with the stats.
+     */
+    public Optional<LocalDate> snapshotDay() {
         if (!settings.isTimelineEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.of(LocalDate.now(ZoneId.systemDefault()));
+    }
+
+    public void snapshot(StatsRecord record) {
+        Optional<LocalDate> today = snapshotDay();
+        if (today.isEmpty()) {
             return;
         }
-        LocalDate today = LocalDate.now(ZoneId.systemDefault());
         try {
-            storage.upsertTimeline(record, today);
+            storage.upsertTimeline(record, today.get());
         } catch (SQLException e) {
             plugin.getLogger().warning("Could not upsert timeline for " + record.getName() + ": " + e.getMessage());
         }
@@ -7,6 +7,7 @@ class SMPStatsDashboard {
         this.config = null;
         this.isAdmin = false;
         this.refreshInterval = null;
+        this.liveEvents = null;
         
         this.init();
     }
@@ -17,7 +18,7 @@ class SMPStatsDashboard {
         this.setupEventListeners();
         this.setupNavigation();
         this.loadInitialData();
-        this.startAutoRefresh();
+        this.startLiveUpdates();
     }
     
     // ============== Configuration ==============
@@ -239,8 +240,21 @@ class SMPStatsDashboard {
         this.loadOverviewData();
     }
     
+    startLiveUpdates() {
+        if (!window.EventSource) {
+            this.startAutoRefresh();
+            return;
+        }
+        
+        // The server pushes joins/quits, new moments and recomputed totals; EventSource reconnects on its own
+        this.liveEvents = new EventSource('/api/public/live');
+        this.liveEvents.addEventListener('online', (e) => this.renderOnlinePlayers(JSON.parse(e.data)));
+        this.liveEvents.addEventListener('stats', (e) => this.renderServerStats(JSON.parse(e.data)));
+        this.liveEvents.addEventListener('moment', (e) => this.prependMoment(JSON.parse(e.data)));
+    }
+    
     startAutoRefresh() {
-        // Refresh data every 30 seconds
+        // Fallback for browsers without EventSource: refresh data every 30 seconds
         this.refreshInterval = setInterval(() => {
             const activeSection = document.querySelector('.section.active');
             if (activeSection?.id === 'overview-section') {
@@ -261,46 +275,50 @@ class SMPStatsDashboard {
         
         try {
             const response = await fetch('/api/public/online');
-            const data = await response.json();
-            
-            document.getElementById('online-count').textContent = data.count;
-            
-            const listEl = document.getElementById('online-players-list');
-            if (data.players.length === 0) {
-                listEl.innerHTML = '<p class="placeholder">No players online</p>';
-            } else {
-                listEl.innerHTML = data.players
-                    .map(name => `<span class="player-tag">${this.escapeHtml(name)}</span>`)
-                    .join('');
-            }
+            this.renderOnlinePlayers(await response.json());
         } catch (error) {
             console.error('Failed to load online players:', error);
         }
     }
     
+    renderOnlinePlayers(data) {
+        document.getElementById('online-count').textContent = data.count;
+        
+        const listEl = document.getElementById('online-players-list');
+        if (data.players.length === 0) {
+            listEl.innerHTML = '<p class="placeholder">No players online</p>';
+        } else {
+            listEl.innerHTML = data.players
+                .map(name => `<span class="player-tag">${this.escapeHtml(name)}</span>`)
+                .join('');
+        }
+    }
+    
     async loadServerStats() {
         if (!this.config?.showServerStats) return;
         
         try {
             const response = await fetch('/api/public/stats');
-            const data = await response.json();
-            
-            document.getElementById('total-playtime').textContent = this.formatHours(data.totalPlaytimeHours);
-            document.getElementById('total-deaths').textContent = this.formatNumber(data.totalDeaths);
-            document.getElementById('total-kills').textContent = this.formatNumber(data.totalPlayerKills + data.totalMobKills);
-            document.getElementById('total-players').textContent = this.formatNumber(data.totalPlayers);
-            document.getElementById('blocks-broken').textContent = this.formatNumber(data.totalBlocksBroken);
-            document.getElementById('blocks-placed').textContent = this.formatNumber(data.totalBlocksPlaced);
-            document.getElementById('distance-traveled').textContent = `${this.formatNumber(Math.round(data.totalDistanceKm))} km`;
-            document.getElementById('biomes-discovered').textContent = this.formatNumber(data.uniqueBiomesDiscovered);
-            
-            // Update biomes list
-            this.updateBiomesList(data.biomesList || []);
+            this.renderServerStats(await response.json());
         } catch (error) {
             console.error('Failed to load server stats:', error);
         }
     }
     
+    renderServerStats(data) {
+        document.getElementById('total-playtime').textContent = this.formatHours(data.totalPlaytimeHours);
+        document.getElementById('total-deaths').textContent = this.formatNumber(data.totalDeaths);
+        document.getElementById('total-kills').textContent = this.formatNumber(data.totalPlayerKills + data.totalMobKills);
+        document.getElementById('total-players').textContent = this.formatNumber(data.totalPlayers);
+        document.getElementById('blocks-broken').textContent = this.formatNumber(data.totalBlocksBroken);
+        document.getElementById('blocks-placed').textContent = this.formatNumber(data.totalBlocksPlaced);
+        document.getElementById('distance-traveled').textContent = `${this.formatNumber(Math.round(data.totalDistanceKm))} km`;
+        document.getElementById('biomes-discovered').textContent = this.formatNumber(data.uniqueBiomesDiscovered);
+        
+        // Update biomes list
+        this.updateBiomesList(data.biomesList || []);
+    }
+    
     updateBiomesList(biomes) {
         const listEl = document.getElementById('biomes-list');
         if (!listEl) return;
@@ -376,21 +394,38 @@ class SMPStatsDashboard {
                 return;
             }
             
-            container.innerHTML = data.moments.map(moment => `
-                <div class="moment-card">
-                    <div class="moment-title">${this.escapeHtml(moment.title)}</div>
-                    <div class="moment-detail">${this.escapeHtml(moment.detail)}</div>
-                    <div class="moment-meta">
-                        <span>${moment.world} (${moment.x}, ${moment.y}, ${moment.z})</span>
-                        <span>${this.formatTimestamp(moment.endedAt)}</span>
-                    </div>
-                </div>
-            `).join('');
+            container.innerHTML = data.moments.map(moment => this.momentCard(moment)).join('');
         } catch (error) {
             console.error('Failed to load moments:', error);
         }
     }
     
+    prependMoment(moment) {
+        const container = document.getElementById('moments-list');
+        if (!container) return;
+        
+        container.querySelector('.placeholder')?.remove();
+        container.insertAdjacentHTML('afterbegin', this.momentCard(moment));
+        
+        const limit = Number(document.getElementById('moments-limit')?.value || 20);
+        while (container.children.length > limit) {
+            container.lastElementChild.remove();
+        }
+    }
+    
+    momentCard(moment) {
+        return `
+            <div class="moment-card">
+                <div class="moment-title">${this.escapeHtml(moment.title)}</div>
+                <div class="moment-detail">${this.escapeHtml(moment.detail)}</div>
+                <div class="moment-meta">
+                    <span>${moment.world} (${moment.x}, ${moment.y}, ${moment.z})</span>
+                    <span>${this.formatTimestamp(moment.endedAt)}</span>
+                </div>
+            </div>
+        `;
+    }
+    
     // ============== Admin Data Loading ==============
     
     loadAdminData() {
@@ -0,0 +1,26 @@
+package de.nurrobin.smpstats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlushMetricsTest {
+
+    @Test
+    void tracksAverageMaximumAndLastFlush() {
+        FlushMetrics metrics = new FlushMetrics();
+        assertTrue(metrics.snapshot().isEmpty());
+
+        metrics.record(150, 40, 30_000_000L);
+        metrics.record(2, 0, 10_000_000L);
+
+        FlushMetrics.Snapshot snapshot = metrics.snapshot().orElseThrow();
+        assertEquals(2, snapshot.flushes());
+        assertEquals(20.0, snapshot.averageMillis(), 1e-9);
+        assertEquals(30.0, snapshot.maxMillis(), 1e-9);
+        assertEquals(2, snapshot.last().players());
+        assertEquals(0, snapshot.last().changed());
+        assertEquals(10.0, snapshot.last().millis(), 1e-9);
+    }
+}
@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SMPStatsConfigTest {
@@ -61,7 +62,15 @@ class SMPStatsConfigTest {
                 """);
 
         SMPStats plugin = MockBukkit.load(SMPStats.class);
-        assertEquals(7, plugin.getConfig().getInt("config_version"));
+        assertEquals(13, plugin.getConfig().getInt("config_version"));
+        assertEquals(64, plugin.getConfig().getInt("http.max_concurrent_requests"));
+        assertEquals(4, plugin.getSettings().getHttpSettings().endpointLimits().get("/stats/all"));
+        assertEquals(32, plugin.getSettings().getHttpSettings().maxStreamSubscribers());
+        assertEquals(30, plugin.getSettings().getHttpSettings().rateLimits().heavyBurst());
+        assertEquals(500, plugin.getSettings().getRetentionSettings().batchSize());
+        assertFalse(plugin.getSettings().getRetentionSettings().moments().isActive());
+        assertEquals(50, plugin.getSettings().getRetentionSettings().deathReplays().maxRows());
+        assertEquals(14, plugin.getSettings().getRetentionSettings().timelineHourlyDays());
 
         assertTrue(plugin.getSettings().isHeatmapEnabled());
         assertTrue(plugin.getTimelineService().isPresent());
@@ -0,0 +1,71 @@
+package de.nurrobin.smpstats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ServerTotalsTest {
+
+    @Test
+    void addsNewPlayersAndReplacesExistingContributions() {
+        ServerTotals totals = new ServerTotals();
+        StatsRecord before = record(100, 1, 10, 5.0, "minecraft:plains", "minecraft:desert");
+        totals.apply(null, before);
+        totals.apply(null, record(50, 2, 20, 1.5, "minecraft:plains"));
+
+        StatsRecord after = record(300, 4, 10, 5.0, "minecraft:plains");
+        totals.apply(before, after);
+
+        assertEquals(2, totals.getPlayers());
+        assertEquals(350, totals.getPlaytimeMillis());
+        assertEquals(6, totals.getDeaths());
+        assertEquals(30, totals.getBlocksBroken());
+        assertEquals(6.5, totals.getDistance(), 0.0001);
+        // The desert is dropped once nobody has it anymore, the shared plains stay
+        assertEquals(List.of("minecraft:plains"), totals.getBiomes());
+    }
+
+    @Test
+    void keepsBiomeUnionAcrossPlayers() {
+        ServerTotals totals = new ServerTotals(2, 0, 0, 0, 0, 0, 0, 0,
+                Map.of("minecraft:plains", 2, "minecraft:taiga", 1));
+        StatsRecord before = record(0, 0, 0, 0, "minecraft:plains");
+
+        totals.apply(before, record(0, 0, 0, 0));
+        assertEquals(List.of("minecraft:plains", "minecraft:taiga"), totals.getBiomes());
+
+        totals.apply(record(0, 0, 0, 0, "minecraft:plains"), record(0, 0, 0, 0, "minecraft:beach"));
+        assertEquals(List.of("minecraft:beach", "minecraft:taiga"), totals.getBiomes());
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        ServerTotals totals = new ServerTotals();
+        totals.apply(null, record(10, 1, 0, 0, "minecraft:plains"));
+
+        ServerTotals copy = totals.copy();
+        copy.apply(null, record(10, 1, 0, 0, "minecraft:ocean"));
+
+        assertEquals(1, totals.getPlayers());
+        assertEquals(List.of("minecraft:plains"), totals.getBiomes());
+        assertEquals(2, copy.getPlayers());
+        assertEquals(2, copy.getDeaths());
+        assertEquals(List.of("minecraft:ocean", "minecraft:plains"), copy.getBiomes());
+    }
+
+    private static StatsRecord record(long playtime, long deaths, long blocksBroken, double distance, String... biomes) {
+        StatsRecord record = new StatsRecord(UUID.randomUUID(), "Player");
+        record.setPlaytimeMillis(playtime);
+        record.setDeaths(deaths);
+        record.setBlocksBroken(blocksBroken);
+        record.setDistanceOverworld(distance);
+        record.setBiomesVisited(new LinkedHashSet<>(Set.of(biomes)));
+        return record;
+    }
+}
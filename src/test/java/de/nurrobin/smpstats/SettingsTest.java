@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SettingsTest {
@@ -41,6 +42,9 @@ class SettingsTest {
                 dashboardSettings, true);
 
         assertTrue(settings.isGuiAnimatedBordersEnabled());
+        // Settings built without explicit limits fall back to the defaults
+        assertEquals(Settings.HttpSettings.defaults(), settings.getHttpSettings());
+        assertEquals(Settings.RetentionSettings.defaults(), settings.getRetentionSettings());
 
         assertTrue(settings.isTrackMovement());
         assertTrue(settings.isTrackBlocks());
@@ -102,6 +106,28 @@ class SettingsTest {
         assertTrue(defaults.adminSettings().enabled());
     }
     
+    @Test
+    void httpSettingsDefaults() {
+        Settings.HttpSettings defaults = Settings.HttpSettings.defaults();
+        assertEquals(64, defaults.maxConcurrentRequests());
+        assertEquals(16, defaults.maxRequestsPerEndpoint());
+        assertEquals(4, defaults.endpointLimits().get("/heatmap"));
+        assertEquals(32, defaults.maxStreamSubscribers());
+        assertTrue(defaults.rateLimits().enabled());
+        assertEquals(60, defaults.rateLimits().standardBurst());
+        assertEquals(30, defaults.rateLimits().heavyBurst());
+    }
+    
+    @Test
+    void retentionDefaultsKeepMomentsAndCapDeathReplays() {
+        Settings.RetentionSettings defaults = Settings.RetentionSettings.defaults();
+        assertTrue(defaults.enabled());
+        assertFalse(defaults.archive());
+        assertFalse(defaults.moments().isActive());
+        assertEquals(new Settings.RetentionPolicy(0, 50, 0), defaults.deathReplays());
+        assertTrue(new Settings.RetentionPolicy(0, 0, 5).isActive());
+    }
+    
     @Test
     void publicSettingsDefaults() {
         Settings.PublicSettings defaults = Settings.PublicSettings.defaults();
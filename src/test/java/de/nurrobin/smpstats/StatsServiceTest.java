@@ -1,6 +1,8 @@
 package de.nurrobin.smpstats;
 
 import de.nurrobin.smpstats.commands.StatField;
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
 import de.nurrobin.smpstats.database.StatsStorage;
 import de.nurrobin.smpstats.skills.SkillWeights;
 import de.nurrobin.smpstats.timeline.TimelineService;
@@ -9,6 +11,7 @@ import org.bukkit.entity.Player;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.time.LocalDate;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
@@ -21,8 +24,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -58,6 +63,60 @@ class StatsServiceTest {
         assertTrue(persisted.getPlaytimeMillis() >= 0);
     }
 
+    @Test
+    void notifiesSessionListenersAfterOnlineListChanges() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.loadOrCreate(uuid, "Alex")).thenReturn(new StatsRecord(uuid, "Alex"));
+        StatsService service = new StatsService(pluginWith(Optional.empty()), storage, settings(true, true, true, true, true, true));
+
+        List<String> events = new java.util.ArrayList<>();
+        StatsService.SessionListener listener = new StatsService.SessionListener() {
+            @Override
+            public void onJoin(StatsRecord record) {
+                events.add("join " + record.getName() + " " + service.getOnlineNames());
+            }
+
+            @Override
+            public void onQuit(StatsRecord record) {
+                events.add("quit " + record.getName() + " " + service.getOnlineNames());
+            }
+        };
+        service.addSessionListener(listener);
+
+        Player player = mockPlayer(uuid, "Alex");
+        service.handleJoin(player);
+        service.handleQuit(player);
+        service.removeSessionListener(listener);
+        service.handleJoin(player);
+
+        assertEquals(List.of("join Alex [Alex]", "quit Alex []"), events);
+    }
+
+    @Test
+    void serverTotalsIncludeUnsavedChangesOfOnlinePlayers() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        StatsRecord stored = new StatsRecord(uuid, "Alex");
+        stored.setDeaths(2);
+        ServerTotals persisted = new ServerTotals();
+        persisted.apply(null, stored);
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.loadOrCreate(uuid, "Alex")).thenReturn(stored.copy());
+        when(storage.getServerTotals()).thenAnswer(invocation -> persisted.copy());
+        StatsService service = new StatsService(pluginWith(Optional.empty()), storage, settings(true, true, true, true, true, true));
+
+        service.handleJoin(mockPlayer(uuid, "Alex"));
+        service.addDeath(uuid, "FALL");
+        service.addBiome(uuid, "minecraft:plains");
+
+        ServerTotals totals = service.getServerTotals();
+        assertEquals(1, totals.getPlayers());
+        assertEquals(3, totals.getDeaths());
+        assertEquals(List.of("minecraft:plains"), totals.getBiomes());
+        // The stored totals themselves are untouched until the record is saved
+        assertEquals(2, persisted.getDeaths());
+    }
+
     @Test
     void flushOnlineSavesAndSnapshotsTimeline() throws Exception {
         UUID uuid = UUID.randomUUID();
@@ -65,16 +124,48 @@ class StatsServiceTest {
         StatsStorage storage = mock(StatsStorage.class);
         when(storage.loadOrCreate(uuid, "Alex")).thenReturn(record);
 
+        when(storage.saveAll(any(), any(), any())).thenReturn(1);
+        LocalDate today = LocalDate.of(2024, 5, 1);
         TimelineService timeline = mock(TimelineService.class);
+        when(timeline.snapshotDay()).thenReturn(Optional.of(today));
         StatsService service = new StatsService(pluginWith(Optional.of(timeline)), storage, settings(true, true, true, true, true, true));
+        assertTrue(service.getFlushMetrics().isEmpty());
 
         Player player = mockPlayer(uuid, "Alex");
         service.handleJoin(player);
         Thread.sleep(2);
         service.flushOnline();
 
-        verify(storage, atLeastOnce()).save(any(StatsRecord.class));
-        verify(timeline).snapshot(any(StatsRecord.class));
+        // Stats and timeline snapshots of everyone online go out in one call, and so in one transaction.
+        // The stored state comes from the session, so storage need not read the rows back for the totals.
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StatsRecord>> persisted = ArgumentCaptor.forClass(List.class);
+        verify(storage).saveAll(eq(List.of(record)), persisted.capture(), eq(today));
+        assertEquals(1, persisted.getValue().size());
+        assertEquals(0, persisted.getValue().get(0).getPlaytimeMillis());
+        verify(storage, never()).load(uuid);
+        verify(storage, never()).save(any(StatsRecord.class));
+        verify(timeline, never()).snapshot(any(StatsRecord.class));
+        FlushMetrics.Snapshot metrics = service.getFlushMetrics().orElseThrow();
+        assertEquals(1, metrics.flushes());
+        assertEquals(1, metrics.last().players());
+        assertEquals(1, metrics.last().changed());
+    }
+
+    @Test
+    void flushOnlineSkipsTheTimelineWhenItIsDisabledAndKeepsFailedFlushesOutOfTheMetrics() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        StatsRecord record = new StatsRecord(uuid, "Alex");
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.loadOrCreate(uuid, "Alex")).thenReturn(record);
+        when(storage.saveAll(any(), any(), isNull())).thenThrow(new java.sql.SQLException("locked"));
+        StatsService service = new StatsService(pluginWith(Optional.empty()), storage, settings(true, true, true, true, true, true));
+
+        service.handleJoin(mockPlayer(uuid, "Alex"));
+        service.flushOnline();
+
+        verify(storage).saveAll(eq(List.of(record)), any(), isNull());
+        assertTrue(service.getFlushMetrics().isEmpty());
     }
 
     @Test
@@ -256,6 +347,25 @@ class StatsServiceTest {
         assertTrue(all.stream().anyMatch(r -> r.getUuid().equals(offlineId) && r.getName().equals("Bea")));
     }
 
+    @Test
+    void statsPagesReplaceStoredRowsWithOnlineSnapshots() throws Exception {
+        UUID onlineId = UUID.randomUUID();
+        UUID offlineId = UUID.randomUUID();
+        PlayerPage.Cursor next = new PlayerPage.Cursor(PlayerSort.UUID, offlineId.toString(), 0, offlineId);
+
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.loadPlayerPage(PlayerSort.UUID, null, 5L, null, 2)).thenReturn(new PlayerPage(
+                List.of(new StatsRecord(onlineId, "OldName"), new StatsRecord(offlineId, "Bea")), next));
+        when(storage.loadOrCreate(onlineId, "Alex")).thenReturn(new StatsRecord(onlineId, "Alex"));
+
+        StatsService service = new StatsService(pluginWith(Optional.empty()), storage, settings(true, true, true, true, true, true));
+        service.handleJoin(mockPlayer(onlineId, "Alex"));
+
+        PlayerPage page = service.getStatsPage(PlayerSort.UUID, 5L, null, 2);
+        assertEquals(List.of("Alex", "Bea"), page.records().stream().map(StatsRecord::getName).toList());
+        assertEquals(next, page.next());
+    }
+
     @Test
     void incrementsBlocksAndDeathsWhenSessionPresent() throws Exception {
         UUID uuid = UUID.randomUUID();
@@ -8,15 +8,24 @@ import de.nurrobin.smpstats.SMPStats;
 import de.nurrobin.smpstats.Settings;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.StatsService;
+import de.nurrobin.smpstats.database.ChangeEntry;
+import de.nurrobin.smpstats.database.Dataset;
+import de.nurrobin.smpstats.database.MomentPage;
+import de.nurrobin.smpstats.database.PlayerPage;
+import de.nurrobin.smpstats.database.PlayerSort;
 import de.nurrobin.smpstats.database.StatsStorage;
+import de.nurrobin.smpstats.database.TimelineMetric;
+import de.nurrobin.smpstats.database.TimelinePeriod;
 import de.nurrobin.smpstats.health.ServerHealthService;
 import de.nurrobin.smpstats.heatmap.HeatmapService;
+import de.nurrobin.smpstats.moments.MomentEntry;
 import de.nurrobin.smpstats.moments.MomentService;
 import de.nurrobin.smpstats.social.SocialPairRow;
 import de.nurrobin.smpstats.timeline.TimelineService;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -25,13 +34,18 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -116,6 +130,124 @@ class ApiServerTest {
         assertTrue(all.body().contains("Alex"));
     }
 
+    @Test
+    void allStatsAreStreamedInChunks() throws Exception {
+        List<StatsRecord> records = new java.util.ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            records.add(new StatsRecord(UUID.randomUUID(), "Player" + i));
+        }
+        when(stats.getAllStats()).thenReturn(records);
+        var handler = server.statsHandler();
+
+        FakeExchange plain = new FakeExchange("/stats/all", API_KEY);
+        handler.handle(plain);
+        assertEquals(200, plain.status);
+        assertEquals(0, plain.responseLength); // chunked
+        var parsed = com.google.gson.JsonParser.parseString(plain.body()).getAsJsonArray();
+        assertEquals(50, parsed.size());
+        assertEquals("Player49", parsed.get(49).getAsJsonObject().get("name").getAsString());
+
+        FakeExchange gzipped = new FakeExchange("/stats/all", API_KEY);
+        gzipped.getRequestHeaders().add("Accept-Encoding", "gzip");
+        handler.handle(gzipped);
+        assertEquals("gzip", gzipped.getResponseHeaders().getFirst("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.bodyBytes()))) {
+            assertEquals(plain.body(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void allStatsArePagedWithOpaqueCursorsWhenRequested() throws Exception {
+        StatsRecord first = new StatsRecord(UUID.randomUUID(), "Alex");
+        PlayerPage.Cursor next = new PlayerPage.Cursor(PlayerSort.UUID, first.getUuid().toString(), 0, first.getUuid());
+        when(stats.getStatsPage(PlayerSort.UUID, 1000L, null, 1)).thenReturn(new PlayerPage(List.of(first), next));
+        var handler = server.statsHandler();
+
+        FakeExchange firstPage = new FakeExchange("/stats/all?limit=1&updated_since=1000", API_KEY);
+        handler.handle(firstPage);
+        assertEquals(200, firstPage.status);
+        assertTrue(firstPage.body().contains("Alex"));
+        String cursor = firstPage.getResponseHeaders().getFirst(ApiServer.NEXT_CURSOR_HEADER);
+        assertEquals(next, PageCursors.decodePlayer(cursor));
+
+        when(stats.getStatsPage(PlayerSort.UUID, 0L, next, 100)).thenReturn(new PlayerPage(List.of(), null));
+        FakeExchange lastPage = new FakeExchange("/stats/all?cursor=" + cursor, API_KEY);
+        handler.handle(lastPage);
+        assertEquals("[]", lastPage.body());
+        assertNull(lastPage.getResponseHeaders().getFirst(ApiServer.NEXT_CURSOR_HEADER));
+        verify(stats, never()).getAllStats();
+
+        FakeExchange badCursor = new FakeExchange("/stats/all?cursor=not-a-cursor", API_KEY);
+        handler.handle(badCursor);
+        assertEquals(400, badCursor.status);
+        FakeExchange badSort = new FakeExchange("/stats/all?sort=playtime", API_KEY);
+        handler.handle(badSort);
+        assertEquals(400, badSort.status);
+    }
+
+    @Test
+    void momentQueriesReturnANextCursorWhenMoreRemain() throws Exception {
+        MomentPage.Cursor next = new MomentPage.Cursor(20L, 7L);
+        when(moments.queryMomentPage(null, null, -1, null, 2))
+                .thenReturn(new MomentPage(List.of(moment("NEWEST", 30), moment("NEWER", 20)), next));
+        var handler = server.queryMomentsHandler();
+
+        FakeExchange firstPage = new FakeExchange("/moments/query?limit=2", API_KEY);
+        handler.handle(firstPage);
+        String cursor = firstPage.getResponseHeaders().getFirst(ApiServer.NEXT_CURSOR_HEADER);
+        assertEquals(next, PageCursors.decodeMoment(cursor));
+
+        when(moments.queryMomentPage(null, null, -1, next, 2)).thenReturn(new MomentPage(List.of(), null));
+        FakeExchange lastPage = new FakeExchange("/moments/query?limit=2&cursor=" + cursor, API_KEY);
+        handler.handle(lastPage);
+        assertEquals("[]", lastPage.body());
+
+        FakeExchange wrongKind = new FakeExchange("/moments/query?cursor=" + PageCursors.encode(
+                new PlayerPage.Cursor(PlayerSort.NAME, "Alex", 0, UUID.randomUUID())), API_KEY);
+        handler.handle(wrongKind);
+        assertEquals(400, wrongKind.status);
+    }
+
+    @Test
+    void changesEndpointPagesTheChangeLog() throws Exception {
+        when(storage.getChangeLogHorizon()).thenReturn(3L);
+        when(storage.loadChanges(5L, 2)).thenReturn(List.of(
+                new ChangeEntry(6, 100, Dataset.STATS, "a", "{\"name\":\"Alex\"}"),
+                new ChangeEntry(8, 101, Dataset.MOMENTS, "1", "{\"type\":\"BOSS\"}")));
+        var handler = server.changesHandler();
+
+        FakeExchange exchange = new FakeExchange("/changes?after=5&limit=1", API_KEY);
+        handler.handle(exchange);
+        assertEquals(200, exchange.status);
+        JsonObject json = JsonParser.parseString(exchange.body()).getAsJsonObject();
+        assertEquals(1, json.getAsJsonArray("changes").size());
+        JsonObject change = json.getAsJsonArray("changes").get(0).getAsJsonObject();
+        assertEquals("stats", change.get("dataset").getAsString());
+        assertEquals("Alex", change.getAsJsonObject("data").get("name").getAsString());
+        assertEquals(6, json.get("next").getAsLong());
+        assertTrue(json.get("has_more").getAsBoolean());
+        assertFalse(json.get("reset").getAsBoolean());
+
+        when(storage.loadChanges(0L, 101)).thenReturn(List.of());
+        FakeExchange behind = new FakeExchange("/changes", API_KEY);
+        handler.handle(behind);
+        JsonObject behindJson = JsonParser.parseString(behind.body()).getAsJsonObject();
+        assertTrue(behindJson.get("reset").getAsBoolean());
+        assertEquals(0, behindJson.get("next").getAsLong());
+
+        when(storage.loadChanges(8L, 101)).thenReturn(List.of(new ChangeEntry(9, 102, Dataset.MOMENTS, "1", null)));
+        FakeExchange deleted = new FakeExchange("/changes?after=8", API_KEY);
+        handler.handle(deleted);
+        JsonObject tombstone = JsonParser.parseString(deleted.body()).getAsJsonObject()
+                .getAsJsonArray("changes").get(0).getAsJsonObject();
+        assertTrue(tombstone.get("deleted").getAsBoolean());
+        assertFalse(tombstone.has("data"));
+
+        FakeExchange invalid = new FakeExchange("/changes?after=x", API_KEY);
+        handler.handle(invalid);
+        assertEquals(400, invalid.status);
+    }
+
     @Test
     void onlineAndMomentsEndpointsWork() throws Exception {
         when(stats.getOnlineNames()).thenReturn(List.of("Alex"));
@@ -131,18 +263,28 @@ class ApiServerTest {
         recent.handle(momentsReq);
         assertEquals(200, momentsReq.status);
 
-        when(moments.queryMoments(null, null, -1, 100)).thenReturn(List.of());
+        when(moments.queryMomentPage(null, null, -1, null, 100)).thenReturn(new MomentPage(List.of(), null));
         var query = server.queryMomentsHandler();
         FakeExchange queryReq = new FakeExchange("/moments/query", API_KEY);
         query.handle(queryReq);
         assertEquals(200, queryReq.status);
 
-        when(moments.getMomentsSince(5L, 2)).thenReturn(List.of(mock(de.nurrobin.smpstats.moments.MomentEntry.class)));
+        // Newest first, as returned by storage
+        when(moments.getRecentMoments(anyInt())).thenReturn(List.of(
+                moment("NEWEST", 30), moment("NEWER", 20), moment("NEW", 10), moment("OLD", 1)));
+        server.attachMomentStream();
+        server.stop(); // ends the live part so the handler returns after the initial backlog
         var stream = server.momentsStreamHandler();
         FakeExchange streamReq = new FakeExchange("/moments/stream?since=5&limit=2", API_KEY);
         stream.handle(streamReq);
         assertEquals(200, streamReq.status);
+        assertEquals("text/event-stream", streamReq.getResponseHeaders().getFirst("Content-Type"));
         assertTrue(streamReq.body().contains("data:"));
+        assertTrue(streamReq.body().contains("NEWER"));
+        assertTrue(streamReq.body().contains("NEWEST"));
+        assertFalse(streamReq.body().contains("\"NEW\""));
+        assertFalse(streamReq.body().contains("OLD"));
+        verify(moments, never()).getMomentsSince(anyLong(), anyInt());
 
         FakeExchange queryPlayerParam = new FakeExchange("/moments/query?player=not-a-uuid", API_KEY);
         query.handle(queryPlayerParam);
@@ -174,6 +316,99 @@ class ApiServerTest {
         assertTrue(hotspotsReq.body().contains("spawn"));
     }
 
+    @Test
+    void cachedEndpointsSendEtagAndAnswerConditionalRequests() throws Exception {
+        when(heatmap.loadHotspots("BREAK")).thenReturn(Map.of("spawn", 5.0));
+        var hotspots = server.heatmapHotspotHandler();
+        FakeExchange first = new FakeExchange("/heatmap/hotspots/break", API_KEY);
+        hotspots.handle(first);
+        assertEquals(200, first.status);
+        String etag = first.getResponseHeaders().getFirst("ETag");
+        assertTrue(etag != null && etag.startsWith("\""));
+
+        FakeExchange revalidate = new FakeExchange("/heatmap/hotspots/break", API_KEY);
+        revalidate.getRequestHeaders().add("If-None-Match", etag);
+        hotspots.handle(revalidate);
+        assertEquals(304, revalidate.status);
+        assertEquals("", revalidate.body());
+
+        FakeExchange stale = new FakeExchange("/heatmap/hotspots/break", API_KEY);
+        stale.getRequestHeaders().add("If-None-Match", "\"other\"");
+        hotspots.handle(stale);
+        assertEquals(200, stale.status);
+        assertTrue(stale.body().contains("spawn"));
+        // Rendered once, then served from the cache
+        verify(heatmap, times(1)).loadHotspots("BREAK");
+    }
+
+    @Test
+    void rateLimitsExpensiveEndpointsByCost() throws Exception {
+        when(stats.getAllStats()).thenReturn(List.of());
+        when(stats.getOnlineNames()).thenReturn(List.of());
+        var allStats = server.rateLimited(server.statsHandler());
+
+        // The heavy bucket holds 30 tokens by default and /stats/all costs 5
+        for (int i = 0; i < 6; i++) {
+            FakeExchange ok = new FakeExchange("/stats/all", API_KEY);
+            allStats.handle(ok);
+            assertEquals(200, ok.status);
+            assertEquals(String.valueOf(30 - 5 * (i + 1)), ok.getResponseHeaders().getFirst("X-RateLimit-Remaining"));
+        }
+        FakeExchange limited = new FakeExchange("/stats/all", API_KEY);
+        allStats.handle(limited);
+        assertEquals(429, limited.status);
+        assertEquals("5", limited.getResponseHeaders().getFirst("Retry-After"));
+
+        // Cheap endpoints draw from a separate bucket
+        FakeExchange online = new FakeExchange("/online", API_KEY);
+        server.rateLimited(server.onlineHandler()).handle(online);
+        assertEquals(200, online.status);
+        assertEquals("59", online.getResponseHeaders().getFirst("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void largeResponsesAreGzippedWhenAccepted() throws Exception {
+        Map<String, Double> hotspots = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            hotspots.put("hotspot-" + i, (double) i);
+        }
+        when(heatmap.loadHotspots("BREAK")).thenReturn(hotspots);
+        when(stats.getOnlineNames()).thenReturn(List.of("Alex"));
+
+        FakeExchange large = new FakeExchange("/heatmap/hotspots/break", API_KEY);
+        large.getRequestHeaders().add("Accept-Encoding", "gzip");
+        server.heatmapHotspotHandler().handle(large);
+        assertEquals("gzip", large.getResponseHeaders().getFirst("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(large.bodyBytes()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("hotspot-199"));
+        }
+
+        FakeExchange small = new FakeExchange("/online", API_KEY);
+        small.getRequestHeaders().add("Accept-Encoding", "gzip");
+        server.onlineHandler().handle(small);
+        assertNull(small.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("[\"Alex\"]", small.body());
+    }
+
+    @Test
+    void failedTimelineQueriesAreNotCached() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(storage.loadTimeline(uuid, 30))
+                .thenThrow(new RuntimeException("fail"))
+                .thenReturn(List.of(Map.of("day", "2024-01-01")));
+        var handler = server.timelineHandler();
+
+        FakeExchange failed = new FakeExchange("/timeline/" + uuid, API_KEY);
+        handler.handle(failed);
+        assertEquals(200, failed.status);
+        assertEquals("[]", failed.body());
+
+        FakeExchange retry = new FakeExchange("/timeline/" + uuid, API_KEY);
+        handler.handle(retry);
+        assertEquals(200, retry.status);
+        assertTrue(retry.body().contains("2024-01-01"));
+    }
+
     @Test
     void heatmapEndpointsGridSize() throws Exception {
         var handler = server.heatmapHandler();
@@ -259,7 +494,7 @@ class ApiServerTest {
 
     @Test
     void momentsEndpointsAcceptFromParameter() throws Exception {
-        when(moments.queryMoments(any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+        when(moments.queryMomentPage(any(), any(), anyLong(), any(), anyInt())).thenReturn(new MomentPage(List.of(), null));
         when(moments.getRecentMoments(anyInt())).thenReturn(List.of());
         
         // Test query moments with 'from' parameter
@@ -276,15 +511,70 @@ class ApiServerTest {
         assertEquals(200, recentReq.status);
         
         // Test stream moments with 'from' parameter
+        server.stop(); // closes the live stream so the handler returns
         var streamHandler = server.momentsStreamHandler();
         FakeExchange streamReq = new FakeExchange("/moments/stream?from=this_week", API_KEY);
         streamHandler.handle(streamReq);
         assertEquals(200, streamReq.status);
     }
 
+    @Test
+    void momentsStreamPushesSavedMomentsAndResumesFromLastEventId() throws Exception {
+        when(moments.getRecentMoments(anyInt())).thenReturn(List.of());
+        server.attachMomentStream();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<MomentEntry>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(moments).addListener(listener.capture());
+        listener.getValue().accept(moment("SEEN", 40)); // event id 40, the moment's database id
+
+        FakeExchange resume = new FakeExchange("/moments/stream", API_KEY);
+        resume.getRequestHeaders().add("Last-Event-ID", "40");
+        Thread client = new Thread(() -> {
+            try {
+                server.momentsStreamHandler().handle(resume);
+            } catch (java.io.IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        client.start();
+        listener.getValue().accept(moment("LIVE", 41));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!resume.body().contains("LIVE") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        server.stop();
+        client.join(5000);
+
+        assertFalse(client.isAlive());
+        assertTrue(resume.body().contains("id: 41"));
+        assertTrue(resume.body().contains("LIVE"));
+        assertFalse(resume.body().contains("SEEN"));
+        verify(moments).removeListener(listener.getValue());
+        verify(moments, never()).getMomentsSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void momentsStreamKeepsMomentsStoredWhileItIsSeeded() throws Exception {
+        List<Consumer<MomentEntry>> listeners = new java.util.ArrayList<>();
+        doAnswer(invocation -> listeners.add(invocation.getArgument(0))).when(moments).addListener(any());
+        when(moments.getRecentMoments(anyInt())).thenAnswer(invocation -> {
+            // Stored after the seed read, so only a listener registered beforehand sees it
+            listeners.forEach(listener -> listener.accept(moment("RACED", 50)));
+            return List.of(moment("SEEDED", 40));
+        });
+        server.attachMomentStream();
+        server.stop(); // ends the live part so the handler returns after the initial backlog
+
+        FakeExchange streamReq = new FakeExchange("/moments/stream?since=0", API_KEY);
+        server.momentsStreamHandler().handle(streamReq);
+
+        assertTrue(streamReq.body().contains("RACED"));
+    }
+
     @Test
     void timelineEndpointsAcceptFromParameter() throws Exception {
-        when(storage.loadTimelineLeaderboard(anyInt(), anyInt())).thenReturn(List.of());
+        when(storage.loadTimelineLeaderboard(anyInt(), any(TimelineMetric.class), anyInt())).thenReturn(List.of());
         
         // Test leaderboard with 'from' parameter (should convert to days)
         var handler = server.timelineHandler();
@@ -302,12 +592,21 @@ class ApiServerTest {
 
     @Test
     void timelineEndpointsHandleRangesAndLeaderboard() throws Exception {
-        when(storage.loadTimelineLeaderboard(7, 20)).thenReturn(List.of(Map.of("uuid", UUID.randomUUID().toString(), "playtime_ms", 1)));
+        when(storage.loadTimelineLeaderboard(7, TimelineMetric.PLAYTIME, 20)).thenReturn(List.of(Map.of("uuid", UUID.randomUUID().toString(), "playtime_ms", 1)));
         var handler = server.timelineHandler();
         FakeExchange leaderboard = new FakeExchange("/timeline/leaderboard", API_KEY);
         handler.handle(leaderboard);
         assertEquals(200, leaderboard.status);
 
+        FakeExchange byDeaths = new FakeExchange("/timeline/leaderboard?days=1&sort=deaths", API_KEY);
+        handler.handle(byDeaths);
+        assertEquals(200, byDeaths.status);
+        verify(storage).loadTimelineLeaderboard(1, TimelineMetric.DEATHS, 20);
+
+        FakeExchange badSort = new FakeExchange("/timeline/leaderboard?sort=uuid", API_KEY);
+        handler.handle(badSort);
+        assertEquals(400, badSort.status);
+
         FakeExchange missing = new FakeExchange("/timeline/range/", API_KEY);
         handler.handle(missing);
         assertEquals(400, missing.status);
@@ -338,6 +637,82 @@ class ApiServerTest {
         assertEquals(200, timelineNoService.status);
     }
 
+    @Test
+    void timelineRollupsEndpointValidatesPlayerAndPeriod() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(storage.loadTimelineRollups(uuid, TimelinePeriod.MONTH, 3))
+                .thenReturn(List.of(Map.of("period", "month", "from", "2024-01-01", "playtime_ms", 5L)));
+        var handler = server.timelineHandler();
+
+        FakeExchange months = new FakeExchange("/timeline/rollups/" + uuid + "?period=month&limit=3", API_KEY);
+        handler.handle(months);
+        assertEquals(200, months.status);
+        assertTrue(months.body().contains("\"period\":\"month\""));
+
+        FakeExchange weeks = new FakeExchange("/timeline/rollups/" + uuid, API_KEY);
+        handler.handle(weeks);
+        assertEquals(200, weeks.status);
+        verify(storage).loadTimelineRollups(uuid, TimelinePeriod.WEEK, 12);
+
+        FakeExchange badPeriod = new FakeExchange("/timeline/rollups/" + uuid + "?period=year", API_KEY);
+        handler.handle(badPeriod);
+        assertEquals(400, badPeriod.status);
+
+        FakeExchange badUuid = new FakeExchange("/timeline/rollups/not-a-uuid", API_KEY);
+        handler.handle(badUuid);
+        assertEquals(400, badUuid.status);
+
+        FakeExchange missing = new FakeExchange("/timeline/rollups/", API_KEY);
+        handler.handle(missing);
+        assertEquals(400, missing.status);
+    }
+
+    @Test
+    void hourlyTimelineEndpointServesServerAndPlayerBuckets() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(storage.loadTimelineHourly(isNull(), anyLong(), anyLong()))
+                .thenReturn(List.of(Map.of("start", "2024-01-01T10:00:00Z", "hours", 1, "players", 3)));
+        var handler = server.timelineHandler();
+
+        FakeExchange serverWide = new FakeExchange("/timeline/hourly?hours=6", API_KEY);
+        handler.handle(serverWide);
+        assertEquals(200, serverWide.status);
+        assertTrue(serverWide.body().contains("\"players\":3"));
+        ArgumentCaptor<Long> from = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> to = ArgumentCaptor.forClass(Long.class);
+        verify(storage).loadTimelineHourly(isNull(), from.capture(), to.capture());
+        assertEquals(5L, to.getValue() - from.getValue());
+
+        FakeExchange player = new FakeExchange("/timeline/hourly/" + uuid + "?from=today", API_KEY);
+        handler.handle(player);
+        assertEquals(200, player.status);
+        verify(storage).loadTimelineHourly(eq(uuid), anyLong(), anyLong());
+
+        FakeExchange badUuid = new FakeExchange("/timeline/hourly/not-a-uuid", API_KEY);
+        handler.handle(badUuid);
+        assertEquals(400, badUuid.status);
+    }
+
+    @Test
+    void hourlyTimelineEndpointValidatesAndCapsHours() throws Exception {
+        when(storage.loadTimelineHourly(isNull(), anyLong(), anyLong())).thenReturn(List.of());
+        var handler = server.timelineHandler();
+
+        FakeExchange badHours = new FakeExchange("/timeline/hourly?hours=abc", API_KEY);
+        handler.handle(badHours);
+        assertEquals(400, badHours.status);
+        assertEquals("Invalid hours", badHours.body());
+
+        FakeExchange tooMany = new FakeExchange("/timeline/hourly?hours=100000", API_KEY);
+        handler.handle(tooMany);
+        assertEquals(200, tooMany.status);
+        ArgumentCaptor<Long> from = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> to = ArgumentCaptor.forClass(Long.class);
+        verify(storage).loadTimelineHourly(isNull(), from.capture(), to.capture());
+        // Capped at the default hourly retention of 14 days
+        assertEquals(14 * 24 - 1L, to.getValue() - from.getValue());
+    }
+
     @Test
     void socialTopHealthAndDeathReplayEndpoints() throws Exception {
         UUID a = UUID.randomUUID();
@@ -385,11 +760,17 @@ class ApiServerTest {
         assertEquals(500, deathErr.status);
     }
 
+    // Stored moments; the start time doubles as the database id
+    private static MomentEntry moment(String type, long startedAt) {
+        return new MomentEntry(startedAt, UUID.randomUUID(), type, type, null, null, "world", 0, 0, 0, startedAt, startedAt);
+    }
+
     private static class FakeExchange extends com.sun.net.httpserver.HttpExchange {
         private final Headers requestHeaders = new Headers();
         private final Headers responseHeaders = new Headers();
         private final URI uri;
         private int status;
+        private long responseLength;
         private final ByteArrayOutputStream body = new ByteArrayOutputStream();
 
         FakeExchange(String path, String apiKey) {
@@ -403,6 +784,10 @@ class ApiServerTest {
             return body.toString(StandardCharsets.UTF_8);
         }
 
+        byte[] bodyBytes() {
+            return body.toByteArray();
+        }
+
         @Override
         public Headers getRequestHeaders() {
             return requestHeaders;
@@ -445,6 +830,7 @@ class ApiServerTest {
         @Override
         public void sendResponseHeaders(int rCode, long responseLength) {
             this.status = rCode;
+            this.responseLength = responseLength;
         }
 
         @Override
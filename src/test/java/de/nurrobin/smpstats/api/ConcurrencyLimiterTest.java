@@ -0,0 +1,145 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void rejectsRequestsOverTheEndpointCapWith503() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1);
+        BlockingHandler slow = new BlockingHandler();
+        HttpHandler heatmap = limiter.limit("/heatmap", slow);
+        HttpHandler online = limiter.limit("/online", exchange -> exchange.sendResponseHeaders(200, -1));
+
+        Thread first = Thread.ofVirtual().start(() -> handle(heatmap, exchange()));
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.inFlight());
+
+        HttpExchange rejected = exchange();
+        heatmap.handle(rejected);
+        verify(rejected).sendResponseHeaders(503, "Server busy, try again shortly".length());
+        assertEquals(ConcurrencyLimiter.RETRY_AFTER_SECONDS, rejected.getResponseHeaders().getFirst("Retry-After"));
+
+        // Other endpoints still have room
+        HttpExchange other = exchange();
+        online.handle(other);
+        verify(other).sendResponseHeaders(200, -1);
+
+        slow.release.countDown();
+        first.join();
+        assertEquals(0, limiter.inFlight());
+
+        HttpExchange afterwards = exchange();
+        heatmap.handle(afterwards);
+        verify(afterwards, never()).sendResponseHeaders(503, "Server busy, try again shortly".length());
+    }
+
+    @Test
+    void rejectsRequestsOverTheServerWideCap() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 5);
+        BlockingHandler slow = new BlockingHandler();
+        HttpHandler stats = limiter.limit("/stats", slow);
+        HttpHandler online = limiter.limit("/online", exchange -> exchange.sendResponseHeaders(200, -1));
+
+        Thread first = Thread.ofVirtual().start(() -> handle(stats, exchange()));
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+
+        HttpExchange rejected = exchange();
+        online.handle(rejected);
+        verify(rejected).sendResponseHeaders(503, "Server busy, try again shortly".length());
+
+        slow.release.countDown();
+        first.join();
+        HttpExchange accepted = exchange();
+        online.handle(accepted);
+        verify(accepted).sendResponseHeaders(200, -1);
+    }
+
+    @Test
+    void endpointOverridesApplyToPathsUnderTheirPrefix() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 5, Map.of("/heatmap", 1));
+        BlockingHandler slow = new BlockingHandler();
+        HttpHandler heatmap = limiter.limit("/heatmap", slow);
+        HttpHandler hotspots = limiter.limit("/heatmap/hotspots", exchange -> exchange.sendResponseHeaders(200, -1));
+
+        Thread first = Thread.ofVirtual().start(() -> handle(heatmap, exchange("/heatmap/BREAK")));
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+
+        HttpExchange rejected = exchange("/heatmap/DEATH");
+        heatmap.handle(rejected);
+        verify(rejected).sendResponseHeaders(503, "Server busy, try again shortly".length());
+
+        // A more specific endpoint keeps the default cap
+        HttpExchange other = exchange("/heatmap/hotspots/spawn");
+        hotspots.handle(other);
+        verify(other).sendResponseHeaders(200, -1);
+
+        slow.release.countDown();
+        first.join();
+    }
+
+    @Test
+    void releasesPermitsWhenTheHandlerFails() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+        HttpHandler failing = limiter.limit("/fail", exchange -> {
+            throw new IOException("boom");
+        });
+        assertThrows(IOException.class, () -> failing.handle(exchange()));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private static HttpExchange exchange(String path) {
+        HttpExchange exchange = exchange();
+        when(exchange.getRequestURI()).thenReturn(URI.create(path));
+        return exchange;
+    }
+
+    private static HttpExchange exchange() {
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        return exchange;
+    }
+
+    private static void handle(HttpHandler handler, HttpExchange exchange) {
+        try {
+            handler.handle(exchange);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class BlockingHandler implements HttpHandler {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+}
@@ -161,6 +161,9 @@ class OpenApiDocumentTest {
                 "/heatmap/hotspots/{type}",
                 "/timeline/{playerId}",
                 "/timeline/range/{playerId}",
+                "/timeline/rollups/{playerId}",
+                "/timeline/hourly",
+                "/timeline/hourly/{playerId}",
                 "/timeline/leaderboard",
                 "/social/top",
                 "/death/replay",
@@ -315,6 +318,7 @@ class OpenApiDocumentTest {
             assertTrue(foundParams.contains("from"), "Should have 'from' parameter");
             assertTrue(foundParams.contains("days"), "Should have 'days' parameter");
             assertTrue(foundParams.contains("limit"), "Should have 'limit' parameter");
+            assertTrue(foundParams.contains("sort"), "Should have 'sort' parameter");
         }
     }
 
@@ -0,0 +1,85 @@
+package de.nurrobin.smpstats.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRefillsOverTime() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("ip:a", 3, 60, 1).allowed());
+        }
+        RateLimiter.Decision denied = limiter.tryAcquire("ip:a", 3, 60, 1);
+        assertFalse(denied.allowed());
+        assertEquals(0, denied.remaining());
+        assertEquals(1, denied.retryAfterSeconds());
+
+        // 60 per minute refills one token per second
+        now.addAndGet(SECOND);
+        RateLimiter.Decision allowed = limiter.tryAcquire("ip:a", 3, 60, 1);
+        assertTrue(allowed.allowed());
+        assertEquals(3, allowed.limit());
+    }
+
+    @Test
+    void chargesCostAndReportsWaitForExpensiveRequests() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(now::get);
+
+        RateLimiter.Decision first = limiter.tryAcquire("key", 10, 60, 5);
+        assertTrue(first.allowed());
+        assertEquals(5, first.remaining());
+        assertTrue(limiter.tryAcquire("key", 10, 60, 4).allowed());
+
+        RateLimiter.Decision denied = limiter.tryAcquire("key", 10, 60, 5);
+        assertFalse(denied.allowed());
+        assertEquals(4, denied.retryAfterSeconds());
+
+        // A cost above the burst is capped so it can still succeed once the bucket is full
+        now.addAndGet(60 * SECOND);
+        assertTrue(limiter.tryAcquire("key", 10, 60, 50).allowed());
+    }
+
+    @Test
+    void keepsCallersSeparateAndRefundsTokens() {
+        RateLimiter limiter = new RateLimiter(() -> 0L);
+        assertTrue(limiter.tryAcquire("ip:a", 1, 1, 1).allowed());
+        assertFalse(limiter.tryAcquire("ip:a", 1, 1, 1).allowed());
+        assertTrue(limiter.tryAcquire("ip:b", 1, 1, 1).allowed());
+
+        limiter.refund("ip:a", 1);
+        assertTrue(limiter.tryAcquire("ip:a", 1, 1, 1).allowed());
+        assertEquals(2, limiter.bucketCount());
+    }
+
+    @Test
+    void evictsFullBucketsAtMostOncePerSecond() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(now::get);
+        // 60,000 per minute refills a drained bucket within a millisecond
+        for (int i = 0; i <= 10_000; i++) {
+            limiter.tryAcquire("ip:" + i, 1, 60_000, 1);
+        }
+        limiter.tryAcquire("late", 1, 60_000, 1);
+        assertEquals(10_002, limiter.bucketCount());
+
+        // Every bucket is full again, but the last sweep was less than a second ago
+        now.addAndGet(SECOND / 2);
+        limiter.tryAcquire("again", 1, 60_000, 1);
+        assertEquals(10_003, limiter.bucketCount());
+
+        now.addAndGet(SECOND / 2);
+        limiter.tryAcquire("final", 1, 60_000, 1);
+        assertEquals(1, limiter.bucketCount());
+    }
+}
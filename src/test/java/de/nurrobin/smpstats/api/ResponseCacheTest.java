@@ -0,0 +1,163 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import de.nurrobin.smpstats.database.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheTest {
+
+    @Test
+    void keyNormalizesQueryParameterOrderAndCase() {
+        assertEquals("/heatmap/break", ResponseCache.key(URI.create("http://localhost/heatmap/break")));
+        assertEquals(ResponseCache.key(URI.create("http://localhost/timeline?days=7&limit=5")),
+                ResponseCache.key(URI.create("http://localhost/timeline?LIMIT=5&days=7")));
+        assertNotEquals(ResponseCache.key(URI.create("http://localhost/timeline?days=7")),
+                ResponseCache.key(URI.create("http://localhost/timeline?days=8")));
+    }
+
+    @Test
+    void gzipAndIdentityBodiesGetDistinctEtags() throws Exception {
+        byte[] body = new byte[ResponseCompression.MIN_SIZE];
+        ResponseCache.Entry entry = new ResponseCache.Entry(body, ResponseCompression.gzipIfWorthwhile(body),
+                ResponseCache.etag(body), "application/json", Long.MAX_VALUE, Set.of());
+
+        HttpExchange identity = exchange(null, null);
+        ResponseCache.send(identity, entry);
+        String identityTag = identity.getResponseHeaders().getFirst("ETag");
+        assertEquals(entry.etag(), identityTag);
+
+        HttpExchange gzip = exchange("gzip", null);
+        ResponseCache.send(gzip, entry);
+        String gzipTag = gzip.getResponseHeaders().getFirst("ETag");
+        assertEquals(ResponseCache.gzipEtag(entry.etag()), gzipTag);
+        assertNotEquals(identityTag, gzipTag);
+        assertTrue(gzipTag.startsWith("\"") && gzipTag.endsWith("-gz\""));
+
+        HttpExchange revalidated = exchange("gzip", gzipTag);
+        ResponseCache.send(revalidated, entry);
+        verify(revalidated).sendResponseHeaders(304, -1);
+        // A tag of the other coding does not validate this one
+        HttpExchange otherCoding = exchange("gzip", identityTag);
+        ResponseCache.send(otherCoding, entry);
+        verify(otherCoding).sendResponseHeaders(eq(200), anyLong());
+    }
+
+    @Test
+    void etagMatchingHandlesListsWildcardsAndWeakTags() {
+        String etag = ResponseCache.etag("body".getBytes(StandardCharsets.UTF_8));
+        assertEquals(etag, ResponseCache.etag("body".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(etag, ResponseCache.etag("other".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(ResponseCache.matches(etag, etag));
+        assertTrue(ResponseCache.matches("\"x\", " + etag, etag));
+        assertTrue(ResponseCache.matches("W/" + etag, etag));
+        assertTrue(ResponseCache.matches("*", etag));
+        assertFalse(ResponseCache.matches("\"x\"", etag));
+        assertFalse(ResponseCache.matches(null, etag));
+    }
+
+    @Test
+    void reusesEntriesUntilTheyExpire() throws Exception {
+        ResponseCache cache = new ResponseCache(8);
+        AtomicInteger renders = new AtomicInteger();
+
+        ResponseCache.Entry first = cache.get("/a", 60_000, Set.of(), "application/json", () -> render(renders));
+        ResponseCache.Entry second = cache.get("/a", 60_000, Set.of(), "application/json", () -> render(renders));
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+
+        cache.get("/b", 1, Set.of(), "application/json", () -> render(renders));
+        Thread.sleep(5);
+        cache.get("/b", 1, Set.of(), "application/json", () -> render(renders));
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void invalidationDropsOnlyDependentEntries() {
+        ResponseCache cache = new ResponseCache(8);
+        AtomicInteger renders = new AtomicInteger();
+        cache.get("/heatmap", 60_000, Set.of(Dataset.HEATMAP), "application/json", () -> render(renders));
+        cache.get("/social", 60_000, Set.of(Dataset.SOCIAL, Dataset.STATS), "application/json", () -> render(renders));
+
+        cache.invalidate(Dataset.STATS);
+
+        assertEquals(1, cache.size());
+        cache.get("/heatmap", 60_000, Set.of(Dataset.HEATMAP), "application/json", () -> render(renders));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void renderOverlappingAnInvalidationIsNotKept() {
+        ResponseCache cache = new ResponseCache(8);
+        ResponseCache.Entry entry = cache.get("/timeline", 60_000, Set.of(Dataset.TIMELINE), "application/json", () -> {
+            cache.invalidate(Dataset.TIMELINE);
+            return "stale".getBytes(StandardCharsets.UTF_8);
+        });
+
+        assertEquals("stale", new String(entry.body(), StandardCharsets.UTF_8));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void failedRendersAreNotCached() {
+        ResponseCache cache = new ResponseCache(8);
+        assertThrows(IllegalStateException.class, () -> cache.get("/a", 60_000, Set.of(), "application/json", () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals(0, cache.size());
+
+        AtomicInteger renders = new AtomicInteger();
+        cache.get("/a", 60_000, Set.of(), "application/json", () -> render(renders));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void fullCacheStillServesResponses() {
+        ResponseCache cache = new ResponseCache(1);
+        AtomicInteger renders = new AtomicInteger();
+        cache.get("/a", 60_000, Set.of(), "application/json", () -> render(renders));
+
+        ResponseCache.Entry entry = cache.get("/b", 60_000, Set.of(), "application/json", () -> render(renders));
+
+        assertEquals("2", new String(entry.body(), StandardCharsets.UTF_8));
+        assertEquals(1, cache.size());
+    }
+
+    private static byte[] render(AtomicInteger renders) {
+        return String.valueOf(renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static HttpExchange exchange(String acceptEncoding, String ifNoneMatch) {
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers request = new Headers();
+        if (acceptEncoding != null) {
+            request.add("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.add("If-None-Match", ifNoneMatch);
+        }
+        when(exchange.getRequestHeaders()).thenReturn(request);
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        return exchange;
+    }
+}
@@ -0,0 +1,101 @@
+package de.nurrobin.smpstats.api;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResponseCompressionTest {
+
+    @Test
+    void negotiatesGzipFromAcceptEncoding() {
+        assertTrue(ResponseCompression.acceptsGzip(exchange("gzip")));
+        assertTrue(ResponseCompression.acceptsGzip(exchange("deflate, GZIP;q=0.5, br")));
+        assertTrue(ResponseCompression.acceptsGzip(exchange("br, *")));
+        assertFalse(ResponseCompression.acceptsGzip(exchange("gzip;q=0, *")));
+        assertFalse(ResponseCompression.acceptsGzip(exchange("identity")));
+        assertFalse(ResponseCompression.acceptsGzip(exchange(null)));
+    }
+
+    @Test
+    void compressesOnlyLargeBodiesForAcceptingClients() throws IOException {
+        byte[] large = "x".repeat(ResponseCompression.MIN_SIZE).getBytes(StandardCharsets.UTF_8);
+
+        HttpExchange gzip = exchange("gzip");
+        ResponseCompression.send(gzip, 200, large);
+        assertEquals("gzip", gzip.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("Accept-Encoding", gzip.getResponseHeaders().getFirst("Vary"));
+        assertArrayEquals(large, gunzip(((ByteArrayOutputStream) gzip.getResponseBody()).toByteArray()));
+
+        HttpExchange identity = exchange(null);
+        ResponseCompression.send(identity, 200, large);
+        assertNull(identity.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("Accept-Encoding", identity.getResponseHeaders().getFirst("Vary"));
+        verify(identity).sendResponseHeaders(200, large.length);
+
+        HttpExchange small = exchange("gzip");
+        ResponseCompression.send(small, 200, "{}".getBytes(StandardCharsets.UTF_8));
+        assertNull(small.getResponseHeaders().getFirst("Content-Encoding"));
+        assertNull(small.getResponseHeaders().getFirst("Vary"));
+        assertEquals("{}", ((ByteArrayOutputStream) small.getResponseBody()).toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void skipsBodiesTooSmallToCompress() throws IOException {
+        assertNull(ResponseCompression.gzipIfWorthwhile(new byte[ResponseCompression.MIN_SIZE - 1]));
+        byte[] body = new byte[ResponseCompression.MIN_SIZE];
+        assertArrayEquals(body, gunzip(ResponseCompression.gzipIfWorthwhile(body)));
+    }
+
+    @Test
+    void openStreamUsesChunkedEncodingAndGzipsWhenAccepted() throws IOException {
+        HttpExchange exchange = exchange("gzip");
+        try (OutputStream out = ResponseCompression.openStream(exchange, 200)) {
+            out.write("[1,2,3]".getBytes(StandardCharsets.UTF_8));
+        }
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals("gzip", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("[1,2,3]", new String(gunzip(((ByteArrayOutputStream) exchange.getResponseBody()).toByteArray()),
+                StandardCharsets.UTF_8));
+
+        HttpExchange identity = exchange(null);
+        try (OutputStream out = ResponseCompression.openStream(identity, 200)) {
+            out.write("[]".getBytes(StandardCharsets.UTF_8));
+        }
+        assertNull(identity.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("[]", ((ByteArrayOutputStream) identity.getResponseBody()).toString(StandardCharsets.UTF_8));
+    }
+
+    private static HttpExchange exchange(String acceptEncoding) {
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers request = new Headers();
+        if (acceptEncoding != null) {
+            request.add("Accept-Encoding", acceptEncoding);
+        }
+        when(exchange.getRequestHeaders()).thenReturn(request);
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        return exchange;
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package de.nurrobin.smpstats.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseBroadcasterTest {
+
+    @Test
+    void replaysEventsAfterLastEventId() throws Exception {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 10);
+        broadcaster.publish(null, "a", 1);
+        broadcaster.publish(null, "b", 2);
+        broadcaster.publish(null, "c", 3);
+
+        SseBroadcaster.Subscription resumed = broadcaster.subscribe(1);
+        assertEquals(List.of("b", "c"), resumed.backlog().stream().map(SseBroadcaster.Frame::data).toList());
+
+        SseBroadcaster.Subscription fresh = broadcaster.subscribe(-1);
+        assertEquals(3, fresh.backlog().size());
+
+        broadcaster.publish(null, "d", 4);
+        SseBroadcaster.Frame live = resumed.next(100);
+        assertEquals(4, live.id());
+        assertEquals("d", live.data());
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void keepsCallerAssignedIdsAndIgnoresOlderOnes() {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 10);
+        assertEquals(40, broadcaster.publish(40, null, "a", 1));
+        assertEquals(40, broadcaster.publish(40, null, "again", 1));
+        assertEquals(57, broadcaster.publish(57, null, "b", 2));
+
+        SseBroadcaster.Subscription resumed = broadcaster.subscribe(40);
+        assertEquals(List.of(57L), resumed.backlog().stream().map(SseBroadcaster.Frame::id).toList());
+    }
+
+    @Test
+    void replayRingDropsOldestEvents() {
+        SseBroadcaster broadcaster = new SseBroadcaster(2, 10);
+        broadcaster.publish(null, "a", 1);
+        broadcaster.publish(null, "b", 2);
+        broadcaster.publish(null, "c", 3);
+
+        List<SseBroadcaster.Frame> backlog = broadcaster.subscribe(-1).backlog();
+        assertEquals(List.of(2L, 3L), backlog.stream().map(SseBroadcaster.Frame::id).toList());
+    }
+
+    @Test
+    void evictsSubscribersThatFallBehind() throws Exception {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 2);
+        SseBroadcaster.Subscription slow = broadcaster.subscribe(-1);
+        broadcaster.publish(null, "a", 1);
+        broadcaster.publish(null, "b", 2);
+        broadcaster.publish(null, "c", 3);
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertNull(slow.next(100));
+        assertFalse(slow.isOpen());
+    }
+
+    @Test
+    void closeEndsOpenAndLaterSubscriptions() throws Exception {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 10);
+        broadcaster.publish(null, "a", 1);
+        SseBroadcaster.Subscription open = broadcaster.subscribe(-1);
+
+        broadcaster.close();
+        assertNull(open.next(1000));
+        assertFalse(open.isOpen());
+
+        broadcaster.publish(null, "ignored", 2);
+        SseBroadcaster.Subscription late = broadcaster.subscribe(-1);
+        assertEquals(1, late.backlog().size());
+        assertNull(late.next(1000));
+        assertFalse(late.isOpen());
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void refusesSubscribersOverTheCap() {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 10, 2);
+        SseBroadcaster.Subscription first = broadcaster.subscribe(-1);
+        assertNotNull(broadcaster.subscribe(-1));
+        assertNull(broadcaster.subscribe(-1));
+
+        first.close();
+        assertNotNull(broadcaster.subscribe(-1));
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void closingSubscriptionUnregistersIt() {
+        SseBroadcaster broadcaster = new SseBroadcaster(10, 10);
+        SseBroadcaster.Subscription subscription = broadcaster.subscribe(-1);
+        assertTrue(subscription.isOpen());
+
+        subscription.close();
+        assertFalse(subscription.isOpen());
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void encodesFramesInEventStreamFormat() {
+        SseBroadcaster.Frame plain = new SseBroadcaster.Frame(7, null, "{\"a\":1}", 0);
+        assertEquals("id: 7\ndata: {\"a\":1}\n\n", new String(plain.encode(), StandardCharsets.UTF_8));
+
+        SseBroadcaster.Frame named = new SseBroadcaster.Frame(8, "stats", "line1\nline2", 0);
+        assertEquals("id: 8\nevent: stats\ndata: line1\ndata: line2\n\n",
+                new String(named.encode(), StandardCharsets.UTF_8));
+    }
+}
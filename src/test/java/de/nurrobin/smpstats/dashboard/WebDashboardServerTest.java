@@ -3,10 +3,12 @@ package de.nurrobin.smpstats.dashboard;
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpPrincipal;
 import de.nurrobin.smpstats.SMPStats;
+import de.nurrobin.smpstats.ServerTotals;
 import de.nurrobin.smpstats.Settings;
 import de.nurrobin.smpstats.StatsRecord;
 import de.nurrobin.smpstats.StatsService;
 import de.nurrobin.smpstats.database.StatsStorage;
+import de.nurrobin.smpstats.database.TimelineMetric;
 import de.nurrobin.smpstats.health.HealthThresholds;
 import de.nurrobin.smpstats.health.ServerHealthService;
 import de.nurrobin.smpstats.heatmap.HeatmapService;
@@ -29,6 +31,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -107,6 +110,95 @@ class WebDashboardServerTest {
         assertTrue(body.contains("\"adminEnabled\""));
     }
 
+    // ============== Public Live Handler Tests ==============
+    
+    @Test
+    void publicLiveHandlerPushesJoinsMomentsAndChangedStats() throws Exception {
+        dashboard.attachLiveEvents();
+        var sessions = org.mockito.ArgumentCaptor.forClass(StatsService.SessionListener.class);
+        verify(statsService).addSessionListener(sessions.capture());
+        @SuppressWarnings("unchecked")
+        org.mockito.ArgumentCaptor<java.util.function.Consumer<MomentEntry>> moments =
+                org.mockito.ArgumentCaptor.forClass(java.util.function.Consumer.class);
+        verify(momentService).addListener(moments.capture());
+        
+        // Nobody is watching yet, so nothing is computed
+        dashboard.publishStats();
+        verify(statsService, never()).getServerTotals();
+        
+        FakeExchange exchange = new FakeExchange("/api/public/live", null, null, "GET");
+        Thread client = new Thread(() -> {
+            try {
+                dashboard.publicLiveHandler().handle(exchange);
+            } catch (java.io.IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        client.start();
+        awaitBody(exchange, "");
+        
+        when(statsService.getOnlineNames()).thenReturn(List.of("Alex"));
+        sessions.getValue().onJoin(new StatsRecord(UUID.randomUUID(), "Alex"));
+        moments.getValue().accept(new MomentEntry(1L, UUID.randomUUID(), "diamond", "Found diamonds", "x3", null,
+                "world", 1, 2, 3, 1000L, 2000L));
+        StatsRecord record = new StatsRecord(UUID.randomUUID(), "Alex");
+        record.setDeaths(3);
+        ServerTotals totals = new ServerTotals();
+        totals.apply(null, record);
+        when(statsService.getServerTotals()).thenAnswer(invocation -> totals.copy());
+        dashboard.publishStats();
+        dashboard.publishStats();
+        awaitBody(exchange, "event: stats");
+        
+        dashboard.stop();
+        client.join(5000);
+        
+        assertFalse(client.isAlive());
+        assertEquals(200, exchange.status);
+        String body = exchange.body();
+        assertTrue(body.contains("event: online\ndata: {\"count\":1,\"players\":[\"Alex\"],\"joined\":\"Alex\"}"));
+        assertTrue(body.contains("event: moment"));
+        assertTrue(body.contains("Found diamonds"));
+        assertTrue(body.contains("\"totalDeaths\":3"));
+        // Unchanged totals are not pushed again
+        assertEquals(1, body.split("event: stats", -1).length - 1);
+        verify(statsService, times(2)).getServerTotals();
+        verify(statsService).removeSessionListener(sessions.getValue());
+        verify(momentService).removeListener(moments.getValue());
+    }
+    
+    @Test
+    void publicLiveHandlerSkipsDisabledSections() throws Exception {
+        Settings.DashboardSettings dash = new Settings.DashboardSettings(true, "0.0.0.0", 8080,
+                new Settings.PublicSettings(true, false, true, false, true),
+                settings.getDashboardSettings().adminSettings());
+        Settings restricted = mock(Settings.class);
+        when(restricted.getDashboardSettings()).thenReturn(dash);
+        dashboard = new WebDashboardServer(plugin, statsService, restricted, momentService, heatmapService, healthService);
+        dashboard.attachLiveEvents();
+        var sessions = org.mockito.ArgumentCaptor.forClass(StatsService.SessionListener.class);
+        verify(statsService).addSessionListener(sessions.capture());
+        
+        sessions.getValue().onJoin(new StatsRecord(UUID.randomUUID(), "Alex"));
+        dashboard.stop();
+        
+        FakeExchange exchange = new FakeExchange("/api/public/live", null, null, "GET");
+        exchange.getRequestHeaders().add("Last-Event-ID", "0");
+        dashboard.publicLiveHandler().handle(exchange);
+        
+        assertEquals(200, exchange.status);
+        assertFalse(exchange.body().contains("event: online"));
+        verify(statsService, never()).getOnlineNames();
+    }
+    
+    private static void awaitBody(FakeExchange exchange, String text) throws InterruptedException {
+        // Headers are sent once the client is subscribed
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((exchange.status == 0 || !exchange.body().contains(text)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+    
     // ============== Public Online Handler Tests ==============
     
     @Test
@@ -157,7 +249,7 @@ class WebDashboardServerTest {
         row.put("playtime_ms", 3600000L);
         row.put("blocks_broken", 1000L);
         
-        when(storage.loadTimelineLeaderboard(7, 10)).thenReturn(List.of(row));
+        when(storage.loadTimelineLeaderboard(7, TimelineMetric.PLAYTIME, 10)).thenReturn(List.of(row));
         when(statsService.getStats(uuid)).thenReturn(Optional.of(new StatsRecord(uuid, "TestPlayer")));
         
         var handler = dashboard.publicLeaderboardHandler();
@@ -170,6 +262,43 @@ class WebDashboardServerTest {
         assertTrue(body.contains("TestPlayer"));
     }
 
+    @Test
+    void publicLeaderboardHandlerServesCachedResponseAndNotModified() throws Exception {
+        when(storage.loadTimelineLeaderboard(7, TimelineMetric.PLAYTIME, 10)).thenReturn(List.of());
+        var handler = dashboard.publicLeaderboardHandler();
+
+        FakeExchange first = new FakeExchange("/api/public/leaderboard?limit=10&days=7", null, null, "GET");
+        handler.handle(first);
+        assertEquals(200, first.status);
+        String etag = first.getResponseHeaders().getFirst("ETag");
+        assertNotNull(etag);
+        assertEquals("*", first.getResponseHeaders().getFirst("Access-Control-Allow-Origin"));
+
+        // Same clamped parameters in a different order hit the cache and revalidate
+        FakeExchange second = new FakeExchange("/api/public/leaderboard?days=7&limit=10", null, null, "GET");
+        second.getRequestHeaders().add("If-None-Match", etag);
+        handler.handle(second);
+        assertEquals(304, second.status);
+        assertEquals("", second.body());
+        verify(storage, times(1)).loadTimelineLeaderboard(7, 10);
+    }
+
+    @Test
+    void publicLeaderboardHandlerSortsByTheRequestedMetric() throws Exception {
+        when(storage.loadTimelineLeaderboard(30, TimelineMetric.MOB_KILLS, 5)).thenReturn(List.of());
+        var handler = dashboard.publicLeaderboardHandler();
+
+        FakeExchange byKills = new FakeExchange("/api/public/leaderboard?days=30&limit=5&sort=mob_kills", null, null, "GET");
+        handler.handle(byKills);
+        assertEquals(200, byKills.status);
+        assertTrue(byKills.body().contains("\"sort\":\"mob_kills\""));
+        verify(storage).loadTimelineLeaderboard(30, TimelineMetric.MOB_KILLS, 5);
+
+        FakeExchange invalid = new FakeExchange("/api/public/leaderboard?sort=name", null, null, "GET");
+        handler.handle(invalid);
+        assertEquals(400, invalid.status);
+    }
+
     // ============== Public Moments Handler Tests ==============
     
     @Test
@@ -204,7 +333,12 @@ class WebDashboardServerTest {
         record2.setDeaths(10);
         record2.setBlocksBroken(2000L);
         
-        when(statsService.getAllStats()).thenReturn(List.of(record1, record2));
+        record2.addBiome("minecraft:plains");
+        
+        ServerTotals totals = new ServerTotals();
+        totals.apply(null, record1);
+        totals.apply(null, record2);
+        when(statsService.getServerTotals()).thenReturn(totals);
         
         var handler = dashboard.publicStatsHandler();
         FakeExchange exchange = new FakeExchange("/api/public/stats", null, null, "GET");
@@ -212,9 +346,13 @@ class WebDashboardServerTest {
         
         assertEquals(200, exchange.status);
         String body = exchange.body();
-        assertTrue(body.contains("\"totalPlayers\""));
-        assertTrue(body.contains("\"totalDeaths\""));
-        assertTrue(body.contains("\"totalBlocksBroken\""));
+        assertTrue(body.contains("\"totalPlayers\": 2"));
+        assertTrue(body.contains("\"totalDeaths\": 15"));
+        assertTrue(body.contains("\"totalBlocksBroken\": 3000"));
+        assertTrue(body.contains("\"totalPlaytimeHours\": 3.0"));
+        assertTrue(body.contains("\"uniqueBiomesDiscovered\": 1"));
+        // Answered from the maintained totals, never by loading every record
+        verify(statsService, never()).getAllStats();
     }
 
     // ============== Admin Login Handler Tests ==============
@@ -393,6 +531,27 @@ class WebDashboardServerTest {
         assertTrue(exchange.body().contains("SMPStats"));
     }
     
+    @Test
+    void staticHandlerServesPrecompressedAssetsWhenAccepted() throws Exception {
+        var handler = dashboard.staticHandler();
+        FakeExchange plain = new FakeExchange("/js/app.js", null, null, "GET");
+        handler.handle(plain);
+        assertEquals(200, plain.status);
+        assertNull(plain.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("Accept-Encoding", plain.getResponseHeaders().getFirst("Vary"));
+
+        FakeExchange gzipped = new FakeExchange("/js/app.js", null, null, "GET");
+        gzipped.getRequestHeaders().add("Accept-Encoding", "gzip, deflate, br");
+        handler.handle(gzipped);
+        assertEquals(200, gzipped.status);
+        assertEquals("gzip", gzipped.getResponseHeaders().getFirst("Content-Encoding"));
+        byte[] compressed = gzipped.bodyBytes();
+        assertTrue(compressed.length < plain.bodyBytes().length);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(plain.body(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+    
     @Test
     void staticHandlerServesCss() throws Exception {
         var handler = dashboard.staticHandler();
@@ -718,7 +877,7 @@ class WebDashboardServerTest {
     
     @Test
     void publicLeaderboardHandlerHandlesStorageException() throws Exception {
-        when(storage.loadTimelineLeaderboard(anyInt(), anyInt()))
+        when(storage.loadTimelineLeaderboard(anyInt(), any(TimelineMetric.class), anyInt()))
                 .thenThrow(new java.sql.SQLException("Database error"));
         
         var handler = dashboard.publicLeaderboardHandler();
@@ -1044,7 +1203,7 @@ class WebDashboardServerTest {
         private final ByteArrayOutputStream body = new ByteArrayOutputStream();
         private final Headers responseHeaders = new Headers();
         private final Headers requestHeaders = new Headers();
-        private int status;
+        private volatile int status;
 
         FakeExchange(String path, String cookie, String requestBody, String method) {
             this.uri = URI.create(path);
@@ -1060,6 +1219,10 @@ class WebDashboardServerTest {
             return body.toString(StandardCharsets.UTF_8);
         }
 
+        byte[] bodyBytes() {
+            return body.toByteArray();
+        }
+
         @Override
         public Headers getRequestHeaders() {
             return requestHeaders;
@@ -0,0 +1,253 @@
+package de.nurrobin.smpstats.database;
+
+import de.nurrobin.smpstats.StatsRecord;
+import de.nurrobin.smpstats.moments.MomentEntry;
+import de.nurrobin.smpstats.timeline.DeathReplayEntry;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Records every statement {@link StatsStorage} runs while its read and write paths are exercised,
+ * then checks the {@code EXPLAIN QUERY PLAN} of each one. A plain {@code SCAN <table>} means SQLite
+ * reads the whole table, which hot queries must never do.
+ */
+class StatsStorageQueryPlanTest {
+    // Statements that read every row on purpose, like the full player export
+    private static final Set<String> FULL_SCANS_ALLOWED = Set.of(
+            "SELECT * FROM player_stats"
+    );
+    // Queries from the history screens and the index each of them has to use
+    private static final Map<String, String> EXPECTED_INDEXES = Map.of(
+            "FROM moments WHERE 1=1 AND player_id = ? ORDER BY", "idx_moments_player_time",
+            "FROM moments WHERE 1=1 AND player_id = ? AND type_id = ?", "idx_moments_player_type_time",
+            "FROM death_replays WHERE player_id = ?", "idx_death_replays_player_ts",
+            "FROM death_replays ORDER BY ts", "idx_death_replays_ts",
+            "FROM moments WHERE started_at >= ?", "idx_moments_time",
+            "FROM timeline_deltas WHERE player_id = ?", "idx_timeline_deltas_player",
+            "FROM timeline_rollups WHERE period = ?", "idx_timeline_rollups_period",
+            "FROM timeline_rollups WHERE player_id = ?", "SEARCH timeline_rollups USING PRIMARY KEY",
+            "FROM timeline_windows WHERE window_days = ?", "SEARCH timeline_windows USING PRIMARY KEY",
+            "FROM timeline_hourly WHERE hours = 1", "idx_timeline_hourly_hours"
+    );
+
+    @TempDir
+    Path tempDir;
+
+    private StatsStorage storage;
+    private Connection connection;
+    private final Set<String> statements = new LinkedHashSet<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getDataFolder()).thenReturn(tempDir.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        Server server = mock(Server.class);
+        when(server.getOnlinePlayers()).thenReturn(List.of());
+        when(plugin.getServer()).thenReturn(server);
+        storage = new StatsStorage(plugin);
+        storage.init();
+        recordStatements();
+    }
+
+    @Test
+    void hotQueriesNeverScanAWholeTable() throws Exception {
+        exerciseStorage();
+        assertTrue(statements.size() > 30, "expected the exercise to reach most queries, got " + statements.size());
+
+        List<String> offenders = new ArrayList<>();
+        for (String sql : statements) {
+            if (!isQuery(sql) || FULL_SCANS_ALLOWED.contains(sql.strip())) {
+                continue;
+            }
+            for (String step : plan(sql)) {
+                if (isFullScan(step)) {
+                    offenders.add(step + "  <-  " + sql.strip().replaceAll("\\s+", " "));
+                }
+            }
+        }
+        assertTrue(offenders.isEmpty(), () -> "Full table scans:\n" + String.join("\n", offenders));
+    }
+
+    @Test
+    void historyQueriesUseTheirCompositeIndexes() throws Exception {
+        exerciseStorage();
+        for (Map.Entry<String, String> expected : EXPECTED_INDEXES.entrySet()) {
+            List<String> matching = statements.stream().filter(sql -> sql.contains(expected.getKey())).toList();
+            assertTrue(!matching.isEmpty(), "no statement matched " + expected.getKey());
+            for (String sql : matching) {
+                List<String> plan = plan(sql);
+                assertTrue(plan.stream().anyMatch(step -> step.contains(expected.getValue())),
+                        () -> sql.strip() + " should use " + expected.getValue() + " but plans " + plan);
+            }
+        }
+    }
+
+    private void exerciseStorage() throws Exception {
+        UUID alex = UUID.randomUUID();
+        UUID bea = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        StatsRecord record = storage.loadOrCreate(alex, "Alex");
+        record.setPlaytimeMillis(1000);
+        storage.save(record);
+        storage.save(new StatsRecord(bea, "Bea"));
+        storage.load(alex);
+        storage.loadByName("alex");
+        storage.loadAll();
+        for (PlayerSort sort : PlayerSort.values()) {
+            PlayerPage first = storage.loadPlayerPage(sort, null, null, 1);
+            storage.loadPlayerPage(sort, "al", now - 1000, first.next(), 1);
+        }
+        storage.countPlayers(null);
+        storage.countPlayers("al");
+
+        List<MomentEntry> moments = storage.saveMoments(List.of(
+                new MomentEntry(null, alex, "BOSS", "Boss", null, null, "world", 0, 0, 0, now - 2, now - 2),
+                new MomentEntry(null, alex, "FALL", "Fall", null, null, "world", 0, 0, 0, now - 1, now - 1),
+                new MomentEntry(null, bea, "FALL", "Fall", null, null, null, 0, 0, 0, now, now)));
+        storage.loadRecentMoments(10);
+        storage.loadMomentsSince(now - 10, 10);
+        storage.hasMoment(alex, "BOSS");
+        storage.loadMomentTypes(alex);
+        for (UUID player : new UUID[]{null, alex}) {
+            for (String type : new String[]{null, "FALL"}) {
+                for (long since : new long[]{0, now - 10}) {
+                    storage.queryMoments(player, type, since, 10);
+                    MomentPage page = storage.queryMomentPage(player, type, since, null, 1);
+                    storage.queryMomentPage(player, type, since, page.next(), 1);
+                }
+            }
+        }
+
+        storage.incrementHotspot("break", "spawn", "world", 1.0, 3_600_000L);
+        storage.loadHotspotCounts("break");
+        storage.incrementSocialPair(alex, bea, 10, 1, 0, 1);
+        storage.loadTopSocial(5);
+        storage.loadSocialPairsForPlayer(alex, 5);
+
+        storage.upsertTimeline(record, LocalDate.now());
+        storage.loadTimeline(alex, 7);
+        storage.loadTimelineRange(alex, 7);
+        storage.loadTimelineLeaderboard(7, 5);
+        storage.loadTimelineLeaderboard(30, 5);
+        storage.loadTimelineLeaderboard(14, TimelineMetric.MOB_KILLS, 5);
+        storage.loadTimelineRollups(alex, TimelinePeriod.WEEK, 4);
+        record.setMobKills(2);
+        storage.upsertTimeline(record, LocalDate.now());
+        storage.loadTimelineHourly(alex, now / 3_600_000L - 24, now / 3_600_000L);
+        storage.loadTimelineHourly(null, now / 3_600_000L - 24, now / 3_600_000L);
+        storage.downsampleTimelineHourly(now / 3_600_000L + 48);
+
+        storage.saveDeathReplay(new DeathReplayEntry(now, alex.toString(), "Alex", "FALL", 0, "world", 1, 2, 3, 4,
+                List.of(), List.of(), List.of()));
+        storage.saveDeathReplays(List.of(new DeathReplayEntry(now + 1, bea.toString(), "Bea", "LAVA", 0, null, 0, 0, 0, 0,
+                List.of(), List.of(), List.of())));
+        storage.loadDeathReplays(5);
+        storage.loadDeathReplaysForPlayer(alex, 5);
+
+        storage.insertHeatmapEvent("break", "world", 1, 2, 3, 1.0, now);
+        storage.insertHeatmapEntries(List.of(new HeatmapEntry("break", "world", 4, 5, 6, 1.0, now)));
+        storage.getHeatmapEvents("break", "world", now - 1000, now);
+        storage.getHeatmapChunkTotals("break", "world", -1, -1, 1, 1, now - 1000, now);
+        long hour = now / 3_600_000L;
+        storage.addHeatmapPlayerBins(List.of(new HeatmapPlayerBin(alex, "POSITION", "world", 0, 0, hour, 1.0)));
+        storage.getPlayerHeatmapChunkTotals(alex, "POSITION", "world", -1, -1, 1, 1, now - 3_600_000L, now);
+
+        for (HistoryTable table : HistoryTable.values()) {
+            List<Long> expired = storage.findPrunableIds(table, now, 1, 1, 10);
+            storage.loadHistoryRows(table, expired);
+            storage.deleteHistoryRows(table, expired);
+        }
+
+        storage.loadChanges(0, 10);
+        storage.compactChangeLog(now - 60_000L);
+        assertTrue(moments.size() == 3);
+    }
+
+    private List<String> plan(String sql) throws Exception {
+        List<String> steps = new ArrayList<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                steps.add(rs.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    private static boolean isQuery(String sql) {
+        String head = sql.strip().toUpperCase(Locale.ROOT);
+        return head.startsWith("SELECT") || head.startsWith("WITH") || head.startsWith("UPDATE") || head.startsWith("DELETE");
+    }
+
+    // "SCAN t" reads the table; "SCAN t USING INDEX" walks an index in order, which LIMITed queries stop early.
+    // "SCAN (subquery-N)" reads rows an inner query already selected.
+    private static boolean isFullScan(String step) {
+        return step.startsWith("SCAN ") && !step.contains(" USING ") && !step.contains("VIRTUAL TABLE")
+                && !step.equals("SCAN CONSTANT ROW") && !step.startsWith("SCAN (subquery-");
+    }
+
+    /**
+     * Swaps the storage connection for a proxy that remembers the SQL of every statement.
+     */
+    private void recordStatements() throws Exception {
+        Field field = StatsStorage.class.getDeclaredField("connection");
+        field.setAccessible(true);
+        connection = (Connection) field.get(storage);
+        Connection recording = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare") && args != null && args[0] instanceof String sql) {
+                        statements.add(sql);
+                    }
+                    Object result = invoke(method, connection, args);
+                    if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                        return recordingStatement(statement);
+                    }
+                    return result;
+                });
+        field.set(storage, recording);
+    }
+
+    private Statement recordingStatement(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && args != null && args[0] instanceof String sql) {
+                        statements.add(sql);
+                    }
+                    return invoke(method, statement, args);
+                });
+    }
+
+    private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -14,17 +14,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -77,6 +81,22 @@ class StatsStorageTest {
         assertEquals("Alex_2", renamed.getName());
     }
 
+    @Test
+    void notifiesChangeListenersPerDataset() throws Exception {
+        StatsStorage storage = newStorage();
+        List<Dataset> changes = new ArrayList<>();
+        Consumer<Dataset> listener = changes::add;
+        storage.addChangeListener(listener);
+
+        storage.save(new StatsRecord(UUID.randomUUID(), "Alex"));
+        storage.incrementHotspot("break", "spawn", "world", 1.0, 0L);
+        storage.incrementSocialPair(UUID.randomUUID(), UUID.randomUUID(), 5, 0, 0, 0);
+        storage.removeChangeListener(listener);
+        storage.save(new StatsRecord(UUID.randomUUID(), "Steve"));
+
+        assertEquals(List.of(Dataset.STATS, Dataset.HEATMAP, Dataset.SOCIAL), changes);
+    }
+
     @Test
     void heatmapAndHotspotCountersAccumulate() throws Exception {
         StatsStorage storage = newStorage();
@@ -95,6 +115,204 @@ class StatsStorageTest {
         assertEquals(5.0, hotspots.get("spawn"));
     }
 
+    @Test
+    void sumsHeatmapEventsPerChunkInsideWindow() throws Exception {
+        StatsStorage storage = newStorage();
+        long now = System.currentTimeMillis();
+        storage.insertHeatmapEntries(List.of(
+                new HeatmapEntry("break", "world", 0, 64, 0, 1.0, now),
+                new HeatmapEntry("break", "world", 15.5, 64, 15.9, 2.0, now),
+                new HeatmapEntry("break", "world", -0.5, 64, -16, 4.0, now),   // chunk (-1,-1)
+                new HeatmapEntry("break", "world", -17, 64, 0, 8.0, now),     // chunk (-2,0), outside window
+                new HeatmapEntry("break", "world", 0, 64, 0, 16.0, now - 10_000),
+                new HeatmapEntry("break", "nether", 0, 64, 0, 32.0, now)
+        ));
+        storage.insertHeatmapEvent("break", "world", -1, 64, -1, 64.0, now); // chunk (-1,-1)
+
+        List<HeatmapChunkTotal> totals = storage.getHeatmapChunkTotals("break", "world", -1, -1, 1, 1, now - 1000, now);
+
+        Map<String, Double> byChunk = new HashMap<>();
+        for (HeatmapChunkTotal total : totals) {
+            byChunk.put(total.chunkX() + "," + total.chunkZ(), total.value());
+        }
+        assertEquals(2, byChunk.size());
+        assertEquals(3.0, byChunk.get("0,0"));
+        assertEquals(68.0, byChunk.get("-1,-1"));
+    }
+
+    @Test
+    void playerHeatmapBinsAccumulateAndFilterByPlayer() throws Exception {
+        StatsStorage storage = newStorage();
+        UUID alex = UUID.randomUUID();
+        UUID steve = UUID.randomUUID();
+        long hour = HeatmapPlayerBin.hourOf(System.currentTimeMillis());
+        storage.addHeatmapPlayerBins(List.of(
+                new HeatmapPlayerBin(alex, "POSITION", "world", 0, 0, hour, 3.0),
+                new HeatmapPlayerBin(alex, "POSITION", "world", -1, 2, hour - 1, 1.0),
+                new HeatmapPlayerBin(alex, "POSITION", "world", 9, 9, hour, 5.0),
+                new HeatmapPlayerBin(steve, "POSITION", "world", 0, 0, hour, 7.0)
+        ));
+        storage.addHeatmapPlayerBins(List.of(new HeatmapPlayerBin(alex, "POSITION", "world", 0, 0, hour, 2.0)));
+
+        long since = (hour - 1) * 3_600_000L;
+        long until = (hour + 1) * 3_600_000L - 1;
+        Map<String, Double> byChunk = new HashMap<>();
+        for (HeatmapChunkTotal total : storage.getPlayerHeatmapChunkTotals(alex, "POSITION", "world", -3, -3, 3, 3, since, until)) {
+            byChunk.put(total.chunkX() + "," + total.chunkZ(), total.value());
+        }
+        assertEquals(Map.of("0,0", 5.0, "-1,2", 1.0), byChunk);
+
+        assertEquals(1, storage.getPlayerHeatmapChunkTotals(alex, "POSITION", "world", -3, -3, 3, 3, hour * 3_600_000L, until).size());
+        assertTrue(storage.getPlayerHeatmapChunkTotals(UUID.randomUUID(), "POSITION", "world", -3, -3, 3, 3, since, until).isEmpty());
+    }
+
+    @Test
+    void storesTypesWorldsAndPlayersAsDictionaryIds() throws Exception {
+        Path dataDir = Files.createDirectory(tempDir.resolve("plugin-data-dict"));
+        StatsStorage storage = newStorage(dataDir);
+        UUID player = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        storage.saveMoment(new MomentEntry(null, player, "diamond_run", "A", null, null, "world", 0, 0, 0, now, now));
+        storage.saveMoment(new MomentEntry(null, player, "diamond_run", "B", null, null, null, 0, 0, 0, now + 1, now + 1));
+        storage.insertHeatmapEntries(List.of(new HeatmapEntry("diamond_run", "world", 1, 2, 3, 1.0, now)));
+        storage.close();
+
+        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:sqlite:" + dataDir.resolve("stats.db").toAbsolutePath());
+             java.sql.Statement st = conn.createStatement()) {
+            try (java.sql.ResultSet rs = st.executeQuery("SELECT (SELECT COUNT(*) FROM type_ids), (SELECT COUNT(*) FROM world_ids), (SELECT COUNT(*) FROM player_ids)")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+                assertEquals(1, rs.getInt(2));
+                assertEquals(1, rs.getInt(3));
+            }
+            try (java.sql.ResultSet rs = st.executeQuery("SELECT typeof(player_id), typeof(type_id) FROM moments LIMIT 1")) {
+                assertTrue(rs.next());
+                assertEquals("integer", rs.getString(1));
+                assertEquals("integer", rs.getString(2));
+            }
+        }
+
+        StatsStorage reopened = newStorage(dataDir);
+        List<MomentEntry> moments = reopened.queryMoments(player, "diamond_run", 0, 10);
+        assertEquals(2, moments.size());
+        assertEquals(player, moments.get(1).getPlayerId());
+        assertEquals("world", moments.get(1).getWorld());
+        assertNull(moments.get(0).getWorld());
+        assertTrue(reopened.hasMoment(player, "diamond_run"));
+        assertFalse(reopened.hasMoment(player, "unknown_type"));
+        assertEquals(1, reopened.getHeatmapEvents("diamond_run", "world", 0, now).size());
+    }
+
+    @Test
+    void maintainsServerTotalsOnSaveAndSeedsThemOnStartup() throws Exception {
+        Path dataDir = Files.createDirectory(tempDir.resolve("plugin-data-totals"));
+        StatsStorage storage = newStorage(dataDir);
+
+        StatsRecord alex = storage.loadOrCreate(UUID.randomUUID(), "Alex");
+        alex.setDeaths(2);
+        alex.setDistanceNether(500);
+        alex.addBiome("minecraft:plains");
+        alex.addBiome("minecraft:desert");
+        storage.save(alex);
+        StatsRecord steve = storage.loadOrCreate(UUID.randomUUID(), "Steve");
+        steve.setDeaths(3);
+        steve.addBiome("minecraft:plains");
+        storage.save(steve);
+        // A later save replaces the player's previous contribution
+        alex.setDeaths(4);
+        alex.setBiomesVisited(new LinkedHashSet<>(Set.of("minecraft:plains")));
+        storage.save(alex);
+
+        assertTotals(storage.getServerTotals());
+        storage.close();
+
+        assertTotals(newStorage(dataDir).getServerTotals());
+    }
+
+    @Test
+    void savesABatchOfRecordsAndTheirTimelineSnapshotsTogether() throws Exception {
+        StatsStorage storage = newStorage();
+        List<Dataset> notified = new ArrayList<>();
+        storage.addChangeListener(notified::add);
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        StatsRecord alex = new StatsRecord(UUID.randomUUID(), "Alex");
+        alex.setPlaytimeMillis(100);
+        alex.setDeaths(1);
+        StatsRecord bea = new StatsRecord(UUID.randomUUID(), "Bea");
+        bea.setPlaytimeMillis(300);
+
+        assertEquals(2, storage.saveAll(List.of(alex, bea), today));
+        assertEquals(List.of(Dataset.STATS, Dataset.TIMELINE), notified);
+        assertEquals(2, storage.getServerTotals().getPlayers());
+        assertEquals(1, storage.getServerTotals().getDeaths());
+        assertEquals(300L, storage.loadTimeline(bea.getUuid(), 1).get(0).get("playtime_ms"));
+        assertEquals(bea.getUuid().toString(), storage.loadTimelineLeaderboard(1, 1).get(0).get("uuid"));
+
+        // Unchanged records are not rewritten; without a day the timeline is left alone
+        notified.clear();
+        alex.setPlaytimeMillis(150);
+        assertEquals(1, storage.saveAll(List.of(alex, bea), null));
+        assertEquals(List.of(Dataset.STATS), notified);
+        assertEquals(100L, storage.loadTimeline(alex.getUuid(), 1).get(0).get("playtime_ms"));
+        assertEquals(0, storage.saveAll(List.of(), today));
+
+        // A stored state known to the caller updates the totals like the row read back would
+        StatsRecord stored = alex.copy();
+        alex.setDeaths(3);
+        assertEquals(1, storage.saveAll(List.of(alex), List.of(stored), null));
+        assertEquals(3, storage.getServerTotals().getDeaths());
+        assertEquals(2, storage.getServerTotals().getPlayers());
+    }
+
+    @Test
+    void addsSnapshotGainsToHourlyBucketsAndMergesOldDays() throws Exception {
+        StatsStorage storage = newStorage();
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        long hour = System.currentTimeMillis() / 3_600_000L;
+        StatsRecord alex = new StatsRecord(UUID.randomUUID(), "Alex");
+        alex.setPlaytimeMillis(10_000);
+        StatsRecord bea = new StatsRecord(UUID.randomUUID(), "Bea");
+
+        // The first snapshot is only the baseline; lifetime totals are not this hour's activity
+        storage.saveAll(List.of(alex, bea), today);
+        assertTrue(storage.loadTimelineHourly(alex.getUuid(), hour, hour).isEmpty());
+
+        alex.setPlaytimeMillis(12_000);
+        alex.setDistanceOverworld(40.5);
+        bea.setMobKills(4);
+        storage.saveAll(List.of(alex, bea), today);
+        alex.setPlaytimeMillis(13_000);
+        storage.saveAll(List.of(alex, bea), today);
+
+        List<Map<String, Object>> alexHours = storage.loadTimelineHourly(alex.getUuid(), hour - 1, hour);
+        assertEquals(1, alexHours.size());
+        assertEquals(1, alexHours.get(0).get("hours"));
+        assertEquals(3000L, alexHours.get(0).get("playtime_ms"));
+        assertEquals(40.5, (double) alexHours.get(0).get("distance_overworld"), 0.001);
+        Map<String, Object> server = storage.loadTimelineHourly(null, hour, hour).get(0);
+        assertEquals(2, server.get("players"));
+        assertEquals(3000L, server.get("playtime_ms"));
+        assertEquals(4L, server.get("mob_kills"));
+        assertTrue(storage.loadTimelineHourly(UUID.randomUUID(), hour, hour).isEmpty());
+
+        // Days that have not ended before the cutoff stay hourly
+        assertFalse(storage.downsampleTimelineHourly(hour));
+        assertTrue(storage.downsampleTimelineHourly(hour + 48));
+        assertFalse(storage.downsampleTimelineHourly(hour + 48));
+        Map<String, Object> day = storage.loadTimelineHourly(null, hour, hour).get(0);
+        assertEquals(24, day.get("hours"));
+        assertEquals(2, day.get("players"));
+        assertEquals(3000L, day.get("playtime_ms"));
+        assertEquals(4L, storage.loadTimelineHourly(bea.getUuid(), hour, hour).get(0).get("mob_kills"));
+    }
+
+    private static void assertTotals(de.nurrobin.smpstats.ServerTotals totals) {
+        assertEquals(2, totals.getPlayers());
+        assertEquals(7, totals.getDeaths());
+        assertEquals(500.0, totals.getDistance(), 0.001);
+        assertEquals(List.of("minecraft:plains"), totals.getBiomes());
+    }
+
     @Test
     void momentsQueriesReturnSavedEntries() throws Exception {
         StatsStorage storage = newStorage();
@@ -172,6 +390,94 @@ class StatsStorageTest {
         assertEquals(4L, range.get("blocks_placed"));
     }
 
+    @Test
+    void rollsDailyDeltasIntoWeeksAndMonthsAndRanksFromThem() throws Exception {
+        StatsStorage storage = newStorage();
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        LocalDate monday = TimelinePeriod.WEEK.startOf(today).minusWeeks(3);
+
+        StatsRecord alex = new StatsRecord(a, "Alex");
+        alex.setPlaytimeMillis(100);
+        storage.upsertTimeline(alex, monday);
+        alex.setPlaytimeMillis(150);
+        storage.upsertTimeline(alex, monday.plusDays(2));
+        alex.setPlaytimeMillis(200);
+        storage.upsertTimeline(alex, monday.plusWeeks(1));
+        // A late snapshot between two others moves part of Wednesday's gain to Tuesday
+        alex.setPlaytimeMillis(120);
+        storage.upsertTimeline(alex, monday.plusDays(1));
+
+        StatsRecord bea = new StatsRecord(b, "Bea");
+        bea.setPlaytimeMillis(500);
+        storage.upsertTimeline(bea, today);
+
+        List<Map<String, Object>> weeks = storage.loadTimelineRollups(a, TimelinePeriod.WEEK, 5);
+        assertEquals(2, weeks.size());
+        assertEquals(monday.plusWeeks(1).toString(), weeks.get(0).get("from"));
+        assertEquals(monday.plusWeeks(1).plusDays(6).toString(), weeks.get(0).get("to"));
+        assertEquals(50L, weeks.get(0).get("playtime_ms"));
+        assertEquals(150L, weeks.get(1).get("playtime_ms"));
+        long monthTotal = storage.loadTimelineRollups(a, TimelinePeriod.MONTH, 5).stream()
+                .mapToLong(row -> (Long) row.get("playtime_ms")).sum();
+        assertEquals(200L, monthTotal);
+        assertTrue(storage.loadTimelineRollups(UUID.randomUUID(), TimelinePeriod.WEEK, 5).isEmpty());
+
+        assertEquals(200L, storage.loadTimelineRange(a, 30).get("playtime_ms"));
+
+        List<Map<String, Object>> month = storage.loadTimelineLeaderboard(30, 5);
+        assertEquals(List.of(b.toString(), a.toString()), month.stream().map(row -> row.get("uuid")).toList());
+        assertEquals(200L, month.get(1).get("playtime_ms"));
+        List<Map<String, Object>> day = storage.loadTimelineLeaderboard(1, 5);
+        assertEquals(1, day.size());
+        assertEquals(500L, day.get(0).get("playtime_ms"));
+    }
+
+    @Test
+    void keepsRollingLeaderboardWindowsSortableByAnyMetric() throws Exception {
+        Path dataDir = Files.createDirectory(tempDir.resolve("plugin-data-windows"));
+        StatsStorage storage = newStorage(dataDir);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+
+        StatsRecord alex = new StatsRecord(a, "Alex");
+        alex.setPlaytimeMillis(1000);
+        storage.upsertTimeline(alex, today.minusDays(10));
+        alex.setPlaytimeMillis(1100);
+        alex.setMobKills(9);
+        storage.upsertTimeline(alex, today);
+        StatsRecord bea = new StatsRecord(b, "Bea");
+        bea.setPlaytimeMillis(500);
+        bea.setMobKills(2);
+        storage.upsertTimeline(bea, today);
+
+        List<Map<String, Object>> week = storage.loadTimelineLeaderboard(7, 5);
+        assertEquals(List.of(b.toString(), a.toString()), week.stream().map(row -> row.get("uuid")).toList());
+        assertEquals(100L, week.get(1).get("playtime_ms"));
+        List<Map<String, Object>> kills = storage.loadTimelineLeaderboard(1, TimelineMetric.MOB_KILLS, 5);
+        assertEquals(List.of(a.toString(), b.toString()), kills.stream().map(row -> row.get("uuid")).toList());
+        assertEquals(9L, kills.get(0).get("mob_kills"));
+        assertEquals(1100L, storage.loadTimelineLeaderboard(30, 1).get(0).get("playtime_ms"));
+        // Windows without a precomputed table give the same answer from the deltas
+        assertEquals(1100L, storage.loadTimelineLeaderboard(14, 1).get(0).get("playtime_ms"));
+        storage.close();
+
+        // Windows are rebuilt on first use, so rows left over from an earlier day never leak
+        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:sqlite:" + dataDir.resolve("stats.db").toAbsolutePath());
+             java.sql.Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE timeline_windows SET playtime_ms = 99999");
+        }
+        StatsStorage reopened = newStorage(dataDir);
+        assertEquals(500L, reopened.loadTimelineLeaderboard(7, 1).get(0).get("playtime_ms"));
+
+        assertEquals(Optional.of(TimelineMetric.PLAYTIME), TimelineMetric.parse("playtime"));
+        assertEquals(Optional.of(TimelineMetric.PLAYTIME), TimelineMetric.parse("playtime_ms"));
+        assertEquals(Optional.of(TimelineMetric.MOB_KILLS), TimelineMetric.parse("MOB_KILLS"));
+        assertTrue(TimelineMetric.parse("name; DROP TABLE x").isEmpty());
+    }
+
     @Test
     void savesAndLoadsDeathReplays() throws Exception {
         StatsStorage storage = newStorage();
@@ -331,8 +637,237 @@ class StatsStorageTest {
         assertTrue(events.isEmpty(), "Should have rolled back valid entry");
     }
 
-    private StatsStorage newStorage() throws IOException, java.sql.SQLException {
+    @Test
+    void pagesPlayersWithKeysetCursor() throws Exception {
+        StatsStorage storage = newStorage();
+        for (int i = 0; i < 12; i++) {
+            StatsRecord record = new StatsRecord(UUID.randomUUID(), (i % 2 == 0 ? "Steve" : "alex") + i);
+            record.setPlaytimeMillis(i % 3); // plenty of ties to exercise the uuid tiebreak
+            storage.save(record);
+        }
+
+        Set<UUID> seen = new java.util.HashSet<>();
+        long previous = Long.MAX_VALUE;
+        PlayerPage.Cursor cursor = null;
+        int pages = 0;
+        do {
+            PlayerPage page = storage.loadPlayerPage(PlayerSort.PLAYTIME, null, cursor, 5);
+            for (StatsRecord record : page.records()) {
+                assertTrue(seen.add(record.getUuid()), "Player returned twice");
+                assertTrue(record.getPlaytimeMillis() <= previous, "Pages must follow sort order");
+                previous = record.getPlaytimeMillis();
+            }
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(12, seen.size());
+        assertEquals(3, pages);
+        assertEquals(12, storage.countPlayers(null));
+    }
+
+    @Test
+    void filtersPlayersByNamePrefix() throws Exception {
+        StatsStorage storage = newStorage();
+        storage.save(new StatsRecord(UUID.randomUUID(), "Steve"));
+        storage.save(new StatsRecord(UUID.randomUUID(), "stella"));
+        storage.save(new StatsRecord(UUID.randomUUID(), "Alex"));
+        storage.save(new StatsRecord(UUID.randomUUID(), "st_x"));
+
+        PlayerPage page = storage.loadPlayerPage(PlayerSort.NAME, "ste", null, 10);
+        assertEquals(List.of("stella", "Steve"),
+                page.records().stream().map(StatsRecord::getName).toList());
+        assertFalse(page.hasNext());
+        assertEquals(2, storage.countPlayers("STE"));
+        // LIKE wildcards in the prefix are matched literally
+        assertEquals(1, storage.countPlayers("st_"));
+        assertEquals(0, storage.countPlayers("%"));
+    }
+
+    @Test
+    void pagesPlayersByUuidAndFiltersOnLastModified() throws Exception {
+        StatsStorage storage = newStorage();
+        StatsRecord early = new StatsRecord(UUID.randomUUID(), "Early");
+        storage.save(early);
+        Thread.sleep(5);
+        long checkpoint = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            storage.save(new StatsRecord(UUID.randomUUID(), "Late" + i));
+        }
+
+        List<UUID> seen = new ArrayList<>();
+        PlayerPage.Cursor cursor = null;
+        do {
+            PlayerPage page = storage.loadPlayerPage(PlayerSort.UUID, null, checkpoint, cursor, 2);
+            page.records().forEach(record -> seen.add(record.getUuid()));
+            cursor = page.next();
+        } while (cursor != null);
+        assertEquals(5, seen.size());
+        assertFalse(seen.contains(early.getUuid()));
+        assertEquals(seen.stream().sorted(java.util.Comparator.comparing(UUID::toString)).toList(), seen);
+
+        // Saving unchanged stats is not a modification, a real change is
+        Thread.sleep(5);
+        long second = System.currentTimeMillis();
+        storage.save(storage.load(early.getUuid()).orElseThrow());
+        assertTrue(storage.loadPlayerPage(PlayerSort.UUID, null, second, null, 10).records().isEmpty());
+        early.setDeaths(1);
+        storage.save(early);
+        assertEquals(List.of(early.getUuid()), storage.loadPlayerPage(PlayerSort.UUID, null, second, null, 10)
+                .records().stream().map(StatsRecord::getUuid).toList());
+    }
+
+    @Test
+    void savesMomentBatchesAndReturnsTheAssignedIds() throws Exception {
+        StatsStorage storage = newStorage(Files.createDirectory(tempDir.resolve("plugin-data-moment-batch")));
+        UUID alex = UUID.randomUUID();
+        UUID bea = UUID.randomUUID();
+        List<MomentEntry> saved = storage.saveMoments(List.of(
+                new MomentEntry(null, alex, "BOSS", "First", null, null, "world", 0, 0, 0, 10, 10),
+                new MomentEntry(null, bea, "FALL", "Second", null, null, null, 0, 0, 0, 20, 20),
+                new MomentEntry(null, alex, "FALL", "Third", null, null, "world", 0, 0, 0, 30, 30)));
+
+        assertEquals(List.of("First", "Second", "Third"), saved.stream().map(MomentEntry::getTitle).toList());
+        assertEquals(saved.stream().map(MomentEntry::getId).toList(),
+                storage.loadRecentMoments(10).reversed().stream().map(MomentEntry::getId).toList());
+        assertEquals(java.util.Set.of("BOSS", "FALL"), storage.loadMomentTypes(alex));
+        assertEquals(java.util.Set.of("FALL"), storage.loadMomentTypes(bea));
+        assertTrue(storage.loadMomentTypes(UUID.randomUUID()).isEmpty());
+        assertEquals(3, storage.loadChanges(0, 10).size());
+        assertTrue(storage.saveMoments(List.of()).isEmpty());
+    }
+
+    @Test
+    void savesDeathReplayBatchesInOneTransaction() throws Exception {
+        StatsStorage storage = newStorage(Files.createDirectory(tempDir.resolve("plugin-data-death-batch")));
+        UUID alex = UUID.randomUUID();
+        List<DeathReplayEntry> deaths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            deaths.add(new DeathReplayEntry(100 + i, alex.toString(), "Alex", "FALL" + i, 0, "world", 0, 0, 0, 0,
+                    List.of(), List.of(), List.of()));
+        }
+
+        storage.saveDeathReplays(deaths.subList(0, 3));
+        storage.saveDeathReplays(deaths.subList(3, 5));
+        storage.saveDeathReplays(List.of());
+
+        assertEquals(List.of("FALL4", "FALL3", "FALL2", "FALL1", "FALL0"),
+                storage.loadDeathReplaysForPlayer(alex, 10).stream().map(DeathReplayEntry::cause).toList());
+        assertEquals(5, storage.loadChanges(0, 10).size());
+    }
+
+    @Test
+    void findsRowsBreakingRetentionLimitsAndDeletesThem() throws Exception {
+        StatsStorage storage = newStorage(Files.createDirectory(tempDir.resolve("plugin-data-retention")));
+        UUID alex = UUID.randomUUID();
+        UUID bea = UUID.randomUUID();
+        List<MomentEntry> saved = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            UUID player = i < 4 ? alex : bea;
+            saved.add(new MomentEntry(null, player, "FALL", "M" + i, null, null, "world", 0, 0, 0, 100 + i, 100 + i));
+        }
+        List<Long> ids = storage.saveMoments(saved).stream().map(MomentEntry::getId).toList();
+
+        assertEquals(ids.subList(0, 2), storage.findPrunableIds(HistoryTable.MOMENTS, 102, 0, 0, 10));
+        assertEquals(List.of(ids.get(1), ids.get(0)), storage.findPrunableIds(HistoryTable.MOMENTS, 0, 4, 0, 10));
+        assertEquals(List.of(ids.get(1), ids.get(0)), storage.findPrunableIds(HistoryTable.MOMENTS, 0, 0, 2, 10));
+        assertEquals(List.of(ids.get(0)), storage.findPrunableIds(HistoryTable.MOMENTS, 101, 0, 1, 1));
+        assertTrue(storage.findPrunableIds(HistoryTable.MOMENTS, 0, 6, 4, 10).isEmpty());
+
+        Map<Long, Object> rows = storage.loadHistoryRows(HistoryTable.MOMENTS, ids.subList(0, 2));
+        assertEquals("M0", ((MomentEntry) rows.get(ids.get(0))).getTitle());
+        assertEquals(2, storage.deleteHistoryRows(HistoryTable.MOMENTS, ids.subList(0, 2)));
+        assertEquals(4, storage.loadRecentMoments(10).size());
+        assertEquals(0, storage.deleteHistoryRows(HistoryTable.MOMENTS, ids.subList(0, 1)));
+
+        // Tombstones replace the inserts of the deleted moments and come last
+        List<ChangeEntry> changes = storage.loadChanges(0, 100);
+        assertEquals(6, changes.size());
+        assertEquals(List.of(ids.get(0).toString(), ids.get(1).toString()),
+                changes.subList(4, 6).stream().map(ChangeEntry::key).toList());
+        assertNull(changes.get(4).payload());
+        assertNull(changes.get(5).payload());
+        assertNotNull(changes.get(0).payload());
+        assertTrue(storage.findPrunableIds(HistoryTable.MOMENTS, 102, 4, 2, 10).isEmpty());
+
+        storage.saveDeathReplay(new DeathReplayEntry(5, alex.toString(), "Alex", "FALL", 0, "world", 0, 0, 0, 0,
+                List.of(), List.of(), List.of()));
+        List<Long> deaths = storage.findPrunableIds(HistoryTable.DEATH_REPLAYS, 10, 0, 0, 10);
+        assertEquals(1, deaths.size());
+        assertTrue(storage.loadHistoryRows(HistoryTable.DEATH_REPLAYS, deaths).values().iterator().next() instanceof DeathReplayEntry);
+        assertEquals(1, storage.deleteHistoryRows(HistoryTable.DEATH_REPLAYS, deaths));
+        assertTrue(storage.loadDeathReplays(10).isEmpty());
+        ChangeEntry tombstone = storage.loadChanges(0, 100).getLast();
+        assertEquals(Dataset.DEATHS, tombstone.dataset());
+        assertEquals(deaths.get(0).toString(), tombstone.key());
+        assertNull(tombstone.payload());
+    }
+
+    @Test
+    void pagesMomentsNewestFirstWithTiesBrokenById() throws Exception {
+        StatsStorage storage = newStorage();
+        UUID uuid = UUID.randomUUID();
+        for (int i = 0; i < 7; i++) {
+            storage.saveMoment(new MomentEntry(null, uuid, "BOSS", "Title" + i, null, null, "world", 0, 0, 0, 100 + i / 3, 100));
+        }
+
+        List<String> titles = new ArrayList<>();
+        MomentPage.Cursor cursor = null;
+        int pages = 0;
+        do {
+            MomentPage page = storage.queryMomentPage(uuid, "BOSS", 0, cursor, 3);
+            page.entries().forEach(entry -> titles.add(entry.getTitle()));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of("Title6", "Title5", "Title4", "Title3", "Title2", "Title1", "Title0"), titles);
+        assertEquals(3, pages);
+        assertTrue(storage.queryMomentPage(UUID.randomUUID(), null, 0, null, 3).entries().isEmpty());
+    }
+
+    @Test
+    void changeLogKeepsLatestEntryPerKeyAndCompactsByAge() throws Exception {
         Path dataDir = Files.createDirectory(tempDir.resolve("plugin-data-" + UUID.randomUUID()));
+        StatsStorage storage = newStorage(dataDir);
+        UUID alex = UUID.randomUUID();
+        UUID bea = UUID.randomUUID();
+        StatsRecord record = new StatsRecord(alex, "Alex");
+        storage.save(record);
+        record.setDeaths(2);
+        storage.save(record);
+        storage.saveMoment(new MomentEntry(null, alex, "BOSS", "Title", null, null, "world", 1, 2, 3, 10, 20));
+        storage.incrementSocialPair(alex, bea, 5, 0, 0, 0);
+        storage.incrementSocialPair(alex, bea, 7, 1, 1, 0);
+        storage.saveDeathReplay(new DeathReplayEntry(5, alex.toString(), "Alex", "FALL", 0, "world", 1, 2, 3, 4,
+                List.of(), List.of(), List.of()));
+
+        List<ChangeEntry> changes = storage.loadChanges(0, 100);
+        assertEquals(List.of(Dataset.STATS, Dataset.MOMENTS, Dataset.SOCIAL, Dataset.DEATHS),
+                changes.stream().map(ChangeEntry::dataset).toList());
+        assertTrue(changes.get(0).payload().contains("\"deaths\":2"));
+        assertTrue(changes.get(2).payload().contains("\"seconds\":12"));
+        assertEquals(alex + ":" + bea, changes.get(2).key());
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue(changes.get(i).seq() > changes.get(i - 1).seq());
+        }
+        assertEquals(changes.subList(2, 4), storage.loadChanges(changes.get(1).seq(), 100));
+
+        long last = changes.get(3).seq();
+        assertEquals(4, storage.compactChangeLog(System.currentTimeMillis() + 1));
+        assertEquals(last, storage.getChangeLogHorizon());
+        storage.save(new StatsRecord(bea, "Bea"));
+        assertTrue(storage.loadChanges(0, 100).get(0).seq() > last, "Sequence numbers are never reused");
+        storage.close();
+
+        assertEquals(last, newStorage(dataDir).getChangeLogHorizon());
+    }
+
+    private StatsStorage newStorage() throws IOException, java.sql.SQLException {
+        return newStorage(Files.createDirectory(tempDir.resolve("plugin-data-" + UUID.randomUUID())));
+    }
+
+    private StatsStorage newStorage(Path dataDir) throws IOException, java.sql.SQLException {
         Plugin plugin = mock(Plugin.class);
         when(plugin.getDataFolder()).thenReturn(dataDir.toFile());
         when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
@@ -19,12 +19,17 @@ import org.bukkit.inventory.ItemStack;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.bukkit.plugin.Plugin;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,21 +45,42 @@ class AdminPlayerLookupGuiTest {
     private GuiManager guiManager;
     private PlayerMock viewer;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws SQLException, IOException {
         server = MockBukkit.mock();
         plugin = MockBukkit.load(SMPStats.class);
         statsService = mock(StatsService.class);
-        storage = mock(StatsStorage.class);
+        // Dedicated storage so only the seeded players are visible to the lookup
+        Plugin storagePlugin = mock(Plugin.class);
+        when(storagePlugin.getDataFolder()).thenReturn(tempDir.toFile());
+        when(storagePlugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        storage = new StatsStorage(storagePlugin);
+        storage.init();
         guiManager = new GuiManager(plugin);
         viewer = server.addPlayer("AdminPlayer");
     }
 
     @AfterEach
-    void tearDown() {
+    void tearDown() throws IOException {
+        storage.close();
         MockBukkit.unmock();
     }
 
+    private void seed(List<StatsRecord> players) throws SQLException {
+        for (StatsRecord record : players) {
+            storage.save(record);
+        }
+    }
+
+    /** Lets the GUI's background load finish and its main-thread render callback run. */
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
     private List<StatsRecord> createTestPlayers(int count) {
         List<StatsRecord> players = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -71,9 +97,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testCreateInventory() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         assertNotNull(inventory);
@@ -83,9 +110,10 @@ class AdminPlayerLookupGuiTest {
     @Test
     void testHeaderShowsPlayerCount() throws SQLException {
         List<StatsRecord> players = createTestPlayers(10);
-        when(storage.loadAll()).thenReturn(players);
+        seed(players);
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         // Header should be at slot 4
@@ -102,9 +130,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testSortModeButtonExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack sortButton = inventory.getItem(0);
@@ -114,9 +143,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testSearchButtonExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack searchButton = inventory.getItem(8);
@@ -126,9 +156,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testBackButtonExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack backButton = inventory.getItem(45);
@@ -138,9 +169,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testRefreshButtonExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack refreshButton = inventory.getItem(53);
@@ -150,9 +182,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testPageIndicatorExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack pageIndicator = inventory.getItem(49);
@@ -168,9 +201,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testPlayersDisplayedAsHeads() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         // Player slots start at 10
@@ -188,9 +222,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testEmptyPlayersShowsNothing() throws SQLException {
-        when(storage.loadAll()).thenReturn(new ArrayList<>());
+        seed(new ArrayList<>());
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         // Player slots should have filler
@@ -204,9 +239,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testPaginationWithManyPlayers() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(50));
+        seed(createTestPlayers(50));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         // Next page button should exist at slot 50
@@ -217,9 +253,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testHandleSortModeClick() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         InventoryClickEvent event = new InventoryClickEvent(
                 viewer.getOpenInventory(),
@@ -230,6 +267,7 @@ class AdminPlayerLookupGuiTest {
         );
         
         gui.handleClick(event);
+        awaitLoad();
         
         // Sort button should now show different text (NAME instead of PLAYTIME)
         ItemStack sortButton = gui.getInventory().getItem(0);
@@ -241,12 +279,14 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testHandleSearchFilterClear() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         // Set a filter first
         gui.setSearchFilter("Player1");
+        awaitLoad();
         
         // Now click search to clear it
         InventoryClickEvent event = new InventoryClickEvent(
@@ -258,6 +298,7 @@ class AdminPlayerLookupGuiTest {
         );
         
         gui.handleClick(event);
+        awaitLoad();
         
         // Should refresh and show all players
         assertNotNull(gui.getInventory());
@@ -265,9 +306,11 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testHandleRefreshClick() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
+        StatsStorage spiedStorage = spy(storage);
         
-        AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, spiedStorage, viewer);
+        awaitLoad();
         
         InventoryClickEvent event = new InventoryClickEvent(
                 viewer.getOpenInventory(),
@@ -278,16 +321,18 @@ class AdminPlayerLookupGuiTest {
         );
         
         gui.handleClick(event);
+        awaitLoad();
         
-        // Should have called loadAll() again
-        verify(storage, atLeast(2)).loadAll();
+        // Should have queried the page again
+        verify(spiedStorage, atLeast(2)).loadPlayerPage(any(), any(), any(), anyInt());
     }
 
     @Test
     void testHandleNextPageClick() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(50));
+        seed(createTestPlayers(50));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         InventoryClickEvent event = new InventoryClickEvent(
                 viewer.getOpenInventory(),
@@ -298,6 +343,7 @@ class AdminPlayerLookupGuiTest {
         );
         
         gui.handleClick(event);
+        awaitLoad();
         
         // Page indicator should show page 2
         ItemStack pageIndicator = gui.getInventory().getItem(49);
@@ -309,9 +355,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testHandlePreviousPageClick() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(50));
+        seed(createTestPlayers(50));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         // First go to page 2
         InventoryClickEvent nextEvent = new InventoryClickEvent(
@@ -322,6 +369,7 @@ class AdminPlayerLookupGuiTest {
                 InventoryAction.PICKUP_ALL
         );
         gui.handleClick(nextEvent);
+        awaitLoad();
         
         // Now go back to page 1
         InventoryClickEvent prevEvent = new InventoryClickEvent(
@@ -332,6 +380,7 @@ class AdminPlayerLookupGuiTest {
                 InventoryAction.PICKUP_ALL
         );
         gui.handleClick(prevEvent);
+        awaitLoad();
         
         // Page indicator should show page 1
         ItemStack pageIndicator = gui.getInventory().getItem(49);
@@ -344,12 +393,14 @@ class AdminPlayerLookupGuiTest {
     @Test
     void testSetSearchFilter() throws SQLException {
         List<StatsRecord> players = createTestPlayers(10);
-        when(storage.loadAll()).thenReturn(players);
+        seed(players);
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         // Apply filter
         gui.setSearchFilter("Player5");
+        awaitLoad();
         
         // Should only show matching players
         // Count player heads
@@ -367,17 +418,20 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testSQLExceptionHandled() throws SQLException {
-        when(storage.loadAll()).thenThrow(new SQLException("Test error"));
+        StatsStorage failingStorage = mock(StatsStorage.class);
+        when(failingStorage.loadPlayerPage(any(), any(), any(), anyInt())).thenThrow(new SQLException("Test error"));
         
         // Should not throw
-        assertDoesNotThrow(() -> new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer));
+        assertDoesNotThrow(() -> new AdminPlayerLookupGui(plugin, guiManager, statsService, failingStorage, viewer));
+        assertDoesNotThrow(this::awaitLoad);
     }
 
     @Test
     void testOpenMethod() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         gui.open(viewer);
         
         assertNotNull(viewer.getOpenInventory());
@@ -406,9 +460,10 @@ class AdminPlayerLookupGuiTest {
         player2.setPlaytimeMillis(TimeUnit.HOURS.toMillis(100));
         players.add(player2);
         
-        when(storage.loadAll()).thenReturn(players);
+        seed(players);
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         
         // Default sort is PLAYTIME (descending), so HighPlaytime should be first
         ItemStack firstPlayer = gui.getInventory().getItem(10);
@@ -422,9 +477,10 @@ class AdminPlayerLookupGuiTest {
 
     @Test
     void testOnlineFilterButtonExists() throws SQLException {
-        when(storage.loadAll()).thenReturn(createTestPlayers(5));
+        seed(createTestPlayers(5));
         
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         Inventory inventory = gui.getInventory();
         
         ItemStack onlineFilter = inventory.getItem(46);
@@ -436,15 +492,17 @@ class AdminPlayerLookupGuiTest {
     void testClickingOfflinePlayerShowsMessage() throws SQLException {
         StatsRecord offline = new StatsRecord(UUID.randomUUID(), "OfflineGuy");
         offline.setLastJoin(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60));
-        when(storage.loadAll()).thenReturn(List.of(offline));
+        seed(List.of(offline));
 
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         guiManager.openGui(viewer, gui);
 
         InventoryClickEvent clickPlayer = new InventoryClickEvent(
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 10, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(clickPlayer);
+        awaitLoad();
 
         assertTrue(viewer.nextMessage().contains("offline player"));
     }
@@ -454,15 +512,17 @@ class AdminPlayerLookupGuiTest {
         PlayerMock online = server.addPlayer("OnlinePlayer");
         StatsRecord record = new StatsRecord(online.getUniqueId(), online.getName());
         record.setPlaytimeMillis(TimeUnit.HOURS.toMillis(5));
-        when(storage.loadAll()).thenReturn(List.of(record));
+        seed(List.of(record));
 
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
         guiManager.openGui(viewer, gui);
 
         InventoryClickEvent clickPlayer = new InventoryClickEvent(
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 10, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(clickPlayer);
+        awaitLoad();
 
         assertTrue(viewer.getOpenInventory().getTopInventory().getHolder() instanceof PlayerStatsGui);
     }
@@ -487,9 +547,10 @@ class AdminPlayerLookupGuiTest {
         mostDeaths.setDeaths(50);
         mostDeaths.setLastJoin(System.currentTimeMillis());
 
-        when(storage.loadAll()).thenReturn(List.of(lowKills, highKills, mostDeaths));
+        seed(List.of(lowKills, highKills, mostDeaths));
 
         AdminPlayerLookupGui gui = new AdminPlayerLookupGui(plugin, guiManager, statsService, storage, viewer);
+        awaitLoad();
 
         // Cycle to KILLS sort mode
         for (int i = 0; i < 3; i++) {
@@ -497,6 +558,7 @@ class AdminPlayerLookupGuiTest {
                     viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                     0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
             gui.handleClick(event);
+            awaitLoad();
         }
         ItemStack firstByKills = gui.getInventory().getItem(10);
         assertNotNull(firstByKills);
@@ -508,6 +570,7 @@ class AdminPlayerLookupGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(toDeaths);
+        awaitLoad();
 
         ItemStack firstByDeaths = gui.getInventory().getItem(10);
         assertNotNull(firstByDeaths);
@@ -0,0 +1,92 @@
+package de.nurrobin.smpstats.gui;
+
+import de.nurrobin.smpstats.SMPStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncGuiLoaderTest {
+    private ServerMock server;
+    private SMPStats plugin;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(SMPStats.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
+    @Test
+    void deliversResultOnMainThread() {
+        AsyncGuiLoader loader = new AsyncGuiLoader(plugin);
+        AtomicReference<String> result = new AtomicReference<>();
+        AtomicReference<Boolean> onMainThread = new AtomicReference<>();
+
+        loader.load(() -> "done", value -> {
+            result.set(value);
+            onMainThread.set(server.isPrimaryThread());
+        }, e -> fail(e));
+        awaitLoad();
+
+        assertEquals("done", result.get());
+        assertTrue(onMainThread.get());
+    }
+
+    @Test
+    void deliversFailureToErrorCallback() {
+        AsyncGuiLoader loader = new AsyncGuiLoader(plugin);
+        AtomicReference<Exception> error = new AtomicReference<>();
+
+        loader.load(() -> {
+            throw new SQLException("boom");
+        }, value -> fail("should not load"), error::set);
+        awaitLoad();
+
+        assertInstanceOf(SQLException.class, error.get());
+    }
+
+    @Test
+    void cancelDropsPendingResult() {
+        AsyncGuiLoader loader = new AsyncGuiLoader(plugin);
+        AtomicReference<String> result = new AtomicReference<>();
+
+        loader.load(() -> "late", result::set, e -> fail(e));
+        loader.cancel();
+        awaitLoad();
+
+        assertNull(result.get());
+        assertTrue(loader.isCancelled());
+
+        loader.load(() -> "ignored", result::set, e -> fail(e));
+        awaitLoad();
+        assertNull(result.get());
+    }
+
+    @Test
+    void newerLoadSupersedesOlderOne() {
+        AsyncGuiLoader loader = new AsyncGuiLoader(plugin);
+        AtomicReference<String> result = new AtomicReference<>();
+
+        loader.load(() -> "old", result::set, e -> fail(e));
+        loader.load(() -> "new", result::set, e -> fail(e));
+        awaitLoad();
+
+        assertEquals("new", result.get());
+    }
+}
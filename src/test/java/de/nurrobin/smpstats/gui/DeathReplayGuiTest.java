@@ -48,6 +48,12 @@ class DeathReplayGuiTest {
         MockBukkit.unmock();
     }
 
+    /** Lets the GUI's background load finish and its main-thread render callback run. */
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
     @Test
     void createsInventoryWithCorrectSize() {
         Optional<StatsStorage> storageOpt = plugin.getStatsStorage();
@@ -55,6 +61,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         assertNotNull(inventory);
@@ -68,6 +75,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -84,6 +92,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -100,6 +109,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -116,6 +126,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -132,6 +143,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -148,6 +160,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertInstanceOf(InventoryGui.class, gui);
     }
@@ -159,6 +172,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertDoesNotThrow(() -> gui.open(viewer));
     }
@@ -170,6 +184,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -208,6 +223,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -231,6 +247,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId(), 1);
+        awaitLoad();
         
         assertNotNull(gui);
         assertNotNull(gui.getInventory());
@@ -260,6 +277,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -293,6 +311,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -330,6 +349,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -363,6 +383,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         ItemStack death = inventory.getItem(10);
@@ -393,6 +414,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         ItemStack death = inventory.getItem(10);
@@ -423,6 +445,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         ItemStack death = inventory.getItem(10);
@@ -453,6 +476,7 @@ class DeathReplayGuiTest {
         
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         ItemStack death = inventory.getItem(10);
@@ -489,6 +513,7 @@ class DeathReplayGuiTest {
         // Viewer opens other player's death history
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, otherPlayer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -521,6 +546,7 @@ class DeathReplayGuiTest {
 
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
         assertNotNull(gui.getInventory().getItem(50), "Next page button should be present");
 
@@ -528,12 +554,14 @@ class DeathReplayGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 50, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(next);
+        awaitLoad();
         assertTrue(viewer.getOpenInventory().getTopInventory().getHolder() instanceof DeathReplayGui);
 
         InventoryClickEvent prev = new InventoryClickEvent(
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 48, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         ((DeathReplayGui) viewer.getOpenInventory().getTopInventory().getHolder()).handleClick(prev);
+        awaitLoad();
         assertTrue(viewer.getOpenInventory().getTopInventory().getHolder() instanceof DeathReplayGui);
     }
 
@@ -557,6 +585,7 @@ class DeathReplayGuiTest {
 
         DeathReplayGui gui = new DeathReplayGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         ItemStack deathItem = gui.getInventory().getItem(10);
         assertNotNull(deathItem);
 
@@ -132,4 +132,33 @@ class GuiManagerTest {
 
         verify(mockGui, never()).handleClick(clickEvent);
     }
+
+    @Test
+    void testInventoryCloseNotifiesGui() {
+        InventoryGui mockGui = mock(InventoryGui.class);
+        Inventory mockInventory = server.createInventory(null, 9);
+        when(mockGui.getInventory()).thenReturn(mockInventory);
+
+        guiManager.openGui(player, mockGui);
+
+        org.bukkit.event.inventory.InventoryCloseEvent event = mock(org.bukkit.event.inventory.InventoryCloseEvent.class);
+        when(event.getPlayer()).thenReturn(player);
+        when(event.getInventory()).thenReturn(mockInventory);
+
+        guiManager.onInventoryClose(event);
+
+        verify(mockGui).onClose();
+    }
+
+    @Test
+    void testOpeningAnotherGuiClosesPrevious() {
+        InventoryGui first = mock(InventoryGui.class);
+        InventoryGui second = mock(InventoryGui.class);
+
+        guiManager.openGui(player, first);
+        guiManager.openGui(player, second);
+
+        verify(first).onClose();
+        verify(second, never()).onClose();
+    }
 }
@@ -53,9 +53,11 @@ class PersonalHeatmapGuiTest {
         
         // Configure plugin mocks
         when(plugin.getHeatmapService()).thenReturn(Optional.of(heatmapService));
+        // Background grid loads are only scheduled for enabled plugins
+        when(plugin.isEnabled()).thenReturn(true);
         
         // Configure heatmap service to return empty bins by default
-        when(heatmapService.generateHeatmap(anyString(), anyString(), anyLong(), anyLong(), anyDouble()))
+        when(heatmapService.loadPlayerChunkWindow(any(UUID.class), anyString(), anyString(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(new ArrayList<>());
     }
 
@@ -64,10 +66,17 @@ class PersonalHeatmapGuiTest {
         MockBukkit.unmock();
     }
 
+    /** Lets the GUI's background load finish and its main-thread render callback run. */
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
     @Test
     void testOpen_createsInventoryWithCorrectSize() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         Inventory inv = gui.getInventory();
         assertNotNull(inv);
@@ -78,6 +87,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_hasActivityTypeSelectorAtSlot0() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         ItemStack item = gui.getInventory().getItem(0);
         assertNotNull(item);
@@ -88,6 +98,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_hasWorldSelectorAtSlot8() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         ItemStack item = gui.getInventory().getItem(8);
         assertNotNull(item);
@@ -98,6 +109,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_hasBackButtonAtSlot49() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         ItemStack item = gui.getInventory().getItem(49);
         assertNotNull(item);
@@ -108,6 +120,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_rendersGridWithGrayGlassWhenNoData() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // Check first row of grid (slots 10-16)
         for (int col = 0; col < 7; col++) {
@@ -124,6 +137,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_rendersPlayerChunkWithPlayerHead() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // The player's current chunk should be marked with a player head
         // Center chunk is at grid position (3, 2) -> slot 10 + 2*9 + 3 = 31
@@ -136,6 +150,7 @@ class PersonalHeatmapGuiTest {
     void testOpen_rendersLegendInBottomRow() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // Legend slots: 46, 47, 48, 50, 51, 52, 53
         int[] legendSlots = {46, 47, 48, 50, 51, 52, 53};
@@ -151,6 +166,7 @@ class PersonalHeatmapGuiTest {
     void testHandleClick_cyclesActivityTypeOnSlot0Click() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // Get initial activity type from lore
         ItemStack initialItem = gui.getInventory().getItem(0);
@@ -159,34 +175,39 @@ class PersonalHeatmapGuiTest {
         // Simulate click on slot 0
         InventoryClickEvent event = createClickEvent(gui.getInventory(), 0);
         gui.handleClick(event);
+        awaitLoad();
         
         assertTrue(event.isCancelled());
         // After click, activity should have changed - service should be called with new type
-        verify(heatmapService, atLeast(2)).generateHeatmap(anyString(), anyString(), anyLong(), anyLong(), anyDouble());
+        verify(heatmapService, atLeast(2)).loadPlayerChunkWindow(any(UUID.class), anyString(), anyString(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt());
     }
 
     @Test
     void testHandleClick_cyclesWorldOnSlot8Click() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // Simulate click on slot 8
         InventoryClickEvent event = createClickEvent(gui.getInventory(), 8);
         gui.handleClick(event);
+        awaitLoad();
         
         assertTrue(event.isCancelled());
         // World should have cycled - heatmap service should be called again
-        verify(heatmapService, atLeast(2)).generateHeatmap(anyString(), anyString(), anyLong(), anyLong(), anyDouble());
+        verify(heatmapService, atLeast(2)).loadPlayerChunkWindow(any(UUID.class), anyString(), anyString(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt());
     }
 
     @Test
     void testHandleClick_cancelsClickOnGridSlots() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // Click on grid slot (e.g., slot 15)
         InventoryClickEvent event = createClickEvent(gui.getInventory(), 15);
         gui.handleClick(event);
+        awaitLoad();
         
         assertTrue(event.isCancelled());
     }
@@ -199,11 +220,12 @@ class PersonalHeatmapGuiTest {
         int viewerChunkZ = viewer.getLocation().getBlockZ() >> 4;
         bins.add(new HeatmapBin("POSITION", "world", viewerChunkX + 1, viewerChunkZ, 16, 50.0));
         
-        when(heatmapService.generateHeatmap(eq("POSITION"), anyString(), anyLong(), anyLong(), anyDouble()))
+        when(heatmapService.loadPlayerChunkWindow(eq(targetUuid), eq("POSITION"), anyString(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(bins);
         
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         // The chunk with data should have a colored glass pane (not gray)
         // The chunk at (viewerChunkX + 1, viewerChunkZ) is at grid position (4, 2) -> slot 10 + 2*9 + 4 = 32
@@ -216,6 +238,7 @@ class PersonalHeatmapGuiTest {
     void testGetInventory_returnsSameInventory() {
         PersonalHeatmapGui gui = new PersonalHeatmapGui(plugin, guiManager, statsService, viewer, targetUuid, "TestPlayer");
         gui.open(viewer);
+        awaitLoad();
         
         Inventory inv1 = gui.getInventory();
         Inventory inv2 = gui.getInventory();
@@ -45,6 +45,12 @@ class SocialPartnersGuiTest {
         MockBukkit.unmock();
     }
 
+    /** Lets the GUI's background load finish and its main-thread render callback run. */
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
     @Test
     void createsInventoryWithCorrectSize() {
         Optional<StatsStorage> storageOpt = plugin.getStatsStorage();
@@ -52,6 +58,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         assertNotNull(inventory);
@@ -65,6 +72,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -81,6 +89,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -97,6 +106,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -113,6 +123,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -129,6 +140,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -145,6 +157,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -161,6 +174,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertInstanceOf(InventoryGui.class, gui);
     }
@@ -172,6 +186,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertDoesNotThrow(() -> gui.open(viewer));
     }
@@ -183,6 +198,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
         
         // Click on Back button (slot 45)
@@ -190,6 +206,7 @@ class SocialPartnersGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 45, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(event);
+        awaitLoad();
         
         // Should return to PlayerStatsGui
         assertTrue(viewer.getOpenInventory().getTopInventory().getHolder() instanceof PlayerStatsGui);
@@ -202,6 +219,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
         
         // Initial filter should be ALL (HOPPER)
@@ -215,6 +233,7 @@ class SocialPartnersGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 49, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(event);
+        awaitLoad();
         
         // Filter changes to ONLINE (ENDER_EYE)
         ItemStack filterAfter = inventory.getItem(49);
@@ -239,6 +258,7 @@ class SocialPartnersGuiTest {
         
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
         
         // Click filter button 3 times to cycle through all modes (slot 49)
@@ -266,6 +286,7 @@ class SocialPartnersGuiTest {
 
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
 
         int initialHeads = countHeads(gui.getInventory());
@@ -275,12 +296,14 @@ class SocialPartnersGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 49, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(filterOnline);
+        awaitLoad();
         assertEquals(1, countHeads(gui.getInventory()), "Online filter should hide offline partners");
 
         InventoryClickEvent filterTop = new InventoryClickEvent(
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 49, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(filterTop);
+        awaitLoad();
         assertEquals(1, countHeads(gui.getInventory()), "Top partners filter keeps best friend only");
     }
 
@@ -292,6 +315,7 @@ class SocialPartnersGuiTest {
 
         SocialPartnersGui gui = new SocialPartnersGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         guiManager.openGui(viewer, gui);
 
         int partnerSlot = findFirstHeadSlot(gui.getInventory());
@@ -301,6 +325,7 @@ class SocialPartnersGuiTest {
                 viewer.getOpenInventory(), InventoryType.SlotType.CONTAINER,
                 partnerSlot, ClickType.LEFT, InventoryAction.PICKUP_ALL);
         gui.handleClick(clickPartner);
+        awaitLoad();
 
         String message = viewer.nextMessage();
         assertNotNull(message, "Clicking an offline partner should send feedback");
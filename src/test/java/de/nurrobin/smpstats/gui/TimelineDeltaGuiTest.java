@@ -49,6 +49,12 @@ class TimelineDeltaGuiTest {
         MockBukkit.unmock();
     }
 
+    /** Lets the GUI's background load finish and its main-thread render callback run. */
+    private void awaitLoad() {
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+    }
+
     @Test
     void createsInventoryWithCorrectSize() {
         Optional<StatsStorage> storageOpt = plugin.getStatsStorage();
@@ -56,6 +62,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         assertNotNull(inventory);
@@ -69,6 +76,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -85,6 +93,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -101,6 +110,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -117,6 +127,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -133,6 +144,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -149,6 +161,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -165,6 +178,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertInstanceOf(InventoryGui.class, gui);
     }
@@ -176,6 +190,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         assertDoesNotThrow(() -> gui.open(viewer));
     }
@@ -187,6 +202,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -205,6 +221,7 @@ class TimelineDeltaGuiTest {
         
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         
         Inventory inventory = gui.getInventory();
         
@@ -261,6 +278,7 @@ class TimelineDeltaGuiTest {
 
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storage, viewer, viewer.getUniqueId());
+        awaitLoad();
         Inventory inventory = gui.getInventory();
 
         // Playtime row should show an improvement (lime glass and hours formatted)
@@ -294,6 +312,7 @@ class TimelineDeltaGuiTest {
 
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         gui.open(viewer);
 
         InventoryClickEvent refresh = new InventoryClickEvent(
@@ -311,6 +330,7 @@ class TimelineDeltaGuiTest {
 
         TimelineDeltaGui gui = new TimelineDeltaGui(plugin, guiManager, statsService,
                 storageOpt.get(), viewer, viewer.getUniqueId());
+        awaitLoad();
         gui.open(viewer);
 
         InventoryClickEvent back = new InventoryClickEvent(
@@ -318,6 +338,7 @@ class TimelineDeltaGuiTest {
                 49, ClickType.LEFT, InventoryAction.PICKUP_ALL);
 
         gui.handleClick(back);
+        awaitLoad();
         assertNotEquals(gui.getInventory(), viewer.getOpenInventory().getTopInventory(), "Back should close the GUI");
     }
 }
@@ -1,21 +1,28 @@
 package de.nurrobin.smpstats.heatmap;
 
 import de.nurrobin.smpstats.Settings;
+import de.nurrobin.smpstats.database.HeatmapChunkTotal;
 import de.nurrobin.smpstats.database.HeatmapEvent;
+import de.nurrobin.smpstats.database.HeatmapPlayerBin;
 import de.nurrobin.smpstats.database.StatsStorage;
 import de.nurrobin.smpstats.skills.SkillWeights;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -45,6 +52,32 @@ class HeatmapServiceTest {
         verify(storage).incrementHotspot("BREAK", "spawn", "world", 1.0, 0L);
     }
 
+    @Test
+    void aggregatesPlayerEventsIntoHourlyChunkBins() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        HeatmapService service = new HeatmapService(plugin, storage, settings(true, List.of()));
+
+        World world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+        UUID player = UUID.randomUUID();
+        service.track("POSITION", new Location(world, 32, 64, 48), player);
+        service.track("POSITION", new Location(world, 40, 64, 60), player); // same chunk (2,3)
+        service.track("POSITION", new Location(world, -1, 64, 0), player);  // chunk (-1,0)
+        service.track("POSITION", new Location(world, 32, 64, 48));         // server-wide only
+        service.shutdown();
+
+        ArgumentCaptor<List<HeatmapPlayerBin>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storage).addHeatmapPlayerBins(captor.capture());
+        Map<String, Double> byChunk = new HashMap<>();
+        for (HeatmapPlayerBin bin : captor.getValue()) {
+            assertEquals(player, bin.player());
+            byChunk.put(bin.chunkX() + "," + bin.chunkZ(), bin.value());
+        }
+        assertEquals(Map.of("2,3", 2.0, "-1,0", 1.0), byChunk);
+    }
+
     @Test
     void ignoresWhenDisabledOrInvalidLocation() throws Exception {
         Plugin plugin = mock(Plugin.class);
@@ -95,6 +128,27 @@ class HeatmapServiceTest {
         assertEquals(5.0, bins.get(0).getCount(), 0.1);
     }
 
+    @Test
+    void loadsChunkWindowWithoutDecay() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.getHeatmapChunkTotals("BREAK", "world", -3, -2, 3, 2, 10L, 20L))
+                .thenReturn(List.of(new HeatmapChunkTotal(-1, 2, 7.0)));
+        HeatmapService service = new HeatmapService(plugin, storage, settings(true, List.of()));
+
+        List<HeatmapBin> bins = service.loadChunkWindow("BREAK", "world", 10L, 20L, -3, -2, 3, 2);
+
+        assertEquals(1, bins.size());
+        assertEquals(-1, bins.get(0).getChunkX());
+        assertEquals(2, bins.get(0).getChunkZ());
+        assertEquals(7.0, bins.get(0).getCount());
+
+        when(storage.getHeatmapChunkTotals(anyString(), anyString(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong()))
+                .thenThrow(new java.sql.SQLException("fail"));
+        assertTrue(service.loadChunkWindow("BREAK", "world", 10L, 20L, -3, -2, 3, 2).isEmpty());
+    }
+
     @Test
     void updatesSettings() throws Exception {
         Plugin plugin = mock(Plugin.class);
@@ -6,6 +6,8 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.junit.jupiter.api.Test;
 
+import java.util.UUID;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,15 +25,21 @@ class HeatmapListenerTest {
         when(breakEvent.getBlock()).thenReturn(block);
         when(block.getLocation()).thenReturn(breakLoc);
         when(block.getType()).thenReturn(org.bukkit.Material.STONE);
+        org.bukkit.entity.Player miner = mock(org.bukkit.entity.Player.class);
+        UUID minerId = UUID.randomUUID();
+        when(miner.getUniqueId()).thenReturn(minerId);
+        when(breakEvent.getPlayer()).thenReturn(miner);
         listener.onBlockBreak(breakEvent);
-        verify(service).track("MINING", breakLoc);
+        verify(service).track("MINING", breakLoc, minerId);
 
         PlayerDeathEvent deathEvent = mock(PlayerDeathEvent.class);
         Location deathLoc = mock(Location.class);
+        UUID victimId = UUID.randomUUID();
         when(deathEvent.getEntity()).thenReturn(mock(org.bukkit.entity.Player.class));
         when(deathEvent.getEntity().getLocation()).thenReturn(deathLoc);
+        when(deathEvent.getEntity().getUniqueId()).thenReturn(victimId);
         listener.onDeath(deathEvent);
-        verify(service).track("DEATH", deathLoc);
+        verify(service).track("DEATH", deathLoc, victimId);
     }
 
     @Test
@@ -46,31 +54,37 @@ class HeatmapListenerTest {
         when(oreEvent.getBlock()).thenReturn(oreBlock);
         when(oreBlock.getLocation()).thenReturn(oreLoc);
         when(oreBlock.getType()).thenReturn(org.bukkit.Material.DIAMOND_ORE);
+        org.bukkit.entity.Player miner = mock(org.bukkit.entity.Player.class);
+        UUID minerId = UUID.randomUUID();
+        when(miner.getUniqueId()).thenReturn(minerId);
+        when(oreEvent.getPlayer()).thenReturn(miner);
 
         listener.onBlockBreak(oreEvent);
-        verify(service).track("MINING", oreLoc);
-        verify(service).track("MINING_DIAMOND_ORE", oreLoc);
+        verify(service).track("MINING", oreLoc, minerId);
+        verify(service).track("MINING_DIAMOND_ORE", oreLoc, minerId);
 
         // Test Ancient Debris
         when(oreBlock.getType()).thenReturn(org.bukkit.Material.ANCIENT_DEBRIS);
         listener.onBlockBreak(oreEvent);
-        verify(service).track("MINING_ANCIENT_DEBRIS", oreLoc);
+        verify(service).track("MINING_ANCIENT_DEBRIS", oreLoc, minerId);
 
         // Test Damage (Player)
         org.bukkit.event.entity.EntityDamageEvent damageEvent = mock(org.bukkit.event.entity.EntityDamageEvent.class);
         org.bukkit.entity.Player player = mock(org.bukkit.entity.Player.class);
         Location playerLoc = mock(Location.class);
+        UUID playerId = UUID.randomUUID();
         when(damageEvent.getEntity()).thenReturn(player);
         when(player.getLocation()).thenReturn(playerLoc);
+        when(player.getUniqueId()).thenReturn(playerId);
 
         listener.onDamage(damageEvent);
-        verify(service).track("DAMAGE", playerLoc);
+        verify(service).track("DAMAGE", playerLoc, playerId);
 
         // Test Damage (Non-Player)
         org.bukkit.entity.Entity entity = mock(org.bukkit.entity.Entity.class);
         when(damageEvent.getEntity()).thenReturn(entity);
         listener.onDamage(damageEvent);
         // Should not track again (verify count is still 1)
-        verify(service).track("DAMAGE", playerLoc);
+        verify(service).track("DAMAGE", playerLoc, playerId);
     }
 }
@@ -16,6 +16,8 @@ import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.junit.jupiter.api.Test;
 
 import java.util.UUID;
@@ -85,6 +87,25 @@ class MomentListenerTest {
         verify(momentService).onItemGain(player, Material.NETHERITE_INGOT, loc);
     }
 
+    @Test
+    void preloadsFirstOnlyStateOnJoinAndDropsItOnQuit() {
+        MomentService momentService = mock(MomentService.class);
+        MomentListener listener = new MomentListener(momentService, null);
+        Player player = mock(Player.class);
+        UUID uuid = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(uuid);
+
+        PlayerJoinEvent join = mock(PlayerJoinEvent.class);
+        when(join.getPlayer()).thenReturn(player);
+        listener.onJoin(join);
+        verify(momentService).preloadPlayer(uuid);
+
+        PlayerQuitEvent quit = mock(PlayerQuitEvent.class);
+        when(quit.getPlayer()).thenReturn(player);
+        listener.onQuit(quit);
+        verify(momentService).forgetPlayer(uuid);
+    }
+
     @Test
     void detectsSelfInflictedExplosionOnDeath() {
         MomentService momentService = mock(MomentService.class);
@@ -0,0 +1,48 @@
+package de.nurrobin.smpstats.moments;
+
+import de.nurrobin.smpstats.moments.MomentDefinition.TriggerType;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MomentDispatchTableTest {
+
+    @Test
+    void indexesMaterialTriggersByMaterialKeepingConfigurationOrder() {
+        MomentDefinition diamonds = definition("diamonds", TriggerType.BLOCK_BREAK, Set.of(Material.DIAMOND_ORE, Material.DEEPSLATE_DIAMOND_ORE));
+        MomentDefinition anyBlock = definition("any", TriggerType.BLOCK_BREAK, Set.of());
+        MomentDefinition debris = definition("debris", TriggerType.BLOCK_BREAK, Set.of(Material.ANCIENT_DEBRIS));
+        MomentDefinition totem = definition("totem", TriggerType.ITEM_GAIN, Set.of(Material.TOTEM_OF_UNDYING));
+
+        MomentDispatchTable table = MomentDispatchTable.compile(List.of(diamonds, anyBlock, debris, totem));
+
+        assertEquals(List.of(diamonds, anyBlock), table.forMaterial(TriggerType.BLOCK_BREAK, Material.DIAMOND_ORE));
+        assertEquals(List.of(anyBlock, debris), table.forMaterial(TriggerType.BLOCK_BREAK, Material.ANCIENT_DEBRIS));
+        assertEquals(List.of(anyBlock), table.forMaterial(TriggerType.BLOCK_BREAK, Material.STONE));
+        assertEquals(List.of(totem), table.forMaterial(TriggerType.ITEM_GAIN, Material.TOTEM_OF_UNDYING));
+        assertTrue(table.forMaterial(TriggerType.ITEM_GAIN, Material.DIRT).isEmpty());
+    }
+
+    @Test
+    void groupsDeathTriggersAndLeavesUnusedTriggersEmpty() {
+        MomentDefinition fall = definition("fall", TriggerType.DEATH_FALL, Set.of());
+        MomentDefinition boss = definition("boss", TriggerType.BOSS_KILL, Set.of());
+        MomentDefinition first = definition("first", TriggerType.FIRST_DEATH, Set.of());
+
+        MomentDispatchTable table = MomentDispatchTable.compile(List.of(fall, boss, first));
+
+        assertEquals(List.of(fall, first), table.forDeath());
+        assertEquals(List.of(boss), table.forTrigger(TriggerType.BOSS_KILL));
+        assertTrue(table.forTrigger(TriggerType.DAMAGE_LOW_HP).isEmpty());
+        assertTrue(table.forMaterial(TriggerType.BLOCK_BREAK, Material.STONE).isEmpty());
+    }
+
+    private static MomentDefinition definition(String id, TriggerType trigger, Set<Material> materials) {
+        return new MomentDefinition(id, trigger, id, id, 0, false, materials, 0, 0, Set.of(), false, Set.of());
+    }
+}
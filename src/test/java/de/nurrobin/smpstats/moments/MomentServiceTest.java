@@ -13,7 +13,6 @@ import org.mockito.ArgumentCaptor;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -50,9 +49,9 @@ class MomentServiceTest {
             service.shutdown(); // flushes window
         }
 
-        ArgumentCaptor<MomentEntry> captor = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage).saveMoment(captor.capture());
-        MomentEntry entry = captor.getValue();
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(1, saved.size());
+        MomentEntry entry = saved.get(0);
         assertEquals("diamond", entry.getType());
         assertTrue(entry.getDetail().contains("2"));
         assertTrue(entry.getPayload().contains("count"));
@@ -63,7 +62,7 @@ class MomentServiceTest {
         Plugin plugin = mock(Plugin.class);
         when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
         StatsStorage storage = mock(StatsStorage.class);
-        when(storage.hasMoment(any(), any())).thenReturn(false).thenReturn(true); // only first death allowed
+        when(storage.loadMomentTypes(any())).thenReturn(Set.of());
 
         MomentDefinition firstDeath = new MomentDefinition("first", MomentDefinition.TriggerType.FIRST_DEATH,
                 "First", "First", 0, true, Set.of(), 0, 0, Set.of(), false, Set.of());
@@ -74,22 +73,143 @@ class MomentServiceTest {
         MomentService service = new MomentService(plugin, storage, settings);
 
         Player player = mock(Player.class);
-        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        UUID uuid = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(uuid);
         when(player.getName()).thenReturn("Alex");
         when(player.getHealth()).thenReturn(3.0);
         Location loc = mock(Location.class);
         when(player.getLocation()).thenReturn(loc);
 
+        org.bukkit.scheduler.BukkitScheduler scheduler = mock(org.bukkit.scheduler.BukkitScheduler.class);
+        when(scheduler.runTaskAsynchronously(eq(plugin), any(Runnable.class))).thenAnswer(inv -> {
+            ((Runnable) inv.getArgument(1)).run();
+            return mock(org.bukkit.scheduler.BukkitTask.class);
+        });
+        try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
+            bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
+            service.preloadPlayer(uuid);
+        }
         service.onDeath(player, loc, 0, "LAVA", false);
         service.onDeath(player, loc, 0, "LAVA", false); // second call should be ignored by first_only
-        ArgumentCaptor<MomentEntry> deaths = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage, times(1)).saveMoment(deaths.capture());
-        assertEquals("First", deaths.getValue().getTitle());
+        service.writePending();
+        List<MomentEntry> deaths = savedMoments(storage);
+        assertEquals(1, deaths.size());
+        verify(storage, times(1)).loadMomentTypes(uuid);
+        verify(storage, never()).hasMoment(any(), any());
+        assertEquals("First", deaths.get(0).getTitle());
 
         service.onDamage(player, 1.5, "LAVA");
-        ArgumentCaptor<MomentEntry> moments = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage, times(2)).saveMoment(moments.capture());
-        assertTrue(moments.getAllValues().get(1).getDetail().contains("HP"));
+        service.writePending();
+        List<MomentEntry> moments = savedMoments(storage);
+        assertEquals(2, moments.size());
+        assertTrue(moments.get(1).getDetail().contains("HP"));
+    }
+
+    @Test
+    void firstOnlyChecksFallBackToAnAsyncLoadAndRespectStoredMoments() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        UUID veteran = UUID.randomUUID();
+        UUID newcomer = UUID.randomUUID();
+        when(storage.loadMomentTypes(veteran)).thenReturn(Set.of("first"));
+        when(storage.loadMomentTypes(newcomer)).thenReturn(Set.of());
+
+        MomentDefinition firstDeath = new MomentDefinition("first", MomentDefinition.TriggerType.FIRST_DEATH,
+                "First", "First", 0, true, Set.of(), 0, 0, Set.of(), false, Set.of());
+        MomentService service = new MomentService(plugin, storage, settings(List.of(firstDeath)));
+
+        Player oldHand = mock(Player.class);
+        when(oldHand.getUniqueId()).thenReturn(veteran);
+        when(oldHand.getName()).thenReturn("Alex");
+        Player fresh = mock(Player.class);
+        when(fresh.getUniqueId()).thenReturn(newcomer);
+        when(fresh.getName()).thenReturn("Steve");
+        Location loc = mock(Location.class);
+
+        org.bukkit.scheduler.BukkitScheduler scheduler = mock(org.bukkit.scheduler.BukkitScheduler.class);
+        List<Runnable> async = new java.util.ArrayList<>();
+        when(scheduler.runTaskAsynchronously(eq(plugin), any(Runnable.class))).thenAnswer(inv -> {
+            async.add(inv.getArgument(1));
+            return mock(org.bukkit.scheduler.BukkitTask.class);
+        });
+        try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
+            bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
+
+            // Neither player was preloaded: the death path only schedules work
+            service.onDeath(oldHand, loc, 0, "LAVA", false);
+            service.onDeath(fresh, loc, 0, "LAVA", false);
+            verify(storage, never()).loadMomentTypes(any());
+
+            async.forEach(Runnable::run);
+        }
+        service.writePending();
+
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(1, saved.size());
+        assertEquals(newcomer, saved.get(0).getPlayerId());
+
+        // Both are cached now, so further deaths neither query nor emit
+        service.onDeath(oldHand, loc, 0, "LAVA", false);
+        service.onDeath(fresh, loc, 0, "LAVA", false);
+        service.writePending();
+        assertEquals(1, savedMoments(storage).size());
+        verify(storage, times(1)).loadMomentTypes(veteran);
+        verify(storage, times(1)).loadMomentTypes(newcomer);
+    }
+
+    @Test
+    void firstOnlyLoadsNeitherLeakNorSwallowMoments() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        UUID leaver = UUID.randomUUID();
+        UUID unlucky = UUID.randomUUID();
+        UUID veteran = UUID.randomUUID();
+        when(storage.loadMomentTypes(leaver)).thenReturn(Set.of());
+        when(storage.loadMomentTypes(unlucky)).thenThrow(new java.sql.SQLException("locked"));
+        when(storage.loadMomentTypes(veteran)).thenThrow(new java.sql.SQLException("locked"));
+        when(storage.hasMoment(veteran, "first")).thenReturn(true);
+
+        MomentDefinition firstDeath = new MomentDefinition("first", MomentDefinition.TriggerType.FIRST_DEATH,
+                "First", "First", 0, true, Set.of(), 0, 0, Set.of(), false, Set.of());
+        MomentService service = new MomentService(plugin, storage, settings(List.of(firstDeath)));
+        Location loc = mock(Location.class);
+
+        org.bukkit.scheduler.BukkitScheduler scheduler = mock(org.bukkit.scheduler.BukkitScheduler.class);
+        List<Runnable> async = new java.util.ArrayList<>();
+        when(scheduler.runTaskAsynchronously(eq(plugin), any(Runnable.class))).thenAnswer(inv -> {
+            async.add(inv.getArgument(1));
+            return mock(org.bukkit.scheduler.BukkitTask.class);
+        });
+        try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
+            bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
+
+            // The preload finishes after the player left: nothing is cached for them
+            service.preloadPlayer(leaver);
+            service.forgetPlayer(leaver);
+            async.remove(0).run();
+            Player gone = mock(Player.class);
+            when(gone.getUniqueId()).thenReturn(leaver);
+            service.onDeath(gone, loc, 0, "LAVA", false);
+            assertEquals(1, async.size(), "an uncached player is loaded again");
+            async.clear();
+
+            // Failed loads leave the decision to storage
+            for (UUID uuid : List.of(unlucky, veteran)) {
+                Player player = mock(Player.class);
+                when(player.getUniqueId()).thenReturn(uuid);
+                when(player.getName()).thenReturn("Alex");
+                service.onDeath(player, loc, 0, "LAVA", false);
+            }
+            when(storage.hasMoment(unlucky, "first")).thenThrow(new java.sql.SQLException("locked"));
+            async.forEach(Runnable::run);
+        }
+        service.writePending();
+
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(1, saved.size());
+        assertEquals(unlucky, saved.get(0).getPlayerId());
     }
 
     @Test
@@ -114,26 +234,29 @@ class MomentServiceTest {
         org.bukkit.scheduler.BukkitTask task = mock(org.bukkit.scheduler.BukkitTask.class);
         when(task.getTaskId()).thenReturn(7);
 
-        AtomicReference<Runnable> scheduled = new AtomicReference<>();
+        List<Runnable> timers = new java.util.ArrayList<>();
         try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
             bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
             bukkit.when(() -> org.bukkit.Bukkit.getPlayer(uuid)).thenReturn(player);
             when(scheduler.runTaskTimerAsynchronously(eq(plugin), any(Runnable.class), anyLong(), anyLong()))
                     .thenAnswer(invocation -> {
-                        scheduled.set(invocation.getArgument(1));
+                        timers.add(invocation.getArgument(1));
                         return task;
                     });
 
             service.start();
             service.onItemGain(player, Material.DIAMOND, loc);
 
-            scheduled.get().run(); // flushes because mergeSeconds = 0
+            assertEquals(2, timers.size());
+            timers.get(0).run(); // flushes because mergeSeconds = 0
+            timers.get(1).run(); // writes the queued moment
+            verify(storage).saveMoments(anyList());
             service.shutdown();
         }
 
-        ArgumentCaptor<MomentEntry> captor = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage).saveMoment(captor.capture());
-        MomentEntry entry = captor.getValue();
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(1, saved.size());
+        MomentEntry entry = saved.get(0);
         assertTrue(entry.getDetail().contains("2") || entry.getDetail().contains("1"));
     }
 
@@ -165,13 +288,112 @@ class MomentServiceTest {
         when(storage.loadMomentsSince(anyLong(), anyInt())).thenThrow(new java.sql.SQLException("fail"));
         when(storage.queryMoments(any(), anyString(), anyLong(), anyInt())).thenThrow(new java.sql.SQLException("fail"));
 
-        ArgumentCaptor<MomentEntry> captor = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage, times(3)).saveMoment(captor.capture());
-        assertEquals("Fall 10.0", captor.getAllValues().get(0).getTitle());
+        service.writePending();
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(3, saved.size());
+        assertEquals("Fall 10.0", saved.get(0).getTitle());
         assertTrue(service.getMomentsSince(0, 5).isEmpty());
         assertTrue(service.queryMoments(UUID.randomUUID(), "any", 0, 1).isEmpty());
     }
     
+    @Test
+    void notifiesListenersAfterSuccessfulSaves() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.saveMoments(anyList())).thenAnswer(inv -> {
+            List<MomentEntry> batch = inv.getArgument(0);
+            return batch.stream().map(entry -> entry.withId(42)).toList();
+        });
+        MomentDefinition death = new MomentDefinition("death", MomentDefinition.TriggerType.DEATH,
+                "Death", "Died", 0, false, Set.of(), 0, 0, Set.of(), false, Set.of());
+        MomentService service = new MomentService(plugin, storage, settings(List.of(death)));
+
+        List<MomentEntry> received = new java.util.ArrayList<>();
+        service.addListener(received::add);
+        service.addListener(entry -> {
+            throw new IllegalStateException("broken listener");
+        });
+
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        when(player.getName()).thenReturn("Alex");
+        Location loc = mock(Location.class);
+
+        service.onDeath(player, loc, 0, "FIRE", false);
+        assertTrue(received.isEmpty(), "listeners run once the moment is stored");
+        service.writePending();
+        assertEquals(1, received.size());
+        assertEquals("Death", received.get(0).getTitle());
+        assertEquals(42L, received.get(0).getId());
+
+        doThrow(new java.sql.SQLException("fail")).when(storage).saveMoments(anyList());
+        service.onDeath(player, loc, 0, "FIRE", false);
+        service.writePending();
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void retriesFailedWritesAndReleasesFirstOnlyMomentsItGivesUp() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        when(storage.loadMomentTypes(any())).thenReturn(Set.of());
+        MomentDefinition firstDeath = new MomentDefinition("first", MomentDefinition.TriggerType.FIRST_DEATH,
+                "First", "First", 0, true, Set.of(), 0, 0, Set.of(), false, Set.of());
+        MomentService service = new MomentService(plugin, storage, settings(List.of(firstDeath)));
+        List<MomentEntry> received = new java.util.ArrayList<>();
+        service.addListener(received::add);
+
+        Player player = mock(Player.class);
+        UUID uuid = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(player.getName()).thenReturn("Alex");
+        Location loc = mock(Location.class);
+        org.bukkit.scheduler.BukkitScheduler scheduler = mock(org.bukkit.scheduler.BukkitScheduler.class);
+        when(scheduler.runTaskAsynchronously(eq(plugin), any(Runnable.class))).thenAnswer(inv -> {
+            ((Runnable) inv.getArgument(1)).run();
+            return mock(org.bukkit.scheduler.BukkitTask.class);
+        });
+        try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
+            bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
+            service.preloadPlayer(uuid);
+        }
+
+        // One failure: the moment stays queued and goes out with the next write
+        when(storage.saveMoments(anyList()))
+                .thenThrow(new java.sql.SQLException("busy"))
+                .thenAnswer(inv -> ((List<MomentEntry>) inv.getArgument(0)).stream().map(entry -> entry.withId(7)).toList());
+        service.onDeath(player, loc, 0, "LAVA", false);
+        service.writePending();
+        assertTrue(received.isEmpty());
+        assertEquals(1, service.getRecentMoments(10).size());
+        service.writePending();
+        assertEquals(1, received.size());
+        assertEquals(7L, received.get(0).getId());
+
+        // Failing every attempt: the moment is dropped and the first-only definition may fire again
+        UUID other = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(other);
+        doThrow(new java.sql.SQLException("gone")).when(storage).saveMoments(anyList());
+        try (var bukkit = org.mockito.Mockito.mockStatic(org.bukkit.Bukkit.class)) {
+            bukkit.when(org.bukkit.Bukkit::getScheduler).thenReturn(scheduler);
+            service.preloadPlayer(other);
+        }
+        service.onDeath(player, loc, 0, "LAVA", false);
+        for (int i = 0; i < MomentService.MAX_WRITE_ATTEMPTS; i++) {
+            service.writePending();
+        }
+        verify(storage, times(MomentService.MAX_WRITE_ATTEMPTS + 2)).saveMoments(anyList());
+        service.writePending();
+        verify(storage, times(MomentService.MAX_WRITE_ATTEMPTS + 2)).saveMoments(anyList());
+
+        service.onDeath(player, loc, 0, "LAVA", false);
+        service.writePending();
+        verify(storage, times(MomentService.MAX_WRITE_ATTEMPTS + 3)).saveMoments(anyList());
+        assertEquals(1, received.size());
+    }
+
     @Test
     void updateSettingsChangesDefinitions() throws Exception {
         Plugin plugin = mock(Plugin.class);
@@ -213,10 +435,11 @@ class MomentServiceTest {
         when(loc.getBlockZ()).thenReturn(0);
 
         service.onBossKill(player, "ENDER_DRAGON", loc);
+        service.writePending();
 
-        ArgumentCaptor<MomentEntry> captor = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage).saveMoment(captor.capture());
-        assertEquals("Boss Killed", captor.getValue().getTitle());
+        List<MomentEntry> saved = savedMoments(storage);
+        assertEquals(1, saved.size());
+        assertEquals("Boss Killed", saved.get(0).getTitle());
     }
     
     @Test
@@ -245,8 +468,7 @@ class MomentServiceTest {
             service.shutdown(); // flushes window
         }
 
-        ArgumentCaptor<MomentEntry> captor = ArgumentCaptor.forClass(MomentEntry.class);
-        verify(storage).saveMoment(captor.capture());
+        assertEquals(1, savedMoments(storage).size());
     }
     
     @Test
@@ -272,7 +494,7 @@ class MomentServiceTest {
         MomentEntry entry = new MomentEntry(1L, UUID.randomUUID(), "test", 
                 "Title", "Detail", "{}", "world", 0, 64, 0, 
                 System.currentTimeMillis(), System.currentTimeMillis());
-        when(storage.loadRecentMoments(10)).thenReturn(List.of(entry));
+        when(storage.loadRecentMoments(anyInt())).thenReturn(List.of(entry));
 
         Settings settings = settings(List.of());
         MomentService service = new MomentService(plugin, storage, settings);
@@ -305,9 +527,29 @@ class MomentServiceTest {
         service.onItemGain(player, Material.DIAMOND, loc);
         service.onBossKill(player, "ENDER_DRAGON", loc);
 
-        verify(storage, never()).saveMoment(any());
+        service.writePending();
+        verify(storage, never()).saveMoments(anyList());
     }
     
+    @Test
+    void forgetsTheRecentRingOfAPlayerWhoLeft() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        UUID alex = UUID.randomUUID();
+        MomentEntry stored = new MomentEntry(7L, alex, "death", "Death", null, null, "world", 0, 0, 0, 10, 10);
+        when(storage.queryMoments(eq(alex), isNull(), eq(0L), anyInt())).thenReturn(List.of(stored));
+        MomentService service = new MomentService(plugin, storage, settings(List.of()));
+
+        assertEquals(List.of(stored), service.queryMoments(alex, null, 0, 5));
+        assertEquals(List.of(stored), service.queryMoments(alex, null, 0, 5));
+        verify(storage, times(1)).queryMoments(eq(alex), isNull(), eq(0L), anyInt());
+
+        service.forgetPlayer(alex);
+        assertEquals(List.of(stored), service.queryMoments(alex, null, 0, 5));
+        verify(storage, times(2)).queryMoments(eq(alex), isNull(), eq(0L), anyInt());
+    }
+
     @Test
     void startDoesNothingWhenDisabled() throws Exception {
         Plugin plugin = mock(Plugin.class);
@@ -343,7 +585,8 @@ class MomentServiceTest {
         // FALL doesn't match LAVA cause
         service.onDeath(player, loc, 0, "FALL", false);
 
-        verify(storage, never()).saveMoment(any());
+        service.writePending();
+        verify(storage, never()).saveMoments(anyList());
     }
     
     @Test
@@ -368,7 +611,15 @@ class MomentServiceTest {
         // 1 damage to 20 health leaves 19, way above threshold of 2
         service.onDamage(player, 1.0, "LAVA");
 
-        verify(storage, never()).saveMoment(any());
+        service.writePending();
+        verify(storage, never()).saveMoments(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<MomentEntry> savedMoments(StatsStorage storage) throws Exception {
+        ArgumentCaptor<List<MomentEntry>> batches = ArgumentCaptor.forClass(List.class);
+        verify(storage, atLeast(0)).saveMoments(batches.capture());
+        return batches.getAllValues().stream().flatMap(List::stream).toList();
     }
 
     private Settings settings(List<MomentDefinition> defs) {
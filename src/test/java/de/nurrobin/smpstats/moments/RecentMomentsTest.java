@@ -0,0 +1,114 @@
+package de.nurrobin.smpstats.moments;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RecentMomentsTest {
+    private final UUID alex = UUID.randomUUID();
+    private final UUID steve = UUID.randomUUID();
+
+    @Test
+    void answersOnlyAfterSeedingAndWithinWhatTheRingHolds() {
+        RecentMoments recent = new RecentMoments(3, 2, 10);
+        recent.add(moment(null, alex, 50));
+        assertNull(recent.latest(1), "unseeded rings never answer");
+
+        // Storage had more rows than fit, so the ring only knows the newest three
+        recent.seedGlobal(List.of(moment(9L, alex, 40), moment(8L, steve, 30), moment(7L, alex, 20)), 0);
+        assertEquals(List.of(50L, 40L, 30L), starts(recent.latest(3)));
+        assertNull(recent.latest(4));
+
+        assertEquals(List.of(40L, 50L), starts(recent.since(35, 10)));
+        assertNull(recent.since(30, 10), "a row at the ring's oldest start time may have been evicted");
+    }
+
+    @Test
+    void completeRingsAnswerAnyLimitUntilSomethingIsEvicted() {
+        RecentMoments recent = new RecentMoments(3, 2, 10);
+        recent.seedGlobal(List.of(moment(1L, alex, 10)), 0);
+        assertEquals(List.of(10L), starts(recent.latest(100)));
+        assertEquals(List.of(10L), starts(recent.since(0, 100)));
+
+        recent.add(moment(null, alex, 5));  // window moments can start before newer ones
+        recent.add(moment(null, alex, 30));
+        assertEquals(List.of(30L, 10L, 5L), starts(recent.latest(100)));
+
+        recent.add(moment(null, steve, 40));
+        assertEquals(List.of(40L, 30L, 10L), starts(recent.latest(3)));
+        assertNull(recent.latest(4));
+    }
+
+    @Test
+    void playerRingsMergeQueuedAndStoredMomentsWithoutDuplicates() {
+        RecentMoments recent = new RecentMoments(10, 3, 10);
+        MomentEntry queued = moment(null, alex, 30);
+        recent.add(queued);
+        recent.trackPlayer(alex, List.of(queued));
+        assertNull(recent.latestFor(alex, 0, 5));
+
+        // The seed read already saw the queued moment as stored row 5
+        recent.seedPlayer(alex, List.of(moment(5L, alex, 30), moment(4L, alex, 20)), 0);
+        recent.stored(List.of(queued), List.of(queued.withId(5)));
+
+        List<MomentEntry> alexMoments = recent.latestFor(alex, 0, 0);
+        assertEquals(List.of(5L, 4L), alexMoments.stream().map(MomentEntry::getId).toList());
+        assertEquals(List.of(30L), starts(recent.latestFor(alex, 25, 0)));
+        assertNull(recent.latestFor(steve, 0, 5));
+
+        recent.add(moment(null, alex, 40));
+        recent.add(moment(null, alex, 50));
+        assertEquals(List.of(50L, 40L, 30L), starts(recent.latestFor(alex, 0, 3)));
+        assertNull(recent.latestFor(alex, 0, 4), "the oldest moment was evicted");
+    }
+
+    @Test
+    void discardsMomentsThatFailedToStore() {
+        RecentMoments recent = new RecentMoments(10, 10, 10);
+        recent.seedGlobal(List.of(), 0);
+        MomentEntry lost = moment(null, alex, 10);
+        recent.add(lost);
+        recent.discard(List.of(lost));
+        assertEquals(List.of(), recent.latest(5));
+    }
+
+    @Test
+    void removesDeletedMomentsFromEveryRing() {
+        RecentMoments recent = new RecentMoments(10, 10, 10);
+        recent.seedGlobal(List.of(moment(3L, alex, 30), moment(2L, steve, 20), moment(1L, alex, 10)), 0);
+        recent.trackPlayer(alex, List.of());
+        recent.seedPlayer(alex, List.of(moment(3L, alex, 30), moment(1L, alex, 10)), 0);
+
+        recent.removeStored(Set.of(1L, 2L));
+
+        assertEquals(List.of(30L), starts(recent.latest(5)));
+        assertEquals(List.of(30L), starts(recent.latestFor(alex, 0, 0)));
+    }
+
+    @Test
+    void skipsSeedsReadBeforeADeletion() {
+        RecentMoments recent = new RecentMoments(10, 10, 10);
+        long removals = recent.removals();
+        recent.trackPlayer(alex, List.of());
+        recent.removeStored(Set.of(1L));
+
+        recent.seedGlobal(List.of(moment(1L, alex, 10)), removals);
+        recent.seedPlayer(alex, List.of(moment(1L, alex, 10)), removals);
+
+        assertNull(recent.latest(1));
+        assertNull(recent.latestFor(alex, 0, 1));
+    }
+
+    private static MomentEntry moment(Long id, UUID player, long startedAt) {
+        return new MomentEntry(id, player, "type", "Title", null, null, "world", 0, 0, 0, startedAt, startedAt);
+    }
+
+    private static List<Long> starts(List<MomentEntry> entries) {
+        return entries.stream().map(MomentEntry::getStartedAt).toList();
+    }
+}
@@ -0,0 +1,178 @@
+package de.nurrobin.smpstats.retention;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.nurrobin.smpstats.Settings;
+import de.nurrobin.smpstats.database.HistoryTable;
+import de.nurrobin.smpstats.database.StatsStorage;
+import de.nurrobin.smpstats.moments.MomentEntry;
+import de.nurrobin.smpstats.moments.MomentService;
+import de.nurrobin.smpstats.timeline.DeathReplayEntry;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class RetentionServiceTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path tempDir;
+
+    private Plugin plugin;
+    private StatsStorage storage;
+    private Settings settings;
+    private final UUID alex = UUID.randomUUID();
+    private final UUID bea = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        plugin = mock(Plugin.class);
+        when(plugin.getDataFolder()).thenReturn(tempDir.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        Server server = mock(Server.class);
+        when(server.getOnlinePlayers()).thenReturn(List.of());
+        when(plugin.getServer()).thenReturn(server);
+        storage = new StatsStorage(plugin);
+        storage.init();
+        settings = mock(Settings.class);
+    }
+
+    @Test
+    void prunesByAgeAndPerPlayerCountInSmallBatches() throws Exception {
+        long now = System.currentTimeMillis();
+        List<MomentEntry> moments = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            long startedAt = now - (10 - i) * DAY;  // 10 days old down to 4 days old
+            moments.add(moment(alex, "A" + i, startedAt));
+        }
+        moments.add(moment(bea, "B", now - 40 * DAY));
+        storage.saveMoments(moments);
+        retention(new Settings.RetentionPolicy(30, 0, 3), Settings.RetentionPolicy.keepAll(), false, 2);
+
+        RetentionService service = new RetentionService(plugin, storage, settings);
+        service.prune();
+
+        List<String> left = storage.loadRecentMoments(20).stream().map(MomentEntry::getTitle).toList();
+        assertEquals(List.of("A6", "A5", "A4"), left);
+        assertFalse(Files.exists(tempDir.resolve("archive")));
+    }
+
+    @Test
+    void archivesPrunedRowsAsGzipNdjsonBeforeDeletingThem() throws Exception {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            storage.saveDeathReplay(new DeathReplayEntry(now - i, alex.toString(), "Alex", "CAUSE" + i, 0, "world", 0, 0, 0, 0,
+                    List.of(), List.of(), List.of("DIRTx1")));
+        }
+        retention(Settings.RetentionPolicy.keepAll(), new Settings.RetentionPolicy(0, 2, 0), true, 2);
+
+        RetentionService service = new RetentionService(plugin, storage, settings);
+        int pruned = service.pruneTable(HistoryTable.DEATH_REPLAYS, settings.getRetentionSettings().deathReplays(),
+                settings.getRetentionSettings());
+        // A second pass with nothing left to prune must not touch the archive
+        service.prune();
+
+        assertEquals(3, pruned);
+        assertEquals(List.of("CAUSE0", "CAUSE1"), storage.loadDeathReplays(10).stream().map(DeathReplayEntry::cause).toList());
+
+        Path file = new HistoryArchive(tempDir.resolve("archive")).fileFor(HistoryTable.DEATH_REPLAYS, LocalDate.now());
+        List<String> causes = new ArrayList<>();
+        // Two batches were appended as two gzip members; GZIPInputStream reads them as one stream
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+                assertTrue(json.get("id").getAsLong() > 0);
+                causes.add(json.getAsJsonObject("row").get("cause").getAsString());
+            }
+        }
+        assertEquals(3, causes.size());
+        assertTrue(causes.containsAll(List.of("CAUSE2", "CAUSE3", "CAUSE4")));
+    }
+
+    @Test
+    void leavesTablesAloneWithoutActivePolicies() throws Exception {
+        storage.saveMoments(List.of(moment(alex, "Old", 1)));
+        retention(Settings.RetentionPolicy.keepAll(), Settings.RetentionPolicy.keepAll(), true, 10);
+
+        new RetentionService(plugin, storage, settings).prune();
+
+        assertEquals(1, storage.loadRecentMoments(10).size());
+    }
+
+    @Test
+    void tellsTheMomentServiceWhichMomentsWerePruned() throws Exception {
+        long now = System.currentTimeMillis();
+        storage.saveMoments(List.of(moment(alex, "Old", now - 40 * DAY), moment(alex, "New", now)));
+        List<Long> oldIds = storage.loadRecentMoments(10).stream()
+                .filter(entry -> entry.getTitle().equals("Old")).map(MomentEntry::getId).toList();
+        retention(new Settings.RetentionPolicy(30, 0, 0), Settings.RetentionPolicy.keepAll(), false, 10);
+        MomentService momentService = mock(MomentService.class);
+
+        new RetentionService(plugin, storage, settings, momentService).prune();
+
+        verify(momentService).forgetStoredMoments(oldIds);
+        verifyNoMoreInteractions(momentService);
+    }
+
+    @Test
+    void mergesHourlyTimelineBucketsOlderThanTheWindowIntoDays() throws Exception {
+        LocalDate today = LocalDate.now();
+        de.nurrobin.smpstats.StatsRecord record = new de.nurrobin.smpstats.StatsRecord(alex, "Alex");
+        storage.upsertTimeline(record, today);
+        record.setMobKills(3);
+        storage.upsertTimeline(record, today);
+        record.setMobKills(5);
+        storage.upsertTimeline(record, today);
+        // Move today's bucket forty days back, as if it had been written then
+        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:sqlite:" + tempDir.resolve("stats.db").toAbsolutePath());
+             java.sql.Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE timeline_hourly SET hour = hour - 960");
+            st.executeUpdate("UPDATE timeline_hourly_server SET hour = hour - 960");
+        }
+        when(settings.getRetentionSettings()).thenReturn(new Settings.RetentionSettings(true, 60, 10, false,
+                Settings.RetentionPolicy.keepAll(), Settings.RetentionPolicy.keepAll(), 14));
+
+        RetentionService service = new RetentionService(plugin, storage, settings);
+        assertEquals(1, service.downsampleTimelineHourly(settings.getRetentionSettings()));
+        assertEquals(0, service.downsampleTimelineHourly(settings.getRetentionSettings()));
+
+        long hour = System.currentTimeMillis() / 3_600_000L - 960;
+        List<java.util.Map<String, Object>> days = storage.loadTimelineHourly(alex, hour, hour);
+        assertEquals(1, days.size());
+        assertEquals(24, days.get(0).get("hours"));
+        assertEquals(5L, days.get(0).get("mob_kills"));
+        assertEquals(1, storage.loadTimelineHourly(null, hour, hour).get(0).get("players"));
+    }
+
+    private void retention(Settings.RetentionPolicy moments, Settings.RetentionPolicy deaths, boolean archive, int batchSize) {
+        when(settings.getRetentionSettings()).thenReturn(new Settings.RetentionSettings(true, 60, batchSize, archive, moments, deaths, 0));
+    }
+
+    private static MomentEntry moment(UUID player, String title, long startedAt) {
+        return new MomentEntry(null, player, "FALL", title, null, null, "world", 0, 0, 0, startedAt, startedAt);
+    }
+}
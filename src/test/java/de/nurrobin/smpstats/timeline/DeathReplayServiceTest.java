@@ -59,9 +59,17 @@ class DeathReplayServiceTest {
 
         service.capture(player, "FALL", 3.0);
         service.capture(player, "FALL", 4.0); // should evict oldest because limit=1
+        verifyNoInteractions(storage);
 
-        verify(storage, times(2)).saveDeathReplay(any());
+        service.writePending();
+
+        ArgumentCaptor<List<DeathReplayEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storage).saveDeathReplays(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(List.of("Bea"), captor.getValue().get(0).nearbyPlayers());
+        assertEquals(List.of("ZOMBIE"), captor.getValue().get(0).nearbyMobs());
         assertEquals(1, service.recent(5).size());
+        assertEquals(4.0, service.recent(5).get(0).fallDistance());
     }
 
     @Test
@@ -79,8 +87,9 @@ class DeathReplayServiceTest {
         when(player.getWorld()).thenReturn(mock(World.class));
 
         service.capture(player, "VOID", 0);
+        service.writePending();
 
-        verify(storage, never()).saveDeathReplay(any());
+        verify(storage, never()).saveDeathReplays(any());
         assertTrue(service.recent(1).isEmpty());
     }
 
@@ -124,12 +133,46 @@ class DeathReplayServiceTest {
         when(player.getInventory()).thenReturn(inv);
 
         service.capture(player, "VOID", 2.5);
+        service.writePending();
 
-        ArgumentCaptor<DeathReplayEntry> captor = ArgumentCaptor.forClass(DeathReplayEntry.class);
-        verify(storage).saveDeathReplay(captor.capture());
+        ArgumentCaptor<List<DeathReplayEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storage).saveDeathReplays(captor.capture());
 
-        List<String> inventory = captor.getValue().inventory();
+        List<String> inventory = captor.getValue().get(0).inventory();
         assertTrue(inventory.contains("DIAMONDx2"));
         assertTrue(inventory.contains("COOKED_BEEFx3"));
+        assertEquals(2, inventory.size());
+    }
+
+    @Test
+    void boundsTheNearbyLookupAndKeepsOnlyTheFirstEntities() throws Exception {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("test"));
+        StatsStorage storage = mock(StatsStorage.class);
+        Settings settings = mock(Settings.class);
+        when(settings.isDeathReplayEnabled()).thenReturn(true);
+        when(settings.getDeathReplayNearbyRadius()).thenReturn(500);
+        when(settings.getDeathReplayLimit()).thenReturn(5);
+
+        DeathReplayService service = new DeathReplayService(plugin, storage, settings);
+
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        when(player.getName()).thenReturn("Alex");
+        World world = mock(World.class);
+        when(player.getLocation()).thenReturn(new Location(world, 0, 64, 0));
+        when(player.getWorld()).thenReturn(world);
+        LivingEntity mob = mock(LivingEntity.class);
+        when(mob.getType()).thenReturn(org.bukkit.entity.EntityType.SKELETON);
+        List<Entity> horde = java.util.Collections.nCopies(100, mob);
+        when(world.getNearbyEntities(any(), anyDouble(), anyDouble(), anyDouble())).thenReturn(horde);
+
+        service.capture(player, "ENTITY_ATTACK", 0);
+        service.writePending();
+
+        verify(world).getNearbyEntities(any(), eq(32.0), eq(32.0), eq(32.0));
+        ArgumentCaptor<List<DeathReplayEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storage).saveDeathReplays(captor.capture());
+        assertEquals(32, captor.getValue().get(0).nearbyMobs().size());
     }
 }
@@ -6,9 +6,13 @@ import de.nurrobin.smpstats.database.StatsStorage;
 import org.bukkit.plugin.Plugin;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 class TimelineServiceTest {
@@ -40,6 +44,17 @@ class TimelineServiceTest {
         verify(storage).upsertTimeline(any(), any());
     }
 
+    @Test
+    void offersTodayAsSnapshotDayOnlyWhenEnabled() {
+        Settings settings = mock(Settings.class);
+        TimelineService service = new TimelineService(mock(Plugin.class), mock(StatsStorage.class), settings);
+
+        when(settings.isTimelineEnabled()).thenReturn(false);
+        assertEquals(Optional.empty(), service.snapshotDay());
+        when(settings.isTimelineEnabled()).thenReturn(true);
+        assertEquals(Optional.of(LocalDate.now(ZoneId.systemDefault())), service.snapshotDay());
+    }
+
     @Test
     void logsWarningWhenStorageFails() throws Exception {
         Plugin plugin = mock(Plugin.class);